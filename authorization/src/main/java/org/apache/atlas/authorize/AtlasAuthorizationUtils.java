@@ -145,6 +145,61 @@ public class AtlasAuthorizationUtils {
         return ret;
     }
 
+    /**
+     * Verifies access for a batch of entity operations, with a single call to the authorizer.
+     * @param operation description of the operation for the error message, like "create entity"
+     */
+    public static void verifyAccess(List<AtlasEntityAccessRequest> requests, String operation) throws AtlasBaseException {
+        boolean[] isAllowed = isAccessAllowed(requests);
+
+        for (int i = 0; i < isAllowed.length; i++) {
+            if (!isAllowed[i]) {
+                AtlasEntityAccessRequest request = requests.get(i);
+                StringBuilder            message = new StringBuilder(operation);
+
+                message.append(": guid=").append(request.getEntity() != null ? request.getEntity().getGuid() : null);
+                message.append(", type=").append(request.getEntityType());
+
+                if (request.getClassification() != null) {
+                    message.append(", classification=").append(request.getClassification().getTypeName());
+                }
+
+                throw new AtlasBaseException(AtlasErrorCode.UNAUTHORIZED_ACCESS, request.getUser(), message.toString());
+            }
+        }
+    }
+
+    public static boolean[] isAccessAllowed(List<AtlasEntityAccessRequest> requests) {
+        MetricRecorder metric = RequestContext.get().startMetricRecord("isAccessAllowed");
+
+        boolean[] ret      = new boolean[requests.size()];
+        String    userName = getCurrentUserName();
+
+        if (StringUtils.isNotEmpty(userName) && !RequestContext.get().isImportInProgress()) {
+            try {
+                AtlasAuthorizer authorizer = AtlasAuthorizerFactory.getAtlasAuthorizer();
+                Set<String>     userGroups = getCurrentUserGroups();
+
+                for (AtlasEntityAccessRequest request : requests) {
+                    request.setUser(userName, userGroups);
+                    request.setClientIPAddress(RequestContext.get().getClientIPAddress());
+                    request.setForwardedAddresses(RequestContext.get().getForwardedAddresses());
+                    request.setRemoteIPAddress(RequestContext.get().getClientIPAddress());
+                }
+
+                ret = authorizer.isAccessAllowed(requests);
+            } catch (AtlasAuthorizationException e) {
+                LOG.error("Unable to obtain AtlasAuthorizer", e);
+            }
+        } else {
+            Arrays.fill(ret, true);
+        }
+
+        RequestContext.get().endMetricRecord(metric);
+
+        return ret;
+    }
+
     public static boolean isAccessAllowed(AtlasTypeAccessRequest request) {
         MetricRecorder metric = RequestContext.get().startMetricRecord("isAccessAllowed");
 
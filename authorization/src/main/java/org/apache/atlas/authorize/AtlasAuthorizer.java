@@ -21,6 +21,8 @@ package org.apache.atlas.authorize;
 
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 
+import java.util.List;
+
 public interface AtlasAuthorizer {
     /**
      * initialization of authorizer implementation
@@ -48,6 +50,24 @@ public interface AtlasAuthorizer {
      */
     boolean isAccessAllowed(AtlasEntityAccessRequest request) throws AtlasAuthorizationException;
 
+    /**
+     * authorize operations on a batch of entities. Implementations can override this to evaluate the batch in one pass,
+     * for example to evaluate requests that differ only in entity details not used by the policies only once
+     * @param requests
+     * @return for each request, in the same order, whether the operation is allowed
+     * @throws AtlasAuthorizationException
+     */
+    default
+    boolean[] isAccessAllowed(List<AtlasEntityAccessRequest> requests) throws AtlasAuthorizationException {
+        boolean[] ret = new boolean[requests.size()];
+
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = isAccessAllowed(requests.get(i));
+        }
+
+        return ret;
+    }
+
     /**
      * authorize operations on a type
      * @param request
@@ -33,6 +33,7 @@ public enum AtlasPrivilege {
 
      ADMIN_EXPORT("admin-export"),
      ADMIN_IMPORT("admin-import"),
+     ADMIN_TASKS("admin-tasks"),
 
      RELATIONSHIP_ADD("add-relationship"),
      RELATIONSHIP_UPDATE("update-relationship"),
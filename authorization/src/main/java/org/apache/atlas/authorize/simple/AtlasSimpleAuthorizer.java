@@ -20,9 +20,12 @@ package org.apache.atlas.authorize.simple;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.atlas.ApplicationProperties;
@@ -312,6 +315,42 @@ public final class AtlasSimpleAuthorizer implements AtlasAuthorizer {
         }
     }
 
+    /**
+     * Requests are evaluated once per distinct (user, action, entity-type, classifications, ...); entity-id is ignored
+     * when policies for the user allow all entity-ids, which is common.
+     */
+    @Override
+    public boolean[] isAccessAllowed(List<AtlasEntityAccessRequest> requests) throws AtlasAuthorizationException {
+        boolean[]                  ret                  = new boolean[requests.size()];
+        Map<List<Object>, Boolean> results              = new HashMap<>();
+        Map<List<Object>, Boolean> isEntityIdRestricted = new HashMap<>();
+
+        for (int i = 0; i < ret.length; i++) {
+            AtlasEntityAccessRequest request          = requests.get(i);
+            List<Object>             userKey          = Arrays.asList(request.getUser(), request.getUserGroups());
+            boolean                  isEntityIdNeeded = isEntityIdRestricted.computeIfAbsent(userKey, k -> isEntityIdRestricted(request.getUser(), request.getUserGroups()));
+            Object                   entityIdKey      = isEntityIdNeeded ? request.getEntityId() : Boolean.valueOf(request.getEntityId() == null);
+            List<Object>             requestKey       = Arrays.asList(userKey, request.getAction(), request.getEntityType(), entityIdKey,
+                                                                      request.getClassification() != null ? request.getClassification().getTypeName() : null,
+                                                                      request.getAttributeName(), request.getEntityClassifications());
+            Boolean                  isAllowed        = results.get(requestKey);
+
+            if (isAllowed == null) {
+                isAllowed = isAccessAllowed(request);
+
+                results.put(requestKey, isAllowed);
+            }
+
+            ret[i] = isAllowed;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("SimpleAtlasAuthorizer.isAccessAllowed(): evaluated {} of {} requests", results.size(), requests.size());
+        }
+
+        return ret;
+    }
+
     private Set<String> getRoles(String userName, Set<String> userGroups) {
         Set<String> ret = new HashSet<>();
 
@@ -391,6 +430,23 @@ public final class AtlasSimpleAuthorizer implements AtlasAuthorizer {
         return ret;
     }
 
+    // true if an entity-permission for the user allows only specific entity-ids
+    private boolean isEntityIdRestricted(String userName, Set<String> userGroups) {
+        for (String role : getRoles(userName, userGroups)) {
+            List<AtlasEntityPermission> permissions = getEntityPermissionsForRole(role);
+
+            if (permissions != null) {
+                for (AtlasEntityPermission permission : permissions) {
+                    if (permission.getEntityIds() == null || !permission.getEntityIds().contains(".*")) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
     private boolean isMatch(String value, List<String> patterns) {
         boolean ret = false;
 
@@ -24,7 +24,9 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.testng.AssertJUnit;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 public class AtlasSimpleAuthorizerTest {
     private static Logger LOG = LoggerFactory.getLogger(AtlasSimpleAuthorizerTest.class);
@@ -104,4 +106,34 @@ public class AtlasSimpleAuthorizerTest {
             AssertJUnit.fail();
         }
     }
+
+    @Test(enabled = true)
+    public void testBatchAccess() {
+        try {
+            List<AtlasEntityAccessRequest> requests = new ArrayList<>();
+
+            for (String userName : new String[] { "admin", "nonmappeduser", "admin", "nonmappeduser" }) {
+                AtlasEntityAccessRequest request = new AtlasEntityAccessRequest(null, AtlasPrivilege.ENTITY_UPDATE);
+
+                request.setUser(userName, Collections.singleton(userName.equals("admin") ? "ROLE_ADMIN" : "GROUP-NOT-IN-POLICYFILE"));
+
+                requests.add(request);
+            }
+
+            boolean[] isAccessAllowed = authorizer.isAccessAllowed(requests);
+
+            AssertJUnit.assertEquals(4, isAccessAllowed.length);
+
+            for (int i = 0; i < isAccessAllowed.length; i++) {
+                AssertJUnit.assertEquals(authorizer.isAccessAllowed(requests.get(i)), isAccessAllowed[i]);
+            }
+
+            AssertJUnit.assertEquals(true, isAccessAllowed[0]);
+            AssertJUnit.assertEquals(false, isAccessAllowed[1]);
+        } catch (AtlasAuthorizationException e) {
+            LOG.error("Exception in AtlasSimpleAuthorizerTest", e);
+
+            AssertJUnit.fail();
+        }
+    }
 }
@@ -45,12 +45,42 @@ public enum AtlasConfiguration {
 
     NOTIFICATION_MESSAGE_MAX_LENGTH_BYTES("atlas.notification.message.max.length.bytes", (1000 * 1000)),
     NOTIFICATION_MESSAGE_COMPRESSION_ENABLED("atlas.notification.message.compression.enabled", true),
+    NOTIFICATION_MESSAGE_BINARY_ENVELOPE_ENABLED("atlas.notification.message.binary.envelope.enabled", false), // applies to ATLAS_HOOK only; requires consumers with bytes deserialization enabled
     NOTIFICATION_SPLIT_MESSAGE_SEGMENTS_WAIT_TIME_SECONDS("atlas.notification.split.message.segments.wait.time.seconds", 15 * 60),
     NOTIFICATION_SPLIT_MESSAGE_BUFFER_PURGE_INTERVAL_SECONDS("atlas.notification.split.message.buffer.purge.interval.seconds", 5 * 60),
+    NOTIFICATION_SPLIT_MESSAGE_BUFFER_MAX_HEAP_BYTES("atlas.notification.split.message.buffer.max.heap.bytes", -1), // splits beyond this size are spilled to disk; -1: no limit
+    NOTIFICATION_SPLIT_MESSAGE_SPILL_DIRECTORY("atlas.notification.split.message.spill.directory", ""), // default: java.io.tmpdir
+    NOTIFICATION_CONSUMER_OFFSET_COMMIT_BATCH_SIZE("atlas.notification.consumer.offset.commit.batch.size", 1), // > 1: commit offsets asynchronously, in batches
+    NOTIFICATION_CONSUMER_OFFSET_COMMIT_INTERVAL_MS("atlas.notification.consumer.offset.commit.interval.ms", 1000),
+    NOTIFICATION_CONSUMER_BYTES_DESERIALIZATION_ENABLED("atlas.notification.consumer.bytes.deserialization.enabled", false), // parse notifications directly from Kafka record bytes
 
     NOTIFICATION_CREATE_SHELL_ENTITY_FOR_NON_EXISTING_REF("atlas.notification.consumer.create.shell.entity.for.non-existing.ref", true),
     REST_API_CREATE_SHELL_ENTITY_FOR_NON_EXISTING_REF("atlas.rest.create.shell.entity.for.non-existing.ref", false),
 
+    ENTITY_VERTEX_ID_CACHE_SIZE("atlas.entity.vertex.id.cache.size", 100000), // max entries in guid/unique-attribute to vertex-id cache; 0: disable the cache
+    ENTITY_RESOLVER_UNIQUE_ATTRIBUTE_BATCH_SIZE("atlas.entity.resolver.unique.attribute.batch.size", 100), // max values per query when resolving references by unique attributes; <= 1: one query per reference
+    ENTITY_CONTENT_HASH_ENABLED("atlas.entity.content.hash.enabled", true), // store hash of entity attributes, to detect unchanged entities in updates without reading attributes from the graph
+    ENTITY_PARALLEL_PROCESSING_THREADS("atlas.entity.parallel.processing.threads", 0), // threads to validate/normalize entities in large requests; 0: number of processors, 1: disable
+    ENTITY_PARALLEL_PROCESSING_MIN_ENTITIES("atlas.entity.parallel.processing.min.entities", 1000), // requests with fewer entities are processed in the request thread
+    ENTITY_BULK_INGEST_CHUNK_SIZE("atlas.entity.bulk.ingest.chunk.size", 1000), // default number of entities committed per transaction in bulk-ingest jobs
+    ENTITY_BULK_INGEST_THREADS("atlas.entity.bulk.ingest.threads", 1), // number of bulk-ingest jobs run concurrently; others are queued
+    ENTITY_BULK_INGEST_MAX_JOBS("atlas.entity.bulk.ingest.max.jobs", 100), // max bulk-ingest jobs tracked; oldest completed jobs are removed beyond this. New jobs are rejected when all tracked jobs are queued, running or failed
+    ENTITY_BULK_INGEST_JOB_TTL_MS("atlas.entity.bulk.ingest.job.ttl.ms", 86400000), // completed and failed bulk-ingest jobs are removed this long after they end; failed jobs can't be resumed after that
+
+    TASKS_ENABLED("atlas.tasks.enabled", false), // propagate classifications in background tasks, instead of in the request that adds/updates/removes the classification. Propagation errors, like exceeding atlas.tag.propagation.max.impacted.entities, then fail the task instead of the request
+    TASKS_THREADS("atlas.tasks.threads", 2), // number of tasks run concurrently; tasks for the same classification are run one after another
+    TASKS_MAX_ATTEMPTS("atlas.tasks.max.attempts", 3), // attempts to run a task before marking it as failed
+    TASKS_RETRY_DELAY_MS("atlas.tasks.retry.delay.ms", 5000), // delay before the next attempt of a failed task; doubled after each attempt
+    TASKS_COMPLETED_RETENTION_MS("atlas.tasks.completed.retention.ms", 604800000), // completed tasks are deleted this long after they end; failed tasks are retained. 0: retain completed tasks
+    TASKS_PROPAGATION_CHUNK_SIZE("atlas.tasks.propagation.chunk.size", 1000), // number of entities whose propagated classification is updated per transaction
+    TASKS_PROPAGATION_THREADS("atlas.tasks.propagation.threads", 4), // number of chunks of a propagation task applied concurrently, each in its own transaction; 1 to apply chunks one after another
+    TAG_PROPAGATION_MAX_IMPACTED_ENTITIES("atlas.tag.propagation.max.impacted.entities", 1000000), // max entities a classification can be propagated to; adding propagation beyond this fails, removing it does not. 0: no limit
+    TAG_PROPAGATION_CACHE_SIZE("atlas.tag.propagation.cache.size", 250000), // max entities whose propagating relationships are cached, to find entities impacted by propagation without walking the graph; 0: disable the cache
+    TAG_PROPAGATION_CACHE_MAX_CLOSURES("atlas.tag.propagation.cache.max.closures", 100), // max entities whose impacted entities are cached, in addition to their relationships
+    TAG_PROPAGATION_IMPACT_MAX_ENTITIES("atlas.tag.propagation.impact.max.entities", 100000), // max entities counted when estimating impact of propagation; a request can ask for fewer
+    TAG_PROPAGATION_IMPACT_TIMEOUT_MS("atlas.tag.propagation.impact.timeout.ms", 10000), // max time spent counting entities when estimating impact of propagation; a request can ask for less
+    TAG_PROPAGATION_IMPACT_MAX_SAMPLE_SIZE("atlas.tag.propagation.impact.max.sample.size", 100), // max impacted entities returned as sample in propagation impact estimate
+
     GRAPHSTORE_INDEXED_STRING_SAFE_LENGTH("atlas.graphstore.indexed.string.safe.length", Short.MAX_VALUE),  // based on org.apache.hadoop.hbase.client.Mutation.checkRow()
 
     RELATIONSHIP_WARN_NO_RELATIONSHIPS("atlas.relationships.warnOnNoRelationships", false),
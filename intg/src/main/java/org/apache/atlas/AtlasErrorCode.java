@@ -160,6 +160,7 @@ public enum AtlasErrorCode {
     INVALID_CUSTOM_ATTRIBUTE_VALUE(400, "ATLAS-400-00-9A", "Invalid value: {0} in custom attribute, value length is greater than {1}"),
     INVALID_LABEL_LENGTH(400, "ATLAS-400-00-9B", "Invalid label: {0}, label size should not be greater than {1}"),
     INVALID_LABEL_CHARACTERS(400, "ATLAS-400-00-9C", "Invalid label: {0}, label should contain alphanumeric characters, '_' or '-'"),
+    TAG_PROPAGATION_LIMIT_EXCEEDED(400, "ATLAS-400-00-9D", "Propagation of classifications from entity {0} impacts more than {1} entities"),
 
     UNAUTHORIZED_ACCESS(403, "ATLAS-403-00-001", "{0} is not authorized to perform {1}"),
 
@@ -183,6 +184,8 @@ public enum AtlasErrorCode {
     INVALID_LINEAGE_ENTITY_TYPE(404, "ATLAS-404-00-011", "Given instance guid {0} with type {1} is not a valid lineage entity type."),
     INSTANCE_GUID_DELETED(404, "ATLAS-404-00-012", "Given instance guid {0} has been deleted"),
     NO_PROPAGATED_CLASSIFICATIONS_FOUND_FOR_ENTITY(404, "ATLAS-404-00-013", "No propagated classifications associated with entity: {0}"),
+    BULK_INGEST_JOB_NOT_FOUND(404, "ATLAS-404-00-014", "bulk ingest job {0} not found"),
+    TASK_NOT_FOUND(404, "ATLAS-404-00-015", "task {0} not found"),
 
     // All data conflict errors go here
     TYPE_ALREADY_EXISTS(409, "ATLAS-409-00-001", "Given type {0} already exists"),
@@ -194,6 +197,12 @@ public enum AtlasErrorCode {
     GLOSSARY_ALREADY_EXISTS(409, "ATLAS-409-00-007", "Glossary with qualifiedName {0} already exists"),
     GLOSSARY_TERM_ALREADY_EXISTS(409, "ATLAS-409-00-009", "Glossary term with qualifiedName {0} already exists"),
     GLOSSARY_CATEGORY_ALREADY_EXISTS(409, "ATLAS-409-00-00A", "Glossary category with qualifiedName {0} already exists"),
+    BULK_INGEST_JOB_NOT_RESUMABLE(409, "ATLAS-409-00-00B", "bulk ingest job {0} can't be resumed in status {1}"),
+    BULK_INGEST_TOO_MANY_JOBS(409, "ATLAS-409-00-00C", "{0} bulk ingest jobs are queued, in progress or failed. Please try again later"),
+    TASK_NOT_RETRYABLE(409, "ATLAS-409-00-00D", "task {0} can't be retried in status {1}"),
+
+    // All precondition failures go here
+    ENTITY_MODIFIED(412, "ATLAS-412-00-001", "entity {0} has been modified: expected version {1}, current version {2}"),
 
     // All internal errors go here
     INTERNAL_ERROR(500, "ATLAS-500-00-001", "Internal server error {0}"),
@@ -0,0 +1,368 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.model.instance;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.NONE;
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.PUBLIC_ONLY;
+
+
+/**
+ * Progress of a bulk-ingest job, in which entities are created/updated in multiple chunks, each in its own transaction.
+ */
+@JsonAutoDetect(getterVisibility=PUBLIC_ONLY, setterVisibility=PUBLIC_ONLY, fieldVisibility=NONE)
+@JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown=true)
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.PROPERTY)
+public class AtlasBulkIngestJob implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum JobStatus { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    public enum ChunkStatus { PENDING, COMMITTED, FAILED }
+
+    private String              jobId;
+    private JobStatus           status;
+    private String              userName;
+    private int                 chunkSize;
+    private int                 totalEntities;
+    private int                 processedEntities;
+    private int                 totalChunks;
+    private int                 committedChunks;
+    private long                createTime;
+    private long                startTime;
+    private long                endTime;
+    private String              errorMessage;
+    private Map<String, String> guidAssignments;
+    private List<ChunkResult>   chunkResults;
+
+
+    public AtlasBulkIngestJob() {
+    }
+
+    public AtlasBulkIngestJob(AtlasBulkIngestJob other) {
+        this(other, true);
+    }
+
+    public AtlasBulkIngestJob(AtlasBulkIngestJob other, boolean includeGuidAssignments) {
+        if (other != null) {
+            this.jobId             = other.jobId;
+            this.status            = other.status;
+            this.userName          = other.userName;
+            this.chunkSize         = other.chunkSize;
+            this.totalEntities     = other.totalEntities;
+            this.processedEntities = other.processedEntities;
+            this.totalChunks       = other.totalChunks;
+            this.committedChunks   = other.committedChunks;
+            this.createTime        = other.createTime;
+            this.startTime         = other.startTime;
+            this.endTime           = other.endTime;
+            this.errorMessage      = other.errorMessage;
+            this.guidAssignments   = includeGuidAssignments && other.guidAssignments != null ? new LinkedHashMap<>(other.guidAssignments) : null;
+
+            if (other.chunkResults != null) {
+                this.chunkResults = new ArrayList<>(other.chunkResults.size());
+
+                for (ChunkResult chunkResult : other.chunkResults) {
+                    this.chunkResults.add(new ChunkResult(chunkResult));
+                }
+            }
+        }
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getTotalEntities() {
+        return totalEntities;
+    }
+
+    public void setTotalEntities(int totalEntities) {
+        this.totalEntities = totalEntities;
+    }
+
+    public int getProcessedEntities() {
+        return processedEntities;
+    }
+
+    public void setProcessedEntities(int processedEntities) {
+        this.processedEntities = processedEntities;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public void setTotalChunks(int totalChunks) {
+        this.totalChunks = totalChunks;
+    }
+
+    public int getCommittedChunks() {
+        return committedChunks;
+    }
+
+    public void setCommittedChunks(int committedChunks) {
+        this.committedChunks = committedChunks;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(long createTime) {
+        this.createTime = createTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(long endTime) {
+        this.endTime = endTime;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Map<String, String> getGuidAssignments() {
+        return guidAssignments;
+    }
+
+    public void setGuidAssignments(Map<String, String> guidAssignments) {
+        this.guidAssignments = guidAssignments;
+    }
+
+    public List<ChunkResult> getChunkResults() {
+        return chunkResults;
+    }
+
+    public void setChunkResults(List<ChunkResult> chunkResults) {
+        this.chunkResults = chunkResults;
+    }
+
+    public StringBuilder toString(StringBuilder sb) {
+        if (sb == null) {
+            sb = new StringBuilder();
+        }
+
+        sb.append("AtlasBulkIngestJob{");
+        sb.append("jobId=").append(jobId);
+        sb.append(", status=").append(status);
+        sb.append(", userName=").append(userName);
+        sb.append(", chunkSize=").append(chunkSize);
+        sb.append(", totalEntities=").append(totalEntities);
+        sb.append(", processedEntities=").append(processedEntities);
+        sb.append(", totalChunks=").append(totalChunks);
+        sb.append(", committedChunks=").append(committedChunks);
+        sb.append(", createTime=").append(createTime);
+        sb.append(", startTime=").append(startTime);
+        sb.append(", endTime=").append(endTime);
+        sb.append(", errorMessage=").append(errorMessage);
+        sb.append("}");
+
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return toString(new StringBuilder()).toString();
+    }
+
+    @JsonAutoDetect(getterVisibility=PUBLIC_ONLY, setterVisibility=PUBLIC_ONLY, fieldVisibility=NONE)
+    @JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL)
+    @JsonIgnoreProperties(ignoreUnknown=true)
+    @XmlRootElement
+    @XmlAccessorType(XmlAccessType.PROPERTY)
+    public static class ChunkResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private int         chunkIndex;
+        private int         entityCount;
+        private ChunkStatus status = ChunkStatus.PENDING;
+        private int         attemptCount;
+        private int         createdCount;
+        private int         updatedCount;
+        private long        timeTakenMs;
+        private String      errorMessage;
+
+
+        public ChunkResult() {
+        }
+
+        public ChunkResult(int chunkIndex, int entityCount) {
+            this.chunkIndex  = chunkIndex;
+            this.entityCount = entityCount;
+        }
+
+        public ChunkResult(ChunkResult other) {
+            if (other != null) {
+                this.chunkIndex   = other.chunkIndex;
+                this.entityCount  = other.entityCount;
+                this.status       = other.status;
+                this.attemptCount = other.attemptCount;
+                this.createdCount = other.createdCount;
+                this.updatedCount = other.updatedCount;
+                this.timeTakenMs  = other.timeTakenMs;
+                this.errorMessage = other.errorMessage;
+            }
+        }
+
+        public int getChunkIndex() {
+            return chunkIndex;
+        }
+
+        public void setChunkIndex(int chunkIndex) {
+            this.chunkIndex = chunkIndex;
+        }
+
+        public int getEntityCount() {
+            return entityCount;
+        }
+
+        public void setEntityCount(int entityCount) {
+            this.entityCount = entityCount;
+        }
+
+        public ChunkStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(ChunkStatus status) {
+            this.status = status;
+        }
+
+        public int getAttemptCount() {
+            return attemptCount;
+        }
+
+        public void setAttemptCount(int attemptCount) {
+            this.attemptCount = attemptCount;
+        }
+
+        public int getCreatedCount() {
+            return createdCount;
+        }
+
+        public void setCreatedCount(int createdCount) {
+            this.createdCount = createdCount;
+        }
+
+        public int getUpdatedCount() {
+            return updatedCount;
+        }
+
+        public void setUpdatedCount(int updatedCount) {
+            this.updatedCount = updatedCount;
+        }
+
+        public long getTimeTakenMs() {
+            return timeTakenMs;
+        }
+
+        public void setTimeTakenMs(long timeTakenMs) {
+            this.timeTakenMs = timeTakenMs;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+
+        public void setErrorMessage(String errorMessage) {
+            this.errorMessage = errorMessage;
+        }
+
+        public StringBuilder toString(StringBuilder sb) {
+            if (sb == null) {
+                sb = new StringBuilder();
+            }
+
+            sb.append("ChunkResult{");
+            sb.append("chunkIndex=").append(chunkIndex);
+            sb.append(", entityCount=").append(entityCount);
+            sb.append(", status=").append(status);
+            sb.append(", attemptCount=").append(attemptCount);
+            sb.append(", createdCount=").append(createdCount);
+            sb.append(", updatedCount=").append(updatedCount);
+            sb.append(", timeTakenMs=").append(timeTakenMs);
+            sb.append(", errorMessage=").append(errorMessage);
+            sb.append("}");
+
+            return sb;
+        }
+
+        @Override
+        public String toString() {
+            return toString(new StringBuilder()).toString();
+        }
+    }
+}
@@ -95,6 +95,12 @@ public class AtlasEntity extends AtlasStruct implements Serializable {
     private Map<String, String>             customAttributes;
     private Set<String>                     labels;
 
+    // elements to add/remove to/from array and map attributes, without replacing current values of the attributes
+    private Map<String, Object>             appendAttributes;
+    private Map<String, Object>             removeAttributes;
+    private Map<String, Object>             appendRelationshipAttributes;
+    private Map<String, Object>             removeRelationshipAttributes;
+
     @JsonIgnore
     private static AtomicLong s_nextId = new AtomicLong(System.nanoTime());
 
@@ -218,6 +224,10 @@ public class AtlasEntity extends AtlasStruct implements Serializable {
             setMeanings(other.getMeanings());
             setCustomAttributes(other.getCustomAttributes());
             setLabels(other.getLabels());
+            setAppendAttributes(other.getAppendAttributes());
+            setRemoveAttributes(other.getRemoveAttributes());
+            setAppendRelationshipAttributes(other.getAppendRelationshipAttributes());
+            setRemoveRelationshipAttributes(other.getRemoveRelationshipAttributes());
         }
     }
 
@@ -356,6 +366,90 @@ public class AtlasEntity extends AtlasStruct implements Serializable {
         this.labels = labels;
     }
 
+    /**
+     * @return elements to append to array attributes - as a list, and entries to add to map attributes - as a map
+     */
+    public Map<String, Object> getAppendAttributes() {
+        return appendAttributes;
+    }
+
+    public void setAppendAttributes(Map<String, Object> appendAttributes) {
+        this.appendAttributes = appendAttributes;
+    }
+
+    public void setAppendAttribute(String name, Object value) {
+        if (appendAttributes == null) {
+            appendAttributes = new HashMap<>();
+        }
+
+        appendAttributes.put(name, value);
+    }
+
+    /**
+     * @return elements to remove from array attributes, and keys to remove from map attributes - as a list
+     */
+    public Map<String, Object> getRemoveAttributes() {
+        return removeAttributes;
+    }
+
+    public void setRemoveAttributes(Map<String, Object> removeAttributes) {
+        this.removeAttributes = removeAttributes;
+    }
+
+    public void setRemoveAttribute(String name, Object value) {
+        if (removeAttributes == null) {
+            removeAttributes = new HashMap<>();
+        }
+
+        removeAttributes.put(name, value);
+    }
+
+    /**
+     * @return references to add to array relationship-attributes
+     */
+    public Map<String, Object> getAppendRelationshipAttributes() {
+        return appendRelationshipAttributes;
+    }
+
+    public void setAppendRelationshipAttributes(Map<String, Object> appendRelationshipAttributes) {
+        this.appendRelationshipAttributes = appendRelationshipAttributes;
+    }
+
+    public void setAppendRelationshipAttribute(String name, Object value) {
+        if (appendRelationshipAttributes == null) {
+            appendRelationshipAttributes = new HashMap<>();
+        }
+
+        appendRelationshipAttributes.put(name, value);
+    }
+
+    /**
+     * @return references to remove from array relationship-attributes
+     */
+    public Map<String, Object> getRemoveRelationshipAttributes() {
+        return removeRelationshipAttributes;
+    }
+
+    public void setRemoveRelationshipAttributes(Map<String, Object> removeRelationshipAttributes) {
+        this.removeRelationshipAttributes = removeRelationshipAttributes;
+    }
+
+    public void setRemoveRelationshipAttribute(String name, Object value) {
+        if (removeRelationshipAttributes == null) {
+            removeRelationshipAttributes = new HashMap<>();
+        }
+
+        removeRelationshipAttributes.put(name, value);
+    }
+
+    @JsonIgnore
+    public boolean hasCollectionMutations() {
+        return (appendAttributes != null && !appendAttributes.isEmpty()) ||
+               (removeAttributes != null && !removeAttributes.isEmpty()) ||
+               (appendRelationshipAttributes != null && !appendRelationshipAttributes.isEmpty()) ||
+               (removeRelationshipAttributes != null && !removeRelationshipAttributes.isEmpty());
+    }
+
     public List<AtlasClassification> getClassifications() { return classifications; }
 
     public void setClassifications(List<AtlasClassification> classifications) { this.classifications = classifications; }
@@ -445,6 +539,22 @@ public class AtlasEntity extends AtlasStruct implements Serializable {
         sb.append(", labels=[");
         dumpObjects(labels, sb);
         sb.append("]");
+
+        if (hasCollectionMutations()) {
+            sb.append(", appendAttributes=[");
+            dumpObjects(appendAttributes, sb);
+            sb.append("]");
+            sb.append(", removeAttributes=[");
+            dumpObjects(removeAttributes, sb);
+            sb.append("]");
+            sb.append(", appendRelationshipAttributes=[");
+            dumpObjects(appendRelationshipAttributes, sb);
+            sb.append("]");
+            sb.append(", removeRelationshipAttributes=[");
+            dumpObjects(removeRelationshipAttributes, sb);
+            sb.append("]");
+        }
+
         sb.append('}');
 
         return sb;
@@ -471,13 +581,18 @@ public class AtlasEntity extends AtlasStruct implements Serializable {
                 Objects.equals(relationshipAttributes, that.relationshipAttributes) &&
                 Objects.equals(customAttributes, that.customAttributes) &&
                 Objects.equals(labels, that.labels) &&
-                Objects.equals(classifications, that.classifications);
+                Objects.equals(classifications, that.classifications) &&
+                Objects.equals(appendAttributes, that.appendAttributes) &&
+                Objects.equals(removeAttributes, that.removeAttributes) &&
+                Objects.equals(appendRelationshipAttributes, that.appendRelationshipAttributes) &&
+                Objects.equals(removeRelationshipAttributes, that.removeRelationshipAttributes);
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(super.hashCode(), guid, homeId, isProxy, isIncomplete, provenanceType, status, createdBy,
-                updatedBy, createTime, updateTime, version, relationshipAttributes, classifications, customAttributes, labels);
+                updatedBy, createTime, updateTime, version, relationshipAttributes, classifications, customAttributes, labels,
+                appendAttributes, removeAttributes, appendRelationshipAttributes, removeRelationshipAttributes);
     }
 
     @Override
@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.model.instance;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.NONE;
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.PUBLIC_ONLY;
+
+
+/**
+ * Estimate of entities a classification added to an entity would propagate to.
+ */
+@JsonAutoDetect(getterVisibility=PUBLIC_ONLY, setterVisibility=PUBLIC_ONLY, fieldVisibility=NONE)
+@JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown=true)
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.PROPERTY)
+public class AtlasPropagationImpact implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * COMPLETE: all impacted entities were counted; LIMIT_REACHED, TIMED_OUT: counting stopped early - the
+     * classification would propagate to at least impactedCount entities
+     */
+    public enum Status { COMPLETE, LIMIT_REACHED, TIMED_OUT }
+
+    private String                  entityGuid;
+    private String                  classificationName;
+    private Status                  status;
+    private long                    impactedCount;
+    private Map<String, Long>       countByType;
+    private List<AtlasEntityHeader> sample;
+    private long                    timeTakenMs;
+
+
+    public AtlasPropagationImpact() {
+    }
+
+    public AtlasPropagationImpact(String entityGuid, String classificationName) {
+        this.entityGuid         = entityGuid;
+        this.classificationName = classificationName;
+    }
+
+    public String getEntityGuid() {
+        return entityGuid;
+    }
+
+    public void setEntityGuid(String entityGuid) {
+        this.entityGuid = entityGuid;
+    }
+
+    public String getClassificationName() {
+        return classificationName;
+    }
+
+    public void setClassificationName(String classificationName) {
+        this.classificationName = classificationName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getImpactedCount() {
+        return impactedCount;
+    }
+
+    public void setImpactedCount(long impactedCount) {
+        this.impactedCount = impactedCount;
+    }
+
+    public Map<String, Long> getCountByType() {
+        return countByType;
+    }
+
+    public void setCountByType(Map<String, Long> countByType) {
+        this.countByType = countByType;
+    }
+
+    public List<AtlasEntityHeader> getSample() {
+        return sample;
+    }
+
+    public void setSample(List<AtlasEntityHeader> sample) {
+        this.sample = sample;
+    }
+
+    public long getTimeTakenMs() {
+        return timeTakenMs;
+    }
+
+    public void setTimeTakenMs(long timeTakenMs) {
+        this.timeTakenMs = timeTakenMs;
+    }
+
+    public StringBuilder toString(StringBuilder sb) {
+        if (sb == null) {
+            sb = new StringBuilder();
+        }
+
+        sb.append("AtlasPropagationImpact{");
+        sb.append("entityGuid=").append(entityGuid);
+        sb.append(", classificationName=").append(classificationName);
+        sb.append(", status=").append(status);
+        sb.append(", impactedCount=").append(impactedCount);
+        sb.append(", countByType=").append(countByType);
+        sb.append(", sampleSize=").append(sample != null ? sample.size() : 0);
+        sb.append(", timeTakenMs=").append(timeTakenMs);
+        sb.append("}");
+
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return toString(new StringBuilder()).toString();
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.model.tasks;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.NONE;
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.PUBLIC_ONLY;
+
+
+/**
+ * A unit of work persisted in the repository and run in the background, like propagation of a classification.
+ */
+@JsonAutoDetect(getterVisibility=PUBLIC_ONLY, setterVisibility=PUBLIC_ONLY, fieldVisibility=NONE)
+@JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown=true)
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.PROPERTY)
+public class AtlasTask implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Status { PENDING, IN_PROGRESS, COMPLETE, FAILED }
+
+    private String              guid;
+    private String              type;
+    private Status              status;
+    private Map<String, Object> parameters;
+    private String              createdBy;
+    private long                createdTime;
+    private long                updatedTime;
+    private long                startTime;
+    private long                endTime;
+    private int                 attemptCount;
+    private long                totalCount;
+    private long                doneCount;
+    private String              errorMessage;
+
+
+    public AtlasTask() {
+    }
+
+    public AtlasTask(String guid, String type, String createdBy, Map<String, Object> parameters) {
+        this.guid       = guid;
+        this.type       = type;
+        this.status     = Status.PENDING;
+        this.createdBy  = createdBy;
+        this.parameters = parameters;
+    }
+
+    public AtlasTask(AtlasTask other) {
+        if (other != null) {
+            this.guid         = other.guid;
+            this.type         = other.type;
+            this.status       = other.status;
+            this.parameters   = other.parameters != null ? new HashMap<>(other.parameters) : null;
+            this.createdBy    = other.createdBy;
+            this.createdTime  = other.createdTime;
+            this.updatedTime  = other.updatedTime;
+            this.startTime    = other.startTime;
+            this.endTime      = other.endTime;
+            this.attemptCount = other.attemptCount;
+            this.totalCount   = other.totalCount;
+            this.doneCount    = other.doneCount;
+            this.errorMessage = other.errorMessage;
+        }
+    }
+
+    public String getGuid() {
+        return guid;
+    }
+
+    public void setGuid(String guid) {
+        this.guid = guid;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(Map<String, Object> parameters) {
+        this.parameters = parameters;
+    }
+
+    public Object getParameter(String name) {
+        return parameters != null ? parameters.get(name) : null;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public void setCreatedTime(long createdTime) {
+        this.createdTime = createdTime;
+    }
+
+    public long getUpdatedTime() {
+        return updatedTime;
+    }
+
+    public void setUpdatedTime(long updatedTime) {
+        this.updatedTime = updatedTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(long endTime) {
+        this.endTime = endTime;
+    }
+
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    public void setAttemptCount(int attemptCount) {
+        this.attemptCount = attemptCount;
+    }
+
+    /**
+     * @return number of items - like entities to propagate a classification to - to be processed by the task; 0 if not yet known
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public long getDoneCount() {
+        return doneCount;
+    }
+
+    public void setDoneCount(long doneCount) {
+        this.doneCount = doneCount;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public StringBuilder toString(StringBuilder sb) {
+        if (sb == null) {
+            sb = new StringBuilder();
+        }
+
+        sb.append("AtlasTask{");
+        sb.append("guid=").append(guid);
+        sb.append(", type=").append(type);
+        sb.append(", status=").append(status);
+        sb.append(", parameters=").append(parameters);
+        sb.append(", createdBy=").append(createdBy);
+        sb.append(", createdTime=").append(createdTime);
+        sb.append(", updatedTime=").append(updatedTime);
+        sb.append(", startTime=").append(startTime);
+        sb.append(", endTime=").append(endTime);
+        sb.append(", attemptCount=").append(attemptCount);
+        sb.append(", totalCount=").append(totalCount);
+        sb.append(", doneCount=").append(doneCount);
+        sb.append(", errorMessage=").append(errorMessage);
+        sb.append("}");
+
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return toString(new StringBuilder()).toString();
+    }
+}
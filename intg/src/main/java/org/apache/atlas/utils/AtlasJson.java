@@ -171,6 +171,60 @@ public class AtlasJson {
         return ret;
     }
 
+    public static <T> T fromJson(InputStream inputStream, TypeReference<T> type) throws IOException {
+        T ret = null;
+
+        if (inputStream != null) {
+            ret = mapper.readValue(inputStream, type);
+
+            if (ret instanceof Struct) {
+                ((Struct) ret).normalize();
+            }
+        }
+
+        return ret;
+    }
+
+    public static <T> T fromJson(byte[] jsonBytes, Class<T> type) {
+        T ret = null;
+
+        if (jsonBytes != null) {
+            try {
+                ret = mapper.readValue(jsonBytes, type);
+
+                if (ret instanceof Struct) {
+                    ((Struct) ret).normalize();
+                }
+            } catch (IOException e) {
+                LOG.error("AtlasType.fromJson()", e);
+
+                ret = null;
+            }
+        }
+
+        return ret;
+    }
+
+    public static <T> T fromJson(byte[] jsonBytes, TypeReference<T> type) {
+        T ret = null;
+
+        if (jsonBytes != null) {
+            try {
+                ret = mapper.readValue(jsonBytes, type);
+
+                if (ret instanceof Struct) {
+                    ((Struct) ret).normalize();
+                }
+            } catch (IOException e) {
+                LOG.error("AtlasType.fromJson()", e);
+
+                ret = null;
+            }
+        }
+
+        return ret;
+    }
+
     public static String toV1Json(Object obj) {
         return toJson(obj);
     }
@@ -183,6 +237,18 @@ public class AtlasJson {
         return fromJson(jsonStr, type);
     }
 
+    public static <T> T fromV1Json(byte[] jsonBytes, Class<T> type) {
+        return fromJson(jsonBytes, type);
+    }
+
+    public static <T> T fromV1Json(byte[] jsonBytes, TypeReference<T> type) {
+        return fromJson(jsonBytes, type);
+    }
+
+    public static <T> T fromV1Json(InputStream inputStream, TypeReference<T> type) throws IOException {
+        return fromJson(inputStream, type);
+    }
+
     public static String toV1SearchJson(Object obj) {
         String ret;
         try {
@@ -34,6 +34,7 @@ import org.apache.hadoop.util.ShutdownHookManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.security.PrivilegedExceptionAction;
 import java.util.List;
@@ -54,6 +55,12 @@ public abstract class AtlasHook {
     public static final String ATLAS_NOTIFICATION_ASYNCHRONOUS_MAX_THREADS        = "atlas.notification.hook.asynchronous.maxThreads";
     public static final String ATLAS_NOTIFICATION_ASYNCHRONOUS_KEEP_ALIVE_TIME_MS = "atlas.notification.hook.asynchronous.keepAliveTimeMs";
     public static final String ATLAS_NOTIFICATION_ASYNCHRONOUS_QUEUE_SIZE         = "atlas.notification.hook.asynchronous.queueSize";
+    public static final String ATLAS_NOTIFICATION_ASYNCHRONOUS_BATCH_SIZE         = "atlas.notification.hook.asynchronous.batchSize";
+    public static final String ATLAS_NOTIFICATION_SPOOL_ENABLED                   = "atlas.notification.hook.spool.enabled";
+    public static final String ATLAS_NOTIFICATION_SPOOL_DIR                       = "atlas.notification.hook.spool.dir";
+    public static final String ATLAS_NOTIFICATION_SPOOL_SEGMENT_SIZE              = "atlas.notification.hook.spool.segment.size";
+    public static final String ATLAS_NOTIFICATION_SPOOL_MAX_SIZE                  = "atlas.notification.hook.spool.max.size";
+    public static final String ATLAS_NOTIFICATION_SPOOL_MAX_RETRY_INTERVAL        = "atlas.notification.hook.spool.retry.maxInterval";
     public static final String ATLAS_NOTIFICATION_MAX_RETRIES                     = "atlas.notification.hook.retry.maxRetries";
     public static final String ATLAS_NOTIFICATION_RETRY_INTERVAL                  = "atlas.notification.hook.retry.interval";
     public static final String ATLAS_NOTIFICATION_FAILED_MESSAGES_FILENAME_KEY    = "atlas.notification.failed.messages.filename";
@@ -66,13 +73,15 @@ public abstract class AtlasHook {
     protected static Configuration         atlasProperties;
     protected static NotificationInterface notificationInterface;
 
-    private static final String               metadataNamespace;
-    private static final int                  SHUTDOWN_HOOK_WAIT_TIME_MS = 3000;
-    private static final boolean              logFailedMessages;
-    private static final FailedMessagesLogger failedMessagesLogger;
-    private static final int                  notificationMaxRetries;
-    private static final int                  notificationRetryInterval;
-    private static       ExecutorService      executor = null;
+    private static final String                 metadataNamespace;
+    private static final int                    SHUTDOWN_HOOK_WAIT_TIME_MS = 3000;
+    private static final int                    MAX_DEFAULT_SPOOL_DIRS     = 10;
+    private static final boolean                logFailedMessages;
+    private static final FailedMessagesLogger   failedMessagesLogger;
+    private static final int                    notificationMaxRetries;
+    private static final int                    notificationRetryInterval;
+    private static       ExecutorService        executor = null;
+    private static       HookNotificationSender sender   = null;
 
 
     static {
@@ -114,9 +123,34 @@ public abstract class AtlasHook {
 
         notificationInterface.setCurrentUser(currentUser);
 
-        boolean isAsync = atlasProperties.getBoolean(ATLAS_NOTIFICATION_ASYNCHRONOUS, Boolean.TRUE);
+        boolean isAsync        = atlasProperties.getBoolean(ATLAS_NOTIFICATION_ASYNCHRONOUS, Boolean.TRUE);
+        boolean isSpoolEnabled = atlasProperties.getBoolean(ATLAS_NOTIFICATION_SPOOL_ENABLED, Boolean.FALSE);
 
-        if (isAsync) {
+        if (isAsync && isSpoolEnabled) {
+            int    queueSize          = atlasProperties.getInt(ATLAS_NOTIFICATION_ASYNCHRONOUS_QUEUE_SIZE, 10000);
+            int    batchSize          = atlasProperties.getInt(ATLAS_NOTIFICATION_ASYNCHRONOUS_BATCH_SIZE, 100);
+            String spoolDir           = atlasProperties.getString(ATLAS_NOTIFICATION_SPOOL_DIR);
+            int    segmentSize        = atlasProperties.getInt(ATLAS_NOTIFICATION_SPOOL_SEGMENT_SIZE, 16 * 1024 * 1024);
+            long   maxSpoolSize       = atlasProperties.getLong(ATLAS_NOTIFICATION_SPOOL_MAX_SIZE, 1024L * 1024 * 1024);
+            long   maxRetryIntervalMs = atlasProperties.getLong(ATLAS_NOTIFICATION_SPOOL_MAX_RETRY_INTERVAL, 60000);
+
+            HookNotificationSpool spool = openSpool(spoolDir, new File(System.getProperty("java.io.tmpdir"), "atlas_hook_spool_" + System.getProperty("user.name")), segmentSize, maxSpoolSize);
+
+            sender = new HookNotificationSender(notificationInterface, spool, failedMessagesLogger, queueSize, batchSize, notificationRetryInterval, maxRetryIntervalMs);
+
+            sender.start();
+
+            ShutdownHookManager.get().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    LOG.info("==> Shutdown of Atlas Hook");
+
+                    sender.stop(SHUTDOWN_HOOK_WAIT_TIME_MS);
+
+                    LOG.info("<== Shutdown of Atlas Hook");
+                }
+            }, AtlasConstants.ATLAS_SHUTDOWN_HOOK_PRIORITY);
+        } else if (isAsync) {
             int  minThreads      = atlasProperties.getInt(ATLAS_NOTIFICATION_ASYNCHRONOUS_MIN_THREADS, 1);
             int  maxThreads      = atlasProperties.getInt(ATLAS_NOTIFICATION_ASYNCHRONOUS_MAX_THREADS, 1);
             long keepAliveTimeMs = atlasProperties.getLong(ATLAS_NOTIFICATION_ASYNCHRONOUS_KEEP_ALIVE_TIME_MS, 10000);
@@ -157,7 +191,9 @@ public abstract class AtlasHook {
      * @param maxRetries maximum number of retries while sending message to messaging system
      */
     public static void notifyEntities(List<HookNotification> messages, UserGroupInformation ugi, int maxRetries) {
-        if (executor == null) { // send synchronously
+        if (sender != null) {
+            sender.submit(messages, ugi);
+        } else if (executor == null) { // send synchronously
             notifyEntitiesInternal(messages, maxRetries, ugi, notificationInterface, logFailedMessages, failedMessagesLogger);
         } else {
             executor.submit(new Runnable() {
@@ -248,6 +284,41 @@ public abstract class AtlasHook {
      *
      * @return
      */
+    /**
+     * Opens the notification spool in the configured directory, which must not be shared by hooks in other processes.
+     * When not configured, the spool is in a directory of the OS user under java.io.tmpdir; if another hook process of
+     * the user holds it, the next free numbered directory is used. This gives each process its own directory, while a
+     * restarted process still picks up records left in a directory no longer in use.
+     *
+     * @return null if the spool can't be opened
+     */
+    @VisibleForTesting
+    static HookNotificationSpool openSpool(String spoolDir, File defaultSpoolDir, int segmentSize, long maxSpoolSize) {
+        if (StringUtils.isNotEmpty(spoolDir)) {
+            try {
+                return new HookNotificationSpool(new File(spoolDir), segmentSize, maxSpoolSize);
+            } catch (IOException excp) {
+                LOG.error("Failed to open notification spool in {}; notifications will be dropped when the queue is full. Set {} to a different directory for each hook process", spoolDir, ATLAS_NOTIFICATION_SPOOL_DIR, excp);
+
+                return null;
+            }
+        }
+
+        for (int i = 0; i < MAX_DEFAULT_SPOOL_DIRS; i++) {
+            File dir = i == 0 ? defaultSpoolDir : new File(defaultSpoolDir.getPath() + "_" + i);
+
+            try {
+                return new HookNotificationSpool(dir, segmentSize, maxSpoolSize);
+            } catch (IOException excp) {
+                LOG.warn("Failed to open notification spool in {}: {}", dir, excp.getMessage());
+            }
+        }
+
+        LOG.error("Failed to open notification spool in {} and {} numbered directories; notifications will be dropped when the queue is full. Set {} to a different directory for each hook process", defaultSpoolDir, MAX_DEFAULT_SPOOL_DIRS - 1, ATLAS_NOTIFICATION_SPOOL_DIR);
+
+        return null;
+    }
+
     public static String getUser() {
         return getUser(null, null);
     }
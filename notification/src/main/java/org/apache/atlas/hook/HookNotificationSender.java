@@ -0,0 +1,377 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.hook;
+
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.notification.AbstractNotification;
+import org.apache.atlas.notification.NotificationException;
+import org.apache.atlas.notification.NotificationInterface;
+import org.apache.atlas.notification.NotificationInterface.NotificationType;
+import org.apache.atlas.notification.hook.HookMessageDeserializer;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.charset.StandardCharsets;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Sends hook notifications in batches from a background thread, so that callers never wait for the messaging system.
+ *
+ * Messages are held in a bounded in-memory queue; when the queue is full, for example while Kafka is unavailable,
+ * messages are appended to an on-disk spool. To retain the order of messages, once the spool has messages all
+ * further messages are spooled until the spool is drained. Messages are removed from the queue/spool only after they
+ * are sent successfully; failed sends are retried with backoff, so the spool is drained once Kafka is reachable.
+ *
+ * Messages read from the spool are sent without the UserGroupInformation given to submit().
+ */
+public class HookNotificationSender implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(HookNotificationSender.class);
+
+    private final NotificationInterface   notificationInterface;
+    private final HookNotificationSpool   spool;
+    private final FailedMessagesLogger    failedMessagesLogger;
+    private final int                     queueSize;
+    private final int                     batchSize;
+    private final long                    retryIntervalMs;
+    private final long                    maxRetryIntervalMs;
+    private final Deque<QueuedMessage>    queue        = new ArrayDeque<>();
+    private final HookMessageDeserializer deserializer = new HookMessageDeserializer();
+    private final Thread                  thread;
+    private volatile boolean              shouldRun    = true;
+    private int                           spoolingCount; // number of submit() calls appending to the spool; guarded by queue
+
+    /**
+     * @param spool spool to use when the queue is full; null to drop messages when the queue is full
+     */
+    public HookNotificationSender(NotificationInterface notificationInterface, HookNotificationSpool spool, FailedMessagesLogger failedMessagesLogger,
+                                  int queueSize, int batchSize, long retryIntervalMs, long maxRetryIntervalMs) {
+        this.notificationInterface = notificationInterface;
+        this.spool                 = spool;
+        this.failedMessagesLogger  = failedMessagesLogger;
+        this.queueSize             = queueSize;
+        this.batchSize             = Math.max(1, batchSize);
+        this.retryIntervalMs       = retryIntervalMs;
+        this.maxRetryIntervalMs    = Math.max(retryIntervalMs, maxRetryIntervalMs);
+        this.thread                = new Thread(this, "Atlas Notification Sender");
+
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues the given messages to be sent. Never blocks on the messaging system.
+     */
+    public void submit(List<HookNotification> messages, UserGroupInformation ugi) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+
+        synchronized (queue) {
+            boolean isSpoolEmpty = spool == null || (spoolingCount == 0 && spool.isEmpty());
+
+            if (isSpoolEmpty && (queue.size() + messages.size()) <= queueSize) {
+                for (HookNotification message : messages) {
+                    queue.add(new QueuedMessage(message, ugi));
+                }
+
+                queue.notifyAll();
+
+                return;
+            }
+
+            spoolingCount++; // until appended to the spool, further messages are spooled as well to retain the order
+        }
+
+        try {
+            spoolMessages(messages);
+        } finally {
+            synchronized (queue) {
+                spoolingCount--;
+
+                queue.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Stops the sender thread, waiting up to waitTimeMs for queued messages to be sent. Messages still in the queue
+     * are then moved to the spool.
+     */
+    public void stop(long waitTimeMs) {
+        long deadline = System.currentTimeMillis() + waitTimeMs;
+
+        synchronized (queue) {
+            while (!queue.isEmpty() && System.currentTimeMillis() < deadline) {
+                try {
+                    queue.wait(Math.max(1, deadline - System.currentTimeMillis()));
+                } catch (InterruptedException excp) {
+                    break;
+                }
+            }
+
+            shouldRun = false;
+
+            queue.notifyAll();
+        }
+
+        try {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+        } catch (InterruptedException excp) {
+            LOG.info("Interrupted while waiting for notification sender to stop");
+        }
+
+        List<HookNotification> messages = new ArrayList<>();
+
+        synchronized (queue) {
+            for (QueuedMessage queuedMessage : queue) {
+                messages.add(queuedMessage.message);
+            }
+
+            queue.clear();
+        }
+
+        if (!messages.isEmpty()) {
+            spoolMessages(messages);
+        }
+
+        if (spool != null) {
+            spool.close();
+        }
+    }
+
+    public int getQueuedCount() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    @Override
+    public void run() {
+        long retryWaitMs = retryIntervalMs;
+
+        while (shouldRun) {
+            List<QueuedMessage> batch = getNextBatch();
+
+            if (batch == null) {
+                continue;
+            }
+
+            boolean isSent = send(batch);
+
+            if (isSent) {
+                retryWaitMs = retryIntervalMs;
+
+                removeBatch(batch);
+            } else {
+                sleep(retryWaitMs);
+
+                retryWaitMs = Math.min(retryWaitMs * 2, maxRetryIntervalMs);
+            }
+        }
+    }
+
+    // messages in the queue are older than messages in the spool, hence are sent first
+    private List<QueuedMessage> getNextBatch() {
+        List<QueuedMessage> ret = new ArrayList<>();
+
+        synchronized (queue) {
+            if (queue.isEmpty()) {
+                if (spool == null || spool.isEmpty()) {
+                    try {
+                        queue.wait(1000);
+                    } catch (InterruptedException excp) {
+                        shouldRun = false;
+                    }
+
+                    return null;
+                }
+            } else {
+                for (Iterator<QueuedMessage> iter = queue.iterator(); iter.hasNext() && ret.size() < batchSize; ) {
+                    ret.add(iter.next());
+                }
+
+                return ret;
+            }
+        }
+
+        // read from the spool outside the queue lock; only this thread removes from the spool
+        for (byte[] record : spool.peek(batchSize)) {
+            String           msgJson = new String(record, StandardCharsets.UTF_8);
+            HookNotification message = null;
+
+            try {
+                message = deserializer.deserialize(msgJson);
+            } catch (Exception excp) {
+                LOG.error("Failed to read spooled notification; ignoring it", excp);
+            }
+
+            if (message == null && failedMessagesLogger != null) {
+                failedMessagesLogger.log(msgJson);
+            }
+
+            ret.add(new QueuedMessage(message, null)); // null message is added as a placeholder to be removed from the spool
+        }
+
+        return ret;
+    }
+
+    private void removeBatch(List<QueuedMessage> batch) {
+        synchronized (queue) {
+            if (!queue.isEmpty() && queue.peekFirst() == batch.get(0)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    queue.pollFirst();
+                }
+            } else {
+                spool.remove(batch.size());
+            }
+
+            queue.notifyAll();
+        }
+    }
+
+    // sends consecutive messages having the same ugi in one call
+    private boolean send(List<QueuedMessage> batch) {
+        int start = 0;
+
+        while (start < batch.size()) {
+            UserGroupInformation   ugi      = batch.get(start).ugi;
+            List<HookNotification> messages = new ArrayList<>();
+            int                    end      = start;
+
+            while (end < batch.size() && batch.get(end).ugi == ugi) {
+                if (batch.get(end).message != null) {
+                    messages.add(batch.get(end).message);
+                }
+
+                end++;
+            }
+
+            if (messages.isEmpty()) {
+                start = end;
+
+                continue;
+            }
+
+            try {
+                send(messages, ugi);
+            } catch (NotificationException excp) {
+                LOG.error("Failed to send {} notifications; will retry. error={}", messages.size(), excp.getMessage());
+
+                if (start > 0) { // remove the messages sent so far, to avoid sending them again
+                    removeBatch(batch.subList(0, start));
+                }
+
+                return false;
+            } catch (Exception excp) {
+                LOG.error("Failed to send {} notifications; giving up: {}", messages.size(), messages, excp);
+
+                logFailedMessages(messages);
+            }
+
+            start = end;
+        }
+
+        return true;
+    }
+
+    private void send(List<HookNotification> messages, UserGroupInformation ugi) throws Exception {
+        if (ugi == null) {
+            notificationInterface.send(NotificationType.HOOK, messages);
+        } else {
+            try {
+                ugi.doAs((PrivilegedExceptionAction<Object>) () -> {
+                    notificationInterface.send(NotificationType.HOOK, messages);
+
+                    return messages;
+                });
+            } catch (UndeclaredThrowableException excp) {
+                if (excp.getCause() instanceof NotificationException) {
+                    throw (NotificationException) excp.getCause();
+                }
+
+                throw excp;
+            }
+        }
+    }
+
+    // called without holding the queue lock: messages are serialized by the caller thread and the spool is guarded by its own lock
+    private void spoolMessages(List<HookNotification> messages) {
+        List<byte[]> records = new ArrayList<>(messages.size());
+
+        for (HookNotification message : messages) {
+            records.add(AbstractNotification.getMessageJson(message).getBytes(StandardCharsets.UTF_8));
+        }
+
+        boolean isSpooled = false;
+
+        if (spool != null) {
+            try {
+                isSpooled = spool.append(records);
+            } catch (IOException excp) {
+                LOG.error("Failed to spool {} notifications", messages.size(), excp);
+            }
+        }
+
+        if (!isSpooled) {
+            LOG.error("Notification queue and spool are full; dropping {} notifications: {}", messages.size(), messages);
+
+            logFailedMessages(messages);
+        }
+    }
+
+    private void logFailedMessages(List<HookNotification> messages) {
+        if (failedMessagesLogger != null) {
+            for (HookNotification message : messages) {
+                failedMessagesLogger.log(AbstractNotification.getMessageJson(message));
+            }
+        }
+    }
+
+    private void sleep(long timeMs) {
+        long deadline = System.currentTimeMillis() + timeMs;
+
+        try {
+            while (shouldRun && System.currentTimeMillis() < deadline) {
+                Thread.sleep(Math.min(100, Math.max(1, deadline - System.currentTimeMillis())));
+            }
+        } catch (InterruptedException excp) {
+            shouldRun = false;
+        }
+    }
+
+    private static class QueuedMessage {
+        final HookNotification     message;
+        final UserGroupInformation ugi;
+
+        QueuedMessage(HookNotification message, UserGroupInformation ugi) {
+            this.message = message;
+            this.ugi     = ugi;
+        }
+    }
+}
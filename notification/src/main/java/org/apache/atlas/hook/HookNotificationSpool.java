@@ -0,0 +1,394 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.hook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Append-only on-disk FIFO of records, stored in memory-mapped segment files in the spool directory.
+ *
+ * Each segment starts with a header holding the write and read positions, followed by records of the form
+ * [int length][bytes]. Since positions are updated in the mapped buffer, records appended or removed are retained
+ * across restarts of the process; records not yet removed are read again after restart. Fully read segments are
+ * deleted. The directory is locked, so that only one process at a time can use a spool directory.
+ */
+public class HookNotificationSpool {
+    private static final Logger LOG = LoggerFactory.getLogger(HookNotificationSpool.class);
+
+    private static final int    SEGMENT_MAGIC         = 0x41484b53; // "AHKS"
+    private static final int    SEGMENT_HEADER_SIZE   = 16;
+    private static final int    OFFSET_WRITE_POSITION = 4;
+    private static final int    OFFSET_READ_POSITION  = 8;
+    private static final String SEGMENT_FILE_PREFIX   = "spool-";
+    private static final String SEGMENT_FILE_SUFFIX   = ".seg";
+    private static final String LOCK_FILE_NAME        = "spool.lock";
+
+    private final File           directory;
+    private final int            segmentSize;
+    private final long           maxSpoolBytes;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final FileChannel    lockChannel;
+    private final FileLock       lock;
+    private       long           nextSegmentId;
+    private       long           spooledBytes;
+    private       long           recordCount;
+
+    /**
+     * @param directory     directory to store segment files in
+     * @param segmentSize   size of each segment file; records larger than this can't be spooled
+     * @param maxSpoolBytes maximum total size of records in the spool
+     * @throws IOException if the directory can't be created or is in use by another process
+     */
+    public HookNotificationSpool(File directory, int segmentSize, long maxSpoolBytes) throws IOException {
+        this.directory     = directory;
+        this.segmentSize   = segmentSize;
+        this.maxSpoolBytes = maxSpoolBytes;
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException(directory + ": failed to create spool directory");
+        }
+
+        lockChannel = new RandomAccessFile(new File(directory, LOCK_FILE_NAME), "rw").getChannel();
+
+        FileLock fileLock;
+
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException excp) {
+            fileLock = null;
+        }
+
+        if (fileLock == null) {
+            lockChannel.close();
+
+            throw new IOException(directory + ": spool directory is in use by another process");
+        }
+
+        lock = fileLock;
+
+        openExistingSegments();
+
+        LOG.info("HookNotificationSpool(directory={}, segmentSize={}, maxSpoolBytes={}): {} records in {} segments", directory, segmentSize, maxSpoolBytes, recordCount, segments.size());
+    }
+
+    public synchronized boolean isEmpty() {
+        return recordCount == 0;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized long getSpooledBytes() {
+        return spooledBytes;
+    }
+
+    /**
+     * Appends the given records to the spool. Either all records are appended, or none.
+     *
+     * @return false if the records don't fit in the spool
+     */
+    public synchronized boolean append(List<byte[]> records) throws IOException {
+        long bytesToAppend = 0;
+
+        for (byte[] record : records) {
+            if (getRecordSize(record) > (segmentSize - SEGMENT_HEADER_SIZE)) {
+                return false;
+            }
+
+            bytesToAppend += getRecordSize(record);
+        }
+
+        if (spooledBytes + bytesToAppend > maxSpoolBytes) {
+            return false;
+        }
+
+        for (byte[] record : records) {
+            Segment segment = segments.peekLast();
+
+            if (segment == null || segment.getRemaining() < getRecordSize(record)) {
+                segment = createSegment();
+            }
+
+            segment.append(record);
+        }
+
+        spooledBytes += bytesToAppend;
+        recordCount  += records.size();
+
+        return true;
+    }
+
+    /**
+     * Returns up to maxRecords records from the head of the spool, without removing them.
+     */
+    public synchronized List<byte[]> peek(int maxRecords) {
+        List<byte[]> ret = new ArrayList<>();
+
+        for (Segment segment : segments) {
+            segment.read(ret, maxRecords - ret.size());
+
+            if (ret.size() >= maxRecords) {
+                break;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Removes count records from the head of the spool.
+     */
+    public synchronized void remove(int count) {
+        while (count > 0 && !segments.isEmpty()) {
+            Segment segment      = segments.peekFirst();
+            long    unreadBefore = segment.getUnreadBytes();
+            int     removed      = segment.remove(count);
+
+            count        -= removed;
+            recordCount  -= removed;
+            spooledBytes -= (unreadBefore - segment.getUnreadBytes());
+
+            if (!segment.isFullyRead()) {
+                break;
+            }
+
+            if (segments.size() > 1) { // the last segment is retained for further appends
+                segments.pollFirst();
+
+                segment.delete();
+            } else {
+                break;
+            }
+        }
+    }
+
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.force();
+        }
+
+        segments.clear();
+
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException excp) {
+            LOG.warn("{}: failed to release spool lock", directory, excp);
+        }
+    }
+
+    private void openExistingSegments() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(SEGMENT_FILE_SUFFIX));
+
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files); // file names have zero-padded segment ids
+
+        for (File file : files) {
+            String name = file.getName();
+            long   id   = Long.parseLong(name.substring(SEGMENT_FILE_PREFIX.length(), name.length() - SEGMENT_FILE_SUFFIX.length()));
+
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+
+            Segment segment = Segment.open(file);
+
+            if (segment == null) {
+                LOG.warn("{}: ignoring invalid spool segment", file);
+
+                continue;
+            }
+
+            if (segment.isFullyRead()) {
+                segment.delete();
+            } else {
+                segments.add(segment);
+
+                spooledBytes += segment.getUnreadBytes();
+                recordCount  += segment.countUnreadRecords();
+            }
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        File file = new File(directory, String.format("%s%020d%s", SEGMENT_FILE_PREFIX, nextSegmentId++, SEGMENT_FILE_SUFFIX));
+
+        Segment ret = Segment.create(file, segmentSize);
+
+        segments.add(ret);
+
+        return ret;
+    }
+
+    private static int getRecordSize(byte[] record) {
+        return 4 + record.length;
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size); // mapping remains valid after the channel is closed
+        }
+    }
+
+    private static class Segment {
+        private final File             file;
+        private final MappedByteBuffer buffer;
+
+        private Segment(File file, MappedByteBuffer buffer) {
+            this.file   = file;
+            this.buffer = buffer;
+        }
+
+        static Segment create(File file, int size) throws IOException {
+            MappedByteBuffer buffer = map(file, size);
+
+            buffer.putInt(OFFSET_WRITE_POSITION, SEGMENT_HEADER_SIZE);
+            buffer.putInt(OFFSET_READ_POSITION, SEGMENT_HEADER_SIZE);
+            buffer.putInt(0, SEGMENT_MAGIC);
+
+            return new Segment(file, buffer);
+        }
+
+        static Segment open(File file) throws IOException {
+            if (file.length() <= SEGMENT_HEADER_SIZE) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = map(file, file.length());
+
+            if (buffer.getInt(0) != SEGMENT_MAGIC) {
+                return null;
+            }
+
+            int writePos = buffer.getInt(OFFSET_WRITE_POSITION);
+            int readPos  = buffer.getInt(OFFSET_READ_POSITION);
+
+            if (writePos < SEGMENT_HEADER_SIZE || writePos > buffer.capacity() || readPos < SEGMENT_HEADER_SIZE || readPos > writePos) {
+                return null;
+            }
+
+            return new Segment(file, buffer);
+        }
+
+        int getRemaining() {
+            return buffer.capacity() - getWritePosition();
+        }
+
+        long getUnreadBytes() {
+            return getWritePosition() - getReadPosition();
+        }
+
+        boolean isFullyRead() {
+            return getReadPosition() == getWritePosition();
+        }
+
+        void append(byte[] record) {
+            int pos = getWritePosition();
+
+            ByteBuffer dup = buffer.duplicate();
+
+            dup.position(pos);
+            dup.putInt(record.length);
+            dup.put(record);
+
+            // update the write position only after the record is written, so that a partially written record is never read
+            buffer.putInt(OFFSET_WRITE_POSITION, pos + getRecordSize(record));
+        }
+
+        void read(List<byte[]> records, int maxRecords) {
+            int pos      = getReadPosition();
+            int writePos = getWritePosition();
+
+            while (pos < writePos && maxRecords > 0) {
+                byte[]     record = new byte[buffer.getInt(pos)];
+                ByteBuffer dup    = buffer.duplicate();
+
+                dup.position(pos + 4);
+                dup.get(record);
+
+                records.add(record);
+
+                pos += getRecordSize(record);
+                maxRecords--;
+            }
+        }
+
+        int remove(int count) {
+            int pos      = getReadPosition();
+            int writePos = getWritePosition();
+            int ret      = 0;
+
+            while (pos < writePos && ret < count) {
+                pos += 4 + buffer.getInt(pos);
+                ret++;
+            }
+
+            buffer.putInt(OFFSET_READ_POSITION, pos);
+
+            return ret;
+        }
+
+        long countUnreadRecords() {
+            int  pos      = getReadPosition();
+            int  writePos = getWritePosition();
+            long ret      = 0;
+
+            while (pos < writePos) {
+                pos += 4 + buffer.getInt(pos);
+                ret++;
+            }
+
+            return ret;
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void delete() {
+            if (!file.delete()) {
+                LOG.warn("{}: failed to delete spool segment", file);
+            }
+        }
+
+        private int getWritePosition() {
+            return buffer.getInt(OFFSET_WRITE_POSITION);
+        }
+
+        private int getReadPosition() {
+            return buffer.getInt(OFFSET_READ_POSITION);
+        }
+    }
+}
@@ -24,12 +24,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 
@@ -41,20 +47,52 @@ import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 public class AtlasKafkaConsumer<T> extends AbstractNotificationConsumer<T> {
     private static final Logger LOG = LoggerFactory.getLogger(AtlasKafkaConsumer.class);
 
-    private final KafkaConsumer kafkaConsumer;
-    private final boolean       autoCommitEnabled;
-    private       long          pollTimeoutMilliSeconds = 1000L;
+    private final KafkaConsumer                          kafkaConsumer;
+    private final boolean                                autoCommitEnabled;
+    private       long                                   pollTimeoutMilliSeconds = 1000L;
+    private final int                                    commitBatchSize;  // > 1: offsets are committed asynchronously, in batches
+    private final long                                   commitIntervalMs;
+    private final Map<TopicPartition, OffsetAndMetadata> pendingCommits   = new HashMap<>();
+    private final Map<TopicPartition, Long>              committedOffsets = new HashMap<>();
+    private       int                                    uncommittedCount = 0;
+    private       long                                   lastCommitTime   = System.currentTimeMillis();
+    private       boolean                                asyncCommitFailed = false;
+    private       PartitionsRevokedListener              partitionsRevokedListener;
 
     public AtlasKafkaConsumer(NotificationInterface.NotificationType notificationType, KafkaConsumer kafkaConsumer, boolean autoCommitEnabled, long pollTimeoutMilliSeconds) {
         this(notificationType.getDeserializer(), kafkaConsumer, autoCommitEnabled, pollTimeoutMilliSeconds);
     }
 
+    public AtlasKafkaConsumer(NotificationInterface.NotificationType notificationType, KafkaConsumer kafkaConsumer, boolean autoCommitEnabled, long pollTimeoutMilliSeconds, int commitBatchSize, long commitIntervalMs) {
+        this(notificationType.getDeserializer(), kafkaConsumer, autoCommitEnabled, pollTimeoutMilliSeconds, commitBatchSize, commitIntervalMs);
+    }
+
     public AtlasKafkaConsumer(AtlasNotificationMessageDeserializer<T> deserializer, KafkaConsumer kafkaConsumer, boolean autoCommitEnabled, long pollTimeoutMilliSeconds) {
+        this(deserializer, kafkaConsumer, autoCommitEnabled, pollTimeoutMilliSeconds, 1, 0);
+    }
+
+    /**
+     * @param commitBatchSize  when greater than 1, offsets are committed asynchronously once commitBatchSize messages are
+     *                         committed or commitIntervalMs elapses; offsets are committed synchronously on rebalance and close
+     * @param commitIntervalMs maximum time an offset can stay uncommitted, when commitBatchSize is greater than 1
+     */
+    public AtlasKafkaConsumer(AtlasNotificationMessageDeserializer<T> deserializer, KafkaConsumer kafkaConsumer, boolean autoCommitEnabled, long pollTimeoutMilliSeconds, int commitBatchSize, long commitIntervalMs) {
         super(deserializer);
 
         this.autoCommitEnabled       = autoCommitEnabled;
         this.kafkaConsumer           = kafkaConsumer;
         this.pollTimeoutMilliSeconds = pollTimeoutMilliSeconds;
+        this.commitBatchSize         = commitBatchSize;
+        this.commitIntervalMs        = commitIntervalMs;
+
+        if (!autoCommitEnabled && kafkaConsumer != null) {
+            Set<String> topics = kafkaConsumer.subscription();
+
+            // subscribe again to register the listener; topics remain the same
+            if (topics != null && !topics.isEmpty()) {
+                kafkaConsumer.subscribe(topics, new CommitOnRebalanceListener());
+            }
+        }
     }
 
     public List<AtlasKafkaMessage<T>> receive() {
@@ -66,6 +104,10 @@ public class AtlasKafkaConsumer<T> extends AbstractNotificationConsumer<T> {
 
         List<AtlasKafkaMessage<T>> messages = new ArrayList();
 
+        if (isBatchCommitEnabled() && !pendingCommits.isEmpty() && (System.currentTimeMillis() - lastCommitTime) >= commitIntervalMs) {
+            commitPendingAsync();
+        }
+
         ConsumerRecords<?, ?> records = kafkaConsumer != null ? kafkaConsumer.poll(timeoutMilliSeconds) : null;
 
         if (records != null) {
@@ -78,7 +120,13 @@ public class AtlasKafkaConsumer<T> extends AbstractNotificationConsumer<T> {
                 T message = null;
 
                 try {
-                    message = deserializer.deserialize(record.value().toString());
+                    Object value = record.value();
+
+                    if (value instanceof byte[]) {
+                        message = deserializer.deserialize((byte[]) value);
+                    } else {
+                        message = deserializer.deserialize(value.toString());
+                    }
                 } catch (OutOfMemoryError excp) {
                     LOG.error("Ignoring message that failed to deserialize: topic={}, partition={}, offset={}, key={}, value={}",
                               record.topic(), record.partition(), record.offset(), record.key(), record.value(), excp);
@@ -103,13 +151,52 @@ public class AtlasKafkaConsumer<T> extends AbstractNotificationConsumer<T> {
             if (LOG.isDebugEnabled()) {
                 LOG.info(" commiting the offset ==>> " + offset);
             }
-            kafkaConsumer.commitSync(Collections.singletonMap(partition, new OffsetAndMetadata(offset)));
+
+            if (!isBatchCommitEnabled()) {
+                Map<TopicPartition, OffsetAndMetadata> offsets = Collections.singletonMap(partition, new OffsetAndMetadata(offset));
+
+                kafkaConsumer.commitSync(offsets);
+
+                recordCommittedOffsets(offsets);
+            } else {
+                OffsetAndMetadata pendingOffset = pendingCommits.get(partition);
+
+                if (pendingOffset == null || pendingOffset.offset() < offset) {
+                    pendingCommits.put(partition, new OffsetAndMetadata(offset));
+                }
+
+                uncommittedCount++;
+
+                if (asyncCommitFailed) { // commit synchronously, so that the failure is reported to the caller
+                    commitPendingSync();
+                } else if (uncommittedCount >= commitBatchSize || (System.currentTimeMillis() - lastCommitTime) >= commitIntervalMs) {
+                    commitPendingAsync();
+                }
+            }
         }
     }
 
+    @Override
+    public Long getCommittedOffset(TopicPartition partition) {
+        return committedOffsets.get(partition);
+    }
+
+    @Override
+    public void setPartitionsRevokedListener(PartitionsRevokedListener listener) {
+        this.partitionsRevokedListener = listener;
+    }
+
     @Override
     public void close() {
         if (kafkaConsumer != null) {
+            if (isBatchCommitEnabled()) {
+                try {
+                    commitPendingSync();
+                } catch (Exception excp) {
+                    LOG.warn("failed to commit offsets {} before closing the consumer", pendingCommits, excp);
+                }
+            }
+
             kafkaConsumer.close();
         }
     }
@@ -120,4 +207,109 @@ public class AtlasKafkaConsumer<T> extends AbstractNotificationConsumer<T> {
             kafkaConsumer.wakeup();
         }
     }
+
+    private boolean isBatchCommitEnabled() {
+        return !autoCommitEnabled && commitBatchSize > 1;
+    }
+
+    private void commitPendingAsync() {
+        if (pendingCommits.isEmpty()) {
+            return;
+        }
+
+        final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(pendingCommits);
+
+        resetPendingCommits();
+
+        kafkaConsumer.commitAsync(offsets, new OffsetCommitCallback() {
+            @Override
+            public void onComplete(Map<TopicPartition, OffsetAndMetadata> offsets, Exception exception) {
+                // invoked in the consumer thread, from poll()/commit calls
+                if (exception == null) {
+                    recordCommittedOffsets(offsets);
+                } else {
+                    LOG.warn("failed to commit offsets {}. Retrying synchronously", offsets, exception);
+
+                    for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+                        TopicPartition    partition       = entry.getKey();
+                        OffsetAndMetadata pendingOffset   = pendingCommits.get(partition);
+                        Long              committedOffset = committedOffsets.get(partition);
+
+                        if ((pendingOffset == null || pendingOffset.offset() < entry.getValue().offset()) && (committedOffset == null || committedOffset < entry.getValue().offset())) {
+                            pendingCommits.put(partition, entry.getValue());
+                        }
+                    }
+
+                    try {
+                        commitPendingSync();
+                    } catch (Exception excp) {
+                        LOG.warn("failed to commit offsets {}. Will retry with next commit", pendingCommits, excp);
+
+                        asyncCommitFailed = true; // next commit() is synchronous, so that the failure is reported to the caller
+                    }
+                }
+            }
+        });
+    }
+
+    private void commitPendingSync() {
+        if (pendingCommits.isEmpty()) {
+            return;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(pendingCommits);
+
+        kafkaConsumer.commitSync(offsets);
+
+        resetPendingCommits();
+        recordCommittedOffsets(offsets);
+
+        asyncCommitFailed = false;
+    }
+
+    private void resetPendingCommits() {
+        pendingCommits.clear();
+
+        uncommittedCount = 0;
+        lastCommitTime   = System.currentTimeMillis();
+    }
+
+    private void recordCommittedOffsets(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+            Long committedOffset = committedOffsets.get(entry.getKey());
+
+            if (committedOffset == null || committedOffset < entry.getValue().offset()) {
+                committedOffsets.put(entry.getKey(), entry.getValue().offset());
+            }
+        }
+    }
+
+    private class CommitOnRebalanceListener implements ConsumerRebalanceListener {
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // invoked in the consumer thread, from poll()
+            if (partitionsRevokedListener != null) {
+                try {
+                    partitionsRevokedListener.onPartitionsRevoked(partitions);
+                } catch (Exception excp) {
+                    LOG.warn("failed to notify revocation of partitions {}", partitions, excp);
+                }
+            }
+
+            try {
+                commitPendingSync();
+            } catch (Exception excp) {
+                LOG.warn("failed to commit offsets {} on partition revocation", pendingCommits, excp);
+            }
+
+            for (TopicPartition partition : partitions) {
+                pendingCommits.remove(partition);
+                committedOffsets.remove(partition);
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        }
+    }
 }
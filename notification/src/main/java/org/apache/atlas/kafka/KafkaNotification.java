@@ -21,10 +21,13 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.atlas.ApplicationProperties;
 import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasException;
+import org.apache.atlas.model.notification.AtlasNotificationBaseMessage;
 import org.apache.atlas.notification.AbstractNotification;
+import org.apache.atlas.notification.BinaryMessageEnvelope;
 import org.apache.atlas.notification.NotificationConsumer;
 import org.apache.atlas.notification.NotificationException;
 import org.apache.atlas.service.Service;
+import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationConverter;
 import org.apache.commons.lang.StringUtils;
@@ -78,6 +81,9 @@ public class KafkaNotification extends AbstractNotification implements Service {
 
     private final Properties                                 properties;
     private final Long                                       pollTimeOutMs;
+    private final int                                        offsetCommitBatchSize;
+    private final long                                       offsetCommitIntervalMs;
+    private final boolean                                    binaryEnvelopeEnabled;
     private final Map<NotificationType, List<KafkaConsumer>> consumers = new HashMap<>();
     private final Map<NotificationType, KafkaProducer>       producers = new HashMap<>();
     private       String                                     consumerClosedErrorMsg;
@@ -102,6 +108,9 @@ public class KafkaNotification extends AbstractNotification implements Service {
         properties             = ConfigurationConverter.getProperties(kafkaConf);
         pollTimeOutMs          = kafkaConf.getLong("poll.timeout.ms", 1000);
         consumerClosedErrorMsg = kafkaConf.getString("error.message.consumer_closed", DEFAULT_CONSUMER_CLOSED_ERROR_MESSAGE);
+        offsetCommitBatchSize  = AtlasConfiguration.NOTIFICATION_CONSUMER_OFFSET_COMMIT_BATCH_SIZE.getInt();
+        offsetCommitIntervalMs = AtlasConfiguration.NOTIFICATION_CONSUMER_OFFSET_COMMIT_INTERVAL_MS.getLong();
+        binaryEnvelopeEnabled  = AtlasConfiguration.NOTIFICATION_MESSAGE_BINARY_ENVELOPE_ENABLED.getBoolean();
 
         //Override default configs
         properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.StringSerializer");
@@ -110,6 +119,10 @@ public class KafkaNotification extends AbstractNotification implements Service {
         properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.StringDeserializer");
         properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
 
+        if (AtlasConfiguration.NOTIFICATION_CONSUMER_BYTES_DESERIALIZATION_ENABLED.getBoolean()) {
+            properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.ByteArrayDeserializer");
+        }
+
         boolean oldApiCommitEnableFlag = kafkaConf.getBoolean("auto.commit.enable", false);
 
         //set old autocommit value if new autoCommit property is not set.
@@ -124,12 +137,20 @@ public class KafkaNotification extends AbstractNotification implements Service {
 
     @VisibleForTesting
     protected KafkaNotification(Properties properties) {
+        this(properties, false);
+    }
+
+    @VisibleForTesting
+    KafkaNotification(Properties properties, boolean binaryEnvelopeEnabled) {
         super();
 
         LOG.info("==> KafkaNotification()");
 
-        this.properties    = properties;
-        this.pollTimeOutMs = 1000L;
+        this.properties             = properties;
+        this.pollTimeOutMs          = 1000L;
+        this.offsetCommitBatchSize  = 1;
+        this.offsetCommitIntervalMs = 1000L;
+        this.binaryEnvelopeEnabled  = binaryEnvelopeEnabled;
 
         LOG.info("<== KafkaNotification()");
     }
@@ -201,7 +222,7 @@ public class KafkaNotification extends AbstractNotification implements Service {
                 notificationConsumers.add(kafkaConsumer);
             }
 
-            consumers.add(new AtlasKafkaConsumer(notificationType, kafkaConsumer, autoCommitEnabled, pollTimeOutMs));
+            consumers.add(new AtlasKafkaConsumer(notificationType, kafkaConsumer, autoCommitEnabled, pollTimeOutMs, offsetCommitBatchSize, offsetCommitIntervalMs));
         }
 
         LOG.info("<== KafkaNotification.createConsumers(notificationType={}, numConsumers={}, autoCommitEnabled={})", notificationType, numConsumers, autoCommitEnabled);
@@ -229,20 +250,56 @@ public class KafkaNotification extends AbstractNotification implements Service {
     }
 
 
+    // ----- NotificationInterface -------------------------------------------
+    @Override
+    public <T> void send(NotificationType notificationType, List<T> messages) throws NotificationException {
+        if (isBinaryEnvelopeEnabled(notificationType)) {
+            List<byte[]> binMessages = new ArrayList<>(messages.size());
+
+            for (int index = 0; index < messages.size(); index++) {
+                createBinaryNotificationMessages(messages.get(index), binMessages);
+            }
+
+            sendInternalToProducer(getOrCreateProducer(notificationType), notificationType, binMessages);
+        } else {
+            super.send(notificationType, messages);
+        }
+    }
+
+
     // ----- AbstractNotification --------------------------------------------
     @Override
     public void sendInternal(NotificationType notificationType, List<String> messages) throws NotificationException {
         KafkaProducer producer = getOrCreateProducer(notificationType);
 
-        sendInternalToProducer(producer, notificationType, messages);
+        if (isBinaryEnvelopeEnabled(notificationType)) { // producer uses ByteArraySerializer
+            List<byte[]> binMessages = new ArrayList<>(messages.size());
+
+            for (String message : messages) {
+                binMessages.add(AtlasNotificationBaseMessage.getBytesUtf8(message));
+            }
+
+            sendInternalToProducer(producer, notificationType, binMessages);
+        } else {
+            sendInternalToProducer(producer, notificationType, messages);
+        }
+    }
+
+    /**
+     * Binary envelopes are sent only to ATLAS_HOOK, which is consumed by Atlas server. Consumers of ATLAS_ENTITIES
+     * continue to receive AtlasNotificationStringMessage, serialized as String.
+     */
+    @VisibleForTesting
+    boolean isBinaryEnvelopeEnabled(NotificationType notificationType) {
+        return binaryEnvelopeEnabled && notificationType == NotificationType.HOOK;
     }
 
     @VisibleForTesting
-    void sendInternalToProducer(Producer p, NotificationType notificationType, List<String> messages) throws NotificationException {
+    void sendInternalToProducer(Producer p, NotificationType notificationType, List<?> messages) throws NotificationException {
         String               topic           = PRODUCER_TOPIC_MAP.get(notificationType);
         List<MessageContext> messageContexts = new ArrayList<>();
 
-        for (String message : messages) {
+        for (Object message : messages) {
             ProducerRecord record = new ProducerRecord(topic, message);
 
             if (LOG.isDebugEnabled()) {
@@ -326,7 +383,16 @@ public class KafkaNotification extends AbstractNotification implements Service {
                 ret = producers.get(notificationType);
 
                 if (ret == null) {
-                    ret = new KafkaProducer(properties);
+                    Properties producerProperties = properties;
+
+                    if (isBinaryEnvelopeEnabled(notificationType)) {
+                        producerProperties = new Properties();
+
+                        producerProperties.putAll(properties);
+                        producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.ByteArraySerializer");
+                    }
+
+                    ret = new KafkaProducer(producerProperties);
 
                     producers.put(notificationType, ret);
                 }
@@ -356,9 +422,9 @@ public class KafkaNotification extends AbstractNotification implements Service {
 
     private class MessageContext {
         private final Future<RecordMetadata> future;
-        private final String                 message;
+        private final Object                 message;
 
-        public MessageContext(Future<RecordMetadata> future, String message) {
+        public MessageContext(Future<RecordMetadata> future, Object message) {
             this.future  = future;
             this.message = message;
         }
@@ -367,8 +433,15 @@ public class KafkaNotification extends AbstractNotification implements Service {
             return future;
         }
 
+        // binary envelopes are returned base64 encoded, so that failed messages can be logged as text
         public String getMessage() {
-            return message;
+            if (message instanceof byte[]) {
+                byte[] bytes = (byte[]) message;
+
+                return BinaryMessageEnvelope.isEnvelope(bytes) ? Base64.encodeBase64String(bytes) : AtlasNotificationBaseMessage.getStringUtf8(bytes);
+            }
+
+            return (String) message;
         }
     }
 
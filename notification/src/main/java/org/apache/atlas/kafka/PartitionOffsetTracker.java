@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Tracks offsets of messages that are being processed out of order, and computes for each partition the offset
+ * up to which all messages have been processed - i.e. the offset that is safe to commit.
+ *
+ * Offsets are registered with {@link #addPending(TopicPartition, long)} in the order they are received, and are
+ * marked as done with {@link #markProcessed(TopicPartition, long)} in any order.
+ */
+public class PartitionOffsetTracker {
+    private final Map<TopicPartition, PartitionState> partitions = new HashMap<>();
+
+    public synchronized void addPending(TopicPartition partition, long offset) {
+        PartitionState state = partitions.get(partition);
+
+        if (state == null) {
+            state = new PartitionState();
+
+            partitions.put(partition, state);
+        }
+
+        state.pendingOffsets.add(offset);
+
+        if (offset > state.maxOffset) {
+            state.maxOffset = offset;
+        }
+    }
+
+    public synchronized void markProcessed(TopicPartition partition, long offset) {
+        PartitionState state = partitions.get(partition);
+
+        if (state != null) {
+            state.pendingOffsets.remove(offset);
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        int ret = 0;
+
+        for (PartitionState state : partitions.values()) {
+            ret += state.pendingOffsets.size();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the offsets to commit, for partitions whose commit position moved since the last call to
+     * {@link #markCommitted(TopicPartition, long)}. The offset to commit is the lowest pending offset, or
+     * one past the highest received offset when no message is pending.
+     */
+    public synchronized Map<TopicPartition, Long> getOffsetsToCommit() {
+        Map<TopicPartition, Long> ret = new HashMap<>();
+
+        for (Map.Entry<TopicPartition, PartitionState> entry : partitions.entrySet()) {
+            PartitionState state          = entry.getValue();
+            long           offsetToCommit = state.pendingOffsets.isEmpty() ? (state.maxOffset + 1) : state.pendingOffsets.first();
+
+            if (offsetToCommit > state.committedOffset) {
+                ret.put(entry.getKey(), offsetToCommit);
+            }
+        }
+
+        return ret;
+    }
+
+    public synchronized void markCommitted(TopicPartition partition, long offset) {
+        PartitionState state = partitions.get(partition);
+
+        if (state != null && offset > state.committedOffset) {
+            state.committedOffset = offset;
+        }
+    }
+
+    /**
+     * Discards state of the given partitions, for example on their revocation from the consumer; messages of these
+     * partitions still being processed don't result in offsets to commit.
+     */
+    public synchronized void removePartitions(Collection<TopicPartition> partitionsToRemove) {
+        for (TopicPartition partition : partitionsToRemove) {
+            partitions.remove(partition);
+        }
+    }
+
+    private static class PartitionState {
+        private final TreeSet<Long> pendingOffsets  = new TreeSet<>();
+        private       long          maxOffset       = -1;
+        private       long          committedOffset = -1;
+    }
+}
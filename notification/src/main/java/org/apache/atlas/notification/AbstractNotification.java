@@ -214,6 +214,51 @@ public abstract class AbstractNotification implements NotificationInterface {
         }
     }
 
+    /**
+     * Get the notification messages, as UTF-8 encoded JSON, for the given object. Messages that exceed the size limit
+     * are compressed and/or split, and sent in BinaryMessageEnvelope instead of base64 encoded AtlasNotificationStringMessage.
+     *
+     * @param message  the message in object form
+     * @param msgList  list to add the messages to
+     */
+    public static void createBinaryNotificationMessages(Object message, List<byte[]> msgList) {
+        AtlasNotificationMessage<?> notificationMsg = new AtlasNotificationMessage<>(CURRENT_MESSAGE_VERSION, message, getHostAddress(), getCurrentUser());
+        byte[]                      msgBytes        = AtlasNotificationBaseMessage.getBytesUtf8(AtlasType.toV1Json(notificationMsg));
+
+        if (msgBytes.length <= MESSAGE_MAX_LENGTH_BYTES) {
+            msgList.add(msgBytes);
+        } else {
+            String          msgId           = getNextMessageId();
+            CompressionKind compressionKind = CompressionKind.NONE;
+            byte[]          payload         = msgBytes;
+
+            if (MESSAGE_COMPRESSION_ENABLED) {
+                payload         = AtlasNotificationBaseMessage.gzipCompress(msgBytes);
+                compressionKind = CompressionKind.GZIP;
+
+                LOG.info("Compressed large message: msgID={}, uncompressed={} bytes, compressed={} bytes", msgId, msgBytes.length, payload.length);
+            }
+
+            int splitCount = payload.length / MESSAGE_MAX_LENGTH_BYTES;
+
+            if ((payload.length % MESSAGE_MAX_LENGTH_BYTES) != 0) {
+                splitCount++;
+            }
+
+            for (int i = 0, offset = 0; i < splitCount; i++) {
+                int length = Math.min(MESSAGE_MAX_LENGTH_BYTES, payload.length - offset);
+
+                msgList.add(BinaryMessageEnvelope.encode(msgId, compressionKind, i, splitCount, payload, offset, length));
+
+                offset += length;
+            }
+
+            if (splitCount > 1) {
+                LOG.info("Split large message: msgID={}, splitCount={}, length={} bytes", msgId, splitCount, payload.length);
+            }
+        }
+    }
+
     private static String getNextMessageId() {
         String nextMsgIdPrefix = msgIdPrefix;
         int    nextMsgIdSuffix = msgIdSuffix.getAndIncrement();
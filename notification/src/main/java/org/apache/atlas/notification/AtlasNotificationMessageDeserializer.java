@@ -26,18 +26,26 @@ import org.apache.atlas.model.notification.AtlasNotificationMessage;
 import org.apache.atlas.model.notification.AtlasNotificationStringMessage;
 import org.apache.atlas.type.AtlasType;
 import org.apache.atlas.model.notification.MessageVersion;
+import org.apache.commons.codec.binary.Base64InputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
+import static org.apache.atlas.AtlasConfiguration.NOTIFICATION_SPLIT_MESSAGE_BUFFER_MAX_HEAP_BYTES;
 import static org.apache.atlas.AtlasConfiguration.NOTIFICATION_SPLIT_MESSAGE_BUFFER_PURGE_INTERVAL_SECONDS;
 import static org.apache.atlas.AtlasConfiguration.NOTIFICATION_SPLIT_MESSAGE_SEGMENTS_WAIT_TIME_SECONDS;
+import static org.apache.atlas.AtlasConfiguration.NOTIFICATION_SPLIT_MESSAGE_SPILL_DIRECTORY;
 
 /**
  * Deserializer that works with notification messages.  The version of each deserialized message is checked against an
@@ -57,6 +65,7 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
 
 
     private final Map<String, SplitMessageAggregator> splitMsgBuffer = new HashMap<>();
+    private final SplitMessageStore                   splitMessageStore;
     private final long                                splitMessageBufferPurgeIntervalMs;
     private final long                                splitMessageSegmentsWaitTimeMs;
     private long                                      splitMessagesLastPurgeTime    = System.currentTimeMillis();
@@ -84,12 +93,24 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
                                                 Logger notificationLogger,
                                                 long splitMessageSegmentsWaitTimeMs,
                                                 long splitMessageBufferPurgeIntervalMs) {
+        this(messageType, notificationMessageType, expectedVersion, notificationLogger, splitMessageSegmentsWaitTimeMs, splitMessageBufferPurgeIntervalMs,
+             new SplitMessageStore(NOTIFICATION_SPLIT_MESSAGE_BUFFER_MAX_HEAP_BYTES.getLong(), NOTIFICATION_SPLIT_MESSAGE_SPILL_DIRECTORY.getString()));
+    }
+
+    public AtlasNotificationMessageDeserializer(TypeReference<T> messageType,
+                                                TypeReference<AtlasNotificationMessage<T>> notificationMessageType,
+                                                MessageVersion expectedVersion,
+                                                Logger notificationLogger,
+                                                long splitMessageSegmentsWaitTimeMs,
+                                                long splitMessageBufferPurgeIntervalMs,
+                                                SplitMessageStore splitMessageStore) {
         this.messageType                       = messageType;
         this.notificationMessageType           = notificationMessageType;
         this.expectedVersion                   = expectedVersion;
         this.notificationLogger                = notificationLogger;
         this.splitMessageSegmentsWaitTimeMs    = splitMessageSegmentsWaitTimeMs;
         this.splitMessageBufferPurgeIntervalMs = splitMessageBufferPurgeIntervalMs;
+        this.splitMessageStore                 = splitMessageStore;
     }
 
     public TypeReference<T> getMessageType() {
@@ -100,6 +121,10 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
         return notificationMessageType;
     }
 
+    public SplitMessageStore getSplitMessageStore() {
+        return splitMessageStore;
+    }
+
     // ----- MessageDeserializer ---------------------------------------------
     @Override
     public T deserialize(String messageJson) {
@@ -108,174 +133,283 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
         messageCountTotal.incrementAndGet();
         messageCountSinceLastInterval.incrementAndGet();
 
-        AtlasNotificationBaseMessage msg = AtlasType.fromV1Json(messageJson, AtlasNotificationBaseMessage.class);
+        boolean                      isBinaryMsg = StringUtils.isNotEmpty(messageJson) && messageJson.charAt(0) == (char) BinaryMessageEnvelope.MAGIC;
+        AtlasNotificationBaseMessage msg         = isBinaryMsg ? null : AtlasType.fromV1Json(messageJson, AtlasNotificationBaseMessage.class);
 
-        if (msg == null || msg.getVersion() == null) { // older style messages not wrapped with AtlasNotificationMessage
+        if (isBinaryMsg) {
+            LOG.error("Received message in binary envelope, which requires atlas.notification.consumer.bytes.deserialization.enabled=true. Ignoring message");
+
+            ret = null;
+        } else if (msg == null || msg.getVersion() == null) { // older style messages not wrapped with AtlasNotificationMessage
             ret = AtlasType.fromV1Json(messageJson, messageType);
-        } else  {
-            String msgJson = messageJson;
+        } else if (msg.getMsgSplitCount() > 1) { // multi-part message
+            AtlasNotificationStringMessage splitMsg = AtlasType.fromV1Json(messageJson, AtlasNotificationStringMessage.class);
 
-            if (msg.getMsgSplitCount() > 1) { // multi-part message
-                AtlasNotificationStringMessage splitMsg = AtlasType.fromV1Json(msgJson, AtlasNotificationStringMessage.class);
+            checkVersion(splitMsg, messageJson);
 
-                checkVersion(splitMsg, msgJson);
+            ret = deserializeSplitMessage(splitMsg);
+        } else if (CompressionKind.GZIP.equals(msg.getMsgCompressionKind())) {
+            AtlasNotificationStringMessage compressedMsg = AtlasType.fromV1Json(messageJson, AtlasNotificationStringMessage.class);
 
-                String msgId = splitMsg.getMsgId();
+            ret = deserializeCompressedMessage(compressedMsg);
+        } else {
+            AtlasNotificationMessage<T> atlasNotificationMessage = AtlasType.fromV1Json(messageJson, notificationMessageType);
 
-                if (StringUtils.isEmpty(msgId)) {
-                    LOG.error("Received multi-part message with no message ID. Ignoring message");
+            checkVersion(atlasNotificationMessage, messageJson);
 
-                    msg = null;
-                } else {
-                    final int splitIdx   = splitMsg.getMsgSplitIdx();
-                    final int splitCount = splitMsg.getMsgSplitCount();
+            ret = atlasNotificationMessage.getMessage();
+        }
 
-                    final SplitMessageAggregator splitMsgs;
+        purgeStaleMessagesIfNeeded();
 
-                    if (splitIdx == 0) {
-                        splitMsgs = new SplitMessageAggregator(splitMsg);
+        return ret;
+    }
 
-                        splitMsgBuffer.put(splitMsgs.getMsgId(), splitMsgs);
-                    } else {
-                        splitMsgs = splitMsgBuffer.get(msgId);
-                    }
+    /**
+     * Get a message of type T from the given serialized JSON bytes. Unlike {@link #deserialize(String)}, no String
+     * copy of the message is created.
+     *
+     * @param messageBytes the UTF-8 encoded JSON message
+     *
+     * @return the message deserialized from the given bytes
+     */
+    public T deserialize(byte[] messageBytes) {
+        final T ret;
 
-                    if (splitMsgs == null) {
-                        LOG.error("Received msgID={}: {} of {}, but first message didn't arrive. Ignoring message", msgId, splitIdx + 1, splitCount);
+        messageCountTotal.incrementAndGet();
+        messageCountSinceLastInterval.incrementAndGet();
 
-                        msg = null;
-                    } else if (splitMsgs.getTotalSplitCount() <= splitIdx) {
-                        LOG.error("Received msgID={}: {} of {} - out of bounds. Ignoring message", msgId, splitIdx + 1, splitCount);
+        boolean                      isBinaryMsg = BinaryMessageEnvelope.isEnvelope(messageBytes);
+        AtlasNotificationBaseMessage msg         = isBinaryMsg ? null : AtlasType.fromV1Json(messageBytes, AtlasNotificationBaseMessage.class);
 
-                        msg = null;
-                    } else {
-                        LOG.info("Received msgID={}: {} of {}", msgId, splitIdx + 1, splitCount);
+        if (isBinaryMsg) { // compressed or multi-part message in binary envelope
+            ret = deserializeBinaryMessage(messageBytes);
+        } else if (msg == null || msg.getVersion() == null) { // older style messages not wrapped with AtlasNotificationMessage
+            ret = AtlasType.fromV1Json(messageBytes, messageType);
+        } else if (msg.getMsgSplitCount() > 1) { // multi-part message
+            AtlasNotificationStringMessage splitMsg = AtlasType.fromV1Json(messageBytes, AtlasNotificationStringMessage.class);
 
-                        boolean isReady = splitMsgs.add(splitMsg);
+            checkVersion(splitMsg, messageBytes);
 
-                        if (isReady) { // last message
-                            splitMsgBuffer.remove(msgId);
+            ret = deserializeSplitMessage(splitMsg);
+        } else if (CompressionKind.GZIP.equals(msg.getMsgCompressionKind())) {
+            AtlasNotificationStringMessage compressedMsg = AtlasType.fromV1Json(messageBytes, AtlasNotificationStringMessage.class);
 
-                            boolean isValidMessage = true;
+            ret = deserializeCompressedMessage(compressedMsg);
+        } else {
+            AtlasNotificationMessage<T> atlasNotificationMessage = AtlasType.fromV1Json(messageBytes, notificationMessageType);
 
-                            StringBuilder sb = new StringBuilder();
+            checkVersion(atlasNotificationMessage, messageBytes);
 
-                            for (int i = 0; i < splitMsgs.getTotalSplitCount(); i++) {
-                                splitMsg = splitMsgs.get(i);
+            ret = atlasNotificationMessage.getMessage();
+        }
 
-                                if (splitMsg == null) {
-                                    LOG.warn("MsgID={}: message {} of {} is missing. Ignoring message", msgId, i + 1, splitCount);
+        purgeStaleMessagesIfNeeded();
 
-                                    isValidMessage = false;
+        return ret;
+    }
 
-                                    break;
-                                }
+    @VisibleForTesting
+    static int purgeStaleMessages(Map<String, SplitMessageAggregator> splitMsgBuffer, long now, long maxWaitTime) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> purgeStaleMessages(bufferedMessageCount=" + splitMsgBuffer.size() + ")");
+        }
 
-                                sb.append(splitMsg.getMessage());
-                            }
+        List<SplitMessageAggregator> evictionList = null;
 
-                            if (isValidMessage) {
-                                msgJson = sb.toString();
+        for (SplitMessageAggregator aggregrator : splitMsgBuffer.values()) {
+            long waitTime = now - aggregrator.getFirstSplitTimestamp();
 
-                                if (CompressionKind.GZIP.equals(splitMsg.getMsgCompressionKind())) {
-                                    byte[] encodedBytes = AtlasNotificationBaseMessage.getBytesUtf8(msgJson);
-                                    byte[] bytes        = AtlasNotificationBaseMessage.decodeBase64AndGzipUncompress(encodedBytes);
+            if (waitTime < maxWaitTime) {
+                continue;
+            }
+
+            if(evictionList == null) {
+                evictionList = new ArrayList<>();
+            }
+
+             evictionList.add(aggregrator);
+        }
+
+        if(evictionList != null) {
+            for (SplitMessageAggregator aggregrator : evictionList) {
+                LOG.error("evicting notification msgID={}, totalSplitCount={}, receivedSplitCount={}", aggregrator.getMsgId(), aggregrator.getTotalSplitCount(), aggregrator.getReceivedSplitCount());
+                splitMsgBuffer.remove(aggregrator.getMsgId());
+
+                aggregrator.release();
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== purgeStaleMessages(bufferedMessageCount=" + splitMsgBuffer.size() + ")");
+        }
+
+        return evictionList != null ? evictionList.size() : 0;
+    }
 
-                                    msgJson = AtlasNotificationBaseMessage.getStringUtf8(bytes);
+    // ----- helper methods --------------------------------------------------
+
+    /**
+     * Add the given part of a multi-part message to the buffer.
+     *
+     * @param isBase64Encoded true if the split holds base64 encoded bytes, as in AtlasNotificationStringMessage
+     * @param splitBytes      bytes of the message part
+     *
+     * @return the aggregator holding all parts of the message, once the last part arrived; null otherwise
+     */
+    private SplitMessageAggregator addSplitMessage(String msgId, int splitIdx, int splitCount, CompressionKind compressionKind, boolean isBase64Encoded, byte[] splitBytes) {
+        SplitMessageAggregator ret = null;
 
-                                    LOG.info("Received msgID={}: splitCount={}, compressed={} bytes, uncompressed={} bytes", msgId, splitCount, encodedBytes.length, bytes.length);
-                                } else {
-                                    byte[] encodedBytes = AtlasNotificationBaseMessage.getBytesUtf8(msgJson);
-                                    byte[] bytes        = AtlasNotificationBaseMessage.decodeBase64(encodedBytes);
+        if (StringUtils.isEmpty(msgId)) {
+            LOG.error("Received multi-part message with no message ID. Ignoring message");
+        } else {
+            final SplitMessageAggregator splitMsgs;
 
-                                    msgJson = AtlasNotificationBaseMessage.getStringUtf8(bytes);
+            if (splitIdx == 0) {
+                splitMsgs = new SplitMessageAggregator(msgId, compressionKind, splitCount, isBase64Encoded, splitMessageStore);
 
-                                    LOG.info("Received msgID={}: splitCount={}, length={} bytes", msgId, splitCount, bytes.length);
-                                }
+                SplitMessageAggregator prevSplitMsgs = splitMsgBuffer.put(splitMsgs.getMsgId(), splitMsgs);
 
-                                msg = AtlasType.fromV1Json(msgJson, AtlasNotificationBaseMessage.class);
-                            } else {
-                                msg = null;
-                            }
-                        } else { // more messages to arrive
-                            msg = null;
+                if (prevSplitMsgs != null) {
+                    prevSplitMsgs.release();
+                }
+            } else {
+                splitMsgs = splitMsgBuffer.get(msgId);
+            }
+
+            if (splitMsgs == null) {
+                LOG.error("Received msgID={}: {} of {}, but first message didn't arrive. Ignoring message", msgId, splitIdx + 1, splitCount);
+            } else if (splitMsgs.getTotalSplitCount() <= splitIdx) {
+                LOG.error("Received msgID={}: {} of {} - out of bounds. Ignoring message", msgId, splitIdx + 1, splitCount);
+            } else {
+                LOG.info("Received msgID={}: {} of {}", msgId, splitIdx + 1, splitCount);
+
+                boolean isReady = splitMsgs.add(splitIdx, splitCount, splitBytes);
+
+                if (isReady) { // last message
+                    splitMsgBuffer.remove(msgId);
+
+                    boolean isValidMessage = true;
+
+                    for (int i = 0; i < splitMsgs.getTotalSplitCount(); i++) {
+                        if (!splitMsgs.hasSplit(i)) {
+                            LOG.warn("MsgID={}: message {} of {} is missing. Ignoring message", msgId, i + 1, splitCount);
+
+                            isValidMessage = false;
+
+                            break;
                         }
                     }
+
+                    if (isValidMessage) {
+                        ret = splitMsgs;
+                    } else {
+                        splitMsgs.release();
+                    }
                 }
             }
+        }
 
-            if (msg != null) {
-                if (CompressionKind.GZIP.equals(msg.getMsgCompressionKind())) {
-                    AtlasNotificationStringMessage compressedMsg = AtlasType.fromV1Json(msgJson, AtlasNotificationStringMessage.class);
+        return ret;
+    }
 
-                    byte[] encodedBytes = AtlasNotificationBaseMessage.getBytesUtf8(compressedMsg.getMessage());
-                    byte[] bytes        = AtlasNotificationBaseMessage.decodeBase64AndGzipUncompress(encodedBytes);
+    private T deserializeSplitMessage(AtlasNotificationStringMessage splitMsg) {
+        byte[] splitBytes = AtlasNotificationBaseMessage.getBytesUtf8(splitMsg.getMessage());
 
-                    msgJson = AtlasNotificationBaseMessage.getStringUtf8(bytes);
+        return deserializeSplitMessage(addSplitMessage(splitMsg.getMsgId(), splitMsg.getMsgSplitIdx(), splitMsg.getMsgSplitCount(), splitMsg.getMsgCompressionKind(), true, splitBytes));
+    }
 
-                    LOG.info("Received msgID={}: compressed={} bytes, uncompressed={} bytes", compressedMsg.getMsgId(), encodedBytes.length, bytes.length);
-                }
+    private T deserializeSplitMessage(SplitMessageAggregator splitMsgs) {
+        T ret = null;
 
-                AtlasNotificationMessage<T> atlasNotificationMessage = AtlasType.fromV1Json(msgJson, notificationMessageType);
+        if (splitMsgs != null) {
+            try {
+                boolean     isCompressed = CompressionKind.GZIP.equals(splitMsgs.getCompressionKind());
+                InputStream payload      = splitMsgs.isBase64Encoded() ? new Base64InputStream(splitMsgs.getPayloadStream()) : splitMsgs.getPayloadStream();
 
-                checkVersion(atlasNotificationMessage, msgJson);
+                LOG.info("Received msgID={}: splitCount={}, compressed={}", splitMsgs.getMsgId(), splitMsgs.getTotalSplitCount(), isCompressed);
 
-                ret = atlasNotificationMessage.getMessage();
-            } else {
-                ret = null;
+                ret = deserializeNotificationMessage(splitMsgs.getMsgId(), payload, isCompressed);
+            } finally {
+                splitMsgs.release();
             }
         }
 
+        return ret;
+    }
 
-        long now                = System.currentTimeMillis();
-        long timeSinceLastPurge = now - splitMessagesLastPurgeTime;
+    private T deserializeBinaryMessage(byte[] messageBytes) {
+        final T ret;
 
-        if(timeSinceLastPurge >= splitMessageBufferPurgeIntervalMs) {
-            purgeStaleMessages(splitMsgBuffer, now, splitMessageSegmentsWaitTimeMs);
+        BinaryMessageEnvelope envelope;
 
-            LOG.info("Notification processing stats: total={}, sinceLastStatsReport={}", messageCountTotal.get(), messageCountSinceLastInterval.getAndSet(0));
+        try {
+            envelope = BinaryMessageEnvelope.decode(messageBytes);
+        } catch (IOException e) {
+            LOG.error("Failed to decode binary message envelope of {} bytes. Ignoring message", messageBytes.length, e);
 
-            splitMessagesLastPurgeTime = now;
+            return null;
+        }
+
+        if (envelope.getSplitCount() > 1) {
+            SplitMessageAggregator splitMsgs = addSplitMessage(envelope.getMsgId(), envelope.getSplitIdx(), envelope.getSplitCount(), envelope.getCompressionKind(), false, envelope.getPayload());
+
+            ret = deserializeSplitMessage(splitMsgs);
+        } else {
+            boolean isCompressed = CompressionKind.GZIP.equals(envelope.getCompressionKind());
+
+            LOG.info("Received msgID={}: compressed={}, length={} bytes", envelope.getMsgId(), isCompressed, envelope.getPayloadLength());
+
+            ret = deserializeNotificationMessage(envelope.getMsgId(), envelope.getPayloadStream(), isCompressed);
         }
 
         return ret;
     }
 
-    @VisibleForTesting
-    static void purgeStaleMessages(Map<String, SplitMessageAggregator> splitMsgBuffer, long now, long maxWaitTime) {
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("==> purgeStaleMessages(bufferedMessageCount=" + splitMsgBuffer.size() + ")");
-        }
+    private T deserializeCompressedMessage(AtlasNotificationStringMessage compressedMsg) {
+        byte[] compressed = AtlasNotificationBaseMessage.decodeBase64(AtlasNotificationBaseMessage.getBytesUtf8(compressedMsg.getMessage()));
 
-        List<SplitMessageAggregator> evictionList = null;
+        LOG.info("Received msgID={}: compressed={} bytes", compressedMsg.getMsgId(), compressed.length);
 
-        for (SplitMessageAggregator aggregrator : splitMsgBuffer.values()) {
-            long waitTime = now - aggregrator.getFirstSplitTimestamp();
+        return deserializeNotificationMessage(compressedMsg.getMsgId(), new ByteArrayInputStream(compressed), true);
+    }
 
-            if (waitTime < maxWaitTime) {
-                continue;
-            }
+    private T deserializeNotificationMessage(String msgId, InputStream payload, boolean isCompressed) {
+        try (InputStream in = isCompressed ? new GZIPInputStream(payload) : payload) {
+            AtlasNotificationMessage<T> atlasNotificationMessage = AtlasType.fromV1Json(in, notificationMessageType);
 
-            if(evictionList == null) {
-                evictionList = new ArrayList<>();
+            if (atlasNotificationMessage.compareVersion(expectedVersion) != 0) {
+                checkVersion(atlasNotificationMessage, AtlasType.toV1Json(atlasNotificationMessage));
             }
 
-             evictionList.add(aggregrator);
-        }
+            return atlasNotificationMessage.getMessage();
+        } catch (IOException | UncheckedIOException e) {
+            LOG.error("msgID={}: failed to deserialize message. Ignoring message", msgId, e);
 
-        if(evictionList != null) {
-            for (SplitMessageAggregator aggregrator : evictionList) {
-                LOG.error("evicting notification msgID={}, totalSplitCount={}, receivedSplitCount={}", aggregrator.getMsgId(), aggregrator.getTotalSplitCount(), aggregrator.getReceivedSplitCount());
-                splitMsgBuffer.remove(aggregrator.getMsgId());
-            }
+            return null;
         }
+    }
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("<== purgeStaleMessages(bufferedMessageCount=" + splitMsgBuffer.size() + ")");
+    private void checkVersion(AtlasNotificationBaseMessage notificationMessage, byte[] messageBytes) {
+        if (notificationMessage.compareVersion(expectedVersion) != 0) {
+            checkVersion(notificationMessage, AtlasNotificationBaseMessage.getStringUtf8(messageBytes));
         }
     }
 
-    // ----- helper methods --------------------------------------------------
+    private void purgeStaleMessagesIfNeeded() {
+        long now                = System.currentTimeMillis();
+        long timeSinceLastPurge = now - splitMessagesLastPurgeTime;
+
+        if(timeSinceLastPurge >= splitMessageBufferPurgeIntervalMs) {
+            int evictedCount = purgeStaleMessages(splitMsgBuffer, now, splitMessageSegmentsWaitTimeMs);
+
+            splitMessageStore.onEvicted(evictedCount);
+
+            LOG.info("Notification processing stats: total={}, sinceLastStatsReport={}, splitMessages={{bufferedCount={}, {}}}", messageCountTotal.get(), messageCountSinceLastInterval.getAndSet(0), splitMsgBuffer.size(), splitMessageStore);
+
+            splitMessagesLastPurgeTime = now;
+        }
+    }
 
     /**
      * Check the message version against the expected version.
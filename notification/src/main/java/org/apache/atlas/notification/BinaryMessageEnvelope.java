@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import org.apache.atlas.model.notification.AtlasNotificationBaseMessage.CompressionKind;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Binary framing for compressed and split notification messages, used instead of AtlasNotificationStringMessage
+ * when atlas.notification.message.binary.envelope.enabled=true. Layout:
+ * <pre>
+ *   byte    MAGIC (0x00 - never the first byte of a JSON message)
+ *   byte    format version
+ *   UTF     msgId
+ *   int     split index
+ *   int     split count
+ *   byte    compression kind: 0 - NONE, 1 - GZIP
+ *   byte[]  payload: raw (not base64 encoded) bytes of the message, or of its split
+ * </pre>
+ */
+public class BinaryMessageEnvelope {
+    public static final byte MAGIC                  = 0x00;
+    public static final byte FORMAT_VERSION_1       = 1;
+    public static final byte CURRENT_FORMAT_VERSION = FORMAT_VERSION_1;
+
+    // codes written in the envelope; these must not change, unlike ordinal() of CompressionKind
+    private static final byte COMPRESSION_KIND_NONE = 0;
+    private static final byte COMPRESSION_KIND_GZIP = 1;
+
+    private final String          msgId;
+    private final CompressionKind compressionKind;
+    private final int             splitIdx;
+    private final int             splitCount;
+    private final byte[]          buffer;
+    private final int             payloadOffset;
+
+    private BinaryMessageEnvelope(String msgId, CompressionKind compressionKind, int splitIdx, int splitCount, byte[] buffer, int payloadOffset) {
+        this.msgId           = msgId;
+        this.compressionKind = compressionKind;
+        this.splitIdx        = splitIdx;
+        this.splitCount      = splitCount;
+        this.buffer          = buffer;
+        this.payloadOffset   = payloadOffset;
+    }
+
+    public static boolean isEnvelope(byte[] bytes) {
+        return bytes != null && bytes.length > 1 && bytes[0] == MAGIC;
+    }
+
+    public static byte[] encode(String msgId, CompressionKind compressionKind, int splitIdx, int splitCount, byte[] payload, int offset, int length) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(length + msgId.length() + 16);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC);
+            out.writeByte(CURRENT_FORMAT_VERSION);
+            out.writeUTF(msgId);
+            out.writeInt(splitIdx);
+            out.writeInt(splitCount);
+            out.writeByte(toCode(compressionKind));
+            out.write(payload, offset, length);
+        } catch (IOException excp) { // not expected while writing to ByteArrayOutputStream
+            throw new IllegalStateException(excp);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static BinaryMessageEnvelope decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        in.readByte(); // MAGIC
+
+        byte formatVersion = in.readByte();
+
+        if (formatVersion > CURRENT_FORMAT_VERSION) {
+            throw new IncompatibleVersionException("Binary message envelope version mismatch. Expected " + CURRENT_FORMAT_VERSION + " or lower but received " + formatVersion);
+        }
+
+        String msgId           = in.readUTF();
+        int    splitIdx        = in.readInt();
+        int    splitCount      = in.readInt();
+        byte   compressionCode = in.readByte();
+
+        final CompressionKind compressionKind;
+
+        switch (compressionCode) {
+            case COMPRESSION_KIND_NONE:
+                compressionKind = CompressionKind.NONE;
+            break;
+
+            case COMPRESSION_KIND_GZIP:
+                compressionKind = CompressionKind.GZIP;
+            break;
+
+            default:
+                throw new IOException("msgID=" + msgId + ": invalid compression kind " + compressionCode);
+        }
+
+        return new BinaryMessageEnvelope(msgId, compressionKind, splitIdx, splitCount, bytes, bytes.length - in.available());
+    }
+
+    private static byte toCode(CompressionKind compressionKind) {
+        switch (compressionKind) {
+            case NONE:
+                return COMPRESSION_KIND_NONE;
+
+            case GZIP:
+                return COMPRESSION_KIND_GZIP;
+        }
+
+        throw new IllegalArgumentException("unsupported compression kind " + compressionKind);
+    }
+
+    public String getMsgId() {
+        return msgId;
+    }
+
+    public CompressionKind getCompressionKind() {
+        return compressionKind;
+    }
+
+    public int getSplitIdx() {
+        return splitIdx;
+    }
+
+    public int getSplitCount() {
+        return splitCount;
+    }
+
+    public int getPayloadLength() {
+        return buffer.length - payloadOffset;
+    }
+
+    public byte[] getPayload() {
+        return Arrays.copyOfRange(buffer, payloadOffset, buffer.length);
+    }
+
+    public InputStream getPayloadStream() {
+        return new ByteArrayInputStream(buffer, payloadOffset, buffer.length - payloadOffset);
+    }
+}
@@ -17,6 +17,7 @@
  */
 package org.apache.atlas.notification;
 
+import java.util.Collection;
 import java.util.List;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.atlas.kafka.AtlasKafkaMessage;
@@ -54,6 +55,22 @@ public interface NotificationConsumer<T> {
      */
     List<AtlasKafkaMessage<T>> receive(long timeoutMilliSeconds);
 
+    /**
+     * Returns the offset last committed successfully by this consumer for the given partition - i.e. the offset of the
+     * next message to consume after a restart; null if not known.
+     */
+    default Long getCommittedOffset(TopicPartition partition) {
+        return null;
+    }
 
+    /**
+     * Sets the listener to be notified of partitions revoked from this consumer, so that state kept for messages of
+     * these partitions can be discarded. The listener is called from receive(), in the thread calling it.
+     */
+    default void setPartitionsRevokedListener(PartitionsRevokedListener listener) {
+    }
 
+    interface PartitionsRevokedListener {
+        void onPartitionsRevoked(Collection<TopicPartition> partitions);
+    }
 }
@@ -18,34 +18,80 @@
 package org.apache.atlas.notification;
 
 
+import org.apache.atlas.model.notification.AtlasNotificationBaseMessage;
+import org.apache.atlas.model.notification.AtlasNotificationBaseMessage.CompressionKind;
 import org.apache.atlas.model.notification.AtlasNotificationStringMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
 
 public class SplitMessageAggregator {
-    private final String                           msgId;
-    private final AtlasNotificationStringMessage[] splitMessagesBuffer;
-    private final long                             firstSplitTimestamp;
+    private static final Logger LOG = LoggerFactory.getLogger(SplitMessageAggregator.class);
+
+    private final String            msgId;
+    private final CompressionKind   compressionKind;
+    private final boolean           isBase64Encoded;
+    private final SplitMessageStore store;
+    private final byte[][]          heapSplits;
+    private final long[]            spilledSplitOffsets;
+    private final int[]             spilledSplitLengths;
+    private final long              firstSplitTimestamp;
+    private RandomAccessFile        spillFile;
+    private long                    heapBytes;
 
     public SplitMessageAggregator(AtlasNotificationStringMessage message) {
-        msgId               = message.getMsgId();
-        splitMessagesBuffer = new AtlasNotificationStringMessage[message.getMsgSplitCount()];
-        firstSplitTimestamp = System.currentTimeMillis();
+        this(message, null);
+    }
+
+    public SplitMessageAggregator(AtlasNotificationStringMessage message, SplitMessageStore store) {
+        this(message.getMsgId(), message.getMsgCompressionKind(), message.getMsgSplitCount(), true, store);
 
         add(message);
     }
 
+    /**
+     * @param isBase64Encoded true if splits hold the base64 encoding of the message, as in AtlasNotificationStringMessage
+     */
+    public SplitMessageAggregator(String msgId, CompressionKind compressionKind, int splitCount, boolean isBase64Encoded, SplitMessageStore store) {
+        this.msgId               = msgId;
+        this.compressionKind     = compressionKind;
+        this.isBase64Encoded     = isBase64Encoded;
+        this.store               = store;
+        this.heapSplits          = new byte[splitCount][];
+        this.spilledSplitOffsets = new long[splitCount];
+        this.spilledSplitLengths = new int[splitCount];
+        this.firstSplitTimestamp = System.currentTimeMillis();
+    }
+
     public String getMsgId() {
         return msgId;
     }
 
+    public CompressionKind getCompressionKind() {
+        return compressionKind;
+    }
+
+    public boolean isBase64Encoded() {
+        return isBase64Encoded;
+    }
+
     public long getTotalSplitCount() {
-        return splitMessagesBuffer.length;
+        return heapSplits.length;
     }
 
     public long getReceivedSplitCount() {
         long ret = 0;
 
-        for (AtlasNotificationStringMessage split : splitMessagesBuffer) {
-            if (split != null) {
+        for (int i = 0; i < heapSplits.length; i++) {
+            if (hasSplit(i)) {
                 ret++;
             }
         }
@@ -58,14 +104,127 @@ public class SplitMessageAggregator {
     }
 
     public boolean add(AtlasNotificationStringMessage message) {
-        if (message.getMsgSplitIdx() < splitMessagesBuffer.length) {
-            splitMessagesBuffer[message.getMsgSplitIdx()] = message;
+        return add(message.getMsgSplitIdx(), message.getMsgSplitCount(), AtlasNotificationBaseMessage.getBytesUtf8(message.getMessage()));
+    }
+
+    /**
+     * @return true if the given split is the last split of the message
+     */
+    public boolean add(int splitIdx, int splitCount, byte[] bytes) {
+        if (splitIdx < heapSplits.length && !hasSplit(splitIdx)) {
+            if (store != null && bytes.length > 0 && store.isSpillNeeded(bytes.length) && spill(splitIdx, bytes)) {
+                store.onSpilled(bytes.length);
+            } else {
+                heapSplits[splitIdx] = bytes;
+                heapBytes           += bytes.length;
+
+                if (store != null) {
+                    store.onHeapAllocated(bytes.length);
+                }
+            }
         }
 
-        return message.getMsgSplitIdx() == (message.getMsgSplitCount() - 1);
+        return splitIdx == (splitCount - 1);
     }
 
-    public AtlasNotificationStringMessage get(int i) {
-        return splitMessagesBuffer[i];
+    public boolean hasSplit(int i) {
+        return heapSplits[i] != null || spilledSplitLengths[i] > 0;
+    }
+
+    public boolean isSpilled(int i) {
+        return spilledSplitLengths[i] > 0;
+    }
+
+    /**
+     * @return stream over the concatenated payload of all splits; spilled splits are read from disk one at a time
+     */
+    public InputStream getPayloadStream() {
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            private int idx = 0;
+
+            @Override
+            public boolean hasMoreElements() {
+                return idx < heapSplits.length;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                if (idx >= heapSplits.length) {
+                    throw new NoSuchElementException();
+                }
+
+                return new ByteArrayInputStream(getSplit(idx++));
+            }
+        });
+    }
+
+    /**
+     * Release the heap budget and spill file held by this message. Must be called once the message is reassembled or evicted.
+     */
+    public void release() {
+        long spilledBytes = 0;
+
+        for (int i = 0; i < heapSplits.length; i++) {
+            heapSplits[i]  = null;
+            spilledBytes  += spilledSplitLengths[i];
+        }
+
+        if (store != null) {
+            store.onHeapReleased(heapBytes);
+            store.onSpillReleased(spilledBytes);
+        }
+
+        heapBytes = 0;
+
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException excp) {
+                LOG.warn("msgID={}: failed to close spill file", msgId, excp);
+            }
+
+            spillFile = null;
+        }
+    }
+
+    private boolean spill(int splitIdx, byte[] bytes) {
+        boolean ret = false;
+
+        try {
+            if (spillFile == null) {
+                spillFile = store.createSpillFile();
+            }
+
+            long offset = spillFile.length();
+
+            spillFile.seek(offset);
+            spillFile.write(bytes);
+
+            spilledSplitOffsets[splitIdx] = offset;
+            spilledSplitLengths[splitIdx] = bytes.length;
+
+            ret = true;
+        } catch (IOException excp) {
+            LOG.warn("msgID={}: failed to spill split {} of {} to disk; keeping it in memory", msgId, splitIdx + 1, heapSplits.length, excp);
+        }
+
+        return ret;
+    }
+
+    private byte[] getSplit(int i) {
+        if (heapSplits[i] != null) {
+            return heapSplits[i];
+        }
+
+        byte[] ret = new byte[spilledSplitLengths[i]];
+
+        try {
+            spillFile.seek(spilledSplitOffsets[i]);
+            spillFile.readFully(ret);
+        } catch (IOException excp) {
+            throw new UncheckedIOException("msgID=" + msgId + ": failed to read split " + (i + 1) + " from spill file", excp);
+        }
+
+        return ret;
     }
 }
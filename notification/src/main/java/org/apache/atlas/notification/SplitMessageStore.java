@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap budget, spill location and metrics shared by the SplitMessageAggregator instances of a deserializer.
+ *
+ * Splits of partially received messages are kept on the heap until maxHeapBytes is reached; further splits are
+ * appended to a per-message spill file, which is deleted once the message is reassembled or evicted.
+ */
+public class SplitMessageStore {
+    private final long       maxHeapBytes;
+    private final File       spillDirectory;
+    private final AtomicLong heapBytes            = new AtomicLong(0);
+    private final AtomicLong spilledBytes         = new AtomicLong(0);
+    private final AtomicLong spilledSplitsTotal   = new AtomicLong(0);
+    private final AtomicLong spilledBytesTotal    = new AtomicLong(0);
+    private final AtomicLong evictedMessagesTotal = new AtomicLong(0);
+
+    /**
+     * @param maxHeapBytes   maximum size of splits to hold on the heap; 0 or less to never spill
+     * @param spillDirectory directory to create spill files in; defaults to java.io.tmpdir
+     */
+    public SplitMessageStore(long maxHeapBytes, String spillDirectory) {
+        this.maxHeapBytes   = maxHeapBytes;
+        this.spillDirectory = new File(StringUtils.isNotEmpty(spillDirectory) ? spillDirectory : System.getProperty("java.io.tmpdir"));
+    }
+
+    public long getMaxHeapBytes() {
+        return maxHeapBytes;
+    }
+
+    public long getHeapBytes() {
+        return heapBytes.get();
+    }
+
+    public long getSpilledBytes() {
+        return spilledBytes.get();
+    }
+
+    public long getSpilledSplitsTotal() {
+        return spilledSplitsTotal.get();
+    }
+
+    public long getSpilledBytesTotal() {
+        return spilledBytesTotal.get();
+    }
+
+    public long getEvictedMessagesTotal() {
+        return evictedMessagesTotal.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> ret = new LinkedHashMap<>();
+
+        ret.put("heapBytes", heapBytes.get());
+        ret.put("maxHeapBytes", maxHeapBytes);
+        ret.put("spilledBytes", spilledBytes.get());
+        ret.put("spilledSplitsTotal", spilledSplitsTotal.get());
+        ret.put("spilledBytesTotal", spilledBytesTotal.get());
+        ret.put("evictedMessagesTotal", evictedMessagesTotal.get());
+
+        return ret;
+    }
+
+    boolean isSpillNeeded(int length) {
+        return maxHeapBytes > 0 && (heapBytes.get() + length) > maxHeapBytes;
+    }
+
+    void onHeapAllocated(int length) {
+        heapBytes.addAndGet(length);
+    }
+
+    void onHeapReleased(long length) {
+        heapBytes.addAndGet(-length);
+    }
+
+    RandomAccessFile createSpillFile() throws IOException {
+        if (!spillDirectory.exists()) {
+            spillDirectory.mkdirs();
+        }
+
+        File file = File.createTempFile("atlas-split-msg-", ".spill", spillDirectory);
+
+        file.deleteOnExit();
+
+        RandomAccessFile ret = new RandomAccessFile(file, "rw");
+
+        // unlinking the file now ensures it is removed even if the message is never completed or evicted
+        file.delete();
+
+        return ret;
+    }
+
+    void onSpilled(int length) {
+        spilledBytes.addAndGet(length);
+        spilledSplitsTotal.incrementAndGet();
+        spilledBytesTotal.addAndGet(length);
+    }
+
+    void onSpillReleased(long length) {
+        spilledBytes.addAndGet(-length);
+    }
+
+    void onEvicted(int count) {
+        evictedMessagesTotal.addAndGet(count);
+    }
+
+    @Override
+    public String toString() {
+        return "heapBytes=" + heapBytes.get() + ", maxHeapBytes=" + maxHeapBytes + ", spilledBytes=" + spilledBytes.get() +
+               ", spilledSplitsTotal=" + spilledSplitsTotal.get() + ", spilledBytesTotal=" + spilledBytesTotal.get() +
+               ", evictedMessagesTotal=" + evictedMessagesTotal.get();
+    }
+}
@@ -22,11 +22,14 @@ import org.apache.atlas.model.notification.HookNotification;
 import org.apache.atlas.notification.NotificationException;
 import org.apache.atlas.notification.NotificationInterface;
 import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityCreateRequest;
+import org.apache.commons.io.FileUtils;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -35,6 +38,9 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 
 public class AtlasHookTest {
@@ -50,6 +56,37 @@ public class AtlasHookTest {
         MockitoAnnotations.initMocks(this);
     }
 
+    @Test
+    public void testDefaultSpoolDirIsNotShared() throws Exception {
+        File                  baseDir    = Files.createTempDirectory("atlas-hook-test").toFile();
+        File                  defaultDir = new File(baseDir, "atlas_hook_spool_user");
+        HookNotificationSpool spool1     = null;
+        HookNotificationSpool spool2     = null;
+
+        try {
+            spool1 = AtlasHook.openSpool(null, defaultDir, 1024, 4096);
+            spool2 = AtlasHook.openSpool(null, defaultDir, 1024, 4096);
+
+            // second hook uses the next numbered directory, instead of running without a spool
+            assertNotNull(spool1);
+            assertNotNull(spool2);
+            assertTrue(new File(baseDir, "atlas_hook_spool_user_1").isDirectory());
+
+            // configured directory is not substituted
+            assertNull(AtlasHook.openSpool(defaultDir.getPath(), defaultDir, 1024, 4096));
+        } finally {
+            if (spool1 != null) {
+                spool1.close();
+            }
+
+            if (spool2 != null) {
+                spool2.close();
+            }
+
+            FileUtils.deleteDirectory(baseDir);
+        }
+    }
+
     @Test (timeOut = 10000)
     public void testNotifyEntitiesDoesNotHangOnException() throws Exception {
         List<HookNotification> hookNotifications = new ArrayList<>();
@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.hook;
+
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.notification.NotificationException;
+import org.apache.atlas.notification.NotificationInterface;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityDeleteRequest;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class HookNotificationSpoolTest {
+    private File spoolDir;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        spoolDir = Files.createTempDirectory("atlas-hook-spool-test").toFile();
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException {
+        FileUtils.deleteDirectory(spoolDir);
+    }
+
+    @Test
+    public void testRecordsAreReadInOrderAcrossSegments() throws IOException {
+        HookNotificationSpool spool = new HookNotificationSpool(spoolDir, 64, 1024);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(spool.append(Collections.singletonList(getRecord(i))));
+        }
+
+        assertEquals(spool.getRecordCount(), 10);
+        assertTrue(spoolDir.list((dir, name) -> name.endsWith(".seg")).length > 1);
+
+        List<byte[]> records = spool.peek(4);
+
+        assertEquals(records.size(), 4);
+        assertEquals(spool.getRecordCount(), 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(new String(spool.peek(1).get(0), StandardCharsets.UTF_8), "record-" + i);
+
+            spool.remove(1);
+        }
+
+        assertTrue(spool.isEmpty());
+        assertEquals(spool.getSpooledBytes(), 0);
+        assertEquals(spoolDir.list((dir, name) -> name.endsWith(".seg")).length, 1);
+
+        spool.close();
+    }
+
+    @Test
+    public void testUnreadRecordsAreRetainedOnReopen() throws IOException {
+        HookNotificationSpool spool = new HookNotificationSpool(spoolDir, 64, 1024);
+
+        spool.append(Arrays.asList(getRecord(0), getRecord(1), getRecord(2), getRecord(3)));
+        spool.remove(3);
+        spool.close();
+
+        spool = new HookNotificationSpool(spoolDir, 64, 1024);
+
+        assertEquals(spool.getRecordCount(), 1);
+        assertEquals(new String(spool.peek(10).get(0), StandardCharsets.UTF_8), "record-3");
+
+        spool.close();
+    }
+
+    @Test
+    public void testAppendFailsWhenSpoolIsFull() throws IOException {
+        HookNotificationSpool spool = new HookNotificationSpool(spoolDir, 64, 40);
+
+        assertTrue(spool.append(Arrays.asList(getRecord(0), getRecord(1))));
+        assertFalse(spool.append(Arrays.asList(getRecord(2), getRecord(3))));
+        assertFalse(spool.append(Collections.singletonList(new byte[100])));
+        assertEquals(spool.getRecordCount(), 2);
+
+        spool.close();
+    }
+
+    @Test
+    public void testSpoolDirectoryIsLocked() throws IOException {
+        HookNotificationSpool spool = new HookNotificationSpool(spoolDir, 64, 1024);
+
+        try {
+            new HookNotificationSpool(spoolDir, 64, 1024);
+
+            fail("spool directory in use should not be opened");
+        } catch (IOException excp) {
+            // expected
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test(timeOut = 30000)
+    public void testSpooledMessagesAreSentInOrderAfterFailure() throws Exception {
+        NotificationInterface  notificationInterface = mock(NotificationInterface.class);
+        List<String>           sentMessages          = Collections.synchronizedList(new ArrayList<>());
+        boolean[]              isKafkaAvailable      = new boolean[] { false };
+        HookNotificationSender sender                = new HookNotificationSender(notificationInterface, new HookNotificationSpool(spoolDir, 4096, 1024 * 1024), null, 2, 10, 10, 20);
+
+        doAnswer(invocation -> {
+            if (!isKafkaAvailable[0]) {
+                throw new NotificationException(new Exception("kafka unavailable"));
+            }
+
+            for (Object message : (List) invocation.getArguments()[1]) {
+                sentMessages.add(((EntityDeleteRequest) message).getTypeName());
+            }
+
+            return null;
+        }).when(notificationInterface).send(any(NotificationInterface.NotificationType.class), anyList());
+
+        sender.start();
+
+        for (int i = 0; i < 5; i++) { // queue holds 2 messages; remaining are spooled
+            sender.submit(Collections.singletonList(new EntityDeleteRequest("user", "type-" + i, "name", "value")), null);
+        }
+
+        assertTrue(sentMessages.isEmpty());
+
+        isKafkaAvailable[0] = true;
+
+        while (sentMessages.size() < 5) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(sentMessages, Arrays.asList("type-0", "type-1", "type-2", "type-3", "type-4"));
+
+        sender.stop(1000);
+    }
+
+    @Test(timeOut = 30000)
+    public void testQueueIsNotLockedWhileSpooling() throws Exception {
+        CountDownLatch        appendStarted = new CountDownLatch(1);
+        CountDownLatch        appendRelease = new CountDownLatch(1);
+        HookNotificationSpool spool         = new HookNotificationSpool(spoolDir, 4096, 1024 * 1024) {
+            @Override
+            public synchronized boolean append(List<byte[]> records) throws IOException {
+                appendStarted.countDown();
+
+                try {
+                    appendRelease.await();
+                } catch (InterruptedException excp) {
+                    throw new IOException(excp);
+                }
+
+                return super.append(records);
+            }
+        };
+        HookNotificationSender sender    = new HookNotificationSender(mock(NotificationInterface.class), spool, null, 0, 10, 10, 20); // queue size 0: all messages are spooled
+        Thread                 submitter = new Thread(() -> sender.submit(Collections.singletonList(new EntityDeleteRequest("user", "type-0", "name", "value")), null));
+
+        submitter.start();
+
+        appendStarted.await();
+
+        assertEquals(sender.getQueuedCount(), 0); // queue lock is not held while appending to the spool
+
+        appendRelease.countDown();
+
+        submitter.join();
+
+        assertEquals(spool.getRecordCount(), 1);
+
+        sender.stop(0);
+    }
+
+    private static byte[] getRecord(int i) {
+        return ("record-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -33,17 +33,24 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
 import org.apache.kafka.common.TopicPartition;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.*;
@@ -149,6 +156,62 @@ public class KafkaConsumerTest {
         verify(kafkaConsumer, never()).commitSync(Collections.singletonMap(tp, new OffsetAndMetadata(1)));
     }
 
+    @Test
+    public void testCommitIsBatchedIfBatchSizeIsSet() {
+        TopicPartition     tp0      = new TopicPartition(ATLAS_HOOK_TOPIC, 0);
+        TopicPartition     tp1      = new TopicPartition(ATLAS_HOOK_TOPIC, 1);
+        AtlasKafkaConsumer consumer = new AtlasKafkaConsumer(NotificationType.HOOK, kafkaConsumer, false, 100L, 3, Long.MAX_VALUE);
+
+        consumer.commit(tp0, 1);
+        consumer.commit(tp1, 5);
+
+        verify(kafkaConsumer, never()).commitAsync(anyMap(), any(OffsetCommitCallback.class));
+
+        consumer.commit(tp0, 2);
+
+        Map<TopicPartition, OffsetAndMetadata> expectedOffsets = new HashMap<>();
+
+        expectedOffsets.put(tp0, new OffsetAndMetadata(2));
+        expectedOffsets.put(tp1, new OffsetAndMetadata(5));
+
+        verify(kafkaConsumer, times(1)).commitAsync(eq(expectedOffsets), any(OffsetCommitCallback.class));
+        verify(kafkaConsumer, never()).commitSync(anyMap());
+    }
+
+    @Test
+    public void testFailedAsyncCommitIsRetriedSynchronously() {
+        TopicPartition                        tp       = new TopicPartition(ATLAS_HOOK_TOPIC, 0);
+        AtlasKafkaConsumer                    consumer = new AtlasKafkaConsumer(NotificationType.HOOK, kafkaConsumer, false, 100L, 2, Long.MAX_VALUE);
+        ArgumentCaptor<OffsetCommitCallback> callback = ArgumentCaptor.forClass(OffsetCommitCallback.class);
+
+        consumer.commit(tp, 1);
+        consumer.commit(tp, 2);
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = Collections.singletonMap(tp, new OffsetAndMetadata(2));
+
+        verify(kafkaConsumer).commitAsync(eq(offsets), callback.capture());
+        assertNull(consumer.getCommittedOffset(tp));
+
+        callback.getValue().onComplete(offsets, new RuntimeException("Simulating commit failure"));
+
+        verify(kafkaConsumer).commitSync(offsets);
+        assertEquals(consumer.getCommittedOffset(tp), Long.valueOf(2));
+    }
+
+    @Test
+    public void testPendingCommitsAreFlushedOnClose() {
+        TopicPartition     tp       = new TopicPartition(ATLAS_HOOK_TOPIC, 0);
+        AtlasKafkaConsumer consumer = new AtlasKafkaConsumer(NotificationType.HOOK, kafkaConsumer, false, 100L, 10, Long.MAX_VALUE);
+
+        consumer.commit(tp, 1);
+        consumer.commit(tp, 2);
+
+        consumer.close();
+
+        verify(kafkaConsumer).commitSync(Collections.singletonMap(tp, new OffsetAndMetadata(2)));
+        verify(kafkaConsumer).close();
+    }
+
     private Referenceable getEntity(String traitName) {
         return EntityNotificationTest.getEntity("id", new Struct(traitName, Collections.<String, Object>emptyMap()));
     }
@@ -38,6 +38,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -144,6 +145,18 @@ public class KafkaNotificationMockTest {
         }
     }
 
+    @Test
+    public void testBinaryEnvelopeIsUsedOnlyForHookNotifications() {
+        Properties        configProperties = mock(Properties.class);
+        KafkaNotification enabled          = new KafkaNotification(configProperties, true);
+        KafkaNotification disabled         = new KafkaNotification(configProperties, false);
+
+        assertTrue(enabled.isBinaryEnvelopeEnabled(NotificationInterface.NotificationType.HOOK));
+        assertFalse(enabled.isBinaryEnvelopeEnabled(NotificationInterface.NotificationType.ENTITIES));
+        assertFalse(disabled.isBinaryEnvelopeEnabled(NotificationInterface.NotificationType.HOOK));
+        assertFalse(disabled.isBinaryEnvelopeEnabled(NotificationInterface.NotificationType.ENTITIES));
+    }
+
     class TestKafkaNotification extends KafkaNotification {
 
         private final AtlasKafkaConsumer consumer1;
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class PartitionOffsetTrackerTest {
+    private static final TopicPartition PARTITION_0 = new TopicPartition("ATLAS_HOOK", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("ATLAS_HOOK", 1);
+
+    @Test
+    public void testCommitOffsetIsLowestPendingOffset() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+
+        tracker.addPending(PARTITION_0, 10);
+        tracker.addPending(PARTITION_0, 11);
+        tracker.addPending(PARTITION_0, 12);
+
+        tracker.markProcessed(PARTITION_0, 11);
+        tracker.markProcessed(PARTITION_0, 12);
+
+        assertEquals(tracker.getOffsetsToCommit().get(PARTITION_0), Long.valueOf(10));
+
+        tracker.markProcessed(PARTITION_0, 10);
+
+        assertEquals(tracker.getOffsetsToCommit().get(PARTITION_0), Long.valueOf(13));
+        assertEquals(tracker.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testCommittedOffsetsAreNotReturnedAgain() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+
+        tracker.addPending(PARTITION_0, 5);
+        tracker.addPending(PARTITION_1, 7);
+        tracker.markProcessed(PARTITION_0, 5);
+        tracker.markProcessed(PARTITION_1, 7);
+
+        Map<TopicPartition, Long> offsets = tracker.getOffsetsToCommit();
+
+        assertEquals(offsets.size(), 2);
+
+        tracker.markCommitted(PARTITION_0, offsets.get(PARTITION_0));
+
+        offsets = tracker.getOffsetsToCommit();
+
+        assertEquals(offsets.size(), 1);
+        assertEquals(offsets.get(PARTITION_1), Long.valueOf(8));
+
+        tracker.markCommitted(PARTITION_1, offsets.get(PARTITION_1));
+
+        assertTrue(tracker.getOffsetsToCommit().isEmpty());
+    }
+
+    @Test
+    public void testRemovedPartitionsAreNotCommitted() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+
+        tracker.addPending(PARTITION_0, 5);
+        tracker.addPending(PARTITION_1, 7);
+        tracker.markProcessed(PARTITION_1, 7);
+
+        tracker.removePartitions(Collections.singletonList(PARTITION_0));
+
+        tracker.markProcessed(PARTITION_0, 5); // message of the revoked partition completing later
+
+        Map<TopicPartition, Long> offsets = tracker.getOffsetsToCommit();
+
+        assertEquals(offsets.size(), 1);
+        assertEquals(offsets.get(PARTITION_1), Long.valueOf(8));
+        assertEquals(tracker.getPendingCount(), 0);
+    }
+}
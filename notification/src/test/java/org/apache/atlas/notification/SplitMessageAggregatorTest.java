@@ -19,9 +19,11 @@ package org.apache.atlas.notification;
 
 import org.apache.atlas.model.notification.AtlasNotificationBaseMessage.CompressionKind;
 import org.apache.atlas.model.notification.AtlasNotificationStringMessage;
+import org.apache.commons.io.IOUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,9 +34,10 @@ public class SplitMessageAggregatorTest {
 
         Thread.currentThread().sleep(500);
 
-        AtlasNotificationMessageDeserializer.purgeStaleMessages(map, System.currentTimeMillis(), 250);
+        int evictedCount = AtlasNotificationMessageDeserializer.purgeStaleMessages(map, System.currentTimeMillis(), 250);
 
         Assert.assertEquals(map.size(), 0);
+        Assert.assertEquals(evictedCount, 2);
     }
 
 
@@ -51,6 +54,35 @@ public class SplitMessageAggregatorTest {
         Assert.assertEquals(map.size(), expectedSize);
     }
 
+    @Test
+    public void verifySplitsBeyondHeapBudgetAreSpilled() throws IOException {
+        SplitMessageStore      store = new SplitMessageStore(12, null);
+        SplitMessageAggregator sma   = null;
+
+        for (int i = 0; i < 5; i++) {
+            AtlasNotificationStringMessage sm = new AtlasNotificationStringMessage("split" + i, "1", CompressionKind.NONE, i, 5);
+
+            if (sma == null) {
+                sma = new SplitMessageAggregator(sm, store);
+            } else {
+                sma.add(sm);
+            }
+        }
+
+        Assert.assertEquals(sma.getReceivedSplitCount(), 5);
+        Assert.assertFalse(sma.isSpilled(1));
+        Assert.assertTrue(sma.isSpilled(2));
+        Assert.assertEquals(store.getHeapBytes(), 12);
+        Assert.assertEquals(store.getSpilledBytes(), 18);
+        Assert.assertEquals(store.getSpilledSplitsTotal(), 3);
+        Assert.assertEquals(IOUtils.toString(sma.getPayloadStream(), "UTF-8"), "split0split1split2split3split4");
+
+        sma.release();
+
+        Assert.assertEquals(store.getHeapBytes(), 0);
+        Assert.assertEquals(store.getSpilledBytes(), 0);
+    }
+
     private Map<String, SplitMessageAggregator> getStringSplitMessageAggregatorMap() {
         Map<String, SplitMessageAggregator> map = new HashMap<>();
 
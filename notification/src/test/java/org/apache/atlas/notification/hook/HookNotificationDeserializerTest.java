@@ -18,23 +18,29 @@
 
 package org.apache.atlas.notification.hook;
 
+import org.apache.atlas.model.notification.AtlasNotificationBaseMessage;
+import org.apache.atlas.model.notification.AtlasNotificationBaseMessage.CompressionKind;
 import org.apache.atlas.model.notification.HookNotification;
 import org.apache.atlas.notification.entity.EntityNotificationTest;
 import org.apache.atlas.v1.model.instance.Referenceable;
 import org.apache.atlas.v1.model.instance.Struct;
 import org.apache.atlas.notification.AbstractNotification;
+import org.apache.atlas.notification.BinaryMessageEnvelope;
 import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityUpdateRequest;
 import org.apache.atlas.type.AtlasType;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * HookMessageDeserializer tests.
@@ -101,6 +107,97 @@ public class HookNotificationDeserializerTest {
         assertEqualMessage(deserializedMessage, message);
     }
 
+    @Test
+    public void testDeserializeBytes() throws Exception {
+        EntityUpdateRequest message     = new EntityUpdateRequest("user1", generateEntityWithTrait());
+        List<String>        jsonMsgList = new ArrayList<>();
+
+        AbstractNotification.createNotificationMessages(message, jsonMsgList);
+
+        assertEqualMessage(deserializeBytes(jsonMsgList), message);
+        assertEqualMessage(deserializeBytes(Collections.singletonList(AtlasType.toV1Json(message))), message);
+    }
+
+    @Test
+    public void testDeserializeCompressedMessageBytes() throws Exception {
+        EntityUpdateRequest message     = new EntityUpdateRequest("user1", generateLargeEntityWithTrait());
+        List<String>        jsonMsgList = new ArrayList<>();
+
+        AbstractNotification.createNotificationMessages(message, jsonMsgList);
+
+        assertTrue(jsonMsgList.size() == 1);
+
+        assertEqualMessage(deserializeBytes(jsonMsgList), message);
+    }
+
+    @Test
+    public void testDeserializeSplitMessageBytes() throws Exception {
+        EntityUpdateRequest message     = new EntityUpdateRequest("user1", generateVeryLargeEntityWithTrait());
+        List<String>        jsonMsgList = new ArrayList<>();
+
+        AbstractNotification.createNotificationMessages(message, jsonMsgList);
+
+        assertTrue(jsonMsgList.size() > 1);
+
+        assertEqualMessage(deserializeBytes(jsonMsgList), message);
+    }
+
+    @Test
+    public void testDeserializeBinaryEnvelopeMessages() throws Exception {
+        EntityUpdateRequest smallMessage      = new EntityUpdateRequest("user1", generateEntityWithTrait());
+        EntityUpdateRequest compressedMessage = new EntityUpdateRequest("user1", generateLargeEntityWithTrait());
+        EntityUpdateRequest splitMessage      = new EntityUpdateRequest("user1", generateVeryLargeEntityWithTrait());
+        List<byte[]>        smallMsgList      = new ArrayList<>();
+        List<byte[]>        compressedMsgList = new ArrayList<>();
+        List<byte[]>        splitMsgList      = new ArrayList<>();
+
+        AbstractNotification.createBinaryNotificationMessages(smallMessage, smallMsgList);
+        AbstractNotification.createBinaryNotificationMessages(compressedMessage, compressedMsgList);
+        AbstractNotification.createBinaryNotificationMessages(splitMessage, splitMsgList);
+
+        assertEquals(smallMsgList.size(), 1);
+        assertFalse(BinaryMessageEnvelope.isEnvelope(smallMsgList.get(0)));
+        assertEquals(compressedMsgList.size(), 1);
+        assertTrue(BinaryMessageEnvelope.isEnvelope(compressedMsgList.get(0)));
+        assertTrue(splitMsgList.size() > 1);
+
+        assertEqualMessage(deserializer.deserialize(smallMsgList.get(0)), smallMessage);
+        assertEqualMessage(deserializer.deserialize(compressedMsgList.get(0)), compressedMessage);
+
+        HookNotification deserializedMessage = null;
+
+        for (byte[] msg : splitMsgList) {
+            assertTrue(BinaryMessageEnvelope.isEnvelope(msg));
+
+            deserializedMessage = deserializer.deserialize(msg);
+        }
+
+        assertEqualMessage(deserializedMessage, splitMessage);
+    }
+
+    @Test
+    public void testBinaryEnvelopeCompressionKindCodes() throws Exception {
+        byte[] payload = AtlasNotificationBaseMessage.getBytesUtf8("payload");
+        byte[] none    = BinaryMessageEnvelope.encode("id", CompressionKind.NONE, 0, 1, payload, 0, payload.length);
+        byte[] gzip    = BinaryMessageEnvelope.encode("id", CompressionKind.GZIP, 0, 1, payload, 0, payload.length);
+        int    codeIdx = 1 + 1 + (2 + "id".length()) + 4 + 4; // MAGIC, version, msgId, split index, split count
+
+        assertEquals(none[codeIdx], 0);
+        assertEquals(gzip[codeIdx], 1);
+        assertEquals(BinaryMessageEnvelope.decode(none).getCompressionKind(), CompressionKind.NONE);
+        assertEquals(BinaryMessageEnvelope.decode(gzip).getCompressionKind(), CompressionKind.GZIP);
+
+        gzip[codeIdx] = 2;
+
+        try {
+            BinaryMessageEnvelope.decode(gzip);
+
+            fail("expected IOException for unknown compression kind");
+        } catch (IOException excp) {
+            // expected
+        }
+    }
+
     private Referenceable generateEntityWithTrait() {
         Referenceable ret = EntityNotificationTest.getEntity("id", new Struct("MyTrait", Collections.<String, Object>emptyMap()));
 
@@ -121,6 +218,20 @@ public class HookNotificationDeserializerTest {
         return deserializedMessage;
     }
 
+    private HookNotification deserializeBytes(List<String> jsonMsgList) {
+        HookNotification deserializedMessage = null;
+
+        for (String jsonMsg : jsonMsgList) {
+            deserializedMessage = deserializer.deserialize(AtlasNotificationBaseMessage.getBytesUtf8(jsonMsg));
+
+            if (deserializedMessage != null) {
+                break;
+            }
+        }
+
+        return deserializedMessage;
+    }
+
     private void assertEqualMessage(HookNotification deserializedMessage, EntityUpdateRequest message) throws Exception {
         assertNotNull(deserializedMessage);
         assertEquals(deserializedMessage.getType(), message.getType());
@@ -23,8 +23,10 @@ import org.aopalliance.intercept.MethodInvocation;
 import org.apache.atlas.annotation.GraphTransaction;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.exception.NotFoundException;
+import org.apache.atlas.repository.graph.PropagationGraphCache;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.store.graph.v2.EntityVertexIdCache;
 import org.apache.atlas.utils.AtlasPerfMetrics.MetricRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,9 +38,12 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 @Component
@@ -118,6 +123,8 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
                 isTxnOpen.set(Boolean.FALSE);
                 innerFailure.set(Boolean.FALSE);
                 guidVertexCache.get().clear();
+                EntityVertexIdCache.get().onTransactionComplete(isSuccess);
+                PropagationGraphCache.get().onTransactionComplete(isSuccess);
 
                 List<PostTransactionHook> trxHooks = postTransactionHooks.get();
 
@@ -181,6 +188,10 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
         OBJECT_UPDATE_SYNCHRONIZER.lockObject(guids);
     }
 
+    public static Map<String, Object> getObjectLockStats() {
+        return OBJECT_UPDATE_SYNCHRONIZER.getStats();
+    }
+
     public static void addToVertexCache(String guid, AtlasVertex vertex) {
         Map<String, AtlasVertex> cache = guidVertexCache.get();
 
@@ -226,7 +237,7 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
     }
 
     private static class RefCountedReentrantLock extends ReentrantLock {
-        private int refCount;
+        private int refCount; // updated only in ConcurrentHashMap.compute() calls for the guid, hence serialized per guid
 
         public RefCountedReentrantLock() {
             this.refCount = 0;
@@ -243,24 +254,52 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
         public int getRefCount() { return refCount; }
     }
 
+    private static class LockedObject {
+        final String                  guid;
+        final RefCountedReentrantLock lock;
+        final long                    lockTimeNs;
 
-    public static class ObjectUpdateSynchronizer {
-        private final Map<String, RefCountedReentrantLock> guidLockMap = new ConcurrentHashMap<>();
-        private final ThreadLocal<List<String>>  lockedGuids = new ThreadLocal<List<String>>() {
-            @Override
-            protected List<String> initialValue() {
-                return new ArrayList<>();
-            }
-        };
+        LockedObject(String guid, RefCountedReentrantLock lock, long lockTimeNs) {
+            this.guid       = guid;
+            this.lock       = lock;
+            this.lockTimeNs = lockTimeNs;
+        }
+    }
 
+    /**
+     * Per-guid locks, held until the end of the outermost transaction.
+     *
+     * Lock instances are reference counted, and are removed from the map when no thread holds or waits for them. Counts
+     * are updated with ConcurrentHashMap.compute(), which serializes updates only for the same guid - instead of a
+     * monitor shared by all threads. Locks are not striped by guid hash, as a thread locking guids in multiple calls
+     * within a transaction could then deadlock with a thread locking unrelated guids that share stripes.
+     */
+    public static class ObjectUpdateSynchronizer {
+        private final Map<String, RefCountedReentrantLock> guidLockMap   = new ConcurrentHashMap<>();
+        private final ThreadLocal<List<LockedObject>>      lockedObjects = ThreadLocal.withInitial(ArrayList::new);
+        private final AtomicLong                           lockCount     = new AtomicLong();
+        private final AtomicLong                           waitCount     = new AtomicLong();
+        private final AtomicLong                           waitTimeNs    = new AtomicLong();
+        private final AtomicLong                           maxWaitTimeNs = new AtomicLong();
+        private final AtomicLong                           holdTimeNs    = new AtomicLong();
+        private final AtomicLong                           maxHoldTimeNs = new AtomicLong();
+
+        // guids are locked in sorted order, so that threads locking overlapping sets of guids in a single call don't deadlock
         public void lockObject(final List<String> guids) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("==> lockObject(): guids: {}", guids);
             }
 
             Collections.sort(guids);
+
+            String prevGuid = null;
+
             for (String g : guids) {
-                lockObject(g);
+                if (!g.equals(prevGuid)) {
+                    lockObject(g);
+                }
+
+                prevGuid = g;
             }
         }
 
@@ -269,10 +308,23 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
                 LOG.debug("==> lockObject(): guid: {}, guidLockMap.size: {}", guid, guidLockMap.size());
             }
 
-            ReentrantLock lock = getOrCreateObjectLock(guid);
-            lock.lock();
+            RefCountedReentrantLock lock = getOrCreateObjectLock(guid);
+
+            if (!lock.tryLock()) {
+                long startTimeNs = System.nanoTime();
+
+                lock.lock();
+
+                long waitNs = System.nanoTime() - startTimeNs;
+
+                waitCount.incrementAndGet();
+                waitTimeNs.addAndGet(waitNs);
+                updateMax(maxWaitTimeNs, waitNs);
+            }
+
+            lockCount.incrementAndGet();
 
-            lockedGuids.get().add(guid);
+            lockedObjects.get().add(new LockedObject(guid, lock, System.nanoTime()));
 
             if (LOG.isDebugEnabled()) {
                 LOG.debug("<== lockObject(): guid: {}, guidLockMap.size: {}", guid, guidLockMap.size());
@@ -280,50 +332,70 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
         }
 
         public void releaseLockedObjects() {
+            List<LockedObject> objects = lockedObjects.get();
+
             if (LOG.isDebugEnabled()) {
-                LOG.debug("==> releaseLockedObjects(): lockedGuids.size: {}", lockedGuids.get().size());
+                LOG.debug("==> releaseLockedObjects(): lockedGuids.size: {}", objects.size());
             }
 
-            for (String guid : lockedGuids.get()) {
-                releaseObjectLock(guid);
+            for (LockedObject object : objects) {
+                releaseObjectLock(object);
             }
 
-            lockedGuids.get().clear();
+            objects.clear();
 
             if (LOG.isDebugEnabled()) {
-                LOG.debug("<== releaseLockedObjects(): lockedGuids.size: {}", lockedGuids.get().size());
+                LOG.debug("<== releaseLockedObjects(): lockedGuids.size: {}", objects.size());
             }
         }
 
+        public Map<String, Object> getStats() {
+            Map<String, Object> ret = new LinkedHashMap<>();
+
+            ret.put("lockedObjects", guidLockMap.size());
+            ret.put("lockCount", lockCount.get());
+            ret.put("waitCount", waitCount.get());
+            ret.put("waitTimeMs", TimeUnit.NANOSECONDS.toMillis(waitTimeNs.get()));
+            ret.put("maxWaitTimeMs", TimeUnit.NANOSECONDS.toMillis(maxWaitTimeNs.get()));
+            ret.put("holdTimeMs", TimeUnit.NANOSECONDS.toMillis(holdTimeNs.get()));
+            ret.put("maxHoldTimeMs", TimeUnit.NANOSECONDS.toMillis(maxHoldTimeNs.get()));
+
+            return ret;
+        }
+
         private RefCountedReentrantLock getOrCreateObjectLock(String guid) {
-            synchronized (guidLockMap) {
-                RefCountedReentrantLock ret = guidLockMap.get(guid);
-                if (ret == null) {
-                    ret = new RefCountedReentrantLock();
-                    guidLockMap.put(guid, ret);
+            return guidLockMap.compute(guid, (key, lock) -> {
+                if (lock == null) {
+                    lock = new RefCountedReentrantLock();
                 }
 
-                ret.increment();
-                return ret;
-            }
+                lock.increment();
+
+                return lock;
+            });
         }
 
-        private RefCountedReentrantLock releaseObjectLock(String guid) {
-            synchronized (guidLockMap) {
-                RefCountedReentrantLock lock = guidLockMap.get(guid);
-                if (lock != null && lock.isHeldByCurrentThread()) {
-                    int refCount = lock.decrement();
+        // the lock is released before its count is decremented, so that a waiting thread - which holds a count - finds the same lock in the map
+        private void releaseObjectLock(LockedObject object) {
+            if (object.lock.isHeldByCurrentThread()) {
+                long holdNs = System.nanoTime() - object.lockTimeNs;
 
-                    if (refCount == 0) {
-                        guidLockMap.remove(guid);
-                    }
+                object.lock.unlock();
 
-                    lock.unlock();
-                } else {
-                    LOG.warn("releaseLockedObjects: {} Attempting to release a lock not held by current thread.", guid);
-                }
+                guidLockMap.computeIfPresent(object.guid, (key, lock) -> (lock == object.lock && lock.decrement() == 0) ? null : lock);
 
-                return lock;
+                holdTimeNs.addAndGet(holdNs);
+                updateMax(maxHoldTimeNs, holdNs);
+            } else {
+                LOG.warn("releaseLockedObjects: {} Attempting to release a lock not held by current thread.", object.guid);
+            }
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long curr = max.get();
+
+            while (value > curr && !max.compareAndSet(curr, value)) {
+                curr = max.get();
             }
         }
     }
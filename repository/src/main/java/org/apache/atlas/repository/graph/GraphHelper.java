@@ -22,6 +22,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.RequestContext;
@@ -33,9 +34,9 @@ import org.apache.atlas.model.instance.AtlasObjectId;
 import org.apache.atlas.model.instance.AtlasRelationship;
 import org.apache.atlas.repository.graphdb.AtlasVertexQuery;
 import org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2;
+import org.apache.atlas.repository.store.graph.v2.EntityContentHash;
 import org.apache.atlas.type.AtlasArrayType;
 import org.apache.atlas.type.AtlasMapType;
-import org.apache.atlas.util.AtlasGremlinQueryProvider;
 import org.apache.atlas.v1.model.instance.Id;
 import org.apache.atlas.v1.model.instance.Referenceable;
 import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
@@ -43,6 +44,8 @@ import org.apache.atlas.model.typedef.AtlasRelationshipDef.PropagateTags;
 import org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.RepositoryException;
+import org.apache.atlas.repository.graph.PropagationGraphCache.PropagationClosure;
+import org.apache.atlas.repository.graph.PropagationGraphCache.PropagationEdge;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasElement;
@@ -60,19 +63,20 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.script.Bindings;
-import javax.script.ScriptEngine;
-import javax.script.ScriptException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 
@@ -84,10 +88,6 @@ import static org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2.isRef
 import static org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection.BOTH;
 import static org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection.IN;
 import static org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection.OUT;
-import static org.apache.atlas.util.AtlasGremlinQueryProvider.AtlasGremlinQuery.TAG_PROPAGATION_IMPACTED_INSTANCES;
-import static org.apache.atlas.util.AtlasGremlinQueryProvider.AtlasGremlinQuery.TAG_PROPAGATION_IMPACTED_INSTANCES_EXCLUDE_RELATIONSHIP;
-import static org.apache.atlas.util.AtlasGremlinQueryProvider.AtlasGremlinQuery.TAG_PROPAGATION_IMPACTED_INSTANCES_FOR_REMOVAL;
-import static org.apache.atlas.util.AtlasGremlinQueryProvider.AtlasGremlinQuery.TAG_PROPAGATION_IMPACTED_INSTANCES_WITH_RESTRICTIONS;
 
 /**
  * Utility class for graph operations.
@@ -101,11 +101,13 @@ public final class GraphHelper {
     public static final String RETRY_DELAY = "atlas.graph.storage.retry.sleeptime.ms";
     public static final String DEFAULT_REMOVE_PROPAGATIONS_ON_ENTITY_DELETE = "atlas.graph.remove.propagations.default";
 
-    private final AtlasGremlinQueryProvider queryProvider = AtlasGremlinQueryProvider.INSTANCE;
+    private static final AtlasEdgeDirection[] PROPAGATION_EDGE_DIRECTIONS = { AtlasEdgeDirection.OUT, AtlasEdgeDirection.IN };
 
     private static volatile GraphHelper INSTANCE;
 
-    private AtlasGraph graph;
+    private AtlasGraph                  graph;
+    private final PropagationGraphCache propagationGraphCache;
+    private final int                   maxImpactedEntities;
 
     private static int     maxRetries;
     private static long    retrySleepTimeMillis;
@@ -113,7 +115,19 @@ public final class GraphHelper {
 
     @VisibleForTesting
     GraphHelper(AtlasGraph graph) {
-        this.graph = graph;
+        this(graph, PropagationGraphCache.get());
+    }
+
+    @VisibleForTesting
+    GraphHelper(AtlasGraph graph, PropagationGraphCache propagationGraphCache) {
+        this(graph, propagationGraphCache, AtlasConfiguration.TAG_PROPAGATION_MAX_IMPACTED_ENTITIES.getInt());
+    }
+
+    @VisibleForTesting
+    GraphHelper(AtlasGraph graph, PropagationGraphCache propagationGraphCache, int maxImpactedEntities) {
+        this.graph                 = graph;
+        this.propagationGraphCache = propagationGraphCache;
+        this.maxImpactedEntities   = maxImpactedEntities;
         try {
             maxRetries           = ApplicationProperties.get().getInt(RETRY_COUNT, 3);
             retrySleepTimeMillis = ApplicationProperties.get().getLong(RETRY_DELAY, 1000);
@@ -490,6 +504,24 @@ public final class GraphHelper {
         return ret;
     }
 
+    public static List<AtlasEdge> getPropagatedEdges(AtlasVertex classificationVertex, int maxEdges) {
+        List<AtlasEdge> ret   = new ArrayList<>();
+        Iterable        edges = classificationVertex.query().direction(AtlasEdgeDirection.IN).label(CLASSIFICATION_LABEL)
+                                                    .has(CLASSIFICATION_EDGE_IS_PROPAGATED_PROPERTY_KEY, true)
+                                                    .has(CLASSIFICATION_EDGE_NAME_PROPERTY_KEY, getTypeName(classificationVertex)).edges();
+        if (edges != null) {
+            Iterator<AtlasEdge> iterator = edges.iterator();
+
+            while (iterator.hasNext() && ret.size() < maxEdges) {
+                AtlasEdge edge = iterator.next();
+
+                ret.add(edge);
+            }
+        }
+
+        return ret;
+    }
+
     public static List<AtlasEdge> getIncomingClassificationEdges(AtlasVertex classificationVertex) {
         List<AtlasEdge> ret                = new ArrayList<>();
         String          classificationName = getTypeName(classificationVertex);
@@ -508,6 +540,58 @@ public final class GraphHelper {
         return ret;
     }
 
+    /**
+     * @return entities the classification is associated with, directly or by propagation
+     */
+    public static Set<AtlasVertex> getClassifiedEntityVertices(AtlasVertex classificationVertex) {
+        Set<AtlasVertex> ret = new HashSet<>();
+
+        for (AtlasEdge edge : getIncomingClassificationEdges(classificationVertex)) {
+            ret.add(edge.getOutVertex());
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return true if the entity is associated with the classification, directly or by propagation
+     */
+    public static boolean hasClassificationEdge(AtlasVertex entityVertex, AtlasVertex classificationVertex) {
+        Iterable edges = entityVertex.query().direction(AtlasEdgeDirection.OUT).label(CLASSIFICATION_LABEL)
+                                     .has(CLASSIFICATION_EDGE_NAME_PROPERTY_KEY, getTypeName(classificationVertex)).edges();
+
+        if (edges != null) {
+            for (Object edge : edges) {
+                if (edge != null && ((AtlasEdge) edge).getInVertex().equals(classificationVertex)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Same as CollectionUtils.subtract(), but using a hash lookup - instead of a linear scan - for each element.
+     *
+     * @return elements of vertices that are not in verticesToRemove, in the order of vertices
+     */
+    public static List<AtlasVertex> subtract(Collection<AtlasVertex> vertices, Collection<AtlasVertex> verticesToRemove) {
+        List<AtlasVertex> ret = new ArrayList<>();
+
+        if (vertices != null) {
+            Set<AtlasVertex> toRemove = CollectionUtils.isEmpty(verticesToRemove) ? Collections.emptySet() : new HashSet<>(verticesToRemove);
+
+            for (AtlasVertex vertex : vertices) {
+                if (!toRemove.contains(vertex)) {
+                    ret.add(vertex);
+                }
+            }
+        }
+
+        return ret;
+    }
+
     public static List<AtlasVertex> getAllPropagatedEntityVertices(AtlasVertex classificationVertex) {
         List<AtlasVertex> ret = new ArrayList<>();
 
@@ -649,6 +733,8 @@ public final class GraphHelper {
             LOG.debug("==> removeEdge({})", string(edge));
         }
 
+        propagationGraphCache.onEdgeUpdate(edge);
+
         graph.removeEdge(edge);
 
         if (LOG.isDebugEnabled()) {
@@ -666,6 +752,8 @@ public final class GraphHelper {
             LOG.debug("==> GraphHelper.removeVertex({})", string(vertex));
         }
 
+        propagationGraphCache.onVertexRemove(vertex);
+
         graph.removeVertex(vertex);
 
         if (LOG.isDebugEnabled()) {
@@ -741,31 +829,22 @@ public final class GraphHelper {
         return ret;
     }
 
+    /**
+     * Entities to propagate a classification added to the given entity to.
+     *
+     * @throws AtlasBaseException if more than atlas.tag.propagation.max.impacted.entities entities are impacted
+     */
     public List<AtlasVertex> getImpactedVertices(String guid) throws AtlasBaseException {
-        ScriptEngine      scriptEngine = graph.getGremlinScriptEngine();
-        Bindings          bindings     = scriptEngine.createBindings();
-        String            query        = queryProvider.getQuery(TAG_PROPAGATION_IMPACTED_INSTANCES);
-        List<AtlasVertex> ret          = new ArrayList<>();
-
-        bindings.put("g", graph);
-        bindings.put("guid", guid);
-
-        try {
-            Object resultObj = graph.executeGremlinScript(scriptEngine, bindings, query, false);
-
-            if (resultObj instanceof List && CollectionUtils.isNotEmpty((List) resultObj)) {
-                List<?> results = (List) resultObj;
-                Object firstElement = results.get(0);
-
-                if (firstElement instanceof AtlasVertex) {
-                    ret = (List<AtlasVertex>) results;
-                }
-            }
-        } catch (ScriptException e) {
-            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, e);
-        }
+        return getImpactedVertices(guid, null, null, true);
+    }
 
-        return ret;
+    /**
+     * Same as getImpactedVertices(guid), but not following relationships that block propagation of the given classification.
+     *
+     * @throws AtlasBaseException if more than atlas.tag.propagation.max.impacted.entities entities are impacted
+     */
+    public List<AtlasVertex> getImpactedVerticesToAddPropagation(String guid, String classificationId) throws AtlasBaseException {
+        return getImpactedVertices(guid, classificationId, null, true);
     }
 
     public List<AtlasVertex> getPropagatedEntityVertices(AtlasVertex classificationVertex) throws AtlasBaseException {
@@ -778,9 +857,9 @@ public final class GraphHelper {
             List<AtlasVertex> impactedEntityVerticesWithRestrictions = getImpactedVerticesWithRestrictions(entityGuid, classificationId);
 
             if (impactedEntityVertices.size() > impactedEntityVerticesWithRestrictions.size()) {
-                ret = (List<AtlasVertex>) CollectionUtils.subtract(impactedEntityVertices, impactedEntityVerticesWithRestrictions);
+                ret = subtract(impactedEntityVertices, impactedEntityVerticesWithRestrictions);
             } else {
-                ret = (List<AtlasVertex>) CollectionUtils.subtract(impactedEntityVerticesWithRestrictions, impactedEntityVertices);
+                ret = subtract(impactedEntityVerticesWithRestrictions, impactedEntityVertices);
             }
         }
 
@@ -792,66 +871,260 @@ public final class GraphHelper {
     }
 
     public List<AtlasVertex> getImpactedVerticesWithRestrictions(String guid, String classificationId, String guidRelationshipToExclude) throws AtlasBaseException {
-        ScriptEngine      scriptEngine = graph.getGremlinScriptEngine();
-        Bindings          bindings     = scriptEngine.createBindings();
-        List<AtlasVertex> ret          = new ArrayList<>();
-        String            query        = queryProvider.getQuery(TAG_PROPAGATION_IMPACTED_INSTANCES_WITH_RESTRICTIONS);
+        return getImpactedVertices(guid, classificationId, guidRelationshipToExclude, false);
+    }
+
+    public List<AtlasVertex> getImpactedVerticesWithReferences(String guid, String relationshipGuid) throws AtlasBaseException {
+        return getImpactedVertices(guid, null, relationshipGuid, false);
+    }
 
-        bindings.put("g", graph);
-        bindings.put("guid", guid);
-        bindings.put("classificationId", classificationId);
+    /**
+     * Finds entities reachable from the given entity over active relationships that propagate classifications, in the
+     * direction of propagation. Each vertex is visited once, so the cost is linear in the size of the impacted lineage.
+     *
+     * @param guid                      guid of the entity to propagate from
+     * @param classificationId          if not null, relationships that block propagation of this classification are not followed
+     * @param relationshipGuidToExclude if not null, relationship with this guid is not followed
+     * @param enforceLimit              true to fail when too many entities are impacted; used to add propagation. Traversals
+     *                                  to remove propagation, or to find propagations to remove, are not limited, so
+     *                                  that these don't fail for lineages that grew beyond the limit
+     * @return impacted entity vertices, in the order of distance from the given entity; the given entity is not included
+     * @throws AtlasBaseException if enforceLimit is true and more than atlas.tag.propagation.max.impacted.entities entities are impacted
+     */
+    private List<AtlasVertex> getImpactedVertices(String guid, String classificationId, String relationshipGuidToExclude, boolean enforceLimit) throws AtlasBaseException {
+        List<AtlasVertex> ret = new ArrayList<>();
 
-        if (guidRelationshipToExclude != null) {
-            query = queryProvider.getQuery(TAG_PROPAGATION_IMPACTED_INSTANCES_EXCLUDE_RELATIONSHIP);
-            bindings.put("guidRelationshipToExclude", guidRelationshipToExclude);
+        if (!getImpactedVertices(guid, classificationId, relationshipGuidToExclude, enforceLimit ? maxImpactedEntities : 0, Long.MAX_VALUE, ret)) {
+            throw new AtlasBaseException(AtlasErrorCode.TAG_PROPAGATION_LIMIT_EXCEEDED, guid, String.valueOf(maxImpactedEntities));
         }
 
-        try {
-            Object resultObj = graph.executeGremlinScript(scriptEngine, bindings, query, false);
+        return ret;
+    }
+
+    /**
+     * Same as getImpactedVertices(), but stops - instead of failing - once maxVertices entities are found or at the
+     * given time; to estimate impact of propagation from an entity.
+     *
+     * @param maxVertices      max entities to find; 0 for no limit
+     * @param deadlineMs       time, in epoch milliseconds, to stop at
+     * @param impactedVertices impacted entity vertices found are added to this list
+     * @return true if all impacted entities were found; false if stopped at maxVertices or deadlineMs
+     */
+    public boolean getImpactedVertices(String guid, String classificationId, String relationshipGuidToExclude, int maxVertices, long deadlineMs, List<AtlasVertex> impactedVertices) {
+        AtlasVertex startVertex = AtlasGraphUtilsV2.findByGuid(guid);
+
+        if (startVertex == null) {
+            return true;
+        }
+
+        if (propagationGraphCache.isUsable()) {
+            return getImpactedVerticesUsingCache(startVertex, classificationId, relationshipGuidToExclude, maxVertices, deadlineMs, impactedVertices);
+        }
+
+        Set<String>        visitedIds = new HashSet<>();
+        Queue<AtlasVertex> queue      = new ArrayDeque<>();
+
+        visitedIds.add(startVertex.getIdForDisplay());
+        queue.add(startVertex);
+
+        while (!queue.isEmpty()) {
+            if (System.currentTimeMillis() >= deadlineMs) {
+                return false;
+            }
 
-            if (resultObj instanceof List && CollectionUtils.isNotEmpty((List) resultObj)) {
-                List<?> results      = (List) resultObj;
-                Object  firstElement = results.get(0);
+            AtlasVertex vertex = queue.poll();
 
-                if (firstElement instanceof AtlasVertex) {
-                    ret = (List<AtlasVertex>) results;
+            for (AtlasEdgeDirection direction : PROPAGATION_EDGE_DIRECTIONS) {
+                Iterable<AtlasEdge> edges = vertex.query().direction(direction).has(STATE_PROPERTY_KEY, ACTIVE.name()).edges();
+
+                for (AtlasEdge edge : edges) {
+                    if (!isPropagatingEdge(edge, direction, classificationId, relationshipGuidToExclude)) {
+                        continue;
+                    }
+
+                    AtlasVertex adjacentVertex = direction == AtlasEdgeDirection.OUT ? edge.getInVertex() : edge.getOutVertex();
+
+                    if (visitedIds.add(adjacentVertex.getIdForDisplay())) {
+                        if (maxVertices > 0 && impactedVertices.size() >= maxVertices) {
+                            return false;
+                        }
+
+                        impactedVertices.add(adjacentVertex);
+                        queue.add(adjacentVertex);
+                    }
                 }
             }
-        } catch (ScriptException e) {
-            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, e);
         }
 
-        return ret;
+        return true;
     }
 
-    public List<AtlasVertex> getImpactedVerticesWithReferences(String guid, String relationshipGuid) throws AtlasBaseException {
-        ScriptEngine      scriptEngine = graph.getGremlinScriptEngine();
-        Bindings          bindings     = scriptEngine.createBindings();
-        String            query        = queryProvider.getQuery(TAG_PROPAGATION_IMPACTED_INSTANCES_FOR_REMOVAL);
-        List<AtlasVertex> ret          = new ArrayList<>();
+    /**
+     * Same as getImpactedVertices(), but following relationships in PropagationGraphCache - which are read from the
+     * graph and cached for vertices not in the cache. Entities impacted by propagation from the given entity are
+     * cached as well, when all are found, no relationship is excluded and no relationship blocks the classification.
+     */
+    private boolean getImpactedVerticesUsingCache(AtlasVertex startVertex, String classificationId, String relationshipGuidToExclude, int maxVertices, long deadlineMs, List<AtlasVertex> impactedVertices) {
+        String                   startVertexId = startVertex.getIdForDisplay();
+        long                     generation    = propagationGraphCache.getGeneration();
+        Map<String, AtlasVertex> vertices      = new HashMap<>();
 
-        bindings.put("g", graph);
-        bindings.put("guid", guid);
-        bindings.put("relationshipGuid", relationshipGuid);
+        vertices.put(startVertexId, startVertex);
 
-        try {
-            Object resultObj = graph.executeGremlinScript(scriptEngine, bindings, query, false);
+        if (relationshipGuidToExclude == null) {
+            PropagationClosure closure = propagationGraphCache.getClosure(startVertexId);
+
+            if (closure != null && (classificationId == null || !closure.hasBlockedEdges())) {
+                return toVertices(closure.getVertexIds(), vertices, maxVertices, impactedVertices);
+            }
+        }
+
+        LinkedHashSet<String> impactedVertexIds = new LinkedHashSet<>();
+        Queue<String>         queue             = new ArrayDeque<>();
+        boolean               hasBlockedEdges   = false;
+        boolean               isRestricted      = relationshipGuidToExclude != null;
+
+        queue.add(startVertexId);
+
+        while (!queue.isEmpty()) {
+            if (System.currentTimeMillis() >= deadlineMs) {
+                toVertices(impactedVertexIds, vertices, maxVertices, impactedVertices);
+
+                return false;
+            }
+
+            for (PropagationEdge edge : getPropagationEdges(queue.poll(), vertices, generation)) {
+                if (edge.hasBlockedClassifications()) {
+                    hasBlockedEdges = true;
+
+                    if (classificationId != null && edge.isBlocked(classificationId)) {
+                        isRestricted = true;
+
+                        continue;
+                    }
+                }
+
+                if (relationshipGuidToExclude != null && relationshipGuidToExclude.equals(edge.getRelationshipGuid())) {
+                    continue;
+                }
+
+                String adjacentVertexId = edge.getAdjacentVertexId();
 
-            if (resultObj instanceof List && CollectionUtils.isNotEmpty((List) resultObj)) {
-                List<?> results = (List) resultObj;
-                Object firstElement = results.get(0);
+                if (!adjacentVertexId.equals(startVertexId) && !impactedVertexIds.contains(adjacentVertexId)) {
+                    if (maxVertices > 0 && impactedVertexIds.size() >= maxVertices) {
+                        toVertices(impactedVertexIds, vertices, maxVertices, impactedVertices);
 
-                if (firstElement instanceof AtlasVertex) {
-                    ret = (List<AtlasVertex>) results;
+                        return false;
+                    }
+
+                    impactedVertexIds.add(adjacentVertexId);
+                    queue.add(adjacentVertexId);
                 }
             }
-        } catch (ScriptException e) {
-            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, e);
+        }
+
+        if (!isRestricted) {
+            propagationGraphCache.addClosure(startVertexId, impactedVertexIds, hasBlockedEdges, generation);
+        }
+
+        return toVertices(impactedVertexIds, vertices, maxVertices, impactedVertices);
+    }
+
+    private List<PropagationEdge> getPropagationEdges(String vertexId, Map<String, AtlasVertex> vertices, long generation) {
+        List<PropagationEdge> ret = propagationGraphCache.getEdges(vertexId);
+
+        if (ret == null) {
+            AtlasVertex vertex = getVertex(vertexId, vertices);
+
+            ret = new ArrayList<>();
+
+            if (vertex != null) {
+                for (AtlasEdgeDirection direction : PROPAGATION_EDGE_DIRECTIONS) {
+                    Iterable<AtlasEdge> edges = vertex.query().direction(direction).has(STATE_PROPERTY_KEY, ACTIVE.name()).edges();
+
+                    for (AtlasEdge edge : edges) {
+                        if (!isPropagatingEdge(edge, direction, null, null)) {
+                            continue;
+                        }
+
+                        AtlasVertex adjacentVertex   = direction == AtlasEdgeDirection.OUT ? edge.getInVertex() : edge.getOutVertex();
+                        String      adjacentVertexId = adjacentVertex.getIdForDisplay();
+
+                        vertices.put(adjacentVertexId, adjacentVertex);
+
+                        ret.add(new PropagationEdge(edge.getProperty(RELATIONSHIP_GUID_PROPERTY_KEY, String.class), adjacentVertexId,
+                                                    edge.getProperty(RELATIONSHIPTYPE_BLOCKED_PROPAGATED_CLASSIFICATIONS_KEY, List.class)));
+                    }
+                }
+            }
+
+            propagationGraphCache.addEdges(vertexId, ret, generation);
+        }
+
+        return ret;
+    }
+
+    // vertices of cached ids - which were read in an earlier transaction - are looked up in the current transaction
+    private boolean toVertices(Collection<String> vertexIds, Map<String, AtlasVertex> vertices, int maxVertices, List<AtlasVertex> impactedVertices) {
+        for (String vertexId : vertexIds) {
+            AtlasVertex vertex = getVertex(vertexId, vertices);
+
+            if (vertex != null) {
+                if (maxVertices > 0 && impactedVertices.size() >= maxVertices) {
+                    return false;
+                }
+
+                impactedVertices.add(vertex);
+            }
+        }
+
+        return true;
+    }
+
+    private AtlasVertex getVertex(String vertexId, Map<String, AtlasVertex> vertices) {
+        AtlasVertex ret = vertices.get(vertexId);
+
+        if (ret == null) {
+            ret = graph.getVertex(vertexId);
+
+            if (ret != null) {
+                vertices.put(vertexId, ret);
+            }
         }
 
         return ret;
     }
 
+    private static boolean isPropagatingEdge(AtlasEdge edge, AtlasEdgeDirection direction, String classificationId, String relationshipGuidToExclude) {
+        PropagateTags propagateTags = getPropagateTags(edge);
+
+        if (propagateTags == null || propagateTags == PropagateTags.NONE) {
+            return false;
+        }
+
+        if (direction == AtlasEdgeDirection.OUT && propagateTags == PropagateTags.TWO_TO_ONE) {
+            return false;
+        }
+
+        if (direction == AtlasEdgeDirection.IN && propagateTags == PropagateTags.ONE_TO_TWO) {
+            return false;
+        }
+
+        if (relationshipGuidToExclude != null && relationshipGuidToExclude.equals(edge.getProperty(RELATIONSHIP_GUID_PROPERTY_KEY, String.class))) {
+            return false;
+        }
+
+        if (classificationId != null) {
+            List<String> blockedClassificationIds = edge.getProperty(RELATIONSHIPTYPE_BLOCKED_PROPAGATED_CLASSIFICATIONS_KEY, List.class);
+
+            if (blockedClassificationIds != null && blockedClassificationIds.contains(classificationId)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Finds the Vertices that correspond to the given GUIDs.  GUIDs
      * that are not found in the graph will not be in the map.
@@ -866,6 +1139,20 @@ public final class GraphHelper {
     public static void updateModificationMetadata(AtlasVertex vertex) {
         AtlasGraphUtilsV2.setEncodedProperty(vertex, MODIFICATION_TIMESTAMP_PROPERTY_KEY, RequestContext.get().getRequestTime());
         AtlasGraphUtilsV2.setEncodedProperty(vertex, MODIFIED_BY_KEY, RequestContext.get().getUser());
+
+        incrementVersion(vertex);
+
+        EntityContentHash.invalidate(vertex);
+    }
+
+    /**
+     * Version is incremented on every modification of the vertex; unlike updateTime, which has millisecond resolution,
+     * the version of an entity identifies its state - hence is used to detect concurrent modifications (If-Match).
+     */
+    public static void incrementVersion(AtlasVertex vertex) {
+        Long version = getVersion(vertex);
+
+        AtlasGraphUtilsV2.setEncodedProperty(vertex, Constants.VERSION_PROPERTY_KEY, version != null ? version + 1 : 1L);
     }
 
     public static String getQualifiedNameForMapKey(String prefix, String key) {
@@ -1601,12 +1888,14 @@ public final class GraphHelper {
     private static void sortCollectionElements(AtlasAttribute attribute, List<AtlasEdge> edges) {
         // sort array elements based on edge index
         if (attribute.getAttributeType() instanceof AtlasArrayType && CollectionUtils.isNotEmpty(edges)) {
-            Collections.sort(edges, (e1, e2) -> {
-                Integer e1Index = getIndexValue(e1);
-                Integer e2Index = getIndexValue(e2);
+            // read the index of each edge once, instead of in every comparison
+            Map<AtlasEdge, Integer> edgeIndexes = new HashMap<>(edges.size());
+
+            for (AtlasEdge edge : edges) {
+                edgeIndexes.put(edge, getIndexValue(edge));
+            }
 
-                return e1Index.compareTo(e2Index);
-            });
+            edges.sort(Comparator.comparing(edgeIndexes::get));
         }
     }
 
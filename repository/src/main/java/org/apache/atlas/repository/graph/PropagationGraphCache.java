@@ -0,0 +1,344 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.atlas.repository.Constants.GUID_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.RELATIONSHIPTYPE_TAG_PROPAGATION_KEY;
+
+/**
+ * Server-wide cache of the graph classifications propagate along: for each entity vertex, the relationship edges a
+ * classification propagates through - with direction of propagation resolved - and, for entities propagated from
+ * recently, the entities reachable from it (propagation closure).
+ *
+ * The cache is maintained incrementally: a change to a relationship edge - create, delete, restore, update of
+ * propagateTags or blocked classifications - invalidates adjacency of both its ends and closures that include either
+ * end. A transaction that changed relationship edges doesn't use the cache afterwards, so that it sees its own
+ * updates; these are invalidated again once the transaction completes. Entries read from the graph are not added if an
+ * invalidation happened meanwhile, so that outdated state is not cached.
+ */
+public class PropagationGraphCache {
+    private static final Logger LOG = LoggerFactory.getLogger(PropagationGraphCache.class);
+
+    private static final PropagationGraphCache INSTANCE = new PropagationGraphCache(AtlasConfiguration.TAG_PROPAGATION_CACHE_SIZE.getInt(), AtlasConfiguration.TAG_PROPAGATION_CACHE_MAX_CLOSURES.getInt());
+
+    private static final int                      MAX_VERTICES_TRACKED_PER_TXN = 10000;
+    private static final ThreadLocal<Set<String>> verticesUpdatedInTxn         = ThreadLocal.withInitial(HashSet::new);
+
+    private final int                                          maxSize;
+    private final int                                          maxClosures;
+    private final LinkedHashMap<String, List<PropagationEdge>> edges;
+    private final LinkedHashMap<String, PropagationClosure>    closures;
+    private final AtomicLong                                   hits          = new AtomicLong();
+    private final AtomicLong                                   misses        = new AtomicLong();
+    private final AtomicLong                                   invalidations = new AtomicLong();
+    private final AtomicLong                                   evictions     = new AtomicLong();
+    private       long                                         closuresSize  = 0;
+    private       long                                         generation    = 0;
+
+    /**
+     * @param maxSize     max entity vertices in the cache - as adjacency entries, and separately as members of closures
+     * @param maxClosures max closures in the cache
+     */
+    PropagationGraphCache(int maxSize, int maxClosures) {
+        this.maxSize     = maxSize;
+        this.maxClosures = maxClosures;
+        this.edges       = new LinkedHashMap<>(16, 0.75f, true);
+        this.closures    = new LinkedHashMap<>(16, 0.75f, true);
+
+        LOG.info("PropagationGraphCache(maxSize={}, maxClosures={})", maxSize, maxClosures);
+    }
+
+    public static PropagationGraphCache get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * @return false if the cache is disabled, or if the transaction in the current thread changed relationship edges
+     */
+    public boolean isUsable() {
+        return isEnabled() && verticesUpdatedInTxn.get().isEmpty();
+    }
+
+    /**
+     * @return value to pass to addEdges()/addClosure(), for entries read from the graph after this call
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized List<PropagationEdge> getEdges(String vertexId) {
+        List<PropagationEdge> ret = edges.get(vertexId);
+
+        recordLookup(ret != null);
+
+        return ret;
+    }
+
+    public synchronized void addEdges(String vertexId, List<PropagationEdge> vertexEdges, long generation) {
+        if (generation != this.generation) {
+            return;
+        }
+
+        edges.put(vertexId, vertexEdges);
+
+        for (Iterator<String> iter = edges.keySet().iterator(); edges.size() > maxSize && iter.hasNext(); ) {
+            iter.next();
+            iter.remove();
+
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized PropagationClosure getClosure(String vertexId) {
+        PropagationClosure ret = closures.get(vertexId);
+
+        recordLookup(ret != null);
+
+        return ret;
+    }
+
+    /**
+     * @param vertexIds       entities reachable from the given entity, in the order of distance
+     * @param hasBlockedEdges true if any of the edges followed blocks propagation of some classifications
+     */
+    public synchronized void addClosure(String vertexId, LinkedHashSet<String> vertexIds, boolean hasBlockedEdges, long generation) {
+        if (generation != this.generation || maxClosures <= 0 || vertexIds.size() > maxSize) {
+            return;
+        }
+
+        removeClosure(vertexId);
+
+        closures.put(vertexId, new PropagationClosure(vertexIds, hasBlockedEdges));
+
+        closuresSize += vertexIds.size();
+
+        for (Iterator<Map.Entry<String, PropagationClosure>> iter = closures.entrySet().iterator(); (closures.size() > maxClosures || closuresSize > maxSize) && iter.hasNext(); ) {
+            closuresSize -= iter.next().getValue().size();
+
+            iter.remove();
+
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * To be called after a relationship edge is created, or its state, propagateTags or blocked classifications are
+     * updated; and before a relationship edge is removed.
+     */
+    public void onEdgeUpdate(AtlasEdge edge) {
+        if (!isEnabled() || edge == null || edge.getProperty(RELATIONSHIPTYPE_TAG_PROPAGATION_KEY, String.class) == null) {
+            return;
+        }
+
+        onUpdate(Arrays.asList(edge.getOutVertex().getIdForDisplay(), edge.getInVertex().getIdForDisplay()));
+    }
+
+    /**
+     * To be called before a vertex is removed - which removes its edges as well.
+     */
+    public void onVertexRemove(AtlasVertex vertex) {
+        if (isEnabled() && vertex != null && vertex.getProperty(GUID_PROPERTY_KEY, String.class) != null) { // only entity vertices have relationship edges
+            onUpdate(Collections.singletonList(vertex.getIdForDisplay()));
+        }
+    }
+
+    /**
+     * Called at the end of the outermost graph transaction in the current thread.
+     */
+    public void onTransactionComplete(boolean isSuccess) {
+        Set<String> vertexIds = verticesUpdatedInTxn.get();
+
+        if (vertexIds.isEmpty()) {
+            return;
+        }
+
+        // beyond this, updated vertices are not tracked; hence the entire cache is cleared
+        if (vertexIds.size() >= MAX_VERTICES_TRACKED_PER_TXN) {
+            clear();
+        } else {
+            invalidate(vertexIds);
+        }
+
+        vertexIds.clear();
+    }
+
+    public synchronized void clear() {
+        generation++;
+
+        edges.clear();
+        closures.clear();
+
+        closuresSize = 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> ret = new LinkedHashMap<>();
+
+        ret.put("size", edges.size());
+        ret.put("closures", closures.size());
+        ret.put("closuresSize", closuresSize);
+        ret.put("maxSize", maxSize);
+        ret.put("maxClosures", maxClosures);
+        ret.put("hits", hits.get());
+        ret.put("misses", misses.get());
+        ret.put("invalidations", invalidations.get());
+        ret.put("evictions", evictions.get());
+
+        return ret;
+    }
+
+    private void onUpdate(Collection<String> vertexIds) {
+        Set<String> updatedVertexIds = verticesUpdatedInTxn.get();
+
+        if (updatedVertexIds.size() < MAX_VERTICES_TRACKED_PER_TXN) {
+            updatedVertexIds.addAll(vertexIds);
+        }
+
+        invalidate(vertexIds);
+    }
+
+    private synchronized void invalidate(Collection<String> vertexIds) {
+        generation++;
+
+        for (String vertexId : vertexIds) {
+            if (edges.remove(vertexId) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+
+        for (Iterator<Map.Entry<String, PropagationClosure>> iter = closures.entrySet().iterator(); iter.hasNext(); ) {
+            Map.Entry<String, PropagationClosure> entry = iter.next();
+
+            if (vertexIds.contains(entry.getKey()) || entry.getValue().containsAny(vertexIds)) {
+                closuresSize -= entry.getValue().size();
+
+                iter.remove();
+
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    private void removeClosure(String vertexId) {
+        PropagationClosure closure = closures.remove(vertexId);
+
+        if (closure != null) {
+            closuresSize -= closure.size();
+        }
+    }
+
+    private void recordLookup(boolean isHit) {
+        if (isHit) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Relationship edge a classification propagates through, from the vertex it is cached for to the adjacent vertex.
+     */
+    public static class PropagationEdge {
+        private final String       relationshipGuid;
+        private final String       adjacentVertexId;
+        private final List<String> blockedClassificationIds;
+
+        public PropagationEdge(String relationshipGuid, String adjacentVertexId, List<String> blockedClassificationIds) {
+            this.relationshipGuid         = relationshipGuid;
+            this.adjacentVertexId         = adjacentVertexId;
+            this.blockedClassificationIds = (blockedClassificationIds == null || blockedClassificationIds.isEmpty()) ? null : blockedClassificationIds;
+        }
+
+        public String getRelationshipGuid() {
+            return relationshipGuid;
+        }
+
+        public String getAdjacentVertexId() {
+            return adjacentVertexId;
+        }
+
+        public boolean hasBlockedClassifications() {
+            return blockedClassificationIds != null;
+        }
+
+        public boolean isBlocked(String classificationId) {
+            return blockedClassificationIds != null && blockedClassificationIds.contains(classificationId);
+        }
+    }
+
+    /**
+     * Entities a classification propagates to from an entity, when none of the edges followed blocks the classification.
+     */
+    public static class PropagationClosure {
+        private final LinkedHashSet<String> vertexIds;
+        private final boolean               hasBlockedEdges;
+
+        PropagationClosure(LinkedHashSet<String> vertexIds, boolean hasBlockedEdges) {
+            this.vertexIds       = vertexIds;
+            this.hasBlockedEdges = hasBlockedEdges;
+        }
+
+        public Collection<String> getVertexIds() {
+            return Collections.unmodifiableSet(vertexIds);
+        }
+
+        /**
+         * @return true if some edges in the closure block propagation of some classifications - in which case the
+         *         closure doesn't apply to these classifications
+         */
+        public boolean hasBlockedEdges() {
+            return hasBlockedEdges;
+        }
+
+        public int size() {
+            return vertexIds.size();
+        }
+
+        boolean containsAny(Collection<String> ids) {
+            for (String id : ids) {
+                if (vertexIds.contains(id)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.AtlasEntityHeaders;
 import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.AtlasPropagationImpact;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.repository.store.graph.v2.EntityStream;
 import org.apache.atlas.type.AtlasEntityType;
@@ -156,6 +157,16 @@ public interface AtlasEntityStore {
      */
     EntityMutationResponse updateEntity(AtlasObjectId objectId, AtlasEntityWithExtInfo updatedEntityInfo, boolean isPartialUpdate) throws AtlasBaseException;
 
+    /**
+     * Update a single entity, only if the entity's version equals expectedVersion
+     * @param objectId     ID of the entity
+     * @param updatedEntityInfo updated entity information
+     * @param expectedVersion version of the entity known to the caller; null to update regardless of version
+     * @return EntityMutationResponse details of the updates performed by this call
+     * @throws AtlasBaseException with ENTITY_MODIFIED error code, if the entity's current version differs from expectedVersion
+     */
+    EntityMutationResponse updateEntity(AtlasObjectId objectId, AtlasEntityWithExtInfo updatedEntityInfo, boolean isPartialUpdate, Long expectedVersion) throws AtlasBaseException;
+
     /**
      * Update a single entity
      * @param entityType     type of the entity
@@ -167,6 +178,17 @@ public interface AtlasEntityStore {
     EntityMutationResponse updateByUniqueAttributes(AtlasEntityType entityType, Map<String, Object> uniqAttributes,
                                                     AtlasEntityWithExtInfo entity) throws AtlasBaseException;
 
+    /**
+     * Update a single entity, only if the entity's version equals expectedVersion
+     * @param entityType     type of the entity
+     * @param uniqAttributes Attributes that uniquely identify the entity
+     * @param expectedVersion version of the entity known to the caller; null to update regardless of version
+     * @return EntityMutationResponse details of the updates performed by this call
+     * @throws AtlasBaseException with ENTITY_MODIFIED error code, if the entity's current version differs from expectedVersion
+     */
+    EntityMutationResponse updateByUniqueAttributes(AtlasEntityType entityType, Map<String, Object> uniqAttributes,
+                                                    AtlasEntityWithExtInfo entity, Long expectedVersion) throws AtlasBaseException;
+
     /**
      * Partial update entities attribute using its guid.
      * @param guid Entity guid
@@ -177,6 +199,17 @@ public interface AtlasEntityStore {
      */
     EntityMutationResponse updateEntityAttributeByGuid(String guid, String attrName, Object attrValue) throws AtlasBaseException;
 
+    /**
+     * Partial update entities attribute using its guid, only if the entity's version equals expectedVersion
+     * @param guid Entity guid
+     * @param attrName attribute name to be updated
+     * @param attrValue updated attribute value
+     * @param expectedVersion version of the entity known to the caller; null to update regardless of version
+     * @return EntityMutationResponse details of the updates performed by this call
+     * @throws AtlasBaseException with ENTITY_MODIFIED error code, if the entity's current version differs from expectedVersion
+     */
+    EntityMutationResponse updateEntityAttributeByGuid(String guid, String attrName, Object attrValue, Long expectedVersion) throws AtlasBaseException;
+
     /**
      * Delete an entity by its guid
      * @param guid
@@ -184,6 +217,15 @@ public interface AtlasEntityStore {
      */
     EntityMutationResponse deleteById(String guid) throws AtlasBaseException;
 
+    /**
+     * Delete an entity by its guid, only if the entity's version equals expectedVersion
+     * @param guid
+     * @param expectedVersion version of the entity known to the caller; null to delete regardless of version
+     * @return
+     * @throws AtlasBaseException with ENTITY_MODIFIED error code, if the entity's current version differs from expectedVersion
+     */
+    EntityMutationResponse deleteById(String guid, Long expectedVersion) throws AtlasBaseException;
+
     /**
      * Deletes an entity using its type and unique attributes
      * @param entityType      type of the entity
@@ -193,6 +235,17 @@ public interface AtlasEntityStore {
      */
     EntityMutationResponse deleteByUniqueAttributes(AtlasEntityType entityType, Map<String, Object> uniqAttributes)
             throws AtlasBaseException;
+
+    /**
+     * Deletes an entity using its type and unique attributes, only if the entity's version equals expectedVersion
+     * @param entityType      type of the entity
+     * @param uniqAttributes Attributes that uniquely identify the entity
+     * @param expectedVersion version of the entity known to the caller; null to delete regardless of version
+     * @return EntityMutationResponse details of the updates performed by this call
+     * @throws AtlasBaseException with ENTITY_MODIFIED error code, if the entity's current version differs from expectedVersion
+     */
+    EntityMutationResponse deleteByUniqueAttributes(AtlasEntityType entityType, Map<String, Object> uniqAttributes, Long expectedVersion)
+            throws AtlasBaseException;
     /**
      *
      * Get an entity guid by its unique attributes
@@ -231,6 +284,17 @@ public interface AtlasEntityStore {
 
     AtlasClassification getClassification(String guid, String classificationName) throws AtlasBaseException;
 
+    /**
+     * Estimates entities the classification would propagate to if added to the entity, without updating the entity.
+     * Relationships that block propagation of the classification already on the entity, if any, are not followed.
+     * @param guid               guid of the entity to add the classification to
+     * @param classificationName name of the classification
+     * @param maxEntities        stop counting after these many entities; 0 or larger than the configured max uses the configured max
+     * @param timeoutMs          stop counting after this time; 0 or larger than the configured max uses the configured max
+     * @param sampleSize         number of impacted entities to return, up to the configured max; only entities the user is authorized to read are returned
+     */
+    AtlasPropagationImpact getPropagationImpact(String guid, String classificationName, int maxEntities, long timeoutMs, int sampleSize) throws AtlasBaseException;
+
     String setClassifications(AtlasEntityHeaders entityHeaders);
 
     /**
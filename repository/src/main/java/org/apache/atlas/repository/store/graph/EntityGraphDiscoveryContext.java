@@ -40,6 +40,7 @@ public final class EntityGraphDiscoveryContext {
     private final AtlasTypeRegistry               typeRegistry;
     private final EntityStream                    entityStream;
     private final List<String>                    referencedGuids          = new ArrayList<>();
+    private final Set<String>                     referencedGuidSet        = new HashSet<>(); // to check for duplicates in referencedGuids
     private final Set<AtlasObjectId>              referencedByUniqAttribs  = new HashSet<>();
     private final Map<String, AtlasVertex>        resolvedGuids            = new HashMap<>();
     private final Map<AtlasObjectId, AtlasVertex> resolvedIdsByUniqAttribs = new HashMap<>();
@@ -70,7 +71,7 @@ public final class EntityGraphDiscoveryContext {
 
 
     public void addReferencedGuid(String guid) {
-        if (! referencedGuids.contains(guid)) {
+        if (referencedGuidSet.add(guid)) {
             referencedGuids.add(guid);
         }
     }
@@ -144,6 +145,7 @@ public final class EntityGraphDiscoveryContext {
 
     public void cleanUp() {
         referencedGuids.clear();
+        referencedGuidSet.clear();
         referencedByUniqAttribs.clear();
         resolvedGuids.clear();
         resolvedIdsByUniqAttribs.clear();
@@ -36,6 +36,7 @@ import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2;
+import org.apache.atlas.repository.store.graph.v2.EntityVertexIdCache;
 import org.apache.atlas.repository.store.graph.v2.EntityGraphRetriever;
 import org.apache.atlas.type.AtlasArrayType;
 import org.apache.atlas.type.AtlasClassificationType;
@@ -124,6 +125,8 @@ public abstract class DeleteHandlerV1 {
 
         // Delete traits and vertices.
         for (AtlasVertex deletionCandidateVertex : deletionCandidateVertices) {
+            EntityVertexIdCache.get().invalidate(deletionCandidateVertex, typeRegistry.getEntityTypeByName(getTypeName(deletionCandidateVertex)));
+
             deleteAllClassifications(deletionCandidateVertex);
             deleteTypeVertex(deletionCandidateVertex, isInternalType(deletionCandidateVertex));
         }
@@ -347,6 +350,7 @@ public abstract class DeleteHandlerV1 {
                     if (!requestContext.isUpdatedEntity(GraphHelper.getGuid(referencedVertex))) {
                         AtlasGraphUtilsV2.setEncodedProperty(referencedVertex, MODIFICATION_TIMESTAMP_PROPERTY_KEY, requestContext.getRequestTime());
                         AtlasGraphUtilsV2.setEncodedProperty(referencedVertex, MODIFIED_BY_KEY, requestContext.getUser());
+                        GraphHelper.incrementVersion(referencedVertex);
 
                         requestContext.recordEntityUpdate(entityRetriever.toAtlasEntityHeader(referencedVertex));
                     }
@@ -395,46 +399,58 @@ public abstract class DeleteHandlerV1 {
     }
 
     public List<AtlasVertex> addTagPropagation(AtlasVertex classificationVertex, List<AtlasVertex> propagatedEntityVertices) throws AtlasBaseException {
+        return addTagPropagation(classificationVertex, propagatedEntityVertices, true);
+    }
+
+    /**
+     * Propagates the classification to given entities, skipping entities that already have the classification and
+     * entities of types the classification can't be applied to.
+     *
+     * @param prefetchClassifiedEntities true to find entities that already have the classification with a single query
+     *                                   on the classification vertex; false to look up each given entity instead, which
+     *                                   is cheaper when the classification is already propagated to many more entities
+     *                                   than given - like in chunks of a large propagation
+     * @return entities the classification was propagated to
+     */
+    public List<AtlasVertex> addTagPropagation(AtlasVertex classificationVertex, List<AtlasVertex> propagatedEntityVertices, boolean prefetchClassifiedEntities) throws AtlasBaseException {
         List<AtlasVertex> ret = null;
 
         if (CollectionUtils.isNotEmpty(propagatedEntityVertices) && classificationVertex != null) {
-            String                  classificationName     = getTypeName(classificationVertex);
-            AtlasClassificationType classificationType     = typeRegistry.getClassificationTypeByName(classificationName);
-            AtlasVertex             associatedEntityVertex = getAssociatedEntityVertex(classificationVertex);
+            String                  classificationName        = getTypeName(classificationVertex);
+            AtlasClassificationType classificationType        = typeRegistry.getClassificationTypeByName(classificationName);
+            Set<AtlasVertex>        classifiedEntityVertices  = prefetchClassifiedEntities ? getClassifiedEntityVertices(classificationVertex) : new HashSet<>();
+            Map<String, Boolean>    isApplicableByEntityType  = new HashMap<>();
+            AtlasClassification     classification            = null;
+            RequestContext          context                   = RequestContext.get();
 
             for (AtlasVertex propagatedEntityVertex : propagatedEntityVertices) {
-                if (getClassificationEdge(propagatedEntityVertex, classificationVertex) != null) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(" --> Classification edge already exists from [{}] --> [{}][{}] using edge label: [{}]",
-                                  getTypeName(propagatedEntityVertex), getTypeName(classificationVertex), getTypeName(associatedEntityVertex), classificationName);
-                    }
+                boolean isClassified = classifiedEntityVertices.contains(propagatedEntityVertex) ||
+                                       (!prefetchClassifiedEntities && hasClassificationEdge(propagatedEntityVertex, classificationVertex));
 
-                    continue;
-                } else if (getPropagatedClassificationEdge(propagatedEntityVertex, classificationVertex) != null) {
+                if (isClassified) {
                     if (LOG.isDebugEnabled()) {
-                        LOG.debug(" --> Propagated classification edge already exists from [{}] --> [{}][{}] using edge label: [{}]",
-                                  getTypeName(propagatedEntityVertex), getTypeName(classificationVertex), getTypeName(associatedEntityVertex), CLASSIFICATION_LABEL);
+                        LOG.debug(" --> Classification edge already exists from [{}] --> [{}] using edge label: [{}]",
+                                  getTypeName(propagatedEntityVertex), getTypeName(classificationVertex), classificationName);
                     }
 
                     continue;
                 }
 
-                String          entityTypeName = getTypeName(propagatedEntityVertex);
-                AtlasEntityType entityType     = typeRegistry.getEntityTypeByName(entityTypeName);
-                String          entityGuid     = getGuid(propagatedEntityVertex);
+                String  entityTypeName = getTypeName(propagatedEntityVertex);
+                Boolean isApplicable   = isApplicableByEntityType.get(entityTypeName);
 
-                if (!classificationType.canApplyToEntityType(entityType)) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(" --> Not creating propagated classification edge from [{}] --> [{}][{}], classification is not applicable for entity type",
-                                   getTypeName(propagatedEntityVertex), getTypeName(classificationVertex), getTypeName(associatedEntityVertex));
-                    }
+                if (isApplicable == null) {
+                    isApplicable = classificationType.canApplyToEntityType(typeRegistry.getEntityTypeByName(entityTypeName));
 
-                    continue;
+                    isApplicableByEntityType.put(entityTypeName, isApplicable);
                 }
 
-                AtlasEdge existingEdge = getPropagatedClassificationEdge(propagatedEntityVertex, classificationVertex);
+                if (!isApplicable) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(" --> Not creating propagated classification edge from [{}] --> [{}], classification is not applicable for entity type",
+                                   getTypeName(propagatedEntityVertex), getTypeName(classificationVertex));
+                    }
 
-                if (existingEdge != null) {
                     continue;
                 }
 
@@ -453,11 +469,14 @@ public abstract class DeleteHandlerV1 {
 
                 addToPropagatedClassificationNames(propagatedEntityVertex, classificationName);
 
+                classifiedEntityVertices.add(propagatedEntityVertex);
+
                 // record add propagation details to send notifications at the end
-                RequestContext      context        = RequestContext.get();
-                AtlasClassification classification = entityRetriever.toAtlasClassification(classificationVertex);
+                if (classification == null) {
+                    classification = entityRetriever.toAtlasClassification(classificationVertex);
+                }
 
-                context.recordAddedPropagation(entityGuid, classification);
+                context.recordAddedPropagation(getGuid(propagatedEntityVertex), classification);
             }
         }
 
@@ -480,7 +499,7 @@ public abstract class DeleteHandlerV1 {
             for (AtlasVertex classificationVertex : updatedClassificationsMap.keySet()) {
                 List<AtlasVertex> currentPropagatingEntities = currentClassificationsMap.containsKey(classificationVertex) ? currentClassificationsMap.get(classificationVertex) : Collections.emptyList();
                 List<AtlasVertex> updatedPropagatingEntities = updatedClassificationsMap.containsKey(classificationVertex) ? updatedClassificationsMap.get(classificationVertex) : Collections.emptyList();
-                List<AtlasVertex> entitiesRemoved            = (List<AtlasVertex>) CollectionUtils.subtract(currentPropagatingEntities, updatedPropagatingEntities);
+                List<AtlasVertex> entitiesRemoved            = subtract(currentPropagatingEntities, updatedPropagatingEntities);
 
                 if (CollectionUtils.isNotEmpty(entitiesRemoved)) {
                     removePropagationsMap.put(classificationVertex, entitiesRemoved);
@@ -937,6 +956,7 @@ public abstract class DeleteHandlerV1 {
             if (! requestContext.isUpdatedEntity(outId)) {
                 AtlasGraphUtilsV2.setEncodedProperty(outVertex, MODIFICATION_TIMESTAMP_PROPERTY_KEY, requestContext.getRequestTime());
                 AtlasGraphUtilsV2.setEncodedProperty(outVertex, MODIFIED_BY_KEY, requestContext.getUser());
+                GraphHelper.incrementVersion(outVertex);
 
                 requestContext.recordEntityUpdate(entityRetriever.toAtlasEntityHeader(outVertex));
             }
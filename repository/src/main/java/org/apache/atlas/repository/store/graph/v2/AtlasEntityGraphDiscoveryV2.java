@@ -50,6 +50,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2.isReference;
+import static org.apache.atlas.repository.store.graph.v2.EntityGraphMapper.getCollectionMutationAttribute;
 import static org.apache.atlas.repository.store.graph.v2.EntityGraphMapper.validateCustomAttributes;
 import static org.apache.atlas.repository.store.graph.v2.EntityGraphMapper.validateLabels;
 
@@ -102,6 +104,8 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
 
         type.validateValue(entity, entity.getTypeName(), messages);
 
+        validateAndNormalizeCollectionMutations(type, entity, messages);
+
         if (!messages.isEmpty()) {
             throw new AtlasBaseException(AtlasErrorCode.INSTANCE_CRUD_INVALID_PARAMS, messages);
         }
@@ -129,6 +133,8 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
 
         type.validateValueForUpdate(entity, entity.getTypeName(), messages);
 
+        validateAndNormalizeCollectionMutations(type, entity, messages);
+
         if (!messages.isEmpty()) {
             throw new AtlasBaseException(AtlasErrorCode.INSTANCE_CRUD_INVALID_PARAMS, messages);
         }
@@ -136,6 +142,94 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
         type.getNormalizedValueForUpdate(entity);
     }
 
+    private void validateAndNormalizeCollectionMutations(AtlasEntityType entityType, AtlasEntity entity, List<String> messages) {
+        if (entity.hasCollectionMutations()) {
+            validateAndNormalizeCollectionMutations(entityType, entity.getAppendAttributes(), false, false, messages);
+            validateAndNormalizeCollectionMutations(entityType, entity.getRemoveAttributes(), false, true, messages);
+            validateAndNormalizeCollectionMutations(entityType, entity.getAppendRelationshipAttributes(), true, false, messages);
+            validateAndNormalizeCollectionMutations(entityType, entity.getRemoveRelationshipAttributes(), true, true, messages);
+        }
+    }
+
+    /*
+     * values to append to an array, or to remove from an array, must be a list of elements of the array;
+     * values to append to a map must be a map and values to remove from a map must be a list of keys.
+     */
+    private void validateAndNormalizeCollectionMutations(AtlasEntityType entityType, Map<String, Object> mutations, boolean isRelationshipAttribute,
+                                                         boolean isRemove, List<String> messages) {
+        if (mutations == null) {
+            return;
+        }
+
+        for (Map.Entry<String, Object> entry : mutations.entrySet()) {
+            String         attrName  = entry.getKey();
+            Object         value     = entry.getValue();
+            AtlasAttribute attribute = getCollectionMutationAttribute(entityType, attrName, value, isRelationshipAttribute);
+            String         objName   = entityType.getTypeName() + "." + attrName;
+
+            if (attribute == null) {
+                messages.add(objName + ": unknown attribute");
+            } else if (attribute.getAttributeType() instanceof AtlasArrayType) {
+                AtlasArrayType arrayType = (AtlasArrayType) attribute.getAttributeType();
+
+                if (isRemove && arrayType.getElementType().getTypeCategory() == TypeCategory.STRUCT) {
+                    messages.add(objName + ": removal of elements from array of structs is not supported");
+                } else if (!(value instanceof Collection)) {
+                    messages.add(objName + ": invalid value " + value + ". list of elements expected");
+                } else if (validateElements(arrayType.getElementType(), (Collection) value, objName, messages)) {
+                    List<Object> normalizedValue = new ArrayList<>(((Collection) value).size());
+
+                    for (Object element : (Collection) value) {
+                        normalizedValue.add(arrayType.getElementType().getNormalizedValue(element));
+                    }
+
+                    entry.setValue(normalizedValue);
+                }
+            } else if (attribute.getAttributeType() instanceof AtlasMapType) {
+                AtlasMapType mapType = (AtlasMapType) attribute.getAttributeType();
+
+                if (isReference(mapType.getValueType()) && !attribute.getAttributeDef().isSoftReferenced()) {
+                    messages.add(objName + ": append/remove is not supported for map of references");
+                } else if (isRemove) {
+                    if (!(value instanceof Collection)) {
+                        messages.add(objName + ": invalid value " + value + ". list of keys expected");
+                    } else if (validateElements(mapType.getKeyType(), (Collection) value, objName, messages)) {
+                        List<Object> normalizedValue = new ArrayList<>(((Collection) value).size());
+
+                        for (Object key : (Collection) value) {
+                            normalizedValue.add(mapType.getKeyType().getNormalizedValue(key));
+                        }
+
+                        entry.setValue(normalizedValue);
+                    }
+                } else if (mapType.validateValue(value, objName, messages)) {
+                    entry.setValue(mapType.getNormalizedValue(value));
+                }
+            } else {
+                messages.add(objName + ": append/remove is supported only for array and map attributes");
+            }
+        }
+    }
+
+    private static boolean validateElements(AtlasType elementType, Collection values, String objName, List<String> messages) {
+        boolean ret = true;
+        int     idx = 0;
+
+        for (Object value : values) {
+            if (value == null) {
+                messages.add(objName + "[" + idx + "]: null value");
+
+                ret = false;
+            } else {
+                ret = elementType.validateValue(value, objName + "[" + idx + "]", messages) && ret;
+            }
+
+            idx++;
+        }
+
+        return ret;
+    }
+
     @Override
     public void cleanUp() throws AtlasBaseException {
         discoveryContext.cleanUp();
@@ -145,11 +239,10 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
     protected void discover() throws AtlasBaseException {
         MetricRecorder metric = RequestContext.get().startMetricRecord("walkEntityGraph");
 
-        EntityStream entityStream = discoveryContext.getEntityStream();
-
-        Set<String> walkedEntities = new HashSet<>();
+        EntityStream      entityStream   = discoveryContext.getEntityStream();
+        List<AtlasEntity> entities       = new ArrayList<>();
+        Set<String>       walkedEntities = new HashSet<>();
 
-        // walk through top-level entities and find entity references
         while (entityStream.hasNext()) {
             AtlasEntity entity = entityStream.next();
 
@@ -157,11 +250,26 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
                 throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, "found null entity");
             }
 
+            entities.add(entity);
+        }
+
+        // walk through top-level entities and find entity references; for large requests, entities are walked in parallel
+        List<EntityReferences> entityReferences = EntityBatchProcessor.process(entities.size(), idx -> {
+            AtlasEntity      entity = entities.get(idx);
+            EntityReferences ret    = new EntityReferences();
+
             processDynamicAttributes(entity);
 
-            walkEntityGraph(entity);
+            walkEntityGraph(entity, ret);
+
+            return ret;
+        });
 
-            walkedEntities.add(entity.getGuid());
+        // record references in the order of entities, as walking entities one after another would
+        for (int i = 0; i < entities.size(); i++) {
+            entityReferences.get(i).recordInto(discoveryContext);
+
+            walkedEntities.add(entities.get(i).getGuid());
         }
 
         // walk through entities referenced by other entities
@@ -177,7 +285,11 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
             AtlasEntity entity = entityStream.getByGuid(guid);
 
             if (entity != null) {
-                walkEntityGraph(entity);
+                EntityReferences references = new EntityReferences();
+
+                walkEntityGraph(entity, references);
+
+                references.recordInto(discoveryContext);
 
                 walkedEntities.add(entity.getGuid());
             }
@@ -200,7 +312,7 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
         RequestContext.get().endMetricRecord(metric);
     }
 
-    private void visitReference(AtlasObjectIdType type, Object val) throws AtlasBaseException {
+    private void visitReference(AtlasObjectIdType type, Object val, EntityReferences references) throws AtlasBaseException {
         if (type == null || val == null) {
             return;
         }
@@ -212,7 +324,7 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
                 throw new AtlasBaseException(AtlasErrorCode.INVALID_OBJECT_ID, objId.toString());
             }
 
-            recordObjectReference(objId);
+            recordObjectReference(objId, references);
         } else if (val instanceof Map) {
             AtlasObjectId objId = new AtlasObjectId((Map)val);
 
@@ -220,13 +332,13 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
                 throw new AtlasBaseException(AtlasErrorCode.INVALID_OBJECT_ID, objId.toString());
             }
 
-            recordObjectReference(objId);
+            recordObjectReference(objId, references);
         } else {
             throw new AtlasBaseException(AtlasErrorCode.INVALID_OBJECT_ID, val.toString());
         }
     }
 
-    void visitAttribute(AtlasType attrType, Object val) throws AtlasBaseException {
+    void visitAttribute(AtlasType attrType, Object val, EntityReferences references) throws AtlasBaseException {
         if (attrType == null || val == null) {
             return;
         }
@@ -240,7 +352,7 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
                 AtlasArrayType arrayType = (AtlasArrayType) attrType;
                 AtlasType      elemType  = arrayType.getElementType();
 
-                visitCollectionReferences(elemType, val);
+                visitCollectionReferences(elemType, val, references);
             }
             break;
 
@@ -248,16 +360,16 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
                 AtlasType keyType   = ((AtlasMapType) attrType).getKeyType();
                 AtlasType valueType = ((AtlasMapType) attrType).getValueType();
 
-                visitMapReferences(keyType, valueType, val);
+                visitMapReferences(keyType, valueType, val, references);
             }
             break;
 
             case STRUCT:
-                visitStruct((AtlasStructType)attrType, val);
+                visitStruct((AtlasStructType)attrType, val, references);
             break;
 
             case OBJECT_ID_TYPE:
-                visitReference((AtlasObjectIdType) attrType,  val);
+                visitReference((AtlasObjectIdType) attrType,  val, references);
             break;
 
             default:
@@ -265,7 +377,7 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
         }
     }
 
-    void visitMapReferences(AtlasType keyType, AtlasType valueType, Object val) throws AtlasBaseException {
+    void visitMapReferences(AtlasType keyType, AtlasType valueType, Object val, EntityReferences references) throws AtlasBaseException {
         if (keyType == null || valueType == null || val == null) {
             return;
         }
@@ -278,13 +390,13 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
             Iterator<Map.Entry> it = ((Map) val).entrySet().iterator();
             while (it.hasNext()) {
                 Map.Entry e = it.next();
-                visitAttribute(keyType, e.getKey());
-                visitAttribute(valueType, e.getValue());
+                visitAttribute(keyType, e.getKey(), references);
+                visitAttribute(valueType, e.getValue(), references);
             }
         }
     }
 
-    void visitCollectionReferences(AtlasType elemType, Object val) throws AtlasBaseException {
+    void visitCollectionReferences(AtlasType elemType, Object val, EntityReferences references) throws AtlasBaseException {
         if (elemType == null || val == null || isPrimitive(elemType.getTypeCategory())) {
             return;
         }
@@ -302,12 +414,12 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
         if (it != null) {
             while (it.hasNext()) {
                 Object elem = it.next();
-                visitAttribute(elemType, elem);
+                visitAttribute(elemType, elem, references);
             }
         }
     }
 
-    void visitStruct(AtlasStructType structType, Object val) throws AtlasBaseException {
+    void visitStruct(AtlasStructType structType, Object val, EntityReferences references) throws AtlasBaseException {
         if (structType == null || val == null) {
             return;
         }
@@ -324,14 +436,14 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
             throw new AtlasBaseException(AtlasErrorCode.INVALID_STRUCT_VALUE, val.toString());
         }
 
-        visitStruct(structType, struct);
+        visitStruct(structType, struct, references);
     }
 
-    void visitEntity(AtlasEntityType entityType, AtlasEntity entity) throws AtlasBaseException {
+    void visitEntity(AtlasEntityType entityType, AtlasEntity entity, EntityReferences references) throws AtlasBaseException {
         List<String> visitedAttributes = new ArrayList<>();
 
         // visit relationship attributes
-        visitRelationships(entityType, entity, visitedAttributes);
+        visitRelationships(entityType, entity, visitedAttributes, references);
 
         // visit struct attributes
         for (AtlasAttribute attribute : entityType.getAllAttributes().values()) {
@@ -340,12 +452,34 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
             Object    attrVal  = entity.getAttribute(attrName);
 
             if (entity.hasAttribute(attrName) && !visitedAttributes.contains(attrName)) {
-                visitAttribute(attrType, attrVal);
+                visitAttribute(attrType, attrVal, references);
             }
         }
+
+        // references to append/remove must be resolved as well
+        if (entity.hasCollectionMutations()) {
+            visitCollectionMutations(entityType, entity.getAppendAttributes(), false, references);
+            visitCollectionMutations(entityType, entity.getRemoveAttributes(), false, references);
+            visitCollectionMutations(entityType, entity.getAppendRelationshipAttributes(), true, references);
+            visitCollectionMutations(entityType, entity.getRemoveRelationshipAttributes(), true, references);
+        }
     }
 
-    private void visitRelationships(AtlasEntityType entityType, AtlasEntity entity, List<String> visitedAttributes) throws AtlasBaseException {
+    private void visitCollectionMutations(AtlasEntityType entityType, Map<String, Object> mutations, boolean isRelationshipAttribute, EntityReferences references) throws AtlasBaseException {
+        if (mutations == null) {
+            return;
+        }
+
+        for (Map.Entry<String, Object> entry : mutations.entrySet()) {
+            AtlasAttribute attribute = getCollectionMutationAttribute(entityType, entry.getKey(), entry.getValue(), isRelationshipAttribute);
+
+            if (attribute != null && attribute.getAttributeType() instanceof AtlasArrayType) {
+                visitAttribute(attribute.getAttributeType(), entry.getValue(), references);
+            }
+        }
+    }
+
+    private void visitRelationships(AtlasEntityType entityType, AtlasEntity entity, List<String> visitedAttributes, EntityReferences references) throws AtlasBaseException {
         for (String attrName : entityType.getRelationshipAttributes().keySet()) {
 
             // if attribute is not in 'relationshipAttributes', try 'attributes'
@@ -354,7 +488,7 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
                 String         relationshipType = AtlasEntityUtil.getRelationshipType(attrVal);
                 AtlasAttribute attribute        = entityType.getRelationshipAttribute(attrName, relationshipType);
 
-                visitAttribute(attribute.getAttributeType(), attrVal);
+                visitAttribute(attribute.getAttributeType(), attrVal, references);
 
                 visitedAttributes.add(attrName);
             } else if (entity.hasAttribute(attrName)) {
@@ -362,23 +496,23 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
                 String         relationshipType = AtlasEntityUtil.getRelationshipType(attrVal);
                 AtlasAttribute attribute        = entityType.getRelationshipAttribute(attrName, relationshipType);
 
-                visitAttribute(attribute.getAttributeType(), attrVal);
+                visitAttribute(attribute.getAttributeType(), attrVal, references);
 
                 visitedAttributes.add(attrName);
             }
         }
     }
 
-    void visitStruct(AtlasStructType structType, AtlasStruct struct) throws AtlasBaseException {
+    void visitStruct(AtlasStructType structType, AtlasStruct struct, EntityReferences references) throws AtlasBaseException {
         for (AtlasAttribute attribute : structType.getAllAttributes().values()) {
             AtlasType attrType = attribute.getAttributeType();
             Object    attrVal  = struct.getAttribute(attribute.getName());
 
-            visitAttribute(attrType, attrVal);
+            visitAttribute(attrType, attrVal, references);
         }
     }
 
-    void walkEntityGraph(AtlasEntity entity) throws AtlasBaseException {
+    void walkEntityGraph(AtlasEntity entity, EntityReferences references) throws AtlasBaseException {
         if (entity == null) {
             return;
         }
@@ -389,9 +523,9 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
             throw new AtlasBaseException(AtlasErrorCode.TYPE_NAME_INVALID, TypeCategory.ENTITY.name(), entity.getTypeName());
         }
 
-        recordObjectReference(entity.getGuid());
+        recordObjectReference(entity.getGuid(), references);
 
-        visitEntity(type, entity);
+        visitEntity(type, entity, references);
     }
 
 
@@ -399,15 +533,15 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
         return typeCategory == TypeCategory.PRIMITIVE || typeCategory == TypeCategory.ENUM;
     }
 
-    private void recordObjectReference(String guid) {
-        discoveryContext.addReferencedGuid(guid);
+    private void recordObjectReference(String guid, EntityReferences references) {
+        references.guids.add(guid);
     }
 
-    private void recordObjectReference(AtlasObjectId objId) {
+    private void recordObjectReference(AtlasObjectId objId, EntityReferences references) {
         if (AtlasTypeUtil.isValidGuid(objId)) {
-            discoveryContext.addReferencedGuid(objId.getGuid());
+            references.guids.add(objId.getGuid());
         } else {
-            discoveryContext.addReferencedByUniqAttribs(objId);
+            references.uniqAttribObjIds.add(objId);
         }
     }
 
@@ -447,4 +581,22 @@ public class AtlasEntityGraphDiscoveryV2 implements EntityGraphDiscovery {
             }
         }
     }
+
+    /**
+     * References found while walking an entity, to be recorded in the discovery context in the order they were found.
+     */
+    static class EntityReferences {
+        private final List<String>        guids            = new ArrayList<>();
+        private final List<AtlasObjectId> uniqAttribObjIds = new ArrayList<>();
+
+        void recordInto(EntityGraphDiscoveryContext discoveryContext) {
+            for (String guid : guids) {
+                discoveryContext.addReferencedGuid(guid);
+            }
+
+            for (AtlasObjectId objId : uniqAttribObjIds) {
+                discoveryContext.addReferencedByUniqAttribs(objId);
+            }
+        }
+    }
 }
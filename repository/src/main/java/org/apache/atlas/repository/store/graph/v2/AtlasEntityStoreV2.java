@@ -18,6 +18,7 @@
 package org.apache.atlas.repository.store.graph.v2;
 
 
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.GraphTransactionInterceptor;
 import org.apache.atlas.RequestContext;
@@ -37,7 +38,9 @@ import org.apache.atlas.model.instance.AtlasEntity.Status;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.AtlasEntityHeaders;
 import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.AtlasPropagationImpact;
 import org.apache.atlas.model.instance.EntityMutationResponse;
+import org.apache.atlas.repository.graph.GraphHelper;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
 import org.apache.atlas.repository.store.graph.EntityGraphDiscovery;
@@ -63,6 +66,7 @@ import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -73,6 +77,8 @@ import static org.apache.atlas.model.instance.EntityMutations.EntityOperation.DE
 import static org.apache.atlas.model.instance.EntityMutations.EntityOperation.UPDATE;
 import static org.apache.atlas.repository.Constants.IS_INCOMPLETE_PROPERTY_KEY;
 import static org.apache.atlas.repository.graph.GraphHelper.getCustomAttributes;
+import static org.apache.atlas.repository.graph.GraphHelper.getGuid;
+import static org.apache.atlas.repository.graph.GraphHelper.getVersion;
 import static org.apache.atlas.repository.graph.GraphHelper.isEntityIncomplete;
 import static org.apache.atlas.repository.store.graph.v2.EntityGraphMapper.validateLabels;
 
@@ -83,11 +89,16 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
     private static final Logger PERF_LOG = AtlasPerfTracer.getPerfLogger("store.EntityStore");
 
 
+    private static final int  PROPAGATION_IMPACT_MAX_ENTITIES    = AtlasConfiguration.TAG_PROPAGATION_IMPACT_MAX_ENTITIES.getInt();
+    private static final long PROPAGATION_IMPACT_TIMEOUT_MS      = AtlasConfiguration.TAG_PROPAGATION_IMPACT_TIMEOUT_MS.getLong();
+    private static final int  PROPAGATION_IMPACT_MAX_SAMPLE_SIZE = AtlasConfiguration.TAG_PROPAGATION_IMPACT_MAX_SAMPLE_SIZE.getInt();
+
     private final DeleteHandlerDelegate     deleteDelegate;
     private final AtlasTypeRegistry         typeRegistry;
     private final AtlasEntityChangeNotifier entityChangeNotifier;
     private final EntityGraphMapper         entityGraphMapper;
     private final EntityGraphRetriever      entityRetriever;
+    private final GraphHelper               graphHelper = GraphHelper.getInstance();
 
     @Inject
     public AtlasEntityStoreV2(DeleteHandlerDelegate deleteDelegate, AtlasTypeRegistry typeRegistry,
@@ -302,8 +313,14 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
     @Override
     @GraphTransaction
     public EntityMutationResponse updateEntity(AtlasObjectId objectId, AtlasEntityWithExtInfo updatedEntityInfo, boolean isPartialUpdate) throws AtlasBaseException {
+        return updateEntity(objectId, updatedEntityInfo, isPartialUpdate, null);
+    }
+
+    @Override
+    @GraphTransaction
+    public EntityMutationResponse updateEntity(AtlasObjectId objectId, AtlasEntityWithExtInfo updatedEntityInfo, boolean isPartialUpdate, Long expectedVersion) throws AtlasBaseException {
         if (LOG.isDebugEnabled()) {
-            LOG.debug("==> updateEntity({}, {}, {})", objectId, updatedEntityInfo, isPartialUpdate);
+            LOG.debug("==> updateEntity({}, {}, {}, {})", objectId, updatedEntityInfo, isPartialUpdate, expectedVersion);
         }
 
         if (objectId == null || updatedEntityInfo == null || updatedEntityInfo.getEntity() == null) {
@@ -324,6 +341,8 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
             guid = AtlasGraphUtilsV2.getGuidByUniqueAttributes(typeRegistry.getEntityTypeByName(objectId.getTypeName()), objectId.getUniqueAttributes());
         }
 
+        validateVersion(guid, expectedVersion);
+
         AtlasEntity entity = updatedEntityInfo.getEntity();
 
         entity.setGuid(guid);
@@ -335,8 +354,15 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
     @GraphTransaction
     public EntityMutationResponse updateByUniqueAttributes(AtlasEntityType entityType, Map<String, Object> uniqAttributes,
                                                            AtlasEntityWithExtInfo updatedEntityInfo) throws AtlasBaseException {
+        return updateByUniqueAttributes(entityType, uniqAttributes, updatedEntityInfo, null);
+    }
+
+    @Override
+    @GraphTransaction
+    public EntityMutationResponse updateByUniqueAttributes(AtlasEntityType entityType, Map<String, Object> uniqAttributes,
+                                                           AtlasEntityWithExtInfo updatedEntityInfo, Long expectedVersion) throws AtlasBaseException {
         if (LOG.isDebugEnabled()) {
-            LOG.debug("==> updateByUniqueAttributes({}, {})", entityType.getTypeName(), uniqAttributes);
+            LOG.debug("==> updateByUniqueAttributes({}, {}, {})", entityType.getTypeName(), uniqAttributes, expectedVersion);
         }
 
         if (updatedEntityInfo == null || updatedEntityInfo.getEntity() == null) {
@@ -346,6 +372,8 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
         String      guid   = AtlasGraphUtilsV2.getGuidByUniqueAttributes(entityType, uniqAttributes);
         AtlasEntity entity = updatedEntityInfo.getEntity();
 
+        validateVersion(guid, expectedVersion);
+
         entity.setGuid(guid);
 
         return createOrUpdate(new AtlasEntityStream(updatedEntityInfo), true, false);
@@ -355,10 +383,19 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
     @GraphTransaction
     public EntityMutationResponse updateEntityAttributeByGuid(String guid, String attrName, Object attrValue)
             throws AtlasBaseException {
+        return updateEntityAttributeByGuid(guid, attrName, attrValue, null);
+    }
+
+    @Override
+    @GraphTransaction
+    public EntityMutationResponse updateEntityAttributeByGuid(String guid, String attrName, Object attrValue, Long expectedVersion)
+            throws AtlasBaseException {
         if (LOG.isDebugEnabled()) {
-            LOG.debug("==> updateEntityAttributeByGuid({}, {}, {})", guid, attrName, attrValue);
+            LOG.debug("==> updateEntityAttributeByGuid({}, {}, {}, {})", guid, attrName, attrValue, expectedVersion);
         }
 
+        validateVersion(guid, expectedVersion);
+
         AtlasEntityHeader entity     = entityRetriever.toAtlasEntityHeaderWithClassifications(guid);
         AtlasEntityType   entityType = (AtlasEntityType) typeRegistry.getType(entity.getTypeName());
         AtlasAttribute    attr       = entityType.getAttribute(attrName);
@@ -403,10 +440,18 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
     @Override
     @GraphTransaction
     public EntityMutationResponse deleteById(final String guid) throws AtlasBaseException {
+        return deleteById(guid, null);
+    }
+
+    @Override
+    @GraphTransaction
+    public EntityMutationResponse deleteById(final String guid, Long expectedVersion) throws AtlasBaseException {
         if (StringUtils.isEmpty(guid)) {
             throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, guid);
         }
 
+        validateVersion(guid, expectedVersion);
+
         Collection<AtlasVertex> deletionCandidates = new ArrayList<>();
         AtlasVertex             vertex             = AtlasGraphUtilsV2.findByGuid(guid);
 
@@ -476,6 +521,12 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
     @Override
     @GraphTransaction
     public EntityMutationResponse deleteByUniqueAttributes(AtlasEntityType entityType, Map<String, Object> uniqAttributes) throws AtlasBaseException {
+        return deleteByUniqueAttributes(entityType, uniqAttributes, null);
+    }
+
+    @Override
+    @GraphTransaction
+    public EntityMutationResponse deleteByUniqueAttributes(AtlasEntityType entityType, Map<String, Object> uniqAttributes, Long expectedVersion) throws AtlasBaseException {
         if (MapUtils.isEmpty(uniqAttributes)) {
             throw new AtlasBaseException(AtlasErrorCode.INSTANCE_BY_UNIQUE_ATTRIBUTE_NOT_FOUND, uniqAttributes.toString());
         }
@@ -483,6 +534,14 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
         Collection<AtlasVertex> deletionCandidates = new ArrayList<>();
         AtlasVertex             vertex             = AtlasGraphUtilsV2.findByUniqueAttributes(entityType, uniqAttributes);
 
+        if (expectedVersion != null) {
+            if (vertex == null) {
+                throw new AtlasBaseException(AtlasErrorCode.ENTITY_MODIFIED, entityType.getTypeName() + uniqAttributes, expectedVersion.toString(), null);
+            }
+
+            validateVersion(getGuid(vertex), expectedVersion);
+        }
+
         if (vertex != null) {
             AtlasEntityHeader entityHeader = entityRetriever.toAtlasEntityHeaderWithClassifications(vertex);
 
@@ -505,6 +564,30 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
         return ret;
     }
 
+    /*
+     * The entity is locked until the end of the transaction, so that it can't be updated by other conditional writers after
+     * the check. Writers that don't give an expected version don't take this lock; their modifications committed before
+     * the check are detected, as every modification increments the version. A missing entity doesn't match any version.
+     */
+    private void validateVersion(String guid, Long expectedVersion) throws AtlasBaseException {
+        if (expectedVersion == null) {
+            return;
+        }
+
+        GraphTransactionInterceptor.lockObjectAndReleasePostCommit(guid);
+
+        AtlasVertex vertex  = AtlasGraphUtilsV2.findByGuid(guid);
+        Long        version = vertex != null ? getVersion(vertex) : null;
+
+        if (!expectedVersion.equals(version)) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("validateVersion(guid={}): expected version {}, current version {}", guid, expectedVersion, version);
+            }
+
+            throw new AtlasBaseException(AtlasErrorCode.ENTITY_MODIFIED, guid, expectedVersion.toString(), version != null ? version.toString() : null);
+        }
+    }
+
     @Override
     @GraphTransaction
     public String getGuidByUniqueAttributes(AtlasEntityType entityType, Map<String, Object> uniqAttributes) throws AtlasBaseException{
@@ -532,13 +615,15 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
             throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, guid);
         }
 
-        AtlasEntityHeader entityHeader = entityRetriever.toAtlasEntityHeaderWithClassifications(entityVertex);
+        AtlasEntityHeader              entityHeader   = entityRetriever.toAtlasEntityHeaderWithClassifications(entityVertex);
+        List<AtlasEntityAccessRequest> accessRequests = new ArrayList<>(classifications.size());
 
         for (AtlasClassification classification : classifications) {
-            AtlasAuthorizationUtils.verifyAccess(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_ADD_CLASSIFICATION, entityHeader, classification),
-                                                 "add classification: guid=", guid, ", classification=", classification.getTypeName());
+            accessRequests.add(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_ADD_CLASSIFICATION, entityHeader, classification));
         }
 
+        AtlasAuthorizationUtils.verifyAccess(accessRequests, "add classification");
+
         EntityMutationContext context = new EntityMutationContext();
 
         context.cacheEntity(guid, entityVertex, typeRegistry.getEntityTypeByName(entityHeader.getTypeName()));
@@ -576,12 +661,15 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
             throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, guid);
         }
 
-        AtlasEntityHeader entityHeader = entityRetriever.toAtlasEntityHeaderWithClassifications(entityVertex);
+        AtlasEntityHeader              entityHeader   = entityRetriever.toAtlasEntityHeaderWithClassifications(entityVertex);
+        List<AtlasEntityAccessRequest> accessRequests = new ArrayList<>(classifications.size());
 
         for (AtlasClassification classification : classifications) {
-            AtlasAuthorizationUtils.verifyAccess(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_UPDATE_CLASSIFICATION, entityHeader, classification), "update classification: guid=", guid, ", classification=", classification.getTypeName());
+            accessRequests.add(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_UPDATE_CLASSIFICATION, entityHeader, classification));
         }
 
+        AtlasAuthorizationUtils.verifyAccess(accessRequests, "update classification");
+
         EntityMutationContext context = new EntityMutationContext();
 
         context.cacheEntity(guid, entityVertex, typeRegistry.getEntityTypeByName(entityHeader.getTypeName()));
@@ -609,7 +697,8 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
             throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, "classification not specified");
         }
 
-        EntityMutationContext context = new EntityMutationContext();
+        EntityMutationContext          context        = new EntityMutationContext();
+        List<AtlasEntityAccessRequest> accessRequests = new ArrayList<>(guids.size());
 
         for (String guid : guids) {
             AtlasVertex entityVertex = AtlasGraphUtilsV2.findByGuid(guid);
@@ -620,12 +709,13 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
 
             AtlasEntityHeader entityHeader = entityRetriever.toAtlasEntityHeaderWithClassifications(entityVertex);
 
-            AtlasAuthorizationUtils.verifyAccess(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_ADD_CLASSIFICATION, entityHeader, classification),
-                                                 "add classification: guid=", guid, ", classification=", classification.getTypeName());
+            accessRequests.add(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_ADD_CLASSIFICATION, entityHeader, classification));
 
             context.cacheEntity(guid, entityVertex, typeRegistry.getEntityTypeByName(entityHeader.getTypeName()));
         }
 
+        AtlasAuthorizationUtils.verifyAccess(accessRequests, "add classification");
+
         GraphTransactionInterceptor.lockObjectAndReleasePostCommit(guids);
 
         validateAndNormalize(classification);
@@ -734,6 +824,102 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
         return ret;
     }
 
+    @Override
+    @GraphTransaction
+    public AtlasPropagationImpact getPropagationImpact(String guid, String classificationName, int maxEntities, long timeoutMs, int sampleSize) throws AtlasBaseException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> getPropagationImpact({}, {}, maxEntities={}, timeoutMs={}, sampleSize={})", guid, classificationName, maxEntities, timeoutMs, sampleSize);
+        }
+
+        AtlasClassificationType classificationType = typeRegistry.getClassificationTypeByName(classificationName);
+
+        if (classificationType == null) {
+            throw new AtlasBaseException(AtlasErrorCode.CLASSIFICATION_NOT_FOUND, classificationName);
+        }
+
+        AtlasVertex entityVertex = AtlasGraphUtilsV2.findByGuid(guid);
+
+        if (entityVertex == null) {
+            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, guid);
+        }
+
+        AtlasEntityHeader entityHeader = entityRetriever.toAtlasEntityHeaderWithClassifications(entityVertex);
+
+        AtlasAuthorizationUtils.verifyAccess(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_READ, entityHeader), "get propagation impact: guid=", guid, ", classification=", classificationName);
+
+        if (maxEntities <= 0 || maxEntities > PROPAGATION_IMPACT_MAX_ENTITIES) {
+            maxEntities = PROPAGATION_IMPACT_MAX_ENTITIES;
+        }
+
+        if (timeoutMs <= 0 || timeoutMs > PROPAGATION_IMPACT_TIMEOUT_MS) {
+            timeoutMs = PROPAGATION_IMPACT_TIMEOUT_MS;
+        }
+
+        sampleSize = Math.max(0, Math.min(sampleSize, PROPAGATION_IMPACT_MAX_SAMPLE_SIZE));
+
+        // relationships that block the classification already on the entity are not followed
+        AtlasVertex             classificationVertex = GraphHelper.getClassificationVertex(entityVertex, classificationName);
+        String                  classificationId     = classificationVertex != null ? classificationVertex.getIdForDisplay() : null;
+        long                    startTime            = System.currentTimeMillis();
+        List<AtlasVertex>       impactedVertices     = new ArrayList<>();
+        boolean                 isComplete           = graphHelper.getImpactedVertices(guid, classificationId, null, maxEntities, startTime + timeoutMs, impactedVertices);
+        Map<String, Long>       countByType          = new HashMap<>();
+        Map<String, Boolean>    isApplicableByType   = new HashMap<>();
+        List<AtlasEntityHeader> sample               = new ArrayList<>();
+        long                    impactedCount        = 0;
+
+        for (AtlasVertex impactedVertex : impactedVertices) {
+            String  typeName     = GraphHelper.getTypeName(impactedVertex);
+            Boolean isApplicable = isApplicableByType.get(typeName);
+
+            if (isApplicable == null) {
+                isApplicable = classificationType.canApplyToEntityType(typeRegistry.getEntityTypeByName(typeName));
+
+                isApplicableByType.put(typeName, isApplicable);
+            }
+
+            if (!isApplicable) { // propagation skips entities of types the classification can't be applied to
+                continue;
+            }
+
+            impactedCount++;
+
+            countByType.merge(typeName, 1L, Long::sum);
+
+            if (sample.size() < sampleSize) {
+                AtlasEntityHeader impactedEntity = entityRetriever.toAtlasEntityHeaderWithClassifications(impactedVertex);
+
+                // only entities the user is authorized to read are included in the sample; classifications are needed to authorize
+                if (AtlasAuthorizationUtils.isAccessAllowed(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_READ, impactedEntity))) {
+                    impactedEntity.setClassifications(null);
+
+                    sample.add(impactedEntity);
+                }
+            }
+        }
+
+        AtlasPropagationImpact ret = new AtlasPropagationImpact(guid, classificationName);
+
+        if (isComplete) {
+            ret.setStatus(AtlasPropagationImpact.Status.COMPLETE);
+        } else if (impactedVertices.size() >= maxEntities) {
+            ret.setStatus(AtlasPropagationImpact.Status.LIMIT_REACHED);
+        } else {
+            ret.setStatus(AtlasPropagationImpact.Status.TIMED_OUT);
+        }
+
+        ret.setImpactedCount(impactedCount);
+        ret.setCountByType(countByType);
+        ret.setSample(sampleSize > 0 ? sample : null);
+        ret.setTimeTakenMs(System.currentTimeMillis() - startTime);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== getPropagationImpact({}, {}): {}", guid, classificationName, ret);
+        }
+
+        return ret;
+    }
+
     @Override
     @GraphTransaction
     public String setClassifications(AtlasEntityHeaders entityHeaders) {
@@ -789,10 +975,7 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
 
             // Check if authorized to create entities
             if (!RequestContext.get().isImportInProgress()) {
-                for (AtlasEntity entity : context.getCreatedEntities()) {
-                    AtlasAuthorizationUtils.verifyAccess(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_CREATE, new AtlasEntityHeader(entity)),
-                                                         "create entity: type=", entity.getTypeName());
-                }
+                verifyAccess(context.getCreatedEntities(), AtlasPrivilege.ENTITY_CREATE, "create entity");
             }
 
             // for existing entities, skip update if incoming entity doesn't have any change
@@ -806,12 +989,25 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
                     AtlasVertex     vertex     = context.getVertex(guid);
                     AtlasEntityType entityType = typeRegistry.getEntityTypeByName(entity.getTypeName());
                     boolean         hasUpdates = false;
+                    boolean         isSameHash = false;
 
                     if (!hasUpdates) {
                         hasUpdates = entity.getStatus() == AtlasEntity.Status.DELETED; // entity status could be updated during import
                     }
 
-                    if (!hasUpdates && MapUtils.isNotEmpty(entity.getAttributes())) { // check for attribute value change
+                    if (!hasUpdates) {
+                        hasUpdates = entity.hasCollectionMutations(); // elements to append/remove are not compared with current values
+                    }
+
+                    if (!hasUpdates && EntityContentHash.isEnabled()) { // same content as the last write, hence attribute values needn't be compared
+                        String contentHash = EntityContentHash.compute(entity, context);
+
+                        context.setContentHash(guid, contentHash);
+
+                        isSameHash = EntityContentHash.isUnchanged(vertex, contentHash);
+                    }
+
+                    if (!hasUpdates && !isSameHash && MapUtils.isNotEmpty(entity.getAttributes())) { // check for attribute value change
                         for (AtlasAttribute attribute : entityType.getAllAttributes().values()) {
                             if (!entity.getAttributes().containsKey(attribute.getName())) {  // if value is not provided, current value will not be updated
                                 continue;
@@ -832,7 +1028,7 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
                         }
                     }
 
-                    if (!hasUpdates && MapUtils.isNotEmpty(entity.getRelationshipAttributes())) { // check of relationsship-attribute value change
+                    if (!hasUpdates && !isSameHash && MapUtils.isNotEmpty(entity.getRelationshipAttributes())) { // check of relationsship-attribute value change
                         for (String attributeName : entityType.getRelationshipAttributes().keySet()) {
                             if (!entity.getRelationshipAttributes().containsKey(attributeName)) {  // if value is not provided, current value will not be updated
                                 continue;
@@ -899,10 +1095,7 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
 
                 // Check if authorized to update entities
                 if (!RequestContext.get().isImportInProgress()) {
-                    for (AtlasEntity entity : context.getUpdatedEntities()) {
-                        AtlasAuthorizationUtils.verifyAccess(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_UPDATE, new AtlasEntityHeader(entity)),
-                                                             "update entity: type=", entity.getTypeName());
-                    }
+                    verifyAccess(context.getUpdatedEntities(), AtlasPrivilege.ENTITY_UPDATE, "update entity");
                 }
 
                 RequestContext.get().endMetricRecord(checkForUnchangedEntities);
@@ -927,6 +1120,18 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
         }
     }
 
+    private void verifyAccess(Collection<AtlasEntity> entities, AtlasPrivilege privilege, String operation) throws AtlasBaseException {
+        if (CollectionUtils.isNotEmpty(entities)) {
+            List<AtlasEntityAccessRequest> accessRequests = new ArrayList<>(entities.size());
+
+            for (AtlasEntity entity : entities) {
+                accessRequests.add(new AtlasEntityAccessRequest(typeRegistry, privilege, new AtlasEntityHeader(entity)));
+            }
+
+            AtlasAuthorizationUtils.verifyAccess(accessRequests, operation);
+        }
+    }
+
     private EntityMutationContext preCreateOrUpdate(EntityStream entityStream, EntityGraphMapper entityGraphMapper, boolean isPartialUpdate) throws AtlasBaseException {
         MetricRecorder metric = RequestContext.get().startMetricRecord("preCreateOrUpdate");
 
@@ -935,6 +1140,11 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
         EntityMutationContext       context          = new EntityMutationContext(discoveryContext);
         RequestContext              requestContext   = RequestContext.get();
 
+        List<String>          guids         = new ArrayList<>();
+        List<AtlasEntity>     entities      = new ArrayList<>();
+        List<AtlasEntityType> entityTypes   = new ArrayList<>();
+        List<AtlasVertex>     knownVertices = new ArrayList<>();
+
         for (String guid : discoveryContext.getReferencedGuids()) {
             AtlasEntity entity = entityStream.getByGuid(guid);
 
@@ -945,80 +1155,110 @@ public class AtlasEntityStoreV2 implements AtlasEntityStore {
                     throw new AtlasBaseException(AtlasErrorCode.TYPE_NAME_INVALID, TypeCategory.ENTITY.name(), entity.getTypeName());
                 }
 
-                compactAttributes(entity, entityType);
+                guids.add(guid);
+                entities.add(entity);
+                entityTypes.add(entityType);
+                knownVertices.add(getResolvedEntityVertex(discoveryContext, entity));
+            }
+        }
+
+        // validate and normalize entities; for large requests, this is done in parallel. With partial update, validation of
+        // entities not found in the repository is deferred, as such an entity could be found by an earlier entity created below
+        List<Boolean> isValidated = EntityBatchProcessor.process(entities.size(), idx -> {
+            AtlasEntity entity = entities.get(idx);
 
-                AtlasVertex vertex = getResolvedEntityVertex(discoveryContext, entity);
+            compactAttributes(entity, entityTypes.get(idx));
 
-                if (vertex != null) {
-                    if (!isPartialUpdate) {
-                        graphDiscoverer.validateAndNormalize(entity);
+            if (!isPartialUpdate) {
+                graphDiscoverer.validateAndNormalize(entity);
+            } else if (knownVertices.get(idx) != null) {
+                graphDiscoverer.validateAndNormalizeForUpdate(entity);
+            } else {
+                return false;
+            }
 
-                        // change entity 'isInComplete' to 'false' during full update
-                        if (isEntityIncomplete(vertex)) {
-                            vertex.removeProperty(IS_INCOMPLETE_PROPERTY_KEY);
+            return true;
+        });
 
-                            entity.setIsIncomplete(FALSE);
-                        }
-                    } else {
-                        graphDiscoverer.validateAndNormalizeForUpdate(entity);
-                    }
+        for (int i = 0; i < entities.size(); i++) {
+            String          guid       = guids.get(i);
+            AtlasEntity     entity     = entities.get(i);
+            AtlasEntityType entityType = entityTypes.get(i);
+            AtlasVertex     vertex     = knownVertices.get(i);
 
-                    String guidVertex = AtlasGraphUtilsV2.getIdFromVertex(vertex);
+            if (vertex == null) { // entity could be found by an earlier entity in the request
+                vertex = getResolvedEntityVertex(discoveryContext, entity);
+            }
 
-                    if (!StringUtils.equals(guidVertex, guid)) { // if entity was found by unique attribute
-                        entity.setGuid(guidVertex);
+            if (vertex != null) {
+                if (!isPartialUpdate) {
+                    // change entity 'isInComplete' to 'false' during full update
+                    if (isEntityIncomplete(vertex)) {
+                        vertex.removeProperty(IS_INCOMPLETE_PROPERTY_KEY);
 
-                        requestContext.recordEntityGuidUpdate(entity, guid);
+                        entity.setIsIncomplete(FALSE);
                     }
+                } else if (!isValidated.get(i)) {
+                    graphDiscoverer.validateAndNormalizeForUpdate(entity);
+                }
 
-                    entityGraphMapper.setCustomAttributes(vertex, entity);
+                String guidVertex = AtlasGraphUtilsV2.getIdFromVertex(vertex);
 
-                    context.addUpdated(guid, entity, entityType, vertex);
-                } else {
-                    graphDiscoverer.validateAndNormalize(entity);
+                if (!StringUtils.equals(guidVertex, guid)) { // if entity was found by unique attribute
+                    entity.setGuid(guidVertex);
 
-                    //Create vertices which do not exist in the repository
-                    if (RequestContext.get().isImportInProgress() && AtlasTypeUtil.isAssignedGuid(entity.getGuid())) {
-                        vertex = entityGraphMapper.createVertexWithGuid(entity, entity.getGuid());
-                    } else {
-                         vertex = entityGraphMapper.createVertex(entity);
-                    }
+                    requestContext.recordEntityGuidUpdate(entity, guid);
+                }
 
-                    discoveryContext.addResolvedGuid(guid, vertex);
+                entityGraphMapper.setCustomAttributes(vertex, entity);
 
-                    discoveryContext.addResolvedIdByUniqAttribs(getAtlasObjectId(entity), vertex);
+                context.addUpdated(guid, entity, entityType, vertex);
+            } else {
+                if (!isValidated.get(i)) {
+                    graphDiscoverer.validateAndNormalize(entity);
+                }
 
-                    String generatedGuid = AtlasGraphUtilsV2.getIdFromVertex(vertex);
+                //Create vertices which do not exist in the repository
+                if (RequestContext.get().isImportInProgress() && AtlasTypeUtil.isAssignedGuid(entity.getGuid())) {
+                    vertex = entityGraphMapper.createVertexWithGuid(entity, entity.getGuid());
+                } else {
+                     vertex = entityGraphMapper.createVertex(entity);
+                }
 
-                    entity.setGuid(generatedGuid);
+                discoveryContext.addResolvedGuid(guid, vertex);
 
-                    requestContext.recordEntityGuidUpdate(entity, guid);
+                discoveryContext.addResolvedIdByUniqAttribs(getAtlasObjectId(entity), vertex);
 
-                    context.addCreated(guid, entity, entityType, vertex);
-                }
+                String generatedGuid = AtlasGraphUtilsV2.getIdFromVertex(vertex);
 
-                // during import, update the system attributes
-                if (RequestContext.get().isImportInProgress()) {
-                    Status newStatus = entity.getStatus();
+                entity.setGuid(generatedGuid);
 
-                    if (newStatus != null) {
-                        Status currStatus = AtlasGraphUtilsV2.getState(vertex);
+                requestContext.recordEntityGuidUpdate(entity, guid);
 
-                        if (currStatus == Status.ACTIVE && newStatus == Status.DELETED) {
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug("entity-delete via import - guid={}", guid);
-                            }
+                context.addCreated(guid, entity, entityType, vertex);
+            }
+
+            // during import, update the system attributes
+            if (RequestContext.get().isImportInProgress()) {
+                Status newStatus = entity.getStatus();
+
+                if (newStatus != null) {
+                    Status currStatus = AtlasGraphUtilsV2.getState(vertex);
 
-                            context.addEntityToDelete(vertex);
-                        } else if (currStatus == Status.DELETED && newStatus == Status.ACTIVE) {
-                            LOG.warn("Import is attempting to activate deleted entity (guid={}).", guid);
-                            entityGraphMapper.importActivateEntity(vertex, entity);
-                            context.addCreated(guid, entity, entityType, vertex);
+                    if (currStatus == Status.ACTIVE && newStatus == Status.DELETED) {
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("entity-delete via import - guid={}", guid);
                         }
-                    }
 
-                    entityGraphMapper.updateSystemAttributes(vertex, entity);
+                        context.addEntityToDelete(vertex);
+                    } else if (currStatus == Status.DELETED && newStatus == Status.ACTIVE) {
+                        LOG.warn("Import is attempting to activate deleted entity (guid={}).", guid);
+                        entityGraphMapper.importActivateEntity(vertex, entity);
+                        context.addCreated(guid, entity, entityType, vertex);
+                    }
                 }
+
+                entityGraphMapper.updateSystemAttributes(vertex, entity);
             }
         }
 
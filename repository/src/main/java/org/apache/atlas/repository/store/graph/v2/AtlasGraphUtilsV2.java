@@ -51,8 +51,10 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -300,11 +302,19 @@ public class AtlasGraphUtilsV2 {
                     vertex = AtlasGraphUtilsV2.getAtlasVertexFromIndexQuery(entityType, attribute, attrValue);
                 } else {
                     if (USE_UNIQUE_INDEX_PROPERTY_TO_FIND_ENTITY && attribute.getVertexUniquePropertyName() != null) {
-                        vertex = AtlasGraphUtilsV2.findByTypeAndUniquePropertyName(entityType.getTypeName(), attribute.getVertexUniquePropertyName(), attrValue);
+                        EntityVertexIdCache vertexIdCache = EntityVertexIdCache.get();
 
-                        // if no instance of given typeName is found, try to find an instance of type's sub-type
-                        if (vertex == null && !entityType.getAllSubTypes().isEmpty()) {
-                            vertex = AtlasGraphUtilsV2.findBySuperTypeAndUniquePropertyName(entityType.getTypeName(), attribute.getVertexUniquePropertyName(), attrValue);
+                        vertex = vertexIdCache.getVertexByUniqueAttribute(getGraphInstance(), entityType, attribute, attrValue);
+
+                        if (vertex == null) {
+                            vertex = AtlasGraphUtilsV2.findByTypeAndUniquePropertyName(entityType.getTypeName(), attribute.getVertexUniquePropertyName(), attrValue);
+
+                            // if no instance of given typeName is found, try to find an instance of type's sub-type
+                            if (vertex == null && !entityType.getAllSubTypes().isEmpty()) {
+                                vertex = AtlasGraphUtilsV2.findBySuperTypeAndUniquePropertyName(entityType.getTypeName(), attribute.getVertexUniquePropertyName(), attrValue);
+                            }
+
+                            vertexIdCache.addUniqueAttribute(entityType, attribute, attrValue, vertex);
                         }
                     } else {
                         vertex = AtlasGraphUtilsV2.findByTypeAndPropertyName(entityType.getTypeName(), attribute.getVertexPropertyName(), attrValue);
@@ -333,16 +343,94 @@ public class AtlasGraphUtilsV2 {
         return vertex;
     }
 
+    /**
+     * Returns true if entities of the given type can be looked up by findByUniqueAttributeValues() for the attribute.
+     */
+    public static boolean canFindByUniqueAttributeValues(AtlasEntityType entityType, AtlasAttribute attribute) {
+        return USE_UNIQUE_INDEX_PROPERTY_TO_FIND_ENTITY && attribute.getVertexUniquePropertyName() != null && !canUseIndexQuery(entityType, attribute.getName());
+    }
+
+    /**
+     * Finds entities of the given type, or of its sub-types, having one of the given values for the unique attribute.
+     * Values are looked up in chunks of batchSize, with one graph query per chunk - instead of one query per value.
+     *
+     * @return vertices found, keyed by attribute value
+     */
+    public static Map<Object, AtlasVertex> findByUniqueAttributeValues(AtlasEntityType entityType, AtlasAttribute attribute, Collection<Object> attrValues, int batchSize) {
+        MetricRecorder metric = RequestContext.get().startMetricRecord("findByUniqueAttributeValues");
+
+        Map<Object, AtlasVertex> ret           = new HashMap<>();
+        String                   propertyName  = attribute.getVertexUniquePropertyName();
+        List<Object>             values        = new ArrayList<>(attrValues.size());
+        EntityVertexIdCache      vertexIdCache = EntityVertexIdCache.get();
+
+        for (Object attrValue : attrValues) {
+            AtlasVertex vertex = vertexIdCache.getVertexByUniqueAttribute(getGraphInstance(), entityType, attribute, attrValue);
+
+            if (vertex != null) {
+                ret.put(attrValue, vertex);
+            } else {
+                values.add(attrValue);
+            }
+        }
+
+        for (int i = 0; i < values.size(); i += batchSize) {
+            findByTypeAndUniquePropertyValues(ENTITY_TYPE_PROPERTY_KEY, entityType.getTypeName(), propertyName, values.subList(i, Math.min(values.size(), i + batchSize)), ret);
+        }
+
+        values.removeAll(ret.keySet());
+
+        // if no instance of given typeName is found, try to find an instance of type's sub-type
+        if (!values.isEmpty() && !entityType.getAllSubTypes().isEmpty()) {
+            for (int i = 0; i < values.size(); i += batchSize) {
+                findByTypeAndUniquePropertyValues(Constants.SUPER_TYPES_PROPERTY_KEY, entityType.getTypeName(), propertyName, values.subList(i, Math.min(values.size(), i + batchSize)), ret);
+            }
+        }
+
+        for (Map.Entry<Object, AtlasVertex> entry : ret.entrySet()) {
+            vertexIdCache.addUniqueAttribute(entityType, attribute, entry.getKey(), entry.getValue());
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("findByUniqueAttributeValues(type={}, attrName={}, values={}): found {} vertices", entityType.getTypeName(), attribute.getName(), attrValues.size(), ret.size());
+        }
+
+        RequestContext.get().endMetricRecord(metric);
+
+        return ret;
+    }
+
+    private static void findByTypeAndUniquePropertyValues(String typePropertyName, String typeName, String propertyName, List<Object> values, Map<Object, AtlasVertex> vertices) {
+        AtlasGraphQuery query = getGraphInstance().query()
+                                                    .has(typePropertyName, typeName)
+                                                    .in(propertyName, values);
+
+        for (Object element : query.vertices()) {
+            AtlasVertex vertex = (AtlasVertex) element;
+            Object      value  = vertex.getProperty(propertyName, Object.class);
+
+            if (value != null) {
+                vertices.putIfAbsent(value, vertex);
+            }
+        }
+    }
+
     public static AtlasVertex findByGuid(String guid) {
         AtlasVertex ret = GraphTransactionInterceptor.getVertexFromCache(guid);
 
         if (ret == null) {
-            AtlasGraphQuery query = getGraphInstance().query()
-                    .has(Constants.GUID_PROPERTY_KEY, guid);
+            ret = EntityVertexIdCache.get().getVertexByGuid(getGraphInstance(), guid);
+
+            if (ret == null) {
+                AtlasGraphQuery query = getGraphInstance().query()
+                        .has(Constants.GUID_PROPERTY_KEY, guid);
 
-            Iterator<AtlasVertex> results = query.vertices().iterator();
+                Iterator<AtlasVertex> results = query.vertices().iterator();
 
-            ret = results.hasNext() ? results.next() : null;
+                ret = results.hasNext() ? results.next() : null;
+
+                EntityVertexIdCache.get().addGuid(guid, ret);
+            }
 
             if (ret != null) {
                 GraphTransactionInterceptor.addToVertexCache(guid, ret);
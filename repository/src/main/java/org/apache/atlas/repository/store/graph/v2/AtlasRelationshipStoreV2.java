@@ -38,6 +38,7 @@ import org.apache.atlas.model.typedef.AtlasRelationshipEndDef;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.RepositoryException;
 import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graph.PropagationGraphCache;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
@@ -382,6 +383,10 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
 
             // map additional properties to relationship edge
             if (ret != null) {
+                // relationship-attributes of both ends are changed
+                EntityContentHash.invalidate(end1Vertex);
+                EntityContentHash.invalidate(end2Vertex);
+
                 // Accept a valid (assigned) guid from the supplied relationship, or generate one.
                 String        relationshipGuid = relationship.getGuid();
                 PropagateTags tagPropagation   = getRelationshipTagPropagation(end1Vertex, end2Vertex, relationship);
@@ -397,6 +402,8 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
                 // blocked propagated classifications
                 handleBlockedClassifications(ret, relationship.getBlockedPropagatedClassifications());
 
+                PropagationGraphCache.get().onEdgeUpdate(ret);
+
                 // propagate tags
                 deleteDelegate.getHandler().addTagPropagation(ret, tagPropagation);
             }
@@ -430,6 +437,9 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
         updateTagPropagations(relationshipEdge, relationship);
 
         if (MapUtils.isNotEmpty(relationType.getAllAttributes())) {
+            EntityContentHash.invalidate(end1Vertex);
+            EntityContentHash.invalidate(end2Vertex);
+
             for (AtlasAttribute attr : relationType.getAllAttributes().values()) {
                 String attrName           = attr.getName();
                 String attrVertexProperty = attr.getVertexPropertyName();
@@ -479,7 +489,7 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
             addToBlockedClassificationIds(edge, updatedClassificationIds);
 
             // remove propagated tag for added entry
-            List<AtlasVertex> addedBlockedClassifications = (List<AtlasVertex>) CollectionUtils.subtract(updatedBlockedPropagatedClassificationVertices, currentBlockedPropagatedClassificationVertices);
+            List<AtlasVertex> addedBlockedClassifications = GraphHelper.subtract(updatedBlockedPropagatedClassificationVertices, currentBlockedPropagatedClassificationVertices);
 
             for (AtlasVertex classificationVertex : addedBlockedClassifications) {
                 List<AtlasVertex> removePropagationFromVertices = graphHelper.getPropagatedEntityVertices(classificationVertex);
@@ -488,7 +498,7 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
             }
 
             // add propagated tag for removed entry
-            List<AtlasVertex> removedBlockedClassifications = (List<AtlasVertex>) CollectionUtils.subtract(currentBlockedPropagatedClassificationVertices, updatedBlockedPropagatedClassificationVertices);
+            List<AtlasVertex> removedBlockedClassifications = GraphHelper.subtract(currentBlockedPropagatedClassificationVertices, updatedBlockedPropagatedClassificationVertices);
 
             for (AtlasVertex classificationVertex : removedBlockedClassifications) {
                 List<AtlasVertex> addPropagationToVertices = graphHelper.getPropagatedEntityVertices(classificationVertex);
@@ -538,6 +548,8 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
             } else {
                 edge.setListProperty(Constants.RELATIONSHIPTYPE_BLOCKED_PROPAGATED_CLASSIFICATIONS_KEY, classificationIds);
             }
+
+            PropagationGraphCache.get().onEdgeUpdate(edge);
         }
     }
 
@@ -552,6 +564,8 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
             // Update propagation edge
             AtlasGraphUtilsV2.setEncodedProperty(edge, RELATIONSHIPTYPE_TAG_PROPAGATION_KEY, newTagPropagation.name());
 
+            PropagationGraphCache.get().onEdgeUpdate(edge);
+
             List<AtlasVertex>                   updatedClassificationVertices = getClassificationVertices(edge);
             List<AtlasVertex>                   classificationVerticesUnion   = (List<AtlasVertex>) CollectionUtils.union(currentClassificationVertices, updatedClassificationVertices);
             Map<AtlasVertex, List<AtlasVertex>> updatedClassificationsMap     = graphHelper.getClassificationPropagatedEntitiesMapping(classificationVerticesUnion);
@@ -571,8 +585,8 @@ public class AtlasRelationshipStoreV2 implements AtlasRelationshipStore {
                     List<AtlasVertex> currentPropagatingEntities = currentClassificationsMap.containsKey(classificationVertex) ? currentClassificationsMap.get(classificationVertex) : Collections.emptyList();
                     List<AtlasVertex> updatedPropagatingEntities = updatedClassificationsMap.containsKey(classificationVertex) ? updatedClassificationsMap.get(classificationVertex) : Collections.emptyList();
 
-                    List<AtlasVertex> entitiesAdded   = (List<AtlasVertex>) CollectionUtils.subtract(updatedPropagatingEntities, currentPropagatingEntities);
-                    List<AtlasVertex> entitiesRemoved = (List<AtlasVertex>) CollectionUtils.subtract(currentPropagatingEntities, updatedPropagatingEntities);
+                    List<AtlasVertex> entitiesAdded   = GraphHelper.subtract(updatedPropagatingEntities, currentPropagatingEntities);
+                    List<AtlasVertex> entitiesRemoved = GraphHelper.subtract(currentPropagatingEntities, updatedPropagatingEntities);
 
                     if (CollectionUtils.isNotEmpty(entitiesAdded)) {
                         addPropagationsMap.put(classificationVertex, entitiesAdded);
@@ -0,0 +1,330 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.AtlasStruct;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.commons.collections.MapUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits entities of a bulk-ingest request into chunks that are committed in separate transactions, one after another.
+ *
+ * Entities are ordered such that an entity is in the same or a later chunk than the entities it references - by guid
+ * or by unique attributes - in the request. Entities that reference each other, directly or through other entities,
+ * are kept in the same chunk; such a group larger than the chunk size results in a larger chunk. Referred entities
+ * are included only when referenced, as in createOrUpdate().
+ *
+ * References to entities created in earlier chunks are given as guids unassigned by the server, which are replaced
+ * by the assigned guids before the chunk is committed - see resolveGuids().
+ */
+class BulkIngestPlanner {
+    private static final String KEY_GUID              = "guid";
+    private static final String KEY_TYPE_NAME         = "typeName";
+    private static final String KEY_UNIQUE_ATTRIBUTES = "uniqueAttributes";
+
+    private final AtlasTypeRegistry typeRegistry;
+
+    BulkIngestPlanner(AtlasTypeRegistry typeRegistry) {
+        this.typeRegistry = typeRegistry;
+    }
+
+    List<List<AtlasEntity>> plan(AtlasEntitiesWithExtInfo request, int chunkSize) {
+        List<AtlasEntity>       entities   = getEntities(request);
+        int                     rootCount  = request.getEntities() != null ? request.getEntities().size() : 0;
+        int[][]                 references = getReferences(entities);
+        List<List<AtlasEntity>> ret        = new ArrayList<>();
+        List<AtlasEntity>       chunk      = new ArrayList<>();
+
+        for (int[] group : getStronglyConnectedGroups(references, rootCount)) {
+            if (!chunk.isEmpty() && chunk.size() + group.length > chunkSize) {
+                ret.add(chunk);
+
+                chunk = new ArrayList<>();
+            }
+
+            for (int idx : group) {
+                chunk.add(entities.get(idx));
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            ret.add(chunk);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Replaces references to guids in guidAssignments with the assigned guids.
+     */
+    static void resolveGuids(Collection<AtlasEntity> entities, Map<String, String> guidAssignments) {
+        if (MapUtils.isEmpty(guidAssignments)) {
+            return;
+        }
+
+        for (AtlasEntity entity : entities) {
+            resolveGuids(entity.getAttributes(), guidAssignments);
+            resolveGuids(entity.getRelationshipAttributes(), guidAssignments);
+        }
+    }
+
+    private static void resolveGuids(Object value, Map<String, String> guidAssignments) {
+        if (value instanceof AtlasObjectId) {
+            AtlasObjectId objectId     = (AtlasObjectId) value;
+            String        assignedGuid = objectId.getGuid() != null ? guidAssignments.get(objectId.getGuid()) : null;
+
+            if (assignedGuid != null) {
+                objectId.setGuid(assignedGuid);
+            }
+        } else if (value instanceof AtlasStruct) {
+            AtlasStruct struct = (AtlasStruct) value;
+
+            resolveGuids(struct.getAttributes(), guidAssignments);
+
+            if (struct instanceof AtlasEntity) {
+                resolveGuids(((AtlasEntity) struct).getRelationshipAttributes(), guidAssignments);
+            }
+        } else if (value instanceof Map) {
+            Map<Object, Object> map  = (Map<Object, Object>) value;
+            Object              guid = map.get(KEY_GUID);
+
+            if (guid instanceof String && guidAssignments.containsKey(guid)) {
+                map.put(KEY_GUID, guidAssignments.get(guid));
+            }
+
+            for (Object mapValue : map.values()) {
+                resolveGuids(mapValue, guidAssignments);
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection) value) {
+                resolveGuids(element, guidAssignments);
+            }
+        }
+    }
+
+    private static List<AtlasEntity> getEntities(AtlasEntitiesWithExtInfo request) {
+        List<AtlasEntity>         ret              = new ArrayList<>();
+        Map<AtlasEntity, Boolean> visited          = new IdentityHashMap<>();
+        Collection<AtlasEntity>   referredEntities = request.getReferredEntities() != null ? request.getReferredEntities().values() : Collections.emptyList();
+
+        for (Collection<AtlasEntity> entities : Arrays.asList(request.getEntities(), referredEntities)) {
+            if (entities != null) {
+                for (AtlasEntity entity : entities) {
+                    if (entity != null && visited.put(entity, Boolean.TRUE) == null) {
+                        ret.add(entity);
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // references[i]: indexes of entities referenced by entities[i]
+    private int[][] getReferences(List<AtlasEntity> entities) {
+        Map<String, Integer> guidIndex   = new HashMap<>();
+        Map<String, Integer> uniqueIndex = new HashMap<>();
+
+        for (int i = 0; i < entities.size(); i++) {
+            AtlasEntity     entity     = entities.get(i);
+            AtlasEntityType entityType = typeRegistry.getEntityTypeByName(entity.getTypeName());
+
+            if (entity.getGuid() != null) {
+                guidIndex.putIfAbsent(entity.getGuid(), i);
+            }
+
+            if (entityType != null) {
+                for (AtlasAttribute attribute : entityType.getUniqAttributes().values()) {
+                    Object attrValue = entity.getAttribute(attribute.getName());
+
+                    if (attrValue != null) {
+                        for (String typeName : entityType.getTypeAndAllSuperTypes()) { // references can be by a super-type name
+                            uniqueIndex.putIfAbsent(getUniqueAttributeKey(typeName, attribute.getName(), attrValue), i);
+                        }
+                    }
+                }
+            }
+        }
+
+        int[][] ret = new int[entities.size()][];
+
+        for (int i = 0; i < entities.size(); i++) {
+            AtlasEntity  entity     = entities.get(i);
+            Set<Integer> references = new LinkedHashSet<>();
+
+            collectReferences(entity.getAttributes(), guidIndex, uniqueIndex, references);
+            collectReferences(entity.getRelationshipAttributes(), guidIndex, uniqueIndex, references);
+
+            references.remove(i);
+
+            ret[i] = new int[references.size()];
+
+            int idx = 0;
+
+            for (Integer reference : references) {
+                ret[i][idx++] = reference;
+            }
+        }
+
+        return ret;
+    }
+
+    private static void collectReferences(Object value, Map<String, Integer> guidIndex, Map<String, Integer> uniqueIndex, Set<Integer> references) {
+        if (value instanceof AtlasObjectId) {
+            AtlasObjectId objectId = (AtlasObjectId) value;
+
+            addReference(objectId.getGuid(), objectId.getTypeName(), objectId.getUniqueAttributes(), guidIndex, uniqueIndex, references);
+        } else if (value instanceof AtlasStruct) {
+            AtlasStruct struct = (AtlasStruct) value;
+
+            collectReferences(struct.getAttributes(), guidIndex, uniqueIndex, references);
+
+            if (struct instanceof AtlasEntity) {
+                collectReferences(((AtlasEntity) struct).getRelationshipAttributes(), guidIndex, uniqueIndex, references);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+
+            if (map.get(KEY_GUID) instanceof String || (map.get(KEY_TYPE_NAME) instanceof String && map.get(KEY_UNIQUE_ATTRIBUTES) instanceof Map)) { // object-id in deserialized form
+                addReference((String) map.get(KEY_GUID), (String) map.get(KEY_TYPE_NAME), (Map<String, Object>) map.get(KEY_UNIQUE_ATTRIBUTES), guidIndex, uniqueIndex, references);
+            }
+
+            for (Object mapValue : map.values()) {
+                collectReferences(mapValue, guidIndex, uniqueIndex, references);
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                collectReferences(element, guidIndex, uniqueIndex, references);
+            }
+        }
+    }
+
+    private static void addReference(String guid, String typeName, Map<String, Object> uniqueAttributes, Map<String, Integer> guidIndex, Map<String, Integer> uniqueIndex, Set<Integer> references) {
+        Integer idx = guid != null ? guidIndex.get(guid) : null;
+
+        if (idx == null && typeName != null && MapUtils.isNotEmpty(uniqueAttributes)) {
+            for (Map.Entry<String, Object> entry : uniqueAttributes.entrySet()) {
+                if (entry.getValue() != null) {
+                    idx = uniqueIndex.get(getUniqueAttributeKey(typeName, entry.getKey(), entry.getValue()));
+
+                    if (idx != null) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (idx != null) {
+            references.add(idx);
+        }
+    }
+
+    /**
+     * Tarjan's algorithm, without recursion to support long chains of references. A group is returned only after the
+     * groups it references, which gives the order in which groups can be committed.
+     *
+     * @return groups of entities reachable from entities [0, rootCount), each sorted by position in the request
+     */
+    static List<int[]> getStronglyConnectedGroups(int[][] references, int rootCount) {
+        List<int[]>    ret       = new ArrayList<>();
+        int[]          index     = new int[references.length];
+        int[]          lowLink   = new int[references.length];
+        boolean[]      onStack   = new boolean[references.length];
+        Deque<Integer> stack     = new ArrayDeque<>();
+        Deque<int[]>   callStack = new ArrayDeque<>(); // {entity, position of the next reference to visit}
+        int            nextIndex = 1;
+
+        for (int root = 0; root < rootCount; root++) {
+            if (index[root] != 0) {
+                continue;
+            }
+
+            index[root] = lowLink[root] = nextIndex++;
+            onStack[root] = true;
+            stack.push(root);
+            callStack.push(new int[] { root, 0 });
+
+            while (!callStack.isEmpty()) {
+                int[] frame = callStack.peek();
+                int   node  = frame[0];
+
+                if (frame[1] < references[node].length) {
+                    int reference = references[node][frame[1]++];
+
+                    if (index[reference] == 0) {
+                        index[reference] = lowLink[reference] = nextIndex++;
+                        onStack[reference] = true;
+                        stack.push(reference);
+                        callStack.push(new int[] { reference, 0 });
+                    } else if (onStack[reference]) {
+                        lowLink[node] = Math.min(lowLink[node], index[reference]);
+                    }
+                } else {
+                    callStack.pop();
+
+                    if (!callStack.isEmpty()) {
+                        int parent = callStack.peek()[0];
+
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+
+                    if (lowLink[node] == index[node]) {
+                        List<Integer> group = new ArrayList<>();
+                        int           member;
+
+                        do {
+                            member = stack.pop();
+                            onStack[member] = false;
+
+                            group.add(member);
+                        } while (member != node);
+
+                        Collections.sort(group);
+
+                        ret.add(group.stream().mapToInt(Integer::intValue).toArray());
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // '\u0000' can't be part of type or attribute names
+    private static String getUniqueAttributeKey(String typeName, String attrName, Object attrValue) {
+        return typeName + '\u0000' + attrName + '\u0000' + attrValue;
+    }
+}
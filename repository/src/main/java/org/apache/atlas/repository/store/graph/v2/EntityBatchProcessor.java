@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Runs per-entity work of large requests on a bounded fork-join pool, shared across requests.
+ *
+ * Only work that doesn't access the graph or RequestContext - like type validation and normalization - must be
+ * given, as it runs outside of the request thread; such work for different entities must not share mutable state.
+ * Results are returned in the order of entities; on failure, the exception for the first failed entity is thrown,
+ * as in sequential processing.
+ */
+final class EntityBatchProcessor {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityBatchProcessor.class);
+
+    private static final int          MIN_ENTITIES = AtlasConfiguration.ENTITY_PARALLEL_PROCESSING_MIN_ENTITIES.getInt();
+    private static final ForkJoinPool POOL         = createPool(AtlasConfiguration.ENTITY_PARALLEL_PROCESSING_THREADS.getInt());
+
+    interface EntityTask<T> {
+        T process(int idx) throws AtlasBaseException;
+    }
+
+    private EntityBatchProcessor() { }
+
+    static <T> List<T> process(int count, EntityTask<T> task) throws AtlasBaseException {
+        return process(count, task, POOL, MIN_ENTITIES);
+    }
+
+    static <T> List<T> process(int count, EntityTask<T> task, ForkJoinPool pool, int minEntities) throws AtlasBaseException {
+        List<T> ret = new ArrayList<>(count);
+
+        if (pool == null || count < minEntities) {
+            for (int i = 0; i < count; i++) {
+                ret.add(task.process(i));
+            }
+
+            return ret;
+        }
+
+        final Object[]      results        = new Object[count];
+        final Exception[]   errors         = new Exception[count];
+        final AtomicInteger firstFailedIdx = new AtomicInteger(count);
+
+        try {
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(i -> {
+                if (i > firstFailedIdx.get()) { // result of this entity won't be used
+                    return;
+                }
+
+                try {
+                    results[i] = task.process(i);
+                } catch (AtlasBaseException | RuntimeException excp) {
+                    errors[i] = excp;
+
+                    firstFailedIdx.accumulateAndGet(i, Math::min);
+                }
+            })).get();
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+
+            throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, excp, "interrupted while processing entities");
+        } catch (ExecutionException excp) {
+            throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, excp.getCause(), "failed to process entities");
+        }
+
+        if (firstFailedIdx.get() < count) {
+            Exception excp = errors[firstFailedIdx.get()];
+
+            if (excp instanceof AtlasBaseException) {
+                throw (AtlasBaseException) excp;
+            }
+
+            throw (RuntimeException) excp;
+        }
+
+        for (Object result : results) {
+            ret.add((T) result);
+        }
+
+        return ret;
+    }
+
+    private static ForkJoinPool createPool(int threadCount) {
+        if (threadCount <= 0) {
+            threadCount = Runtime.getRuntime().availableProcessors();
+        }
+
+        LOG.info("EntityBatchProcessor(threadCount={}, minEntities={})", threadCount, MIN_ENTITIES);
+
+        if (threadCount <= 1) {
+            return null;
+        }
+
+        AtomicInteger threadIdx = new AtomicInteger();
+
+        return new ForkJoinPool(threadCount, pool -> {
+            ForkJoinWorkerThread ret = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+
+            ret.setName("atlas-entity-processor-" + threadIdx.incrementAndGet());
+
+            return ret;
+        }, null, false);
+    }
+}
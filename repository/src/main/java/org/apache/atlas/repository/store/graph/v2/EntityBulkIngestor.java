@@ -0,0 +1,347 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.instance.AtlasBulkIngestJob;
+import org.apache.atlas.model.instance.AtlasBulkIngestJob.ChunkResult;
+import org.apache.atlas.model.instance.AtlasBulkIngestJob.ChunkStatus;
+import org.apache.atlas.model.instance.AtlasBulkIngestJob.JobStatus;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.EntityMutationResponse;
+import org.apache.atlas.repository.store.graph.AtlasEntityStore;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates/updates a large number of entities in chunks, each committed in its own transaction, in the background.
+ *
+ * Entities are split into chunks by BulkIngestPlanner, so that entities are committed after the entities they
+ * reference. Guids assigned in a chunk are used to resolve references in later chunks. When a chunk fails, its
+ * transaction is rolled back and the job stops; the job can then be resumed from the failed chunk, as earlier chunks
+ * are already committed. Jobs are tracked in memory, hence are not available after a restart of the server; completed
+ * and failed jobs are removed after jobTtlMs.
+ */
+@Component
+public class EntityBulkIngestor {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityBulkIngestor.class);
+
+    private final AtlasEntityStore       entityStore;
+    private final BulkIngestPlanner      planner;
+    private final int                    defaultChunkSize;
+    private final int                    maxJobs;
+    private final long                   jobTtlMs;
+    private final ExecutorService        executor;
+    private final Map<String, IngestJob> jobs = new ConcurrentHashMap<>();
+
+    @Inject
+    public EntityBulkIngestor(AtlasEntityStore entityStore, AtlasTypeRegistry typeRegistry) {
+        this(entityStore, typeRegistry, AtlasConfiguration.ENTITY_BULK_INGEST_CHUNK_SIZE.getInt(),
+             AtlasConfiguration.ENTITY_BULK_INGEST_THREADS.getInt(), AtlasConfiguration.ENTITY_BULK_INGEST_MAX_JOBS.getInt(),
+             AtlasConfiguration.ENTITY_BULK_INGEST_JOB_TTL_MS.getLong());
+    }
+
+    EntityBulkIngestor(AtlasEntityStore entityStore, AtlasTypeRegistry typeRegistry, int defaultChunkSize, int threadCount, int maxJobs, long jobTtlMs) {
+        AtomicInteger threadIdx = new AtomicInteger();
+
+        this.entityStore      = entityStore;
+        this.planner          = new BulkIngestPlanner(typeRegistry);
+        this.defaultChunkSize = Math.max(1, defaultChunkSize);
+        this.maxJobs          = Math.max(1, maxJobs);
+        this.jobTtlMs         = jobTtlMs;
+        this.executor         = Executors.newFixedThreadPool(Math.max(1, threadCount), r -> {
+                                    Thread ret = new Thread(r, "atlas-bulk-ingest-" + threadIdx.incrementAndGet());
+
+                                    ret.setDaemon(true);
+
+                                    return ret;
+                                });
+
+        LOG.info("EntityBulkIngestor(defaultChunkSize={}, threadCount={}, maxJobs={}, jobTtlMs={})", this.defaultChunkSize, threadCount, this.maxJobs, this.jobTtlMs);
+    }
+
+    /**
+     * @param chunkSize number of entities to commit in each transaction; default is used when <= 0
+     * @return the job created, in QUEUED status
+     */
+    public AtlasBulkIngestJob submit(AtlasEntitiesWithExtInfo entities, int chunkSize) throws AtlasBaseException {
+        if (entities == null || CollectionUtils.isEmpty(entities.getEntities())) {
+            throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, "no entities to create/update");
+        }
+
+        if (chunkSize <= 0) {
+            chunkSize = defaultChunkSize;
+        }
+
+        List<List<AtlasEntity>> chunks = planner.plan(entities, chunkSize);
+        IngestJob               job    = new IngestJob(chunks, chunkSize);
+
+        addJob(job);
+
+        LOG.info("bulk ingest job {}: {} entities in {} chunks, submitted by {}", job.status.getJobId(), job.status.getTotalEntities(), chunks.size(), job.status.getUserName());
+
+        executor.submit(() -> run(job));
+
+        return job.getStatus();
+    }
+
+    /**
+     * Guids assigned to entities are included only once the job is completed or failed.
+     */
+    public AtlasBulkIngestJob getJob(String jobId) throws AtlasBaseException {
+        return getIngestJob(jobId).getStatus();
+    }
+
+    /**
+     * Resumes a failed job from the chunk that failed.
+     */
+    public AtlasBulkIngestJob resume(String jobId) throws AtlasBaseException {
+        IngestJob job = getIngestJob(jobId);
+
+        synchronized (job) {
+            if (job.status.getStatus() != JobStatus.FAILED) {
+                throw new AtlasBaseException(AtlasErrorCode.BULK_INGEST_JOB_NOT_RESUMABLE, jobId, String.valueOf(job.status.getStatus()));
+            }
+
+            job.resetContext();
+            job.status.setStatus(JobStatus.QUEUED);
+            job.status.setErrorMessage(null);
+            job.status.setEndTime(0);
+        }
+
+        LOG.info("bulk ingest job {}: resuming from chunk {}", jobId, job.status.getCommittedChunks());
+
+        executor.submit(() -> run(job));
+
+        return job.getStatus();
+    }
+
+    // jobs are visible only to the user who submitted them
+    private IngestJob getIngestJob(String jobId) throws AtlasBaseException {
+        IngestJob ret = jobId != null ? jobs.get(jobId) : null;
+
+        if (ret == null || !StringUtils.equals(ret.status.getUserName(), RequestContext.getCurrentUser())) {
+            throw new AtlasBaseException(AtlasErrorCode.BULK_INGEST_JOB_NOT_FOUND, jobId);
+        }
+
+        return ret;
+    }
+
+    // removes jobs that ended more than jobTtlMs ago, then the oldest completed jobs to keep at most maxJobs jobs; failed jobs are retained till jobTtlMs, as these can be resumed
+    private synchronized void addJob(IngestJob newJob) throws AtlasBaseException {
+        long expiryTime = System.currentTimeMillis() - jobTtlMs;
+
+        for (Iterator<IngestJob> iter = jobs.values().iterator(); iter.hasNext(); ) {
+            IngestJob job = iter.next();
+
+            synchronized (job) {
+                if (job.isFinished() && job.status.getEndTime() < expiryTime) {
+                    LOG.info("bulk ingest job {}: removed {} job, which ended {} ms ago", job.status.getJobId(), job.status.getStatus(), System.currentTimeMillis() - job.status.getEndTime());
+
+                    iter.remove();
+                }
+            }
+        }
+
+        while (jobs.size() >= maxJobs) {
+            IngestJob oldest = null;
+
+            for (IngestJob job : jobs.values()) {
+                if (job.status.getStatus() == JobStatus.COMPLETED && (oldest == null || job.status.getCreateTime() < oldest.status.getCreateTime())) {
+                    oldest = job;
+                }
+            }
+
+            if (oldest == null) {
+                break;
+            }
+
+            jobs.remove(oldest.status.getJobId());
+        }
+
+        if (jobs.size() >= maxJobs) {
+            throw new AtlasBaseException(AtlasErrorCode.BULK_INGEST_TOO_MANY_JOBS, String.valueOf(jobs.size()));
+        }
+
+        jobs.put(newJob.status.getJobId(), newJob);
+    }
+
+    private void run(IngestJob job) {
+        final String jobId = job.status.getJobId();
+
+        SecurityContextHolder.setContext(job.securityContext); // entities are authorized for the user who submitted the job
+
+        try {
+            synchronized (job) {
+                job.status.setStatus(JobStatus.RUNNING);
+
+                if (job.status.getStartTime() == 0) {
+                    job.status.setStartTime(System.currentTimeMillis());
+                }
+            }
+
+            for (int chunkIdx = job.status.getCommittedChunks(); chunkIdx < job.chunks.size(); chunkIdx++) {
+                List<AtlasEntity> chunk       = job.chunks.get(chunkIdx);
+                ChunkResult       chunkResult = job.status.getChunkResults().get(chunkIdx);
+                long              startTime   = System.currentTimeMillis();
+
+                try {
+                    RequestContext.clear();
+
+                    RequestContext requestContext = RequestContext.get();
+
+                    requestContext.setUser(job.status.getUserName(), job.userGroups);
+                    requestContext.setClientIPAddress(job.clientIpAddress);
+                    requestContext.setCreateShellEntityForNonExistingReference(job.createShellEntityForNonExistingReference);
+
+                    BulkIngestPlanner.resolveGuids(chunk, job.status.getGuidAssignments());
+
+                    EntityMutationResponse response = entityStore.createOrUpdate(new AtlasEntityStream(new AtlasEntitiesWithExtInfo(chunk)), false);
+
+                    synchronized (job) {
+                        chunkResult.setStatus(ChunkStatus.COMMITTED);
+                        chunkResult.setAttemptCount(chunkResult.getAttemptCount() + 1);
+                        chunkResult.setCreatedCount(size(response.getCreatedEntities()));
+                        chunkResult.setUpdatedCount(size(response.getUpdatedEntities()) + size(response.getPartialUpdatedEntities()));
+                        chunkResult.setErrorMessage(null);
+                        chunkResult.setTimeTakenMs(System.currentTimeMillis() - startTime);
+
+                        if (response.getGuidAssignments() != null) {
+                            job.status.getGuidAssignments().putAll(response.getGuidAssignments());
+                        }
+
+                        job.status.setCommittedChunks(chunkIdx + 1);
+                        job.status.setProcessedEntities(job.status.getProcessedEntities() + chunk.size());
+                    }
+
+                    LOG.info("bulk ingest job {}: committed chunk {} of {}", jobId, chunkIdx + 1, job.chunks.size());
+                } catch (Throwable t) {
+                    LOG.error("bulk ingest job {}: failed to commit chunk {} of {}", jobId, chunkIdx + 1, job.chunks.size(), t);
+
+                    synchronized (job) {
+                        chunkResult.setStatus(ChunkStatus.FAILED);
+                        chunkResult.setAttemptCount(chunkResult.getAttemptCount() + 1);
+                        chunkResult.setErrorMessage(t.getMessage());
+                        chunkResult.setTimeTakenMs(System.currentTimeMillis() - startTime);
+
+                        job.status.setStatus(JobStatus.FAILED);
+                        job.status.setErrorMessage("chunk " + chunkIdx + ": " + t.getMessage());
+                        job.status.setEndTime(System.currentTimeMillis());
+                    }
+
+                    return;
+                } finally {
+                    RequestContext.clear();
+                }
+            }
+
+            synchronized (job) {
+                job.status.setStatus(JobStatus.COMPLETED);
+                job.status.setEndTime(System.currentTimeMillis());
+            }
+
+            job.chunks.clear(); // entities are no longer needed
+
+            LOG.info("bulk ingest job {}: completed", jobId);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static int size(List<?> list) {
+        return list != null ? list.size() : 0;
+    }
+
+    private static class IngestJob {
+        private final AtlasBulkIngestJob      status = new AtlasBulkIngestJob();
+        private final List<List<AtlasEntity>> chunks;
+        private       SecurityContext         securityContext;
+        private       Set<String>             userGroups;
+        private       String                  clientIpAddress;
+        private       boolean                 createShellEntityForNonExistingReference;
+
+        IngestJob(List<List<AtlasEntity>> chunks, int chunkSize) {
+            List<ChunkResult> chunkResults  = new ArrayList<>(chunks.size());
+            int               totalEntities = 0;
+
+            for (int i = 0; i < chunks.size(); i++) {
+                chunkResults.add(new ChunkResult(i, chunks.get(i).size()));
+
+                totalEntities += chunks.get(i).size();
+            }
+
+            this.chunks = chunks;
+
+            status.setJobId(UUID.randomUUID().toString());
+            status.setStatus(JobStatus.QUEUED);
+            status.setUserName(RequestContext.getCurrentUser());
+            status.setChunkSize(chunkSize);
+            status.setTotalEntities(totalEntities);
+            status.setTotalChunks(chunks.size());
+            status.setCreateTime(System.currentTimeMillis());
+            status.setGuidAssignments(new LinkedHashMap<>());
+            status.setChunkResults(chunkResults);
+
+            resetContext();
+        }
+
+        // to be called in the thread of the request that submits/resumes the job
+        void resetContext() {
+            RequestContext requestContext = RequestContext.get();
+
+            this.securityContext                          = SecurityContextHolder.createEmptyContext();
+            this.userGroups                               = requestContext.getUserGroups();
+            this.clientIpAddress                          = requestContext.getClientIPAddress();
+            this.createShellEntityForNonExistingReference = requestContext.isCreateShellEntityForNonExistingReference();
+
+            securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+        }
+
+        synchronized boolean isFinished() {
+            return status.getStatus() == JobStatus.COMPLETED || status.getStatus() == JobStatus.FAILED;
+        }
+
+        // guid assignments of a large job can be many; these are not copied for each poll of a job in progress
+        synchronized AtlasBulkIngestJob getStatus() {
+            return new AtlasBulkIngestJob(status, isFinished());
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.AtlasRelatedObjectId;
+import org.apache.atlas.model.instance.AtlasStruct;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasTypeUtil;
+import org.apache.atlas.utils.SHA256Utils;
+import org.apache.commons.collections.MapUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hash of the attributes and relationship-attributes of an entity, as given in a create/update request.
+ *
+ * The hash of the entity last written is stored in the entity vertex, along with the modification timestamp of the
+ * vertex at that time. When an update request has the same hash, the entity is known to be unchanged without
+ * reading its attributes from the graph - as long as the vertex wasn't modified since; the stored hash is removed
+ * when the entity is modified by other means, like addition/removal of relationships from the other end, and is
+ * ignored if the modification timestamp has changed.
+ *
+ * Only the values supplied in the request are hashed, hence requests having different sets of attributes have
+ * different hashes. References are hashed by the guid of the entity they resolve to - so that a request referring to
+ * an entity by unique attributes isn't considered unchanged after that entity is deleted and recreated with a new guid.
+ * A reference given by unique attributes that couldn't be resolved is hashed by its unique attributes.
+ */
+public final class EntityContentHash {
+    private static final boolean IS_ENABLED = AtlasConfiguration.ENTITY_CONTENT_HASH_ENABLED.getBoolean();
+
+    private static final byte TAG_NULL       = 0;
+    private static final byte TAG_VALUE      = 1;
+    private static final byte TAG_DATE       = 2;
+    private static final byte TAG_MAP        = 3;
+    private static final byte TAG_COLLECTION = 4;
+    private static final byte TAG_STRUCT     = 5;
+    private static final byte TAG_OBJECT_ID  = 6;
+
+    private EntityContentHash() { }
+
+    public static boolean isEnabled() {
+        return IS_ENABLED;
+    }
+
+    /**
+     * @param context used to find guids assigned to new entities and guids of entities referenced by unique attributes; can be null
+     */
+    public static String compute(AtlasEntity entity, EntityMutationContext context) {
+        MessageDigest digest = SHA256Utils.getDigester();
+
+        update(digest, entity.getTypeName());
+        update(digest, entity.getAttributes(), context);
+        update(digest, entity.getRelationshipAttributes(), context);
+
+        return SHA256Utils.toString(digest.digest());
+    }
+
+    /**
+     * @return true if the given hash is the hash stored in the vertex, and the vertex wasn't modified after it was stored
+     */
+    public static boolean isUnchanged(AtlasVertex vertex, String hash) {
+        String storedValue = vertex.getProperty(Constants.CONTENT_HASH_PROPERTY_KEY, String.class);
+
+        return storedValue != null && storedValue.equals(getPropertyValue(vertex, hash));
+    }
+
+    /**
+     * To be called after the entity is written to the vertex, with the hash of the entity written.
+     */
+    public static void store(AtlasVertex vertex, String hash) {
+        vertex.setProperty(Constants.CONTENT_HASH_PROPERTY_KEY, getPropertyValue(vertex, hash));
+    }
+
+    public static void invalidate(AtlasVertex vertex) {
+        if (IS_ENABLED && vertex != null) {
+            vertex.removeProperty(Constants.CONTENT_HASH_PROPERTY_KEY);
+        }
+    }
+
+    private static String getPropertyValue(AtlasVertex vertex, String hash) {
+        return hash + ":" + vertex.getProperty(Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY, Long.class);
+    }
+
+    private static void update(MessageDigest digest, Object value, EntityMutationContext context) {
+        if (value == null) {
+            digest.update(TAG_NULL);
+        } else if (value instanceof AtlasObjectId) {
+            AtlasObjectId objectId = (AtlasObjectId) value;
+            String        guid     = getResolvedGuid(objectId, context);
+
+            digest.update(TAG_OBJECT_ID);
+
+            if (AtlasTypeUtil.isAssignedGuid(guid)) {
+                update(digest, guid);
+            } else {
+                update(digest, objectId.getTypeName());
+                update(digest, objectId.getUniqueAttributes(), context);
+            }
+
+            if (objectId instanceof AtlasRelatedObjectId) {
+                AtlasRelatedObjectId relatedObjectId = (AtlasRelatedObjectId) objectId;
+
+                update(digest, relatedObjectId.getRelationshipType());
+                update(digest, relatedObjectId.getRelationshipAttributes(), context);
+            }
+        } else if (value instanceof AtlasStruct) {
+            AtlasStruct struct = (AtlasStruct) value;
+
+            digest.update(TAG_STRUCT);
+
+            if (struct instanceof AtlasEntity) {
+                update(digest, ((AtlasEntity) struct).getGuid());
+            }
+
+            update(digest, struct.getTypeName());
+            update(digest, struct.getAttributes(), context);
+        } else if (value instanceof Map) {
+            Map<String, Object> sortedMap = new TreeMap<>();
+
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                sortedMap.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+
+            digest.update(TAG_MAP);
+            updateInt(digest, sortedMap.size());
+
+            for (Map.Entry<String, Object> entry : sortedMap.entrySet()) {
+                update(digest, entry.getKey());
+                update(digest, entry.getValue(), context);
+            }
+        } else if (value instanceof Collection || value instanceof Object[]) {
+            Collection<?> collection = value instanceof Collection ? (Collection<?>) value : Arrays.asList((Object[]) value);
+
+            digest.update(TAG_COLLECTION);
+            updateInt(digest, collection.size());
+
+            for (Object element : collection) {
+                update(digest, element, context);
+            }
+        } else if (value instanceof Date) {
+            digest.update(TAG_DATE);
+            update(digest, Long.toString(((Date) value).getTime()));
+        } else {
+            digest.update(TAG_VALUE);
+            update(digest, value.toString());
+        }
+    }
+
+    private static String getResolvedGuid(AtlasObjectId objectId, EntityMutationContext context) {
+        String ret = objectId.getGuid();
+
+        if (context != null) {
+            String assignedGuid = context.getGuidAssignments().get(ret);
+
+            if (assignedGuid != null) {
+                ret = assignedGuid;
+            } else if (!AtlasTypeUtil.isAssignedGuid(ret) && objectId.getTypeName() != null && MapUtils.isNotEmpty(objectId.getUniqueAttributes()) && context.getDiscoveryContext() != null) {
+                AtlasVertex vertex = context.getDiscoveryContext().getResolvedEntityVertex(objectId);
+
+                if (vertex != null) {
+                    ret = GraphHelper.getGuid(vertex);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // strings are length-prefixed, so that adjacent values can't be combined differently to produce the same bytes
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            updateInt(digest, -1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+            updateInt(digest, bytes.length);
+            digest.update(bytes);
+        }
+    }
+
+    private static void updateInt(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.GraphTransactionInterceptor;
 import org.apache.atlas.RequestContext;
+import org.apache.atlas.annotation.GraphTransaction;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.TimeBoundary;
 import org.apache.atlas.model.TypeCategory;
@@ -41,6 +42,7 @@ import org.apache.atlas.repository.RepositoryException;
 import org.apache.atlas.repository.converters.AtlasInstanceConverter;
 import org.apache.atlas.repository.graph.FullTextMapperV2;
 import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graph.PropagationGraphCache;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
@@ -48,6 +50,7 @@ import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.AtlasRelationshipStore;
 import org.apache.atlas.repository.store.graph.EntityGraphDiscoveryContext;
 import org.apache.atlas.repository.store.graph.v1.DeleteHandlerDelegate;
+import org.apache.atlas.tasks.TaskManagement;
 import org.apache.atlas.type.AtlasArrayType;
 import org.apache.atlas.type.AtlasBuiltInTypes;
 import org.apache.atlas.type.AtlasClassificationType;
@@ -100,11 +103,16 @@ import static org.apache.atlas.repository.graph.GraphHelper.getTypeName;
 import static org.apache.atlas.repository.graph.GraphHelper.getTypeNames;
 import static org.apache.atlas.repository.graph.GraphHelper.isActive;
 import static org.apache.atlas.repository.graph.GraphHelper.isPropagationEnabled;
+import static org.apache.atlas.repository.store.graph.v2.tasks.ClassificationPropagateTaskFactory.CLASSIFICATION_PROPAGATION_ADD;
+import static org.apache.atlas.repository.store.graph.v2.tasks.ClassificationPropagateTaskFactory.CLASSIFICATION_PROPAGATION_DELETE;
+import static org.apache.atlas.repository.store.graph.v2.tasks.ClassificationPropagateTaskFactory.CLASSIFICATION_PROPAGATION_TEXT_UPDATE;
+import static org.apache.atlas.repository.store.graph.v2.tasks.ClassificationPropagateTaskFactory.toParameters;
 import static org.apache.atlas.repository.graph.GraphHelper.isRelationshipEdge;
 import static org.apache.atlas.repository.graph.GraphHelper.string;
 import static org.apache.atlas.repository.graph.GraphHelper.updateModificationMetadata;
 import static org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2.getIdFromVertex;
 import static org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2.isReference;
+import static org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection.BOTH;
 import static org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection.IN;
 import static org.apache.atlas.type.AtlasStructType.AtlasAttribute.AtlasRelationshipEdgeDirection.OUT;
 
@@ -130,11 +138,13 @@ public class EntityGraphMapper {
     private final AtlasInstanceConverter    instanceConverter;
     private final EntityGraphRetriever      entityRetriever;
     private final FullTextMapperV2          fullTextMapperV2;
+    private final TaskManagement            taskManagement;
 
     @Inject
     public EntityGraphMapper(DeleteHandlerDelegate deleteDelegate, AtlasTypeRegistry typeRegistry, AtlasGraph atlasGraph,
                              AtlasRelationshipStore relationshipStore, AtlasEntityChangeNotifier entityChangeNotifier,
-                             AtlasInstanceConverter instanceConverter, FullTextMapperV2 fullTextMapperV2) {
+                             AtlasInstanceConverter instanceConverter, FullTextMapperV2 fullTextMapperV2,
+                             TaskManagement taskManagement) {
         this.deleteDelegate       = deleteDelegate;
         this.typeRegistry         = typeRegistry;
         this.graph                = atlasGraph;
@@ -143,6 +153,7 @@ public class EntityGraphMapper {
         this.instanceConverter    = instanceConverter;
         this.entityRetriever      = new EntityGraphRetriever(typeRegistry);
         this.fullTextMapperV2     = fullTextMapperV2;
+        this.taskManagement       = taskManagement;
     }
 
     public AtlasVertex createVertex(AtlasEntity entity) throws AtlasBaseException {
@@ -267,9 +278,13 @@ public class EntityGraphMapper {
 
                 mapAttributes(createdEntity, entityType, vertex, CREATE, context);
 
+                mapCollectionMutations(createdEntity, entityType, vertex, CREATE, context);
+
                 resp.addEntity(CREATE, constructHeader(createdEntity, entityType, vertex));
                 addClassifications(context, guid, createdEntity.getClassifications());
 
+                storeContentHash(context, createdEntity, vertex);
+
                 reqContext.cache(createdEntity);
             }
         }
@@ -284,6 +299,8 @@ public class EntityGraphMapper {
 
                 mapAttributes(updatedEntity, entityType, vertex, UPDATE, context);
 
+                mapCollectionMutations(updatedEntity, entityType, vertex, UPDATE, context);
+
                 if (isPartialUpdate) {
                     resp.addEntity(PARTIAL_UPDATE, constructHeader(updatedEntity, entityType, vertex));
                 } else {
@@ -295,6 +312,8 @@ public class EntityGraphMapper {
                     addClassifications(context, guid, updatedEntity.getClassifications());
                 }
 
+                storeContentHash(context, updatedEntity, vertex);
+
                 reqContext.cache(updatedEntity);
             }
         }
@@ -349,6 +368,21 @@ public class EntityGraphMapper {
         return ret;
     }
 
+    // stored after all updates to the vertex, as modifications to the vertex invalidate the hash
+    private void storeContentHash(EntityMutationContext context, AtlasEntity entity, AtlasVertex vertex) {
+        if (entity.hasCollectionMutations()) { // resulting collections are not part of the request, hence not part of the hash
+            EntityContentHash.invalidate(vertex);
+        } else if (EntityContentHash.isEnabled()) {
+            String contentHash = context.getContentHash(entity.getGuid());
+
+            if (contentHash == null) {
+                contentHash = EntityContentHash.compute(entity, context);
+            }
+
+            EntityContentHash.store(vertex, contentHash);
+        }
+    }
+
     private AtlasVertex createStructVertex(AtlasStruct struct) {
         return createStructVertex(struct.getTypeName());
     }
@@ -478,6 +512,237 @@ public class EntityGraphMapper {
         }
     }
 
+    /*
+     * Appends/removes elements to/from array and map attributes, without mapping the current value of the attribute.
+     * Elements of arrays of references are added/removed as edges; current edges are read only to find the edges to
+     * remove and the index for the edges to add. Arrays of primitives and maps are stored in a single vertex property,
+     * hence are read and written as a whole.
+     */
+    private void mapCollectionMutations(AtlasEntity entity, AtlasEntityType entityType, AtlasVertex vertex, EntityOperation op,
+                                        EntityMutationContext context) throws AtlasBaseException {
+        if (!entity.hasCollectionMutations()) {
+            return;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> mapCollectionMutations({}, {})", op, entity.getTypeName());
+        }
+
+        MetricRecorder metric = RequestContext.get().startMetricRecord("mapCollectionMutations");
+
+        mapCollectionMutations(entityType, entity.getRemoveAttributes(), false, true, vertex, op, context);
+        mapCollectionMutations(entityType, entity.getRemoveRelationshipAttributes(), true, true, vertex, op, context);
+        mapCollectionMutations(entityType, entity.getAppendAttributes(), false, false, vertex, op, context);
+        mapCollectionMutations(entityType, entity.getAppendRelationshipAttributes(), true, false, vertex, op, context);
+
+        updateModificationMetadata(vertex);
+
+        RequestContext.get().endMetricRecord(metric);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== mapCollectionMutations({}, {})", op, entity.getTypeName());
+        }
+    }
+
+    private void mapCollectionMutations(AtlasEntityType entityType, Map<String, Object> mutations, boolean isRelationshipAttribute, boolean isRemove,
+                                        AtlasVertex vertex, EntityOperation op, EntityMutationContext context) throws AtlasBaseException {
+        if (MapUtils.isEmpty(mutations)) {
+            return;
+        }
+
+        for (Map.Entry<String, Object> entry : mutations.entrySet()) {
+            AtlasAttribute attribute = getCollectionMutationAttribute(entityType, entry.getKey(), entry.getValue(), isRelationshipAttribute);
+
+            if (attribute == null || entry.getValue() == null) { // values are validated in AtlasEntityGraphDiscoveryV2
+                continue;
+            }
+
+            AttributeMutationContext ctx = new AttributeMutationContext(op, vertex, attribute, entry.getValue());
+
+            if (ctx.getAttrType().getTypeCategory() == TypeCategory.ARRAY) {
+                if (isRemove) {
+                    removeArrayElements(ctx, context);
+                } else {
+                    appendArrayElements(ctx, context);
+                }
+            } else if (ctx.getAttrType().getTypeCategory() == TypeCategory.MAP) {
+                if (isRemove) {
+                    removeMapEntries(ctx);
+                } else {
+                    appendMapEntries(ctx, context);
+                }
+            }
+        }
+    }
+
+    /*
+     * elements already present in the array are skipped for SET cardinality, and for references to entities - as there
+     * can only be one relationship between two entities for an attribute
+     */
+    private void appendArrayElements(AttributeMutationContext ctx, EntityMutationContext context) throws AtlasBaseException {
+        AtlasAttribute attribute           = ctx.getAttribute();
+        List           values              = (List) ctx.getValue();
+        AtlasType      elementType         = ((AtlasArrayType) attribute.getAttributeType()).getElementType();
+        boolean        isSoftReference     = attribute.getAttributeDef().isSoftReferenced();
+        boolean        isSet               = attribute.getAttributeDef().getCardinality() == SET;
+        AtlasAttribute inverseRefAttribute = attribute.getInverseRefAttribute();
+        AtlasVertex    vertex              = ctx.getReferringVertex();
+
+        if (isReference(elementType) && !isSoftReference) {
+            AtlasRelationshipEdgeDirection edgeDirection          = attribute.getRelationshipEdgeDirection();
+            List<AtlasEdge>                currentEdges           = getCollectionElementsUsingRelationship(vertex, attribute);
+            Map<Object, AtlasEdge>         currentEdgesByVertexId = null;
+            int                            nextIndex              = getNextArrayIndex(currentEdges);
+
+            if (elementType.getTypeCategory() == TypeCategory.OBJECT_ID_TYPE) {
+                currentEdgesByVertexId = getActiveEdgesByReferencedVertexId(currentEdges, vertex, edgeDirection);
+            }
+
+            for (Object value : values) {
+                if (currentEdgesByVertexId != null) {
+                    AtlasVertex referencedVertex = getResolvedEntityVertex(value, context);
+
+                    if (referencedVertex != null && currentEdgesByVertexId.containsKey(referencedVertex.getId())) {
+                        continue;
+                    }
+                }
+
+                AttributeMutationContext arrCtx = new AttributeMutationContext(ctx.getOp(), vertex, attribute, value, ctx.getVertexProperty(), elementType, null);
+
+                Object newEntry = mapCollectionElementsToVertex(arrCtx, context);
+
+                if (newEntry instanceof AtlasEdge) {
+                    AtlasEdge newEdge = (AtlasEdge) newEntry;
+
+                    if (inverseRefAttribute != null) {
+                        addInverseReference(context, inverseRefAttribute, newEdge, getRelationshipAttributes(value));
+                    }
+
+                    AtlasGraphUtilsV2.setEncodedProperty(newEdge, ATTRIBUTE_INDEX_PROPERTY_KEY, nextIndex++);
+
+                    if (currentEdgesByVertexId != null) {
+                        currentEdgesByVertexId.put(getReferencedVertex(newEdge, vertex, edgeDirection).getId(), newEdge);
+                    }
+                }
+            }
+        } else {
+            List<Object> currentElements = getArrayElementsProperty(elementType, isSoftReference, vertex, ctx.getVertexProperty());
+            List<Object> newElements     = currentElements != null ? new ArrayList<>(currentElements) : new ArrayList<>();
+
+            for (Object value : values) {
+                Object element = isSoftReference ? mapSoftRefValue(new AttributeMutationContext(ctx.getOp(), vertex, attribute, value), context) : value;
+
+                if (element != null && (!isSet || !newElements.contains(element))) {
+                    newElements.add(element);
+                }
+            }
+
+            setArrayElementsProperty(elementType, isSoftReference, vertex, ctx.getVertexProperty(), newElements);
+        }
+    }
+
+    private void removeArrayElements(AttributeMutationContext ctx, EntityMutationContext context) throws AtlasBaseException {
+        AtlasAttribute attribute       = ctx.getAttribute();
+        List           values          = (List) ctx.getValue();
+        AtlasType      elementType     = ((AtlasArrayType) attribute.getAttributeType()).getElementType();
+        boolean        isSoftReference = attribute.getAttributeDef().isSoftReferenced();
+        AtlasVertex    vertex          = ctx.getReferringVertex();
+
+        if (isReference(elementType) && !isSoftReference) {
+            AtlasRelationshipEdgeDirection edgeDirection          = attribute.getRelationshipEdgeDirection();
+            List<AtlasEdge>                currentEdges           = getCollectionElementsUsingRelationship(vertex, attribute);
+            Map<Object, AtlasEdge>         currentEdgesByVertexId = getActiveEdgesByReferencedVertexId(currentEdges, vertex, edgeDirection);
+
+            for (Object value : values) {
+                AtlasVertex referencedVertex = getResolvedEntityVertex(value, context);
+                AtlasEdge   edge             = referencedVertex != null ? currentEdgesByVertexId.remove(referencedVertex.getId()) : null;
+
+                if (edge != null) {
+                    deleteDelegate.getHandler().deleteEdgeReference(edge, elementType.getTypeCategory(), attribute.isOwnedRef(), true, edgeDirection, vertex);
+                }
+            }
+        } else {
+            List<Object> currentElements = getArrayElementsProperty(elementType, isSoftReference, vertex, ctx.getVertexProperty());
+
+            if (CollectionUtils.isNotEmpty(currentElements)) {
+                Set<Object> elementsToRemove = new HashSet<>();
+
+                for (Object value : values) {
+                    elementsToRemove.add(isSoftReference ? mapSoftRefValue(new AttributeMutationContext(ctx.getOp(), vertex, attribute, value), context) : value);
+                }
+
+                List<Object> newElements = currentElements.stream().filter(element -> !elementsToRemove.contains(element)).collect(Collectors.toList());
+
+                if (newElements.size() != currentElements.size()) {
+                    setArrayElementsProperty(elementType, isSoftReference, vertex, ctx.getVertexProperty(), newElements);
+                }
+            }
+        }
+    }
+
+    private void appendMapEntries(AttributeMutationContext ctx, EntityMutationContext context) {
+        AtlasAttribute      attribute       = ctx.getAttribute();
+        Map<Object, Object> values          = (Map<Object, Object>) ctx.getValue();
+        boolean             isSoftReference = attribute.getAttributeDef().isSoftReferenced();
+        Map<String, Object> currentMap      = ctx.getReferringVertex().getProperty(ctx.getVertexProperty(), Map.class);
+        Map<String, Object> newMap          = currentMap != null ? new HashMap<>(currentMap) : new HashMap<>();
+
+        for (Map.Entry<Object, Object> entry : values.entrySet()) {
+            Object value = isSoftReference ? mapSoftRefValue(new AttributeMutationContext(ctx.getOp(), ctx.getReferringVertex(), attribute, entry.getValue()), context) : entry.getValue();
+
+            newMap.put(entry.getKey().toString(), value);
+        }
+
+        ctx.getReferringVertex().setProperty(ctx.getVertexProperty(), newMap);
+    }
+
+    private void removeMapEntries(AttributeMutationContext ctx) {
+        Collection<Object>  keys       = (Collection<Object>) ctx.getValue();
+        Map<String, Object> currentMap = ctx.getReferringVertex().getProperty(ctx.getVertexProperty(), Map.class);
+
+        if (MapUtils.isNotEmpty(currentMap)) {
+            Map<String, Object> newMap = new HashMap<>(currentMap);
+
+            for (Object key : keys) {
+                newMap.remove(key.toString());
+            }
+
+            if (newMap.size() != currentMap.size()) {
+                ctx.getReferringVertex().setProperty(ctx.getVertexProperty(), newMap);
+            }
+        }
+    }
+
+    // index after the highest index of current edges; indexes of current edges are not updated
+    private static int getNextArrayIndex(List<AtlasEdge> edges) {
+        int ret = 0;
+
+        if (edges != null) {
+            for (AtlasEdge edge : edges) {
+                Integer index = edge.getProperty(ATTRIBUTE_INDEX_PROPERTY_KEY, Integer.class);
+
+                if (index != null && index >= ret) {
+                    ret = index + 1;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return attribute to append/remove values to/from, for the given entry in append/remove attributes of an entity
+     */
+    static AtlasAttribute getCollectionMutationAttribute(AtlasEntityType entityType, String attrName, Object value, boolean isRelationshipAttribute) {
+        AtlasAttribute ret = isRelationshipAttribute ? null : entityType.getAttribute(attrName);
+
+        if (ret == null) {
+            ret = entityType.getRelationshipAttribute(attrName, AtlasEntityUtil.getRelationshipType(value));
+        }
+
+        return ret;
+    }
+
     private void mapAttribute(AtlasAttribute attribute, Object attrValue, AtlasVertex vertex, EntityOperation op, EntityMutationContext context) throws AtlasBaseException {
         if (attrValue == null) {
             AtlasAttributeDef attributeDef = attribute.getAttributeDef();
@@ -822,6 +1087,12 @@ public class EntityGraphMapper {
         String uniqPropName = ctx.getAttribute() != null ? ctx.getAttribute().getVertexUniquePropertyName() : null;
 
         if (uniqPropName != null) {
+            Object currValue = ctx.getReferringVertex().getProperty(uniqPropName, Object.class);
+
+            if (currValue != null && !currValue.equals(ret) && ctx.getParentType() instanceof AtlasEntityType) {
+                EntityVertexIdCache.get().invalidateUniqueAttribute((AtlasEntityType) ctx.getParentType(), ctx.getAttribute().getName(), currValue);
+            }
+
             if (context.isDeletedEntity(ctx.getReferringVertex()) || AtlasGraphUtilsV2.getState(ctx.getReferringVertex()) == DELETED) {
                 ctx.getReferringVertex().removeProperty(uniqPropName);
             } else {
@@ -921,16 +1192,10 @@ public class EntityGraphMapper {
             LOG.debug("==> mapObjectIdValueUsingRelationship({})", ctx);
         }
 
-        AtlasVertex attributeVertex = context.getDiscoveryContext().getResolvedEntityVertex(getGuid(ctx.getValue()));
+        AtlasVertex attributeVertex = getResolvedEntityVertex(ctx.getValue(), context);
         AtlasVertex entityVertex    = ctx.getReferringVertex();
         AtlasEdge   ret;
 
-        if (attributeVertex == null) {
-            AtlasObjectId objectId = getObjectId(ctx.getValue());
-
-            attributeVertex = (objectId != null) ? context.getDiscoveryContext().getResolvedEntityVertex(objectId) : null;
-        }
-
         if (attributeVertex == null) {
             if(RequestContext.get().isImportInProgress()) {
                 return null;
@@ -1123,10 +1388,29 @@ public class EntityGraphMapper {
             newElements = (List) newElements.stream().distinct().collect(Collectors.toList());
         }
 
+        // references to entities are matched with current edges by the referenced vertex, rather than by position, so
+        // that insertion/removal of an element doesn't result in updates to edges of all subsequent elements
+        Map<Object, AtlasEdge> currentEdgesByVertexId = null;
+
+        if (!isSoftReference && elementType.getTypeCategory() == TypeCategory.OBJECT_ID_TYPE) {
+            currentEdgesByVertexId = getActiveEdgesByReferencedVertexId((List) currentElements, ctx.getReferringVertex(), attribute.getRelationshipEdgeDirection());
+        }
+
         for (int index = 0; index < newElements.size(); index++) {
-            AtlasEdge               existingEdge = (isSoftReference) ? null : getEdgeAt(currentElements, index, elementType);
-            AttributeMutationContext arrCtx      = new AttributeMutationContext(ctx.getOp(), ctx.getReferringVertex(), ctx.getAttribute(), newElements.get(index),
-                                                                                 ctx.getVertexProperty(), elementType, existingEdge);
+            AtlasEdge existingEdge;
+
+            if (isSoftReference) {
+                existingEdge = null;
+            } else if (currentEdgesByVertexId != null) {
+                AtlasVertex referencedVertex = getResolvedEntityVertex(newElements.get(index), context);
+
+                existingEdge = referencedVertex != null ? currentEdgesByVertexId.remove(referencedVertex.getId()) : null;
+            } else {
+                existingEdge = getEdgeAt(currentElements, index, elementType);
+            }
+
+            AttributeMutationContext arrCtx = new AttributeMutationContext(ctx.getOp(), ctx.getReferringVertex(), ctx.getAttribute(), newElements.get(index),
+                                                                           ctx.getVertexProperty(), elementType, existingEdge);
 
             Object newEntry = mapCollectionElementsToVertex(arrCtx, context);
 
@@ -1147,12 +1431,17 @@ public class EntityGraphMapper {
             newElementsCreated.addAll(additionalEdges);
         }
 
-        // add index to attributes of array type
-       for (int index = 0; index < newElementsCreated.size(); index++) {
-           Object element = newElementsCreated.get(index);
+        // add index to attributes of array type; only edges whose position changed are updated
+        for (int index = 0; index < newElementsCreated.size(); index++) {
+            Object element = newElementsCreated.get(index);
 
-           if (element instanceof AtlasEdge) {
-               AtlasGraphUtilsV2.setEncodedProperty((AtlasEdge) element, ATTRIBUTE_INDEX_PROPERTY_KEY, index);
+            if (element instanceof AtlasEdge) {
+                AtlasEdge edge         = (AtlasEdge) element;
+                Integer   currentIndex = edge.getProperty(ATTRIBUTE_INDEX_PROPERTY_KEY, Integer.class);
+
+                if (currentIndex == null || currentIndex != index) {
+                    AtlasGraphUtilsV2.setEncodedProperty(edge, ATTRIBUTE_INDEX_PROPERTY_KEY, index);
+                }
             }
         }
 
@@ -1433,6 +1722,10 @@ public class EntityGraphMapper {
             LOG.debug("Updating entity reference using relationship {} for reference attribute {}", getTypeName(newEntityVertex));
         }
 
+        if (edgeDirection != BOTH && Objects.equals(getReferencedVertex(currentEdge, parentEntityVertex, edgeDirection).getId(), newEntityVertex.getId())) {
+            return currentEdge; // edge already references the vertex; avoids loading the vertex to compare guids
+        }
+
         // Max's manager updated from Jane to Julius (Max.manager --> Jane.subordinates)
         // manager attribute (OUT direction), current manager vertex (Jane) (IN vertex)
 
@@ -1496,6 +1789,49 @@ public class EntityGraphMapper {
         return ret;
     }
 
+    private Map<Object, AtlasEdge> getActiveEdgesByReferencedVertexId(List<AtlasEdge> edges, AtlasVertex referringVertex, AtlasRelationshipEdgeDirection edgeDirection) {
+        Map<Object, AtlasEdge> ret = new HashMap<>();
+
+        if (edges != null) {
+            for (AtlasEdge edge : edges) {
+                if (getStatus(edge) == DELETED) {
+                    continue;
+                }
+
+                AtlasVertex referencedVertex = getReferencedVertex(edge, referringVertex, edgeDirection);
+
+                ret.putIfAbsent(referencedVertex.getId(), edge);
+            }
+        }
+
+        return ret;
+    }
+
+    // vertex at the other end of the edge; its id is available from the edge without loading the vertex
+    private static AtlasVertex getReferencedVertex(AtlasEdge edge, AtlasVertex referringVertex, AtlasRelationshipEdgeDirection edgeDirection) {
+        if (edgeDirection == IN) {
+            return edge.getOutVertex();
+        } else if (edgeDirection == OUT) {
+            return edge.getInVertex();
+        } else {
+            AtlasVertex outVertex = edge.getOutVertex();
+
+            return Objects.equals(outVertex.getId(), referringVertex.getId()) ? edge.getInVertex() : outVertex;
+        }
+    }
+
+    private AtlasVertex getResolvedEntityVertex(Object value, EntityMutationContext context) throws AtlasBaseException {
+        AtlasVertex ret = context.getDiscoveryContext().getResolvedEntityVertex(getGuid(value));
+
+        if (ret == null) {
+            AtlasObjectId objectId = getObjectId(value);
+
+            ret = (objectId != null) ? context.getDiscoveryContext().getResolvedEntityVertex(objectId) : null;
+        }
+
+        return ret;
+    }
+
     //Removes unused edges from the old collection, compared to the new collection
 
     private List<AtlasEdge> removeUnusedArrayEntries(AtlasAttribute attribute, List<AtlasEdge> currentEntries, List<AtlasEdge> newEntries, AtlasVertex entityVertex) throws AtlasBaseException {
@@ -1503,7 +1839,8 @@ public class EntityGraphMapper {
             AtlasType entryType = ((AtlasArrayType) attribute.getAttributeType()).getElementType();
 
             if (isReference(entryType)) {
-                Collection<AtlasEdge> edgesToRemove = CollectionUtils.subtract(currentEntries, newEntries);
+                Set<AtlasEdge>        newEntrySet   = new HashSet<>(newEntries);
+                Collection<AtlasEdge> edgesToRemove = currentEntries.stream().filter(edge -> !newEntrySet.contains(edge)).collect(Collectors.toList());
 
                 if (CollectionUtils.isNotEmpty(edgesToRemove)) {
                     List<AtlasEdge> additionalElements = new ArrayList<>();
@@ -1553,6 +1890,8 @@ public class EntityGraphMapper {
                 //Resurrect the vertex and edge to ACTIVE state
                 AtlasGraphUtilsV2.setEncodedProperty(edge, STATE_PROPERTY_KEY, ACTIVE.name());
                 AtlasGraphUtilsV2.setEncodedProperty(edge.getInVertex(), STATE_PROPERTY_KEY, ACTIVE.name());
+
+                PropagationGraphCache.get().onEdgeUpdate(edge);
             }
         }
     }
@@ -1625,7 +1964,9 @@ public class EntityGraphMapper {
                 mapClassification(EntityOperation.CREATE, context, classification, entityType, entityVertex, classificationVertex);
                 updateModificationMetadata(entityVertex);
 
-                if (propagateTags) {
+                if (propagateTags && isDeferPropagation()) {
+                    taskManagement.createTask(CLASSIFICATION_PROPAGATION_ADD, toParameters(guid, classificationVertex.getIdForDisplay()));
+                } else if (propagateTags) {
                     // compute propagatedEntityVertices only once
                     if (entitiesToPropagateTo == null) {
                         entitiesToPropagateTo = graphHelper.getImpactedVertices(guid);
@@ -1734,7 +2075,9 @@ public class EntityGraphMapper {
         AtlasClassification classification       = entityRetriever.toAtlasClassification(classificationVertex);
 
         // remove classification from propagated entities if propagation is turned on
-        if (isPropagationEnabled(classificationVertex)) {
+        if (isPropagationEnabled(classificationVertex) && isDeferPropagation()) {
+            taskManagement.createTask(CLASSIFICATION_PROPAGATION_DELETE, toParameters(entityGuid, classificationVertex.getIdForDisplay()));
+        } else if (isPropagationEnabled(classificationVertex)) {
             List<AtlasVertex> propagatedEntityVertices = deleteDelegate.getHandler().removeTagPropagation(classificationVertex);
 
             // add propagated entities and deleted classification details to removeClassifications map
@@ -1934,7 +2277,9 @@ public class EntityGraphMapper {
                 isClassificationUpdated = true;
             }
 
-            if (isClassificationUpdated) {
+            if (isClassificationUpdated && isDeferPropagation()) {
+                taskManagement.createTask(CLASSIFICATION_PROPAGATION_TEXT_UPDATE, toParameters(guid, classificationVertex.getIdForDisplay()));
+            } else if (isClassificationUpdated) {
                 List<AtlasVertex> propagatedEntityVertices = graphHelper.getAllPropagatedEntityVertices(classificationVertex);
 
                 notificationVertices.addAll(propagatedEntityVertices);
@@ -1952,10 +2297,13 @@ public class EntityGraphMapper {
             Boolean updatedTagPropagation = classification.isPropagate();
 
             // compute propagatedEntityVertices once and use it for subsequent iterations and notifications
-            if (updatedTagPropagation != null && currentTagPropagation != updatedTagPropagation) {
+            if (updatedTagPropagation != null && currentTagPropagation != updatedTagPropagation && isDeferPropagation()) {
+                taskManagement.createTask(updatedTagPropagation ? CLASSIFICATION_PROPAGATION_ADD : CLASSIFICATION_PROPAGATION_DELETE,
+                                          toParameters(guid, classificationVertex.getIdForDisplay()));
+            } else if (updatedTagPropagation != null && currentTagPropagation != updatedTagPropagation) {
                 if (updatedTagPropagation) {
                     if (CollectionUtils.isEmpty(entitiesToPropagateTo)) {
-                        entitiesToPropagateTo = graphHelper.getImpactedVerticesWithRestrictions(guid, classificationVertex.getIdForDisplay());
+                        entitiesToPropagateTo = graphHelper.getImpactedVerticesToAddPropagation(guid, classificationVertex.getIdForDisplay());
                     }
 
                     if (CollectionUtils.isNotEmpty(entitiesToPropagateTo)) {
@@ -2030,6 +2378,157 @@ public class EntityGraphMapper {
         }
     }
 
+    /**
+     * Returns ids of vertices of entities to propagate the classification to; used by background propagation tasks.
+     * When the number of entities exceeds the limit, TAG_PROPAGATION_LIMIT_EXCEEDED fails the task - unlike propagation
+     * in the request, the classification stays added to the entity, without being propagated.
+     */
+    @GraphTransaction
+    public List<String> getPropagationTargets(String entityGuid, String classificationVertexId) throws AtlasBaseException {
+        AtlasVertex classificationVertex = graph.getVertex(classificationVertexId);
+
+        if (!isPropagatingClassification(classificationVertex)) {
+            return Collections.emptyList();
+        }
+
+        List<AtlasVertex> impactedVertices = graphHelper.getImpactedVerticesToAddPropagation(entityGuid, classificationVertexId);
+        List<String>      ret              = new ArrayList<>(impactedVertices.size());
+
+        for (AtlasVertex impactedVertex : impactedVertices) {
+            ret.add(impactedVertex.getIdForDisplay());
+        }
+
+        return ret;
+    }
+
+    /**
+     * Propagates the classification to given entities, in a transaction of its own.
+     *
+     * @return false if the classification is no longer associated with its entity, or its propagation has been disabled
+     */
+    @GraphTransaction
+    public boolean propagateClassification(String classificationVertexId, List<String> entityVertexIds) throws AtlasBaseException {
+        AtlasVertex classificationVertex = graph.getVertex(classificationVertexId);
+
+        if (!isPropagatingClassification(classificationVertex)) {
+            return false;
+        }
+
+        List<AtlasVertex> entityVertices = getActiveEntityVertices(entityVertexIds);
+        List<AtlasVertex> propagatedTo   = deleteDelegate.getHandler().addTagPropagation(classificationVertex, entityVertices, false);
+
+        if (CollectionUtils.isNotEmpty(propagatedTo)) {
+            List<AtlasClassification> classifications = Collections.singletonList(entityRetriever.toAtlasClassification(classificationVertex));
+
+            for (AtlasVertex entityVertex : propagatedTo) {
+                AtlasEntity entity = updateClassificationText(entityVertex);
+
+                entityChangeNotifier.onClassificationAddedToEntity(entity, classifications);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes propagation of the classification from up to maxEntities entities, in a transaction of its own. Once
+     * propagations are removed from all entities, the classification vertex is deleted if it is no longer associated
+     * with its entity.
+     *
+     * @return number of entities the propagation was removed from
+     */
+    @GraphTransaction
+    public int removeClassificationPropagation(String classificationVertexId, int maxEntities) throws AtlasBaseException {
+        AtlasVertex classificationVertex = graph.getVertex(classificationVertexId);
+
+        if (classificationVertex == null) {
+            return 0;
+        }
+
+        List<AtlasEdge> propagatedEdges = GraphHelper.getPropagatedEdges(classificationVertex, maxEntities);
+
+        if (CollectionUtils.isNotEmpty(propagatedEdges)) {
+            AtlasClassification       classification  = entityRetriever.toAtlasClassification(classificationVertex);
+            List<AtlasClassification> classifications = Collections.singletonList(classification);
+
+            for (AtlasEdge propagatedEdge : propagatedEdges) {
+                AtlasVertex entityVertex = propagatedEdge.getOutVertex();
+
+                deleteDelegate.getHandler().deletePropagatedEdge(propagatedEdge);
+
+                RequestContext.get().recordRemovedPropagation(GraphHelper.getGuid(entityVertex), classification);
+
+                AtlasEntity entity = updateClassificationText(entityVertex);
+
+                entityChangeNotifier.onClassificationDeletedFromEntity(entity, classifications);
+            }
+        }
+
+        if (propagatedEdges.size() < maxEntities && GraphHelper.getAssociatedEntityVertex(classificationVertex) == null) {
+            deleteDelegate.getHandler().deleteClassificationVertex(classificationVertex, true);
+        }
+
+        return propagatedEdges.size();
+    }
+
+    @GraphTransaction
+    public List<String> getPropagatedEntityVertexIds(String classificationVertexId) {
+        AtlasVertex  classificationVertex = graph.getVertex(classificationVertexId);
+        List<String> ret                  = new ArrayList<>();
+
+        if (classificationVertex != null) {
+            for (AtlasVertex entityVertex : GraphHelper.getAllPropagatedEntityVertices(classificationVertex)) {
+                ret.add(entityVertex.getIdForDisplay());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Updates classification text of given entities the classification is propagated to, after an update to the
+     * classification; in a transaction of its own.
+     */
+    @GraphTransaction
+    public void updateClassificationTextPropagation(String classificationVertexId, List<String> entityVertexIds) throws AtlasBaseException {
+        AtlasVertex classificationVertex = graph.getVertex(classificationVertexId);
+
+        if (classificationVertex == null) {
+            return;
+        }
+
+        List<AtlasClassification> classifications = Collections.singletonList(entityRetriever.toAtlasClassification(classificationVertex));
+
+        for (AtlasVertex entityVertex : getActiveEntityVertices(entityVertexIds)) {
+            AtlasEntity entity = updateClassificationText(entityVertex);
+
+            entityChangeNotifier.onClassificationUpdatedToEntity(entity, classifications);
+        }
+    }
+
+    // not cached, so that a change to the configuration at runtime (as done in tests) takes effect
+    private static boolean isDeferPropagation() {
+        return AtlasConfiguration.TASKS_ENABLED.getBoolean();
+    }
+
+    private boolean isPropagatingClassification(AtlasVertex classificationVertex) {
+        return classificationVertex != null && isPropagationEnabled(classificationVertex) && GraphHelper.getAssociatedEntityVertex(classificationVertex) != null;
+    }
+
+    private List<AtlasVertex> getActiveEntityVertices(List<String> vertexIds) {
+        List<AtlasVertex> ret = new ArrayList<>(vertexIds.size());
+
+        for (String vertexId : vertexIds) {
+            AtlasVertex vertex = graph.getVertex(vertexId);
+
+            if (vertex != null && getStatus(vertex) == ACTIVE) {
+                ret.add(vertex);
+            }
+        }
+
+        return ret;
+    }
+
     private AtlasEdge mapClassification(EntityOperation operation,  final EntityMutationContext context, AtlasClassification classification,
                                         AtlasEntityType entityType, AtlasVertex parentInstanceVertex, AtlasVertex traitInstanceVertex)
                                         throws AtlasBaseException {
@@ -2184,6 +2683,8 @@ public class EntityGraphMapper {
             }
 
             edge.setProperty(STATE_PROPERTY_KEY, AtlasRelationship.Status.ACTIVE);
+
+            PropagationGraphCache.get().onEdgeUpdate(edge);
         }
     }
 
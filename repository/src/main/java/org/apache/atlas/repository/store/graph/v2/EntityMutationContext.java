@@ -33,6 +33,7 @@ public class EntityMutationContext {
     private final Map<String, AtlasEntityType> entityVsType     = new HashMap<>();
     private final Map<String, AtlasVertex>     entityVsVertex   = new HashMap<>();
     private final Map<String, String>          guidAssignments  = new HashMap<>();
+    private final Map<String, String>          contentHashes    = new HashMap<>();
     private       List<AtlasVertex>            entitiesToDelete = null;
 
     public EntityMutationContext(final EntityGraphDiscoveryContext context) {
@@ -96,6 +97,14 @@ public class EntityMutationContext {
         return guidAssignments;
     }
 
+    public void setContentHash(String guid, String contentHash) {
+        contentHashes.put(guid, contentHash);
+    }
+
+    public String getContentHash(String guid) {
+        return contentHashes.get(guid);
+    }
+
     public List<AtlasVertex> getEntitiesToDelete() {
         return entitiesToDelete;
     }
@@ -297,6 +297,7 @@ public final class EntityStateChecker {
                 }
 
                 AtlasGraphUtilsV2.setEncodedProperty(entityVertex, Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY, RequestContext.get().getRequestTime());
+                GraphHelper.incrementVersion(entityVertex);
 
                 result.setState(AtlasCheckStateResult.State.FIXED);
             } else {
@@ -0,0 +1,264 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-wide cache of entity vertex ids, keyed by guid and by (typeName, unique attribute, value).
+ *
+ * A cached id is used only after verifying that the vertex still has the guid/unique attribute value it was cached
+ * for, hence a stale entry - for example after a delete, a rename or a rollback in another thread - results in a
+ * cache miss rather than an incorrect vertex. In addition, entries are invalidated when entities are deleted or
+ * their unique attributes are updated, and entries added by a transaction are removed if the transaction is rolled back.
+ */
+public class EntityVertexIdCache {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityVertexIdCache.class);
+
+    private static final EntityVertexIdCache INSTANCE = new EntityVertexIdCache(AtlasConfiguration.ENTITY_VERTEX_ID_CACHE_SIZE.getInt());
+
+    private static final int                       MAX_KEYS_TRACKED_PER_TXN = 10000;
+    private static final ThreadLocal<List<String>> keysAddedInTxn           = ThreadLocal.withInitial(ArrayList::new);
+
+    private final int                 maxSize;
+    private final Map<String, String> vertexIds     = new ConcurrentHashMap<>();
+    private final AtomicLong          hits          = new AtomicLong();
+    private final AtomicLong          misses        = new AtomicLong();
+    private final AtomicLong          invalidations = new AtomicLong();
+    private final AtomicLong          evictions     = new AtomicLong();
+
+    EntityVertexIdCache(int maxSize) {
+        this.maxSize = maxSize;
+
+        LOG.info("EntityVertexIdCache(maxSize={})", maxSize);
+    }
+
+    public static EntityVertexIdCache get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public AtlasVertex getVertexByGuid(AtlasGraph graph, String guid) {
+        if (!isEnabled() || guid == null) {
+            return null;
+        }
+
+        String      key = getGuidKey(guid);
+        AtlasVertex ret = getVertex(graph, key);
+
+        if (ret != null && !guid.equals(ret.getProperty(Constants.GUID_PROPERTY_KEY, String.class))) {
+            vertexIds.remove(key);
+
+            ret = null;
+        }
+
+        recordLookup(ret != null);
+
+        return ret;
+    }
+
+    public AtlasVertex getVertexByUniqueAttribute(AtlasGraph graph, AtlasEntityType entityType, AtlasAttribute attribute, Object attrValue) {
+        if (!isEnabled() || attrValue == null || attribute.getVertexUniquePropertyName() == null) {
+            return null;
+        }
+
+        String      key = getUniqueAttributeKey(entityType.getTypeName(), attribute.getName(), attrValue);
+        AtlasVertex ret = getVertex(graph, key);
+
+        if (ret != null) {
+            // unique property is removed on delete, and updated on rename
+            Object vertexValue = ret.getProperty(attribute.getVertexUniquePropertyName(), Object.class);
+            String typeName    = ret.getProperty(Constants.ENTITY_TYPE_PROPERTY_KEY, String.class);
+
+            if (!Objects.equals(attrValue, vertexValue) || !entityType.getTypeAndAllSubTypes().contains(typeName)) {
+                vertexIds.remove(key);
+
+                ret = null;
+            }
+        }
+
+        recordLookup(ret != null);
+
+        return ret;
+    }
+
+    public void addGuid(String guid, AtlasVertex vertex) {
+        if (isEnabled() && guid != null && vertex != null) {
+            add(getGuidKey(guid), vertex);
+        }
+    }
+
+    public void addUniqueAttribute(AtlasEntityType entityType, AtlasAttribute attribute, Object attrValue, AtlasVertex vertex) {
+        if (isEnabled() && attrValue != null && vertex != null) {
+            add(getUniqueAttributeKey(entityType.getTypeName(), attribute.getName(), attrValue), vertex);
+        }
+    }
+
+    public void invalidateGuid(String guid) {
+        if (isEnabled() && guid != null && vertexIds.remove(getGuidKey(guid)) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Invalidates entries for the given entity vertex: its guid and current unique attribute values.
+     */
+    public void invalidate(AtlasVertex vertex, AtlasEntityType entityType) {
+        if (!isEnabled() || vertex == null) {
+            return;
+        }
+
+        invalidateGuid(vertex.getProperty(Constants.GUID_PROPERTY_KEY, String.class));
+
+        if (entityType != null) {
+            for (AtlasAttribute attribute : entityType.getUniqAttributes().values()) {
+                if (attribute.getVertexUniquePropertyName() != null) {
+                    invalidateUniqueAttribute(entityType, attribute.getName(), vertex.getProperty(attribute.getVertexUniquePropertyName(), Object.class));
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidates entries for the given unique attribute value, for lookups by the entity type and its super-types.
+     */
+    public void invalidateUniqueAttribute(AtlasEntityType entityType, String attrName, Object attrValue) {
+        if (!isEnabled() || attrValue == null) {
+            return;
+        }
+
+        if (vertexIds.remove(getUniqueAttributeKey(entityType.getTypeName(), attrName, attrValue)) != null) {
+            invalidations.incrementAndGet();
+        }
+
+        for (String superTypeName : entityType.getAllSuperTypes()) {
+            if (vertexIds.remove(getUniqueAttributeKey(superTypeName, attrName, attrValue)) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Called at the end of the outermost graph transaction in the current thread.
+     */
+    public void onTransactionComplete(boolean isSuccess) {
+        List<String> keys = keysAddedInTxn.get();
+
+        if (!isSuccess) {
+            for (String key : keys) {
+                if (vertexIds.remove(key) != null) {
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+
+        keys.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> ret = new LinkedHashMap<>();
+
+        ret.put("size", vertexIds.size());
+        ret.put("maxSize", maxSize);
+        ret.put("hits", hits.get());
+        ret.put("misses", misses.get());
+        ret.put("invalidations", invalidations.get());
+        ret.put("evictions", evictions.get());
+
+        return ret;
+    }
+
+    private AtlasVertex getVertex(AtlasGraph graph, String key) {
+        String vertexId = vertexIds.get(key);
+
+        if (vertexId == null) {
+            return null;
+        }
+
+        AtlasVertex ret = graph.getVertex(vertexId);
+
+        if (ret == null) { // vertex removed
+            vertexIds.remove(key);
+        }
+
+        return ret;
+    }
+
+    private void add(String key, AtlasVertex vertex) {
+        if (vertexIds.size() >= maxSize) {
+            evict();
+        }
+
+        vertexIds.put(key, vertex.getIdForDisplay());
+
+        List<String> keys = keysAddedInTxn.get();
+
+        // beyond this, entries of a rolled back transaction are left to be removed by validation on lookup
+        if (keys.size() < MAX_KEYS_TRACKED_PER_TXN) {
+            keys.add(key);
+        }
+    }
+
+    // removes about 10% of entries; iteration order of ConcurrentHashMap makes this a random eviction
+    private void evict() {
+        int toRemove = Math.max(1, maxSize / 10);
+
+        for (Iterator<String> iter = vertexIds.keySet().iterator(); iter.hasNext() && toRemove > 0; toRemove--) {
+            iter.next();
+            iter.remove();
+
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void recordLookup(boolean isHit) {
+        if (isHit) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+    }
+
+    private static String getGuidKey(String guid) {
+        return guid;
+    }
+
+    // '\u0000' can't be part of guid, type or attribute names, so keys of different kinds don't collide
+    private static String getUniqueAttributeKey(String typeName, String attrName, Object attrValue) {
+        return typeName + '\u0000' + attrName + '\u0000' + attrValue.getClass().getSimpleName() + '\u0000' + attrValue;
+    }
+}
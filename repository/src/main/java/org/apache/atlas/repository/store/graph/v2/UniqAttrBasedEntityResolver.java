@@ -17,6 +17,7 @@
  */
 package org.apache.atlas.repository.store.graph.v2;
 
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.exception.AtlasBaseException;
@@ -26,22 +27,31 @@ import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.EntityGraphDiscoveryContext;
 import org.apache.atlas.repository.store.graph.EntityResolver;
 import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
 import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.commons.collections.MapUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class UniqAttrBasedEntityResolver implements EntityResolver {
     private static final Logger LOG = LoggerFactory.getLogger(UniqAttrBasedEntityResolver.class);
 
     private final AtlasTypeRegistry typeRegistry;
     private final EntityGraphMapper entityGraphMapper;
+    private final int               batchSize;
 
     public UniqAttrBasedEntityResolver(AtlasTypeRegistry typeRegistry, EntityGraphMapper entityGraphMapper) {
         this.typeRegistry      = typeRegistry;
         this.entityGraphMapper = entityGraphMapper;
+        this.batchSize         = AtlasConfiguration.ENTITY_RESOLVER_UNIQUE_ATTRIBUTE_BATCH_SIZE.getInt();
     }
 
     @Override
@@ -50,6 +60,8 @@ public class UniqAttrBasedEntityResolver implements EntityResolver {
             throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "UniqAttrBasedEntityResolver.resolveEntityReferences(): context is null");
         }
 
+        Map<String, Map<Object, AtlasVertex>> vertexByUniqAttrValue = findInBatches(context.getReferencedByUniqAttribs());
+
         //Resolve attribute references
         List<AtlasObjectId> resolvedReferences = new ArrayList<>();
 
@@ -61,10 +73,29 @@ public class UniqAttrBasedEntityResolver implements EntityResolver {
                 throw new AtlasBaseException(AtlasErrorCode.TYPE_NAME_INVALID, TypeCategory.ENTITY.name(), objId.getTypeName());
             }
 
-            AtlasVertex vertex = AtlasGraphUtilsV2.findByUniqueAttributes(entityType, objId.getUniqueAttributes());
+            AtlasAttribute           batchAttribute = getBatchLookupAttribute(entityType, objId);
+            Map<Object, AtlasVertex> batchVertices  = batchAttribute != null ? vertexByUniqAttrValue.get(getBatchKey(entityType, batchAttribute)) : null;
+            AtlasVertex              vertex;
+
+            if (batchVertices != null) {
+                Object attrValue = objId.getUniqueAttributes().get(batchAttribute.getName());
+
+                vertex = batchVertices.get(attrValue);
+
+                // other unique attributes, or a value of a different type than in the vertex, need a lookup by all attributes
+                if (vertex == null && (objId.getUniqueAttributes().size() > 1 || !(attrValue instanceof String))) {
+                    vertex = AtlasGraphUtilsV2.findByUniqueAttributes(entityType, objId.getUniqueAttributes());
+                }
+            } else {
+                vertex = AtlasGraphUtilsV2.findByUniqueAttributes(entityType, objId.getUniqueAttributes());
+            }
 
             if (vertex == null && RequestContext.get().isCreateShellEntityForNonExistingReference()) {
                 vertex = entityGraphMapper.createShellEntityVertex(objId, context);
+
+                if (batchVertices != null) { // for other references to the same entity
+                    batchVertices.put(objId.getUniqueAttributes().get(batchAttribute.getName()), vertex);
+                }
             }
 
             if (vertex != null) {
@@ -77,4 +108,61 @@ public class UniqAttrBasedEntityResolver implements EntityResolver {
 
         return context;
     }
+
+    /**
+     * Looks up references in batches, grouped by type and unique attribute.
+     *
+     * @return vertices found, keyed by type and attribute name (see getBatchKey()) and attribute value
+     */
+    private Map<String, Map<Object, AtlasVertex>> findInBatches(Collection<AtlasObjectId> objIds) {
+        Map<String, Map<Object, AtlasVertex>> ret = new HashMap<>();
+
+        if (batchSize <= 1 || objIds.size() <= 1) {
+            return ret;
+        }
+
+        Map<String, Set<Object>>     valuesByKey    = new HashMap<>();
+        Map<String, AtlasEntityType> typeByKey      = new HashMap<>();
+        Map<String, AtlasAttribute>  attributeByKey = new HashMap<>();
+
+        for (AtlasObjectId objId : objIds) {
+            AtlasEntityType entityType = typeRegistry.getEntityTypeByName(objId.getTypeName());
+            AtlasAttribute  attribute  = entityType != null ? getBatchLookupAttribute(entityType, objId) : null;
+
+            if (attribute != null) {
+                String key = getBatchKey(entityType, attribute);
+
+                valuesByKey.computeIfAbsent(key, k -> new HashSet<>()).add(objId.getUniqueAttributes().get(attribute.getName()));
+                typeByKey.put(key, entityType);
+                attributeByKey.put(key, attribute);
+            }
+        }
+
+        for (Map.Entry<String, Set<Object>> entry : valuesByKey.entrySet()) {
+            String key = entry.getKey();
+
+            ret.put(key, AtlasGraphUtilsV2.findByUniqueAttributeValues(typeByKey.get(key), attributeByKey.get(key), entry.getValue(), batchSize));
+        }
+
+        return ret;
+    }
+
+    // the attribute used by findByUniqueAttributes() for the lookup: first unique attribute having a value in the objId
+    private static AtlasAttribute getBatchLookupAttribute(AtlasEntityType entityType, AtlasObjectId objId) {
+        if (MapUtils.isEmpty(entityType.getUniqAttributes()) || MapUtils.isEmpty(objId.getUniqueAttributes())) {
+            return null;
+        }
+
+        for (AtlasAttribute attribute : entityType.getUniqAttributes().values()) {
+            if (objId.getUniqueAttributes().get(attribute.getName()) != null) {
+                return AtlasGraphUtilsV2.canFindByUniqueAttributeValues(entityType, attribute) ? attribute : null;
+            }
+        }
+
+        return null;
+    }
+
+    private static String getBatchKey(AtlasEntityType entityType, AtlasAttribute attribute) {
+        return entityType.getTypeName() + "." + attribute.getName();
+    }
 }
\ No newline at end of file
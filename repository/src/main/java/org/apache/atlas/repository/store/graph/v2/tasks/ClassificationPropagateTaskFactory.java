@@ -0,0 +1,356 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2.tasks;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.tasks.AtlasTask;
+import org.apache.atlas.repository.store.graph.v2.EntityGraphMapper;
+import org.apache.atlas.tasks.AbstractTask;
+import org.apache.atlas.tasks.TaskFactory;
+import org.apache.atlas.tasks.TaskManagement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates tasks that add, remove and update propagations of a classification, in chunks of entities.
+ *
+ * Chunks of a task are independent of each other, and are applied concurrently - each in its own transaction - when
+ * more than one propagation thread is configured.
+ */
+@Component
+public class ClassificationPropagateTaskFactory implements TaskFactory {
+    private static final Logger LOG = LoggerFactory.getLogger(ClassificationPropagateTaskFactory.class);
+
+    public static final String CLASSIFICATION_PROPAGATION_ADD         = "CLASSIFICATION_PROPAGATION_ADD";
+    public static final String CLASSIFICATION_PROPAGATION_DELETE      = "CLASSIFICATION_PROPAGATION_DELETE";
+    public static final String CLASSIFICATION_PROPAGATION_TEXT_UPDATE = "CLASSIFICATION_PROPAGATION_TEXT_UPDATE";
+
+    public static final String PARAM_ENTITY_GUID              = "entityGuid";
+    public static final String PARAM_CLASSIFICATION_VERTEX_ID = "classificationVertexId";
+
+    private static final List<String> SUPPORTED_TYPES = Arrays.asList(CLASSIFICATION_PROPAGATION_ADD, CLASSIFICATION_PROPAGATION_DELETE, CLASSIFICATION_PROPAGATION_TEXT_UPDATE);
+    private static final int          CHUNK_SIZE      = AtlasConfiguration.TASKS_PROPAGATION_CHUNK_SIZE.getInt();
+    private static final int          THREAD_COUNT    = AtlasConfiguration.TASKS_PROPAGATION_THREADS.getInt();
+
+    private final EntityGraphMapper entityGraphMapper;
+    private final ExecutorService   chunkExecutor;
+
+    @Inject
+    public ClassificationPropagateTaskFactory(TaskManagement taskManagement, EntityGraphMapper entityGraphMapper) {
+        this.entityGraphMapper = entityGraphMapper;
+        this.chunkExecutor     = THREAD_COUNT > 1 ? createChunkExecutor(THREAD_COUNT) : null;
+
+        taskManagement.addFactory(this);
+    }
+
+    public static Map<String, Object> toParameters(String entityGuid, String classificationVertexId) {
+        Map<String, Object> ret = new HashMap<>();
+
+        ret.put(PARAM_ENTITY_GUID, entityGuid);
+        ret.put(PARAM_CLASSIFICATION_VERTEX_ID, classificationVertexId);
+
+        return ret;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (chunkExecutor != null) {
+            chunkExecutor.shutdownNow();
+
+            try {
+                chunkExecutor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public List<String> getSupportedTypes() {
+        return SUPPORTED_TYPES;
+    }
+
+    @Override
+    public AbstractTask create(AtlasTask task) {
+        switch (task.getType()) {
+            case CLASSIFICATION_PROPAGATION_ADD:
+                return new AddPropagationTask(task);
+
+            case CLASSIFICATION_PROPAGATION_DELETE:
+                return new DeletePropagationTask(task);
+
+            case CLASSIFICATION_PROPAGATION_TEXT_UPDATE:
+                return new UpdateTextPropagationTask(task);
+        }
+
+        LOG.warn("create(): unsupported task type {}", task.getType());
+
+        return null;
+    }
+
+    private static ExecutorService createChunkExecutor(int threadCount) {
+        AtomicInteger threadIdx = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(threadCount, r -> {
+            Thread ret = new Thread(r, "atlas-propagation-" + threadIdx.incrementAndGet());
+
+            ret.setDaemon(true);
+
+            return ret;
+        });
+    }
+
+    private interface ChunkProcessor {
+        /**
+         * @return false to stop processing of remaining chunks
+         */
+        boolean process(List<String> vertexIds) throws AtlasBaseException;
+    }
+
+    private abstract class ClassificationPropagationTask extends AbstractTask {
+        protected final String entityGuid;
+        protected final String classificationVertexId;
+
+        ClassificationPropagationTask(AtlasTask task) {
+            super(task);
+
+            this.entityGuid             = (String) task.getParameter(PARAM_ENTITY_GUID);
+            this.classificationVertexId = (String) task.getParameter(PARAM_CLASSIFICATION_VERTEX_ID);
+        }
+
+        // changes to propagation of a classification are applied in the order they were made
+        @Override
+        public String getKey() {
+            return classificationVertexId;
+        }
+
+        protected void processInChunks(List<String> vertexIds, ChunkProcessor processor) throws AtlasBaseException {
+            final int totalCount = vertexIds.size();
+
+            setProgress(totalCount, 0);
+
+            if (chunkExecutor == null) {
+                for (int fromIdx = 0; fromIdx < totalCount; fromIdx += CHUNK_SIZE) {
+                    int toIdx = Math.min(fromIdx + CHUNK_SIZE, totalCount);
+
+                    resetRequestContext();
+
+                    if (!processor.process(vertexIds.subList(fromIdx, toIdx))) {
+                        break;
+                    }
+
+                    setProgress(totalCount, toIdx);
+                }
+
+                return;
+            }
+
+            final ChunkTracker    tracker   = new ChunkTracker();
+            final long[]          doneCount = new long[] { 0 };
+            final List<Future<?>> futures   = new ArrayList<>();
+
+            for (int fromIdx = 0; fromIdx < totalCount; fromIdx += CHUNK_SIZE) {
+                final List<String> chunk = new ArrayList<>(vertexIds.subList(fromIdx, Math.min(fromIdx + CHUNK_SIZE, totalCount)));
+
+                futures.add(chunkExecutor.submit(() -> {
+                    if (!tracker.start()) {
+                        return null;
+                    }
+
+                    resetRequestContext();
+
+                    try {
+                        if (processor.process(chunk)) {
+                            synchronized (doneCount) { // progress updates are serialized, to keep the done count increasing
+                                doneCount[0] += chunk.size();
+
+                                setProgress(totalCount, doneCount[0]);
+                            }
+                        } else {
+                            tracker.stop();
+                        }
+                    } finally {
+                        RequestContext.clear();
+
+                        tracker.end();
+                    }
+
+                    return null;
+                }));
+            }
+
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException excp) {
+                stop(tracker, futures);
+
+                Thread.currentThread().interrupt();
+
+                throw new AtlasBaseException(excp);
+            } catch (ExecutionException excp) {
+                stop(tracker, futures);
+
+                Throwable cause = excp.getCause();
+
+                throw (cause instanceof AtlasBaseException) ? (AtlasBaseException) cause : new AtlasBaseException(cause);
+            }
+        }
+
+        // chunks not yet started are skipped; chunks in progress are not interrupted, but waited for - so that the task
+        // is retried only after all its chunks are done
+        private void stop(ChunkTracker tracker, List<Future<?>> futures) {
+            tracker.stop();
+
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+
+            tracker.awaitRunningChunks();
+        }
+    }
+
+    // tracks chunks of a task in progress; once stopped, no more chunks are started
+    private static class ChunkTracker {
+        private boolean isStopped    = false;
+        private int     runningCount = 0;
+
+        synchronized boolean start() {
+            if (isStopped) {
+                return false;
+            }
+
+            runningCount++;
+
+            return true;
+        }
+
+        synchronized void end() {
+            runningCount--;
+
+            notifyAll();
+        }
+
+        synchronized void stop() {
+            isStopped = true;
+        }
+
+        synchronized void awaitRunningChunks() {
+            boolean isInterrupted = false;
+
+            while (runningCount > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException excp) {
+                    isInterrupted = true;
+                }
+            }
+
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private class AddPropagationTask extends ClassificationPropagationTask {
+        AddPropagationTask(AtlasTask task) {
+            super(task);
+        }
+
+        @Override
+        public void run() throws AtlasBaseException {
+            resetRequestContext();
+
+            List<String> vertexIds = entityGraphMapper.getPropagationTargets(entityGuid, classificationVertexId);
+
+            processInChunks(vertexIds, chunk -> {
+                boolean ret = entityGraphMapper.propagateClassification(classificationVertexId, chunk);
+
+                if (!ret) {
+                    LOG.info("classification {} is no longer associated with entity {}. Stopping propagation", classificationVertexId, entityGuid);
+                }
+
+                return ret;
+            });
+        }
+    }
+
+    private class DeletePropagationTask extends ClassificationPropagationTask {
+        DeletePropagationTask(AtlasTask task) {
+            super(task);
+        }
+
+        @Override
+        public void run() throws AtlasBaseException {
+            long doneCount = 0;
+
+            while (true) {
+                resetRequestContext();
+
+                int count = entityGraphMapper.removeClassificationPropagation(classificationVertexId, CHUNK_SIZE);
+
+                if (count == 0) {
+                    break;
+                }
+
+                doneCount += count;
+
+                setProgress(0, doneCount);
+            }
+
+            setProgress(doneCount, doneCount);
+        }
+    }
+
+    private class UpdateTextPropagationTask extends ClassificationPropagationTask {
+        UpdateTextPropagationTask(AtlasTask task) {
+            super(task);
+        }
+
+        @Override
+        public void run() throws AtlasBaseException {
+            resetRequestContext();
+
+            List<String> vertexIds = entityGraphMapper.getPropagatedEntityVertexIds(classificationVertexId);
+
+            processInChunks(vertexIds, chunk -> {
+                entityGraphMapper.updateClassificationTextPropagation(classificationVertexId, chunk);
+
+                return true;
+            });
+        }
+    }
+}
@@ -17,14 +17,17 @@
  */
 package org.apache.atlas.services;
 
+import org.apache.atlas.GraphTransactionInterceptor;
 import org.apache.atlas.annotation.AtlasService;
 import org.apache.atlas.annotation.GraphTransaction;
 import org.apache.atlas.model.instance.AtlasEntity.Status;
 import org.apache.atlas.model.metrics.AtlasMetrics;
+import org.apache.atlas.repository.graph.PropagationGraphCache;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasIndexQuery;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2;
+import org.apache.atlas.repository.store.graph.v2.EntityVertexIdCache;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.util.AtlasMetricsUtil;
 import org.apache.atlas.util.AtlasMetricJVMUtil;
@@ -67,6 +70,10 @@ public class MetricsService {
     protected static final String METRIC_RUNTIME           = "runtime";
     protected static final String METRIC_MEMORY            = "memory";
     protected static final String METRIC_OS                = "os";
+    protected static final String METRIC_VERTEX_ID_CACHE   = "vertexIdCache";
+    protected static final String METRIC_PROPAGATION_CACHE = "propagationGraphCache";
+    protected static final String METRIC_OBJECT_LOCKS      = "objectLocks";
+    protected static final String METRIC_SPLIT_MESSAGES    = "splitMessages";
 
     private final AtlasGraph        atlasGraph;
     private final AtlasTypeRegistry typeRegistry;
@@ -130,6 +137,10 @@ public class MetricsService {
         metrics.addMetric(GENERAL, METRIC_TAG_COUNT, getAllTagsCount());
         metrics.addMetric(GENERAL, METRIC_TYPE_UNUSED_COUNT, unusedTypeCount);
         metrics.addMetric(GENERAL, METRIC_ENTITY_COUNT, totalEntities);
+        metrics.addMetric(GENERAL, METRIC_VERTEX_ID_CACHE, EntityVertexIdCache.get().getStats());
+        metrics.addMetric(GENERAL, METRIC_PROPAGATION_CACHE, PropagationGraphCache.get().getStats());
+        metrics.addMetric(GENERAL, METRIC_OBJECT_LOCKS, GraphTransactionInterceptor.getObjectLockStats());
+        metrics.addMetric(GENERAL, METRIC_SPLIT_MESSAGES, metricsUtil.getSplitMessageStats());
 
         metrics.addMetric(ENTITY, METRIC_ENTITY_ACTIVE, activeEntityCount);
         metrics.addMetric(ENTITY, METRIC_ENTITY_DELETED, deletedEntityCount);
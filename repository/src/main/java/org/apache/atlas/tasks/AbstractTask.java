@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.tasks;
+
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.tasks.AtlasTask;
+
+/**
+ * Base class of tasks run in the background by TaskManagement.
+ *
+ * run() can be called again for a task that was interrupted or that failed earlier - hence implementations must be
+ * idempotent. Work is expected to be committed in bounded chunks, each in its own transaction.
+ */
+public abstract class AbstractTask {
+    interface ProgressListener {
+        void onProgress(AtlasTask task);
+    }
+
+    private final AtlasTask        task;
+    private       ProgressListener progressListener;
+
+    protected AbstractTask(AtlasTask task) {
+        this.task = task;
+    }
+
+    public AtlasTask getTask() {
+        return task;
+    }
+
+    /**
+     * @return tasks having the same key are run one at a time, in the order of creation; null if the task can run
+     *         concurrently with any other task
+     */
+    public String getKey() {
+        return null;
+    }
+
+    public abstract void run() throws AtlasBaseException;
+
+    protected void setProgress(long totalCount, long doneCount) {
+        task.setTotalCount(totalCount);
+        task.setDoneCount(doneCount);
+
+        if (progressListener != null) {
+            progressListener.onProgress(task);
+        }
+    }
+
+    /**
+     * Starts a fresh request context, run as the user who created the task; to be called before each chunk of work.
+     */
+    protected void resetRequestContext() {
+        RequestContext.clear();
+        RequestContext.get().setUser(task.getCreatedBy(), null);
+    }
+
+    void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+}
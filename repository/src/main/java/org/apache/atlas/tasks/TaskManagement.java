@@ -0,0 +1,399 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.tasks;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.ha.HAConfiguration;
+import org.apache.atlas.listener.ActiveStateChangeHandler;
+import org.apache.atlas.model.tasks.AtlasTask;
+import org.apache.atlas.model.tasks.AtlasTask.Status;
+import org.apache.atlas.service.Service;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.ws.rs.core.Response;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs persisted tasks in the background, with a bounded number of worker threads.
+ *
+ * Tasks are created in the transaction of the change that requires them, and are queued for execution once that
+ * transaction commits. Tasks having the same key are run one at a time, in the order of creation. A failed task is
+ * retried with increasing delay, up to the configured number of attempts; a task that fails due to an error in its
+ * request (AtlasBaseException with a 4xx error code) is failed without retries, as the error recurs on every attempt.
+ * Tasks that were pending or in progress are queued again when the server starts or the instance becomes active.
+ * Completed tasks are deleted periodically, once older than the configured retention period.
+ */
+@Component
+@Order(6)
+public class TaskManagement implements Service, ActiveStateChangeHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(TaskManagement.class);
+
+    private static final long DELETE_COMPLETED_TASKS_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final Configuration            configuration;
+    private final TaskRegistry             registry;
+    private final Map<String, TaskFactory> factories     = new ConcurrentHashMap<>();
+    private final List<AbstractTask>       pendingTasks  = new LinkedList<>();
+    private final Set<String>              runningKeys   = new HashSet<>();
+    private final int                      threadCount   = AtlasConfiguration.TASKS_THREADS.getInt();
+    private final int                      maxAttempts   = AtlasConfiguration.TASKS_MAX_ATTEMPTS.getInt();
+    private final long                     retryDelayMs  = AtlasConfiguration.TASKS_RETRY_DELAY_MS.getLong();
+    private final long                     retentionMs   = AtlasConfiguration.TASKS_COMPLETED_RETENTION_MS.getLong();
+    private       ScheduledExecutorService executor;
+
+    @Inject
+    public TaskManagement(Configuration configuration, TaskRegistry registry) {
+        this.configuration = configuration;
+        this.registry      = registry;
+    }
+
+    public void addFactory(TaskFactory factory) {
+        for (String type : factory.getSupportedTypes()) {
+            factories.put(type, factory);
+        }
+    }
+
+    /**
+     * Creates a task in the current transaction. The task is queued for execution after the transaction commits.
+     */
+    public AtlasTask createTask(String type, Map<String, Object> parameters) {
+        AtlasTask ret = new AtlasTask(UUID.randomUUID().toString(), type, RequestContext.getCurrentUser(), parameters);
+
+        ret.setCreatedTime(System.currentTimeMillis());
+
+        registry.createVertex(ret);
+
+        final AtlasTask task = new AtlasTask(ret);
+
+        new GraphTransactionInterceptor.PostTransactionHook() {
+            @Override
+            public void onComplete(boolean isSuccess) {
+                if (isSuccess) {
+                    enqueue(task);
+                }
+            }
+        };
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("createTask(): created {}", ret);
+        }
+
+        return ret;
+    }
+
+    public AtlasTask getTask(String guid) throws AtlasBaseException {
+        AtlasTask ret = registry.getByGuid(guid);
+
+        if (ret == null) {
+            throw new AtlasBaseException(AtlasErrorCode.TASK_NOT_FOUND, guid);
+        }
+
+        return ret;
+    }
+
+    /**
+     * @param status status of tasks to return; null to return tasks in all status
+     * @param offset number of tasks to skip, in the order of creation
+     * @param limit  max number of tasks to return; <= 0 to return all tasks after offset
+     */
+    public List<AtlasTask> getTasks(Status status, int offset, int limit) {
+        return registry.getTasks(status, offset, limit);
+    }
+
+    public AtlasTask retry(String guid) throws AtlasBaseException {
+        AtlasTask ret = getTask(guid);
+
+        if (ret.getStatus() != Status.FAILED) {
+            throw new AtlasBaseException(AtlasErrorCode.TASK_NOT_RETRYABLE, guid, ret.getStatus().name());
+        }
+
+        ret.setStatus(Status.PENDING);
+        ret.setAttemptCount(0);
+        ret.setErrorMessage(null);
+
+        registry.update(ret);
+
+        enqueue(new AtlasTask(ret));
+
+        return ret;
+    }
+
+    @Override
+    public void start() throws AtlasException {
+        LOG.info("==> TaskManagement.start()");
+
+        if (!HAConfiguration.isHAEnabled(configuration)) {
+            startInternal();
+        } else {
+            LOG.info("TaskManagement.start(): deferring tasks until instance activation");
+        }
+
+        LOG.info("<== TaskManagement.start()");
+    }
+
+    @Override
+    public void stop() {
+        stopInternal();
+
+        LOG.info("TaskManagement.stop(): stopped");
+    }
+
+    @Override
+    public void instanceIsActive() {
+        LOG.info("==> TaskManagement.instanceIsActive()");
+
+        startInternal();
+
+        LOG.info("<== TaskManagement.instanceIsActive()");
+    }
+
+    @Override
+    public void instanceIsPassive() {
+        LOG.info("==> TaskManagement.instanceIsPassive()");
+
+        stopInternal();
+
+        LOG.info("<== TaskManagement.instanceIsPassive()");
+    }
+
+    @Override
+    public int getHandlerOrder() {
+        return HandlerOrder.TASK_MANAGEMENT.getOrder();
+    }
+
+    void startInternal() {
+        AtomicInteger threadIdx = new AtomicInteger();
+
+        synchronized (this) {
+            if (executor != null) {
+                return;
+            }
+
+            executor = Executors.newScheduledThreadPool(threadCount, r -> {
+                Thread ret = new Thread(r, "atlas-task-" + threadIdx.incrementAndGet());
+
+                ret.setDaemon(true);
+
+                return ret;
+            });
+
+            if (retentionMs > 0) {
+                executor.scheduleWithFixedDelay(this::deleteCompletedTasks, DELETE_COMPLETED_TASKS_INTERVAL_MS, DELETE_COMPLETED_TASKS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        try {
+            List<AtlasTask> tasks = registry.getTasks(Status.PENDING);
+
+            tasks.addAll(registry.getTasks(Status.IN_PROGRESS));
+
+            tasks.sort((t1, t2) -> Long.compare(t1.getCreatedTime(), t2.getCreatedTime()));
+
+            LOG.info("TaskManagement: {} tasks to run", tasks.size());
+
+            for (AtlasTask task : tasks) {
+                enqueue(task);
+            }
+        } catch (Exception excp) {
+            LOG.error("TaskManagement: failed to load tasks", excp);
+        }
+    }
+
+    void stopInternal() {
+        ScheduledExecutorService executor;
+
+        synchronized (this) {
+            executor = this.executor;
+
+            this.executor = null;
+
+            pendingTasks.clear();
+            runningKeys.clear();
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+
+            try {
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void deleteCompletedTasks() {
+        try {
+            int count = registry.deleteCompletedTasks(System.currentTimeMillis() - retentionMs);
+
+            if (count > 0) {
+                LOG.info("TaskManagement: deleted {} completed tasks", count);
+            }
+        } catch (Exception excp) {
+            LOG.error("TaskManagement: failed to delete completed tasks", excp);
+        }
+    }
+
+    void enqueue(AtlasTask task) {
+        TaskFactory factory = factories.get(task.getType());
+
+        if (factory == null) {
+            LOG.warn("TaskManagement: no factory for type {}. Ignoring task {}", task.getType(), task.getGuid());
+
+            return;
+        }
+
+        synchronized (this) {
+            pendingTasks.add(factory.create(task));
+        }
+
+        dispatch();
+    }
+
+    private synchronized void dispatch() {
+        if (executor == null) {
+            return;
+        }
+
+        Set<String>            skippedKeys = new HashSet<>();
+        Iterator<AbstractTask> iter        = pendingTasks.iterator();
+
+        while (iter.hasNext()) {
+            AbstractTask task = iter.next();
+            String       key  = task.getKey();
+
+            if (key != null) {
+                if (runningKeys.contains(key) || skippedKeys.contains(key)) { // wait for earlier task with the same key
+                    skippedKeys.add(key);
+
+                    continue;
+                }
+
+                runningKeys.add(key);
+            }
+
+            iter.remove();
+
+            final ScheduledExecutorService taskExecutor = executor;
+
+            taskExecutor.submit(() -> run(task, taskExecutor));
+        }
+    }
+
+    private void run(AbstractTask task, ScheduledExecutorService taskExecutor) {
+        AtlasTask atlasTask = task.getTask();
+        boolean   isDone    = true;
+
+        try {
+            RequestContext.clear();
+            RequestContext.get().setUser(atlasTask.getCreatedBy(), null);
+
+            atlasTask.setStatus(Status.IN_PROGRESS);
+            atlasTask.setAttemptCount(atlasTask.getAttemptCount() + 1);
+            atlasTask.setStartTime(System.currentTimeMillis());
+            atlasTask.setErrorMessage(null);
+
+            registry.update(atlasTask);
+
+            task.setProgressListener(registry::update);
+
+            task.run();
+
+            atlasTask.setStatus(Status.COMPLETE);
+            atlasTask.setEndTime(System.currentTimeMillis());
+
+            LOG.info("TaskManagement: completed task {} of type {}", atlasTask.getGuid(), atlasTask.getType());
+        } catch (Exception excp) {
+            if (Thread.currentThread().isInterrupted() || taskExecutor.isShutdown()) { // will be picked up again on activation
+                LOG.warn("TaskManagement: task {} interrupted", atlasTask.getGuid());
+
+                return;
+            }
+
+            atlasTask.setErrorMessage(excp.getMessage());
+
+            if (!isRetryable(excp)) {
+                LOG.error("TaskManagement: task {} of type {} failed. Not retrying, as the error will recur", atlasTask.getGuid(), atlasTask.getType(), excp);
+
+                atlasTask.setStatus(Status.FAILED);
+                atlasTask.setEndTime(System.currentTimeMillis());
+            } else if (atlasTask.getAttemptCount() < maxAttempts) {
+                long delayMs = retryDelayMs << (atlasTask.getAttemptCount() - 1);
+
+                LOG.warn("TaskManagement: attempt {} of task {} failed. Will retry in {}ms", atlasTask.getAttemptCount(), atlasTask.getGuid(), delayMs, excp);
+
+                atlasTask.setStatus(Status.PENDING);
+
+                isDone = false;
+
+                taskExecutor.schedule(() -> run(task, taskExecutor), delayMs, TimeUnit.MILLISECONDS); // key stays held, to preserve the order of tasks
+            } else {
+                LOG.error("TaskManagement: task {} failed after {} attempts", atlasTask.getGuid(), atlasTask.getAttemptCount(), excp);
+
+                atlasTask.setStatus(Status.FAILED);
+                atlasTask.setEndTime(System.currentTimeMillis());
+            }
+        } finally {
+            task.setProgressListener(null);
+
+            RequestContext.clear();
+        }
+
+        try {
+            registry.update(atlasTask);
+        } catch (Exception excp) {
+            LOG.error("TaskManagement: failed to update status of task {}", atlasTask.getGuid(), excp);
+        }
+
+        if (isDone) {
+            synchronized (this) {
+                if (task.getKey() != null && executor == taskExecutor) {
+                    runningKeys.remove(task.getKey());
+                }
+            }
+
+            dispatch();
+        }
+    }
+
+    // errors in the request, like TAG_PROPAGATION_LIMIT_EXCEEDED, are not resolved by retrying
+    private static boolean isRetryable(Exception excp) {
+        return !(excp instanceof AtlasBaseException) || ((AtlasBaseException) excp).getAtlasErrorCode().getHttpCode().getFamily() != Response.Status.Family.CLIENT_ERROR;
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.tasks;
+
+import org.apache.atlas.annotation.GraphTransaction;
+import org.apache.atlas.model.tasks.AtlasTask;
+import org.apache.atlas.model.tasks.AtlasTask.Status;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasType;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.atlas.repository.Constants.CREATED_BY_KEY;
+import static org.apache.atlas.repository.Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_ATTEMPT_COUNT_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_DONE_COUNT_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_END_TIME_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_ERROR_MESSAGE_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_GUID_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_PARAMETERS_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_START_TIME_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_STATUS_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_TOTAL_COUNT_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TASK_TYPE_PROPERTY_KEY;
+import static org.apache.atlas.repository.Constants.TIMESTAMP_PROPERTY_KEY;
+import static org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2.getEncodedProperty;
+import static org.apache.atlas.repository.store.graph.v2.AtlasGraphUtilsV2.setEncodedProperty;
+
+/**
+ * Stores tasks as vertices in the graph, so that tasks survive restart of the server and failover.
+ */
+@Component
+public class TaskRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(TaskRegistry.class);
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
+
+    private final AtlasGraph graph;
+
+    @Inject
+    public TaskRegistry(AtlasGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Adds the task to the graph in the current transaction; hence the task is persisted only if the change that
+     * created the task is committed.
+     */
+    public void createVertex(AtlasTask task) {
+        AtlasVertex vertex = graph.addVertex();
+
+        setEncodedProperty(vertex, TASK_GUID_PROPERTY_KEY, task.getGuid());
+        setEncodedProperty(vertex, TASK_TYPE_PROPERTY_KEY, task.getType());
+        setEncodedProperty(vertex, TASK_PARAMETERS_PROPERTY_KEY, AtlasType.toJson(task.getParameters()));
+        setEncodedProperty(vertex, CREATED_BY_KEY, task.getCreatedBy());
+        setEncodedProperty(vertex, TIMESTAMP_PROPERTY_KEY, task.getCreatedTime());
+
+        setVertexProperties(vertex, task);
+    }
+
+    @GraphTransaction
+    public AtlasTask getByGuid(String guid) {
+        AtlasVertex vertex = findByGuid(guid);
+
+        return vertex != null ? toAtlasTask(vertex) : null;
+    }
+
+    /**
+     * @param status status of tasks to return; null to return tasks in all status
+     * @return tasks in the order of creation
+     */
+    @GraphTransaction
+    public List<AtlasTask> getTasks(Status status) {
+        return getTasks(status, 0, 0);
+    }
+
+    /**
+     * @param status status of tasks to return; null to return tasks in all status
+     * @param offset number of tasks to skip, in the order of creation
+     * @param limit  max number of tasks to return; <= 0 to return all tasks after offset
+     * @return tasks in the order of creation
+     */
+    @GraphTransaction
+    public List<AtlasTask> getTasks(Status status, int offset, int limit) {
+        List<AtlasVertex> vertices = new ArrayList<>();
+
+        for (Status taskStatus : status != null ? new Status[] { status } : Status.values()) {
+            Iterator<AtlasVertex> iter = graph.query().has(TASK_STATUS_PROPERTY_KEY, taskStatus.name()).vertices().iterator();
+
+            while (iter.hasNext()) {
+                vertices.add(iter.next());
+            }
+        }
+
+        vertices.sort(Comparator.comparingLong(vertex -> getLong(vertex, TIMESTAMP_PROPERTY_KEY)));
+
+        int             fromIdx = Math.min(Math.max(offset, 0), vertices.size());
+        int             toIdx   = limit > 0 ? Math.min(fromIdx + limit, vertices.size()) : vertices.size();
+        List<AtlasTask> ret     = new ArrayList<>(toIdx - fromIdx);
+
+        for (AtlasVertex vertex : vertices.subList(fromIdx, toIdx)) { // only tasks in the page are read from the graph
+            ret.add(toAtlasTask(vertex));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Deletes completed tasks that ended before the given time, in a transaction of its own.
+     * @return number of tasks deleted
+     */
+    @GraphTransaction
+    public int deleteCompletedTasks(long endedBefore) {
+        int                   ret      = 0;
+        Iterator<AtlasVertex> vertices = graph.query().has(TASK_STATUS_PROPERTY_KEY, Status.COMPLETE.name()).vertices().iterator();
+
+        while (vertices.hasNext()) {
+            AtlasVertex vertex = vertices.next();
+
+            if (getLong(vertex, TASK_END_TIME_PROPERTY_KEY) < endedBefore) {
+                graph.removeVertex(vertex);
+
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Updates status and progress of the task, in its own transaction.
+     */
+    @GraphTransaction
+    public void update(AtlasTask task) {
+        AtlasVertex vertex = findByGuid(task.getGuid());
+
+        if (vertex == null) {
+            LOG.warn("update(): task {} not found", task.getGuid());
+
+            return;
+        }
+
+        setVertexProperties(vertex, task);
+    }
+
+    private void setVertexProperties(AtlasVertex vertex, AtlasTask task) {
+        task.setUpdatedTime(System.currentTimeMillis());
+
+        setEncodedProperty(vertex, TASK_STATUS_PROPERTY_KEY, task.getStatus().name());
+        setEncodedProperty(vertex, TASK_ATTEMPT_COUNT_PROPERTY_KEY, task.getAttemptCount());
+        setEncodedProperty(vertex, TASK_START_TIME_PROPERTY_KEY, task.getStartTime());
+        setEncodedProperty(vertex, TASK_END_TIME_PROPERTY_KEY, task.getEndTime());
+        setEncodedProperty(vertex, TASK_TOTAL_COUNT_PROPERTY_KEY, task.getTotalCount());
+        setEncodedProperty(vertex, TASK_DONE_COUNT_PROPERTY_KEY, task.getDoneCount());
+        setEncodedProperty(vertex, TASK_ERROR_MESSAGE_PROPERTY_KEY, StringUtils.abbreviate(task.getErrorMessage(), MAX_ERROR_MESSAGE_LENGTH));
+        setEncodedProperty(vertex, MODIFICATION_TIMESTAMP_PROPERTY_KEY, task.getUpdatedTime());
+    }
+
+    private AtlasVertex findByGuid(String guid) {
+        Iterator<AtlasVertex> vertices = graph.query().has(TASK_GUID_PROPERTY_KEY, guid).vertices().iterator();
+
+        return vertices.hasNext() ? vertices.next() : null;
+    }
+
+    private static AtlasTask toAtlasTask(AtlasVertex vertex) {
+        AtlasTask ret        = new AtlasTask();
+        String    parameters = getEncodedProperty(vertex, TASK_PARAMETERS_PROPERTY_KEY, String.class);
+
+        ret.setGuid(getEncodedProperty(vertex, TASK_GUID_PROPERTY_KEY, String.class));
+        ret.setType(getEncodedProperty(vertex, TASK_TYPE_PROPERTY_KEY, String.class));
+        ret.setStatus(Status.valueOf(getEncodedProperty(vertex, TASK_STATUS_PROPERTY_KEY, String.class)));
+        ret.setParameters(parameters != null ? AtlasType.fromJson(parameters, Map.class) : null);
+        ret.setCreatedBy(getEncodedProperty(vertex, CREATED_BY_KEY, String.class));
+        ret.setCreatedTime(getLong(vertex, TIMESTAMP_PROPERTY_KEY));
+        ret.setUpdatedTime(getLong(vertex, MODIFICATION_TIMESTAMP_PROPERTY_KEY));
+        ret.setStartTime(getLong(vertex, TASK_START_TIME_PROPERTY_KEY));
+        ret.setEndTime(getLong(vertex, TASK_END_TIME_PROPERTY_KEY));
+        ret.setTotalCount(getLong(vertex, TASK_TOTAL_COUNT_PROPERTY_KEY));
+        ret.setDoneCount(getLong(vertex, TASK_DONE_COUNT_PROPERTY_KEY));
+        ret.setErrorMessage(getEncodedProperty(vertex, TASK_ERROR_MESSAGE_PROPERTY_KEY, String.class));
+
+        Integer attemptCount = getEncodedProperty(vertex, TASK_ATTEMPT_COUNT_PROPERTY_KEY, Integer.class);
+
+        ret.setAttemptCount(attemptCount != null ? attemptCount : 0);
+
+        return ret;
+    }
+
+    private static long getLong(AtlasVertex vertex, String propertyName) {
+        Long ret = getEncodedProperty(vertex, propertyName, Long.class);
+
+        return ret != null ? ret : 0;
+    }
+}
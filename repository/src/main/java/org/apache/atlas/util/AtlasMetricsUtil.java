@@ -33,6 +33,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 import static org.apache.atlas.model.metrics.AtlasMetrics.*;
 import static org.apache.atlas.repository.Constants.TYPE_NAME_INTERNAL;
@@ -60,6 +61,8 @@ public class AtlasMetricsUtil {
     private final AtlasMetricsCounter     entityUpdates     = new AtlasMetricsCounter("entityUpdates");
     private final AtlasMetricsCounter     entityDeletes     = new AtlasMetricsCounter("entityDeletes");
 
+    private volatile Supplier<Map<String, Object>> splitMessageStats;
+
     @Inject
     public AtlasMetricsUtil(AtlasGraph graph) {
         this.graph = graph;
@@ -116,6 +119,23 @@ public class AtlasMetricsUtil {
         partitionStat.setLastMessageProcessedTime(messagesProcessed.getLastIncrTime().toEpochMilli());
     }
 
+    /**
+     * Sets the source of split message metrics of the notification consumer - which is in a module this one doesn't
+     * depend on.
+     */
+    public void setSplitMessageStats(Supplier<Map<String, Object>> splitMessageStats) {
+        this.splitMessageStats = splitMessageStats;
+    }
+
+    /**
+     * @return split message metrics of the notification consumer; null if there is no notification consumer
+     */
+    public Map<String, Object> getSplitMessageStats() {
+        Supplier<Map<String, Object>> splitMessageStats = this.splitMessageStats;
+
+        return splitMessageStats != null ? splitMessageStats.get() : null;
+    }
+
     public Map<String, Object> getStats() {
         Map<String, Object> ret = new HashMap<>();
 
@@ -0,0 +1,275 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.typedef.AtlasRelationshipDef.PropagateTags;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.graphdb.AtlasVertexQuery;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.atlas.repository.Constants.RELATIONSHIPTYPE_BLOCKED_PROPAGATED_CLASSIFICATIONS_KEY;
+import static org.apache.atlas.repository.Constants.RELATIONSHIPTYPE_TAG_PROPAGATION_KEY;
+import static org.apache.atlas.repository.Constants.RELATIONSHIP_GUID_PROPERTY_KEY;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class GraphHelperTest {
+    private final AtlasGraph   graph       = mock(AtlasGraph.class);
+    private final GraphHelper  graphHelper = new GraphHelper(graph, new PropagationGraphCache(0, 0));
+    private final List<String> cachedGuids = new ArrayList<>();
+
+    @AfterMethod
+    public void clearVertexCache() {
+        for (String guid : cachedGuids) {
+            GraphTransactionInterceptor.removeFromVertexCache(guid);
+        }
+
+        cachedGuids.clear();
+    }
+
+    @Test
+    public void testImpactedVerticesInDiamondLineage() throws AtlasBaseException {
+        TestGraph graph = new TestGraph("a", "b", "c", "d", "e");
+
+        graph.addEdge("a", "b", PropagateTags.ONE_TO_TWO);
+        graph.addEdge("a", "c", PropagateTags.ONE_TO_TWO);
+        graph.addEdge("b", "d", PropagateTags.ONE_TO_TWO);
+        graph.addEdge("c", "d", PropagateTags.ONE_TO_TWO);
+        graph.addEdge("d", "e", PropagateTags.BOTH);
+        graph.addEdge("e", "a", PropagateTags.ONE_TO_TWO); // cycle back to the source
+
+        assertEquals(getGuids(graphHelper.getImpactedVertices("a")), Arrays.asList("b", "c", "d", "e"));
+        assertEquals(getGuids(graphHelper.getImpactedVertices("e")), Arrays.asList("a", "d", "b", "c"));
+    }
+
+    @Test
+    public void testImpactedVerticesFollowPropagationDirection() throws AtlasBaseException {
+        TestGraph graph = new TestGraph("a", "b", "c", "d", "e");
+
+        graph.addEdge("a", "b", PropagateTags.TWO_TO_ONE);
+        graph.addEdge("c", "a", PropagateTags.TWO_TO_ONE);
+        graph.addEdge("a", "d", PropagateTags.NONE);
+        graph.addEdge("a", "e", null);
+
+        assertEquals(getGuids(graphHelper.getImpactedVertices("a")), Collections.singletonList("c"));
+        assertEquals(getGuids(graphHelper.getImpactedVertices("b")), Arrays.asList("a", "c"));
+    }
+
+    @Test
+    public void testImpactedVerticesWithRestrictions() throws AtlasBaseException {
+        TestGraph graph = new TestGraph("a", "b", "c", "d");
+
+        graph.addEdge("a", "b", PropagateTags.ONE_TO_TWO).blockedClassificationIds.add("cls-1");
+        graph.addEdge("b", "c", PropagateTags.ONE_TO_TWO);
+        graph.addEdge("a", "d", PropagateTags.ONE_TO_TWO);
+        graph.addEdge("d", "c", PropagateTags.ONE_TO_TWO);
+
+        assertEquals(getGuids(graphHelper.getImpactedVerticesWithRestrictions("a", "cls-1")), Arrays.asList("d", "c"));
+        assertEquals(getGuids(graphHelper.getImpactedVerticesWithRestrictions("a", "cls-2")), Arrays.asList("b", "d", "c"));
+        assertEquals(getGuids(graphHelper.getImpactedVerticesWithRestrictions("a", "cls-1", "rel-a-d")), Collections.emptyList());
+        assertEquals(getGuids(graphHelper.getImpactedVerticesWithReferences("a", "rel-b-c")), Arrays.asList("b", "d", "c"));
+        assertEquals(getGuids(graphHelper.getImpactedVerticesWithReferences("a", "rel-a-d")), Arrays.asList("b", "c"));
+    }
+
+    @Test
+    public void testImpactedVerticesUsingCache() throws AtlasBaseException {
+        PropagationGraphCache cache        = new PropagationGraphCache(100, 10);
+        GraphHelper           cachedHelper = new GraphHelper(graph, cache);
+        TestGraph             testGraph    = new TestGraph("a", "b", "c", "d", "e");
+
+        testGraph.addEdge("a", "b", PropagateTags.ONE_TO_TWO);
+        testGraph.addEdge("b", "c", PropagateTags.ONE_TO_TWO);
+        testGraph.addEdge("a", "d", PropagateTags.ONE_TO_TWO).blockedClassificationIds.add("cls-1");
+
+        assertEquals(getGuids(cachedHelper.getImpactedVertices("a")), getGuids(graphHelper.getImpactedVertices("a")));
+        assertEquals(getGuids(cachedHelper.getImpactedVertices("a")), Arrays.asList("b", "d", "c"));
+        assertEquals(getGuids(cachedHelper.getImpactedVerticesWithRestrictions("a", "cls-1")), Arrays.asList("b", "c"));
+        assertEquals(getGuids(cachedHelper.getImpactedVerticesWithReferences("a", "rel-a-b")), Collections.singletonList("d"));
+
+        // relationships of each vertex are read once, by the first traversal; the uncached traversal reads these again
+        verify(testGraph.vertices.get("a"), times(2 * 2)).query();
+        verify(testGraph.vertices.get("c"), times(2 * 2)).query();
+
+        // a new relationship is followed once the cache is notified
+        AtlasEdge newEdge = testGraph.addEdge("c", "e", PropagateTags.ONE_TO_TWO).edge;
+
+        cache.onEdgeUpdate(newEdge);
+
+        assertEquals(getGuids(cachedHelper.getImpactedVertices("a")), Arrays.asList("b", "d", "c", "e")); // cache isn't used in the transaction that updated relationships
+
+        cache.onTransactionComplete(true);
+
+        assertEquals(getGuids(cachedHelper.getImpactedVertices("a")), Arrays.asList("b", "d", "c", "e"));
+        assertEquals(getGuids(cachedHelper.getImpactedVertices("e")), Collections.emptyList());
+    }
+
+    @Test
+    public void testImpactedVerticesWithLimit() {
+        GraphHelper cachedHelper = new GraphHelper(graph, new PropagationGraphCache(100, 10));
+        TestGraph   testGraph    = new TestGraph("a", "b", "c", "d");
+
+        testGraph.addEdge("a", "b", PropagateTags.ONE_TO_TWO);
+        testGraph.addEdge("b", "c", PropagateTags.ONE_TO_TWO);
+        testGraph.addEdge("c", "d", PropagateTags.ONE_TO_TWO);
+
+        for (GraphHelper helper : Arrays.asList(graphHelper, cachedHelper)) {
+            List<AtlasVertex> impactedVertices = new ArrayList<>();
+
+            assertFalse(helper.getImpactedVertices("a", null, null, 2, Long.MAX_VALUE, impactedVertices));
+            assertEquals(getGuids(impactedVertices), Arrays.asList("b", "c"));
+
+            impactedVertices.clear();
+
+            assertFalse(helper.getImpactedVertices("a", null, null, 0, System.currentTimeMillis() - 1, impactedVertices));
+
+            impactedVertices.clear();
+
+            assertTrue(helper.getImpactedVertices("a", null, null, 3, Long.MAX_VALUE, impactedVertices));
+            assertEquals(getGuids(impactedVertices), Arrays.asList("b", "c", "d"));
+        }
+    }
+
+    @Test
+    public void testImpactedVerticesLimitOnlyForAddPropagation() throws AtlasBaseException {
+        GraphHelper limitedHelper = new GraphHelper(graph, new PropagationGraphCache(0, 0), 2);
+        TestGraph   testGraph     = new TestGraph("a", "b", "c", "d");
+
+        testGraph.addEdge("a", "b", PropagateTags.ONE_TO_TWO);
+        testGraph.addEdge("b", "c", PropagateTags.ONE_TO_TWO);
+        testGraph.addEdge("c", "d", PropagateTags.ONE_TO_TWO);
+
+        for (String classificationId : Arrays.asList(null, "cls-1")) {
+            try {
+                if (classificationId == null) {
+                    limitedHelper.getImpactedVertices("a");
+                } else {
+                    limitedHelper.getImpactedVerticesToAddPropagation("a", classificationId);
+                }
+
+                fail("propagation to more than 2 entities should fail");
+            } catch (AtlasBaseException excp) {
+                assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.TAG_PROPAGATION_LIMIT_EXCEEDED);
+            }
+        }
+
+        // traversals used to remove propagation, like on delete of an entity or a relationship, are not limited
+        assertEquals(getGuids(limitedHelper.getImpactedVerticesWithReferences("a", "rel-c-d")), Arrays.asList("b", "c"));
+        assertEquals(getGuids(limitedHelper.getImpactedVerticesWithReferences("a", "rel-x-y")), Arrays.asList("b", "c", "d"));
+        assertEquals(getGuids(limitedHelper.getImpactedVerticesWithRestrictions("a", "cls-1")), Arrays.asList("b", "c", "d"));
+        assertEquals(getGuids(limitedHelper.getImpactedVerticesToAddPropagation("b", "cls-1")), Arrays.asList("c", "d"));
+    }
+
+    private static List<String> getGuids(List<AtlasVertex> vertices) {
+        List<String> ret = new ArrayList<>();
+
+        for (AtlasVertex vertex : vertices) {
+            ret.add(vertex.getIdForDisplay());
+        }
+
+        return ret;
+    }
+
+    private static class TestEdge {
+        final Set<String> blockedClassificationIds = new HashSet<>();
+        final AtlasEdge   edge;
+
+        TestEdge(AtlasEdge edge) {
+            this.edge = edge;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private class TestGraph {
+        private final Map<String, AtlasVertex>     vertices = new HashMap<>();
+        private final Map<String, List<AtlasEdge>> outEdges = new HashMap<>();
+        private final Map<String, List<AtlasEdge>> inEdges  = new HashMap<>();
+
+        TestGraph(String... guids) {
+            for (String guid : guids) {
+                AtlasVertex      vertex   = mock(AtlasVertex.class);
+                AtlasVertexQuery query    = mock(AtlasVertexQuery.class);
+                AtlasVertexQuery outQuery = createQuery(outEdges, guid);
+                AtlasVertexQuery inQuery  = createQuery(inEdges, guid);
+
+                when(vertex.getIdForDisplay()).thenReturn(guid);
+                when(graph.getVertex(guid)).thenReturn(vertex);
+                when(vertex.query()).thenReturn(query);
+                when(query.direction(AtlasEdgeDirection.OUT)).thenReturn(outQuery);
+                when(query.direction(AtlasEdgeDirection.IN)).thenReturn(inQuery);
+
+                vertices.put(guid, vertex);
+
+                GraphTransactionInterceptor.addToVertexCache(guid, vertex);
+
+                cachedGuids.add(guid);
+            }
+        }
+
+        TestEdge addEdge(String fromGuid, String toGuid, PropagateTags propagateTags) {
+            AtlasEdge edge = mock(AtlasEdge.class);
+            TestEdge  ret  = new TestEdge(edge);
+
+            when(edge.getOutVertex()).thenReturn(vertices.get(fromGuid));
+            when(edge.getInVertex()).thenReturn(vertices.get(toGuid));
+            when(edge.getProperty(RELATIONSHIPTYPE_TAG_PROPAGATION_KEY, String.class)).thenReturn(propagateTags != null ? propagateTags.name() : null);
+            when(edge.getProperty(RELATIONSHIP_GUID_PROPERTY_KEY, String.class)).thenReturn("rel-" + fromGuid + "-" + toGuid);
+            when(edge.getProperty(RELATIONSHIPTYPE_BLOCKED_PROPAGATED_CLASSIFICATIONS_KEY, List.class)).thenAnswer(invocation -> new ArrayList<>(ret.blockedClassificationIds));
+
+            outEdges.get(fromGuid).add(edge);
+            inEdges.get(toGuid).add(edge);
+
+            return ret;
+        }
+
+        private AtlasVertexQuery createQuery(Map<String, List<AtlasEdge>> edgesByGuid, String guid) {
+            AtlasVertexQuery ret   = mock(AtlasVertexQuery.class);
+            List<AtlasEdge>  edges = new ArrayList<>();
+
+            edgesByGuid.put(guid, edges);
+
+            when(ret.has(anyString(), any())).thenReturn(ret);
+            when(ret.edges()).thenReturn(edges);
+
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.repository.graph.PropagationGraphCache.PropagationEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.apache.atlas.repository.Constants.RELATIONSHIPTYPE_TAG_PROPAGATION_KEY;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class PropagationGraphCacheTest {
+    private final PropagationGraphCache cache = new PropagationGraphCache(4, 2);
+
+    @AfterMethod
+    public void completeTransaction() {
+        cache.onTransactionComplete(true);
+    }
+
+    @Test
+    public void testEdgeUpdateInvalidatesBothEnds() {
+        cache.addEdges("a", edgesTo("b"), cache.getGeneration());
+        cache.addEdges("b", edgesTo("a"), cache.getGeneration());
+        cache.addEdges("c", edgesTo(), cache.getGeneration());
+        cache.addClosure("a", ids("b"), false, cache.getGeneration());
+        cache.addClosure("c", ids(), false, cache.getGeneration());
+
+        cache.onEdgeUpdate(createEdge("b", "d"));
+
+        assertNotNull(cache.getEdges("a"));
+        assertNull(cache.getEdges("b"));
+        assertNotNull(cache.getEdges("c"));
+        assertNull(cache.getClosure("a")); // includes b
+        assertNotNull(cache.getClosure("c"));
+
+        // not used until the transaction that updated relationships completes
+        assertFalse(cache.isUsable());
+
+        cache.onTransactionComplete(true);
+
+        assertTrue(cache.isUsable());
+    }
+
+    @Test
+    public void testEntriesReadBeforeInvalidationAreNotAdded() {
+        long generation = cache.getGeneration();
+
+        cache.onEdgeUpdate(createEdge("a", "b"));
+
+        cache.addEdges("a", edgesTo("b"), generation);
+        cache.addClosure("a", ids("b"), false, generation);
+
+        assertNull(cache.getEdges("a"));
+        assertNull(cache.getClosure("a"));
+    }
+
+    @Test
+    public void testEviction() {
+        for (String vertexId : Arrays.asList("a", "b", "c", "d", "e")) {
+            cache.addEdges(vertexId, edgesTo(), cache.getGeneration());
+        }
+
+        assertNull(cache.getEdges("a"));
+        assertNotNull(cache.getEdges("e"));
+
+        cache.addClosure("a", ids("b", "c"), false, cache.getGeneration());
+        cache.addClosure("b", ids("c", "d"), false, cache.getGeneration());
+        cache.addClosure("c", ids("d", "e", "f", "g", "h"), false, cache.getGeneration()); // larger than max size
+
+        assertNotNull(cache.getClosure("a"));
+        assertNotNull(cache.getClosure("b"));
+        assertNull(cache.getClosure("c"));
+
+        cache.addClosure("d", ids("e"), false, cache.getGeneration());
+
+        assertNull(cache.getClosure("a"));
+        assertEquals(cache.getStats().get("closuresSize"), 3L);
+    }
+
+    private static List<PropagationEdge> edgesTo(String... vertexIds) {
+        PropagationEdge[] ret = new PropagationEdge[vertexIds.length];
+
+        for (int i = 0; i < vertexIds.length; i++) {
+            ret[i] = new PropagationEdge("rel-" + vertexIds[i], vertexIds[i], null);
+        }
+
+        return Arrays.asList(ret);
+    }
+
+    private static LinkedHashSet<String> ids(String... vertexIds) {
+        LinkedHashSet<String> ret = new LinkedHashSet<>();
+
+        Collections.addAll(ret, vertexIds);
+
+        return ret;
+    }
+
+    private static AtlasEdge createEdge(String fromVertexId, String toVertexId) {
+        AtlasEdge   ret        = mock(AtlasEdge.class);
+        AtlasVertex fromVertex = mock(AtlasVertex.class);
+        AtlasVertex toVertex   = mock(AtlasVertex.class);
+
+        when(fromVertex.getIdForDisplay()).thenReturn(fromVertexId);
+        when(toVertex.getIdForDisplay()).thenReturn(toVertexId);
+        when(ret.getOutVertex()).thenReturn(fromVertex);
+        when(ret.getInVertex()).thenReturn(toVertex);
+        when(ret.getProperty(RELATIONSHIPTYPE_TAG_PROPAGATION_KEY, String.class)).thenReturn("ONE_TO_TWO");
+
+        return ret;
+    }
+}
@@ -29,13 +29,20 @@ import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.AtlasPropagationImpact;
 import org.apache.atlas.model.instance.AtlasStruct;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.model.instance.EntityMutations;
 import org.apache.atlas.model.instance.EntityMutations.EntityOperation;
 import org.apache.atlas.model.typedef.AtlasClassificationDef;
 import org.apache.atlas.model.typedef.AtlasEntityDef;
+import org.apache.atlas.model.typedef.AtlasRelationshipDef;
+import org.apache.atlas.model.typedef.AtlasRelationshipDef.PropagateTags;
+import org.apache.atlas.model.typedef.AtlasRelationshipDef.RelationshipCategory;
+import org.apache.atlas.model.typedef.AtlasStructDef.AtlasAttributeDef.Cardinality;
 import org.apache.atlas.model.typedef.AtlasTypesDef;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasTypeUtil;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
@@ -49,6 +56,7 @@ import org.testng.annotations.Test;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -63,6 +71,7 @@ import static org.apache.atlas.TestUtilsV2.TABLE_TYPE;
 import static org.apache.commons.lang.RandomStringUtils.randomAlphanumeric;
 import static org.mockito.Mockito.mock;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -838,6 +847,143 @@ public class AtlasEntityStoreV2Test extends AtlasEntityTestBase {
         assertEquals(col3.getAttribute("description"), updatedCol3Entity.getAttribute("description"));
     }
 
+    @Test
+    public void testAppendRemoveArrayOfReferences() throws Exception {
+        init();
+
+        AtlasEntity              dbEntity  = TestUtilsV2.createDBEntity();
+        AtlasEntity              tblEntity = TestUtilsV2.createTableEntity(dbEntity);
+        List<AtlasEntity>        columns   = new ArrayList<>();
+        AtlasEntitiesWithExtInfo entities  = new AtlasEntitiesWithExtInfo(Arrays.asList(dbEntity, tblEntity));
+
+        for (int i = 0; i < 4; i++) {
+            AtlasEntity column = TestUtilsV2.createColumnEntity(tblEntity);
+
+            column.removeAttribute("table"); // columns are added to the table only by append
+
+            columns.add(column);
+            entities.addEntity(column);
+        }
+
+        EntityMutationResponse response = entityStore.createOrUpdate(new AtlasEntityStream(entities), false);
+        String                 tblGuid  = response.getCreatedEntityByTypeNameAndAttribute(TABLE_TYPE, NAME, (String) tblEntity.getAttribute(NAME)).getGuid();
+        List<String>           colGuids = new ArrayList<>();
+
+        for (AtlasEntity column : columns) {
+            colGuids.add(response.getCreatedEntityByTypeNameAndAttribute(COLUMN_TYPE, NAME, (String) column.getAttribute(NAME)).getGuid());
+        }
+
+        assertTrue(getActiveColumnGuids(tblGuid).isEmpty());
+
+        // append to an empty array
+        updateCollectionAttribute(tblGuid, COLUMNS_ATTR_NAME, getColumnIds(colGuids.get(0), colGuids.get(1)), false);
+        assertEquals(getActiveColumnGuids(tblGuid), Arrays.asList(colGuids.get(0), colGuids.get(1)));
+
+        // elements already in the array are not added again
+        updateCollectionAttribute(tblGuid, COLUMNS_ATTR_NAME, getColumnIds(colGuids.get(2), colGuids.get(0)), false);
+        assertEquals(getActiveColumnGuids(tblGuid), Arrays.asList(colGuids.get(0), colGuids.get(1), colGuids.get(2)));
+
+        // inverse reference is set for appended elements
+        assertEquals(((AtlasObjectId) getEntityFromStore(colGuids.get(2)).getAttribute("table")).getGuid(), tblGuid);
+
+        // removing an element not in the array is ignored
+        updateCollectionAttribute(tblGuid, COLUMNS_ATTR_NAME, getColumnIds(colGuids.get(1), colGuids.get(3)), true);
+        assertEquals(getActiveColumnGuids(tblGuid), Arrays.asList(colGuids.get(0), colGuids.get(2)));
+        assertEquals(getEntityFromStore(colGuids.get(1)).getStatus(), AtlasEntity.Status.DELETED); // owned reference
+        assertEquals(getEntityFromStore(colGuids.get(3)).getStatus(), AtlasEntity.Status.ACTIVE);
+
+        // elements appended after a removal are added at the end
+        updateCollectionAttribute(tblGuid, COLUMNS_ATTR_NAME, getColumnIds(colGuids.get(3)), false);
+        assertEquals(getActiveColumnGuids(tblGuid), Arrays.asList(colGuids.get(0), colGuids.get(2), colGuids.get(3)));
+    }
+
+    @Test
+    public void testAppendRemoveArrayOfPrimitivesAndMap() throws Exception {
+        init();
+
+        AtlasEntity dbEntity  = TestUtilsV2.createDBEntity();
+        AtlasEntity tblEntity = TestUtilsV2.createTableEntity(dbEntity);
+
+        tblEntity.removeAttribute("parametersMap");
+
+        EntityMutationResponse response = entityStore.createOrUpdate(new AtlasEntityStream(new AtlasEntitiesWithExtInfo(Arrays.asList(dbEntity, tblEntity))), false);
+        String                 tblGuid  = response.getCreatedEntityByTypeNameAndAttribute(TABLE_TYPE, NAME, (String) tblEntity.getAttribute(NAME)).getGuid();
+
+        // append to null attributes
+        updateCollectionAttribute(tblGuid, "columnNames", Arrays.asList("a", "b"), false);
+        updateCollectionAttribute(tblGuid, "parametersMap", Collections.singletonMap("key1", "value1"), false);
+
+        AtlasEntity updatedTable = getEntityFromStore(tblGuid);
+
+        assertEquals(updatedTable.getAttribute("columnNames"), Arrays.asList("a", "b"));
+        assertEquals(updatedTable.getAttribute("parametersMap"), Collections.singletonMap("key1", "value1"));
+
+        // array elements are appended even if present; map entries with existing keys are replaced
+        Map<String, String> paramsToAppend = new HashMap<>();
+
+        paramsToAppend.put("key1", "value1-updated");
+        paramsToAppend.put("key2", "value2");
+
+        updateCollectionAttribute(tblGuid, "columnNames", Arrays.asList("b", "c"), false);
+        updateCollectionAttribute(tblGuid, "parametersMap", paramsToAppend, false);
+
+        updatedTable = getEntityFromStore(tblGuid);
+
+        assertEquals(updatedTable.getAttribute("columnNames"), Arrays.asList("a", "b", "b", "c"));
+        assertEquals(updatedTable.getAttribute("parametersMap"), paramsToAppend);
+
+        // all occurrences of removed elements are removed; missing elements and keys are ignored
+        updateCollectionAttribute(tblGuid, "columnNames", Arrays.asList("b", "x"), true);
+        updateCollectionAttribute(tblGuid, "parametersMap", Arrays.asList("key2", "missing-key"), true);
+
+        updatedTable = getEntityFromStore(tblGuid);
+
+        assertEquals(updatedTable.getAttribute("columnNames"), Arrays.asList("a", "c"));
+        assertEquals(updatedTable.getAttribute("parametersMap"), Collections.singletonMap("key1", "value1-updated"));
+    }
+
+    private void updateCollectionAttribute(String guid, String attrName, Object value, boolean isRemove) throws Exception {
+        AtlasEntity entity = new AtlasEntity(TABLE_TYPE);
+
+        entity.setGuid(guid);
+
+        if (isRemove) {
+            entity.setRemoveAttribute(attrName, value);
+        } else {
+            entity.setAppendAttribute(attrName, value);
+        }
+
+        init();
+
+        entityStore.createOrUpdate(new AtlasEntityStream(entity), true);
+    }
+
+    private static List<AtlasObjectId> getColumnIds(String... guids) {
+        List<AtlasObjectId> ret = new ArrayList<>();
+
+        for (String guid : guids) {
+            ret.add(new AtlasObjectId(guid, COLUMN_TYPE));
+        }
+
+        return ret;
+    }
+
+    // columns removed from the table are soft-deleted, hence can still be present in the attribute
+    private List<String> getActiveColumnGuids(String tblGuid) throws AtlasBaseException {
+        List<String>        ret     = new ArrayList<>();
+        List<AtlasObjectId> columns = (List<AtlasObjectId>) getEntityFromStore(tblGuid).getAttribute(COLUMNS_ATTR_NAME);
+
+        if (columns != null) {
+            for (AtlasObjectId column : columns) {
+                if (getEntityFromStore(column.getGuid()).getStatus() == AtlasEntity.Status.ACTIVE) {
+                    ret.add(column.getGuid());
+                }
+            }
+        }
+
+        return ret;
+    }
+
     @Test
     public void testSetObjectIdAttrToNull() throws Exception {
         final AtlasEntity dbEntity  = TestUtilsV2.createDBEntity();
@@ -866,6 +1012,43 @@ public class AtlasEntityStoreV2Test extends AtlasEntityTestBase {
         assertEquals(deletedDb2Entity.getStatus(), AtlasEntity.Status.DELETED);
     }
 
+    @Test
+    public void testUpdateWithExpectedVersion() throws Exception {
+        init();
+
+        EntityMutationResponse response = entityStore.createOrUpdate(new AtlasEntityStream(new AtlasEntitiesWithExtInfo(TestUtilsV2.createDBEntity())), false);
+        AtlasEntity            dbEntity = getEntityFromStore(response.getFirstEntityCreated());
+        long                   version  = dbEntity.getVersion();
+
+        // update without expected version, as by a hook, increments the version - even within the same millisecond
+        init();
+
+        entityStore.updateEntityAttributeByGuid(dbEntity.getGuid(), "description", "unconditional update");
+
+        long currentVersion = getEntityFromStore(dbEntity.getGuid()).getVersion();
+
+        assertTrue(currentVersion > version);
+
+        init();
+
+        try {
+            entityStore.updateEntityAttributeByGuid(dbEntity.getGuid(), "description", "stale update", version);
+
+            fail("update with stale version should fail");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.ENTITY_MODIFIED);
+        }
+
+        init();
+
+        entityStore.updateEntityAttributeByGuid(dbEntity.getGuid(), "description", "conditional update", currentVersion);
+
+        AtlasEntity updatedEntity = getEntityFromStore(dbEntity.getGuid());
+
+        assertEquals(updatedEntity.getAttribute("description"), "conditional update");
+        assertTrue(updatedEntity.getVersion() > currentVersion);
+    }
+
     @Test
     public void testTagAssociationAfterRedefinition(){
         AtlasTypesDef typesDef = new AtlasTypesDef();
@@ -1185,4 +1368,153 @@ public class AtlasEntityStoreV2Test extends AtlasEntityTestBase {
             assertEquals(ex.getAtlasErrorCode(), INVALID_LABEL_CHARACTERS);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetPropagationImpact() throws AtlasBaseException {
+        AtlasEntityDef         datasetDef = AtlasTypeUtil.createClassTypeDef("impact_dataset", Collections.emptySet(), AtlasTypeUtil.createOptionalAttrDef(NAME, "string"));
+        AtlasEntityDef         processDef = AtlasTypeUtil.createClassTypeDef("impact_process", Collections.emptySet(), AtlasTypeUtil.createOptionalAttrDef(NAME, "string"));
+        AtlasRelationshipDef   inputsDef  = AtlasTypeUtil.createRelationshipTypeDef("impact_process_inputs", "", "1.0", RelationshipCategory.ASSOCIATION, PropagateTags.TWO_TO_ONE,
+                                                                                   AtlasTypeUtil.createRelationshipEndDef("impact_process", "inputs", Cardinality.SET, false),
+                                                                                   AtlasTypeUtil.createRelationshipEndDef("impact_dataset", "inputToProcesses", Cardinality.SET, false));
+        AtlasRelationshipDef   outputsDef = AtlasTypeUtil.createRelationshipTypeDef("impact_process_outputs", "", "1.0", RelationshipCategory.ASSOCIATION, PropagateTags.ONE_TO_TWO,
+                                                                                   AtlasTypeUtil.createRelationshipEndDef("impact_process", "outputs", Cardinality.SET, false),
+                                                                                   AtlasTypeUtil.createRelationshipEndDef("impact_dataset", "outputFromProcesses", Cardinality.SET, false));
+        AtlasClassificationDef tagDef     = new AtlasClassificationDef("impact_tag", "", "1.0", Collections.emptyList(), Collections.emptySet(), Collections.singleton("impact_dataset"), null); // not applicable to processes
+        AtlasTypesDef          typesDef   = new AtlasTypesDef();
+
+        typesDef.setEntityDefs(Arrays.asList(datasetDef, processDef));
+        typesDef.setRelationshipDefs(Arrays.asList(inputsDef, outputsDef));
+        typesDef.setClassificationDefs(Collections.singletonList(tagDef));
+
+        typeDefStore.createTypesDef(typesDef);
+
+        // input ---> process ---> output1, output2
+        AtlasEntity input   = new AtlasEntity("impact_dataset", NAME, "input");
+        AtlasEntity process = new AtlasEntity("impact_process", NAME, "process");
+        AtlasEntity output1 = new AtlasEntity("impact_dataset", NAME, "output1");
+        AtlasEntity output2 = new AtlasEntity("impact_dataset", NAME, "output2");
+
+        process.setRelationshipAttribute("inputs", Collections.singletonList(AtlasTypeUtil.getAtlasObjectId(input)));
+        process.setRelationshipAttribute("outputs", Arrays.asList(AtlasTypeUtil.getAtlasObjectId(output1), AtlasTypeUtil.getAtlasObjectId(output2)));
+
+        EntityMutationResponse response  = entityStore.createOrUpdate(new AtlasEntityStream(new AtlasEntitiesWithExtInfo(Arrays.asList(input, process, output1, output2))), false);
+        String                 inputGuid = response.getGuidAssignments().get(input.getGuid());
+
+        // processes are traversed, but not counted, as the classification can't be applied to them
+        AtlasPropagationImpact impact = entityStore.getPropagationImpact(inputGuid, "impact_tag", 0, 0, 1);
+
+        assertEquals(impact.getStatus(), AtlasPropagationImpact.Status.COMPLETE);
+        assertEquals(impact.getImpactedCount(), 2);
+        assertEquals(impact.getCountByType(), Collections.singletonMap("impact_dataset", 2L));
+        assertEquals(impact.getSample().size(), 1);
+        assertEquals(impact.getSample().get(0).getTypeName(), "impact_dataset");
+
+        // sample size beyond the configured max is clamped, and the sample holds at most the impacted entities
+        impact = entityStore.getPropagationImpact(inputGuid, "impact_tag", 0, 0, Integer.MAX_VALUE);
+
+        assertEquals(impact.getSample().size(), 2);
+
+        // no sample for sample size <= 0
+        impact = entityStore.getPropagationImpact(inputGuid, "impact_tag", 0, 0, -1);
+
+        Assert.assertNull(impact.getSample());
+
+        // traversal stops after the process and one of the outputs
+        impact = entityStore.getPropagationImpact(inputGuid, "impact_tag", 2, 0, 0);
+
+        assertEquals(impact.getStatus(), AtlasPropagationImpact.Status.LIMIT_REACHED);
+        assertEquals(impact.getImpactedCount(), 1);
+        assertEquals(impact.getCountByType(), Collections.singletonMap("impact_dataset", 1L));
+
+        // propagation from an output doesn't impact any entity
+        impact = entityStore.getPropagationImpact(response.getGuidAssignments().get(output1.getGuid()), "impact_tag", 0, 0, 0);
+
+        assertEquals(impact.getStatus(), AtlasPropagationImpact.Status.COMPLETE);
+        assertEquals(impact.getImpactedCount(), 0);
+
+        try {
+            entityStore.getPropagationImpact(inputGuid, "impact_unknown_tag", 0, 0, 0);
+
+            fail("expected failure for unknown classification");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), CLASSIFICATION_NOT_FOUND);
+        }
+    }
+
+    @Test
+    public void testFindByUniqueAttributeValues() throws AtlasBaseException {
+        AtlasEntityDef datasetDef    = AtlasTypeUtil.createClassTypeDef("resolver_dataset", Collections.emptySet(), AtlasTypeUtil.createUniqueRequiredAttrDef(NAME, "string"));
+        AtlasEntityDef subDatasetDef = AtlasTypeUtil.createClassTypeDef("resolver_sub_dataset", Collections.singleton("resolver_dataset"));
+        AtlasTypesDef  typesDef      = new AtlasTypesDef();
+
+        typesDef.setEntityDefs(Arrays.asList(datasetDef, subDatasetDef));
+
+        typeDefStore.createTypesDef(typesDef);
+
+        AtlasEntity ds1  = new AtlasEntity("resolver_dataset", NAME, "resolver-ds1");
+        AtlasEntity ds2  = new AtlasEntity("resolver_dataset", NAME, "resolver-ds2");
+        AtlasEntity ds3  = new AtlasEntity("resolver_dataset", NAME, "resolver-ds3");
+        AtlasEntity sub1 = new AtlasEntity("resolver_sub_dataset", NAME, "resolver-sub1");
+
+        EntityMutationResponse response    = entityStore.createOrUpdate(new AtlasEntityStream(new AtlasEntitiesWithExtInfo(Arrays.asList(ds1, ds2, ds3, sub1))), false);
+        AtlasEntityType        datasetType = typeRegistry.getEntityTypeByName("resolver_dataset");
+
+        // found, sub-type instance and missing values in one call; batch size smaller than the number of values
+        Map<Object, AtlasVertex> vertices = AtlasGraphUtilsV2.findByUniqueAttributeValues(datasetType, datasetType.getAttribute(NAME),
+                                                                                          Arrays.asList("resolver-ds1", "resolver-ds2", "resolver-ds3", "resolver-sub1", "resolver-missing"), 2);
+
+        assertEquals(vertices.size(), 4);
+        assertFalse(vertices.containsKey("resolver-missing"));
+
+        for (AtlasEntity entity : Arrays.asList(ds1, ds2, ds3, sub1)) {
+            AtlasVertex vertex = vertices.get(entity.getAttribute(NAME));
+
+            Assert.assertNotNull(vertex, "vertex not found for " + entity.getAttribute(NAME));
+            assertEquals(AtlasGraphUtilsV2.getIdFromVertex(vertex), response.getGuidAssignments().get(entity.getGuid()));
+        }
+    }
+
+    @Test(dependsOnMethods = "testFindByUniqueAttributeValues")
+    public void testReferencesToMissingEntityResolveToSingleShell() throws AtlasBaseException {
+        AtlasEntityDef processDef = AtlasTypeUtil.createClassTypeDef("resolver_process", Collections.emptySet(), AtlasTypeUtil.createUniqueRequiredAttrDef(NAME, "string"),
+                                                                     AtlasTypeUtil.createOptionalAttrDef("inputs", "array<resolver_dataset>"));
+        AtlasTypesDef  typesDef   = new AtlasTypesDef();
+
+        typesDef.setEntityDefs(Collections.singletonList(processDef));
+
+        typeDefStore.createTypesDef(typesDef);
+
+        AtlasEntity process1 = new AtlasEntity("resolver_process", NAME, "resolver-process1");
+        AtlasEntity process2 = new AtlasEntity("resolver_process", NAME, "resolver-process2");
+
+        // references to an existing entity and to the same missing entity, from two entities of the request
+        process1.setAttribute("inputs", Arrays.asList(new AtlasObjectId("resolver_dataset", NAME, "resolver-ds1"), new AtlasObjectId("resolver_dataset", NAME, "resolver-shell")));
+        process2.setAttribute("inputs", Collections.singletonList(new AtlasObjectId("resolver_dataset", NAME, "resolver-shell")));
+
+        EntityMutationResponse response;
+
+        RequestContext.get().setCreateShellEntityForNonExistingReference(true);
+
+        try {
+            response = entityStore.createOrUpdate(new AtlasEntityStream(new AtlasEntitiesWithExtInfo(Arrays.asList(process1, process2))), false);
+        } finally {
+            RequestContext.get().setCreateShellEntityForNonExistingReference(false);
+        }
+
+        List<AtlasObjectId> inputs1 = (List<AtlasObjectId>) entityStore.getById(response.getGuidAssignments().get(process1.getGuid())).getEntity().getAttribute("inputs");
+        List<AtlasObjectId> inputs2 = (List<AtlasObjectId>) entityStore.getById(response.getGuidAssignments().get(process2.getGuid())).getEntity().getAttribute("inputs");
+
+        assertEquals(inputs1.size(), 2);
+        assertEquals(inputs2.size(), 1);
+
+        String shellGuid = inputs2.get(0).getGuid();
+
+        assertTrue(inputs1.stream().anyMatch(objId -> objId.getGuid().equals(shellGuid)));
+        assertTrue(entityStore.getById(shellGuid).getEntity().getIsIncomplete());
+
+        AtlasEntityType datasetType = typeRegistry.getEntityTypeByName("resolver_dataset");
+        AtlasVertex     shellVertex = AtlasGraphUtilsV2.findByUniqueAttributeValues(datasetType, datasetType.getAttribute(NAME), Collections.singletonList("resolver-shell"), 2).get("resolver-shell");
+
+        assertEquals(AtlasGraphUtilsV2.getIdFromVertex(shellVertex), shellGuid);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.type.AtlasTypeUtil;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class BulkIngestPlannerTest {
+    private final AtlasTypeRegistry typeRegistry = mock(AtlasTypeRegistry.class);
+    private final BulkIngestPlanner planner      = new BulkIngestPlanner(typeRegistry);
+
+    @Test
+    public void testReferencedEntitiesAreInEarlierChunks() {
+        AtlasEntity db     = new AtlasEntity("hive_db");
+        AtlasEntity table  = new AtlasEntity("hive_table");
+        AtlasEntity column = new AtlasEntity("hive_column");
+
+        table.setRelationshipAttribute("db", AtlasTypeUtil.getAtlasObjectId(db));
+        column.setRelationshipAttribute("table", AtlasTypeUtil.getAtlasObjectId(table));
+
+        List<List<AtlasEntity>> chunks = planner.plan(new AtlasEntitiesWithExtInfo(Arrays.asList(column, table, db)), 1);
+
+        assertEquals(chunks, Arrays.asList(Collections.singletonList(db), Collections.singletonList(table), Collections.singletonList(column)));
+    }
+
+    @Test
+    public void testEntitiesInCycleAreInSameChunk() {
+        AtlasEntity db      = new AtlasEntity("hive_db");
+        AtlasEntity table   = new AtlasEntity("hive_table");
+        AtlasEntity column1 = new AtlasEntity("hive_column");
+        AtlasEntity column2 = new AtlasEntity("hive_column");
+
+        table.setRelationshipAttribute("db", AtlasTypeUtil.getAtlasObjectId(db));
+        table.setRelationshipAttribute("columns", Arrays.asList(AtlasTypeUtil.getAtlasObjectId(column1), AtlasTypeUtil.getAtlasObjectId(column2)));
+        column1.setRelationshipAttribute("table", AtlasTypeUtil.getAtlasObjectId(table));
+        column2.setRelationshipAttribute("table", AtlasTypeUtil.getAtlasObjectId(table));
+
+        List<List<AtlasEntity>> chunks = planner.plan(new AtlasEntitiesWithExtInfo(Arrays.asList(table, column1, column2, db)), 2);
+
+        assertEquals(chunks, Arrays.asList(Collections.singletonList(db), Arrays.asList(table, column1, column2)));
+    }
+
+    @Test
+    public void testReferencesByUniqueAttributesAndReferredEntities() {
+        AtlasEntityType dbType    = mock(AtlasEntityType.class);
+        AtlasAttribute  attribute = mock(AtlasAttribute.class);
+
+        when(attribute.getName()).thenReturn("qualifiedName");
+        when(dbType.getUniqAttributes()).thenReturn(Collections.singletonMap("qualifiedName", attribute));
+        when(dbType.getTypeAndAllSuperTypes()).thenReturn(new HashSet<>(Arrays.asList("hive_db", "Referenceable")));
+        when(typeRegistry.getEntityTypeByName("hive_db")).thenReturn(dbType);
+
+        AtlasEntity              db       = new AtlasEntity("hive_db", "qualifiedName", "db1@cl1");
+        AtlasEntity              unusedDb = new AtlasEntity("hive_db", "qualifiedName", "db2@cl1");
+        AtlasEntity              table    = new AtlasEntity("hive_table");
+        AtlasEntitiesWithExtInfo request  = new AtlasEntitiesWithExtInfo(table);
+
+        table.setRelationshipAttribute("db", new AtlasObjectId("Referenceable", "qualifiedName", "db1@cl1"));
+        request.addReferredEntity(unusedDb);
+        request.addReferredEntity(db);
+
+        assertEquals(planner.plan(request, 1), Arrays.asList(Collections.singletonList(db), Collections.singletonList(table)));
+    }
+
+    @Test
+    public void testResolveGuids() {
+        AtlasEntity         table           = new AtlasEntity("hive_table");
+        AtlasObjectId       dbId            = new AtlasObjectId("-1", "hive_db");
+        Map<String, Object> columnId        = new HashMap<>();
+        Map<String, String> guidAssignments = Collections.singletonMap("-1", "db-guid");
+
+        columnId.put("guid", "-2");
+        columnId.put("typeName", "hive_column");
+
+        table.setRelationshipAttribute("db", dbId);
+        table.setRelationshipAttribute("columns", Collections.singletonList(columnId));
+
+        BulkIngestPlanner.resolveGuids(Collections.singletonList(table), guidAssignments);
+
+        assertEquals(dbId.getGuid(), "db-guid");
+        assertEquals(columnId.get("guid"), "-2");
+
+        BulkIngestPlanner.resolveGuids(Collections.singletonList(table), Collections.singletonMap("-2", "column-guid"));
+
+        assertEquals(columnId.get("guid"), "column-guid");
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class EntityBatchProcessorTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testResultsInEntityOrder() throws AtlasBaseException {
+        List<Integer> expected = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            expected.add(i * 2);
+        }
+
+        assertEquals(EntityBatchProcessor.process(1000, idx -> idx * 2, pool, 10), expected);
+        assertEquals(EntityBatchProcessor.process(1000, idx -> idx * 2, pool, 2000), expected);
+        assertEquals(EntityBatchProcessor.process(1000, idx -> idx * 2, null, 10), expected);
+    }
+
+    @Test
+    public void testErrorOfFirstFailedEntity() {
+        for (int i = 0; i < 10; i++) {
+            try {
+                EntityBatchProcessor.process(1000, idx -> {
+                    if (idx % 100 == 99) {
+                        throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, "entity " + idx);
+                    }
+
+                    return idx;
+                }, pool, 10);
+
+                fail("expected failure");
+            } catch (AtlasBaseException excp) {
+                assertEquals(excp.getMessage(), AtlasErrorCode.INVALID_PARAMETERS.getFormattedErrorMessage("entity 99"));
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.RequestContext;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.instance.AtlasBulkIngestJob;
+import org.apache.atlas.model.instance.AtlasBulkIngestJob.ChunkStatus;
+import org.apache.atlas.model.instance.AtlasBulkIngestJob.JobStatus;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.EntityMutationResponse;
+import org.apache.atlas.model.instance.EntityMutations.EntityOperation;
+import org.apache.atlas.repository.store.graph.AtlasEntityStore;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.type.AtlasTypeUtil;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+public class EntityBulkIngestorTest {
+    private static final String USER_NAME  = "bulk-ingest-user";
+    private static final long   JOB_TTL_MS = TimeUnit.DAYS.toMillis(1);
+
+    private final AtlasTypeRegistry typeRegistry = mock(AtlasTypeRegistry.class);
+
+    @BeforeMethod
+    public void setUser() {
+        RequestContext.clear();
+        RequestContext.get().setUser(USER_NAME, null);
+    }
+
+    @AfterMethod
+    public void clearUser() {
+        RequestContext.clear();
+    }
+
+    @Test
+    public void testReferencesAreResolvedAcrossChunks() throws Exception {
+        TestEntityStore    entityStore = new TestEntityStore();
+        EntityBulkIngestor ingestor    = new EntityBulkIngestor(entityStore.store, typeRegistry, 1, 1, 10, JOB_TTL_MS);
+        AtlasEntity        db          = new AtlasEntity("hive_db");
+        AtlasEntity        table       = new AtlasEntity("hive_table");
+        AtlasEntity        column      = new AtlasEntity("hive_column");
+        String             dbGuid      = db.getGuid();
+        String             tableGuid   = table.getGuid();
+
+        table.setRelationshipAttribute("db", AtlasTypeUtil.getAtlasObjectId(db));
+        column.setRelationshipAttribute("table", AtlasTypeUtil.getAtlasObjectId(table));
+
+        AtlasBulkIngestJob job = waitForJob(ingestor, ingestor.submit(new AtlasEntitiesWithExtInfo(Arrays.asList(column, table, db)), 0));
+
+        assertEquals(job.getStatus(), JobStatus.COMPLETED);
+        assertEquals(job.getCommittedChunks(), 3);
+        assertEquals(job.getProcessedEntities(), 3);
+        assertEquals(entityStore.committedChunks.size(), 3);
+
+        // references to entities committed in earlier chunks are sent with the assigned guids
+        assertEquals(getRelationshipGuid(entityStore.committedChunks.get(1).get(0), "db"), job.getGuidAssignments().get(dbGuid));
+        assertEquals(getRelationshipGuid(entityStore.committedChunks.get(2).get(0), "table"), job.getGuidAssignments().get(tableGuid));
+    }
+
+    @Test
+    public void testResumeFromFailedChunk() throws Exception {
+        TestEntityStore    entityStore = new TestEntityStore();
+        EntityBulkIngestor ingestor    = new EntityBulkIngestor(entityStore.store, typeRegistry, 1, 1, 10, JOB_TTL_MS);
+        AtlasEntity        db          = new AtlasEntity("hive_db");
+        AtlasEntity        table       = new AtlasEntity("hive_table");
+        AtlasEntity        column      = new AtlasEntity("hive_column");
+        String             tableGuid   = table.getGuid();
+
+        table.setRelationshipAttribute("db", AtlasTypeUtil.getAtlasObjectId(db));
+        column.setRelationshipAttribute("table", AtlasTypeUtil.getAtlasObjectId(table));
+
+        entityStore.failingCalls = 1;
+        entityStore.failAtCall   = 2; // the chunk with the table
+
+        AtlasBulkIngestJob job = waitForJob(ingestor, ingestor.submit(new AtlasEntitiesWithExtInfo(Arrays.asList(column, table, db)), 0));
+
+        assertEquals(job.getStatus(), JobStatus.FAILED);
+        assertEquals(job.getCommittedChunks(), 1);
+        assertEquals(job.getProcessedEntities(), 1);
+        assertEquals(job.getGuidAssignments().size(), 1); // guids assigned in the failed chunk are discarded, as its transaction is rolled back
+        assertNull(job.getGuidAssignments().get(tableGuid));
+        assertEquals(job.getChunkResults().get(0).getStatus(), ChunkStatus.COMMITTED);
+        assertEquals(job.getChunkResults().get(1).getStatus(), ChunkStatus.FAILED);
+        assertEquals(job.getChunkResults().get(1).getAttemptCount(), 1);
+        assertEquals(job.getChunkResults().get(2).getAttemptCount(), 0); // no chunk is attempted after the failed chunk
+
+        job = waitForJob(ingestor, ingestor.resume(job.getJobId()));
+
+        assertEquals(job.getStatus(), JobStatus.COMPLETED);
+        assertEquals(job.getCommittedChunks(), 3);
+        assertEquals(job.getProcessedEntities(), 3);
+        assertNull(job.getErrorMessage());
+        assertEquals(job.getChunkResults().get(0).getAttemptCount(), 1); // committed chunk is not sent again
+        assertEquals(job.getChunkResults().get(1).getAttemptCount(), 2);
+        assertEquals(job.getChunkResults().get(1).getStatus(), ChunkStatus.COMMITTED);
+        assertEquals(entityStore.committedChunks.size(), 3);
+        assertEquals(entityStore.committedChunks.get(1), Collections.singletonList(table));
+        assertEquals(getRelationshipGuid(entityStore.committedChunks.get(2).get(0), "table"), job.getGuidAssignments().get(tableGuid));
+
+        try {
+            ingestor.resume(job.getJobId());
+
+            fail("completed job can't be resumed");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.BULK_INGEST_JOB_NOT_RESUMABLE);
+        }
+    }
+
+    @Test
+    public void testJobsAreVisibleOnlyToSubmitter() throws Exception {
+        EntityBulkIngestor ingestor = new EntityBulkIngestor(new TestEntityStore().store, typeRegistry, 1, 1, 10, JOB_TTL_MS);
+        AtlasBulkIngestJob job      = waitForJob(ingestor, ingestor.submit(new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db")), 0));
+
+        RequestContext.get().setUser("another-user", null);
+
+        try {
+            ingestor.getJob(job.getJobId());
+
+            fail("job should be visible only to the user who submitted it");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.BULK_INGEST_JOB_NOT_FOUND);
+        }
+    }
+
+    @Test
+    public void testOnlyCompletedJobsAreEvicted() throws Exception {
+        TestEntityStore    entityStore = new TestEntityStore();
+        EntityBulkIngestor ingestor    = new EntityBulkIngestor(entityStore.store, typeRegistry, 1, 1, 2, JOB_TTL_MS);
+
+        entityStore.failingCalls = 1;
+        entityStore.failAtCall   = 1;
+
+        AtlasBulkIngestJob failedJob = waitForJob(ingestor, ingestor.submit(new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db")), 0));
+
+        Thread.sleep(5); // to have distinct create-time
+
+        AtlasBulkIngestJob completedJob = waitForJob(ingestor, ingestor.submit(new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db")), 0));
+
+        assertEquals(failedJob.getStatus(), JobStatus.FAILED);
+        assertEquals(completedJob.getStatus(), JobStatus.COMPLETED);
+
+        AtlasBulkIngestJob newJob = waitForJob(ingestor, ingestor.submit(new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db")), 0));
+
+        // the completed job is evicted, though the failed job is older
+        assertEquals(ingestor.getJob(failedJob.getJobId()).getStatus(), JobStatus.FAILED);
+        assertEquals(ingestor.getJob(newJob.getJobId()).getStatus(), JobStatus.COMPLETED);
+
+        try {
+            ingestor.getJob(completedJob.getJobId());
+
+            fail("completed job should have been evicted");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.BULK_INGEST_JOB_NOT_FOUND);
+        }
+
+        // failed job can still be resumed
+        assertEquals(waitForJob(ingestor, ingestor.resume(failedJob.getJobId())).getStatus(), JobStatus.COMPLETED);
+    }
+
+    @Test
+    public void testFinishedJobsAreRemovedAfterTtl() throws Exception {
+        TestEntityStore    entityStore = new TestEntityStore();
+        EntityBulkIngestor ingestor    = new EntityBulkIngestor(entityStore.store, typeRegistry, 1, 1, 2, 1);
+
+        entityStore.failingCalls = 1;
+        entityStore.failAtCall   = 1;
+
+        AtlasBulkIngestJob failedJob    = waitForJob(ingestor, ingestor.submit(new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db")), 0));
+        AtlasBulkIngestJob completedJob = waitForJob(ingestor, ingestor.submit(new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db")), 0));
+
+        assertEquals(failedJob.getStatus(), JobStatus.FAILED);
+        assertEquals(completedJob.getStatus(), JobStatus.COMPLETED);
+
+        Thread.sleep(5); // for the jobs to expire
+
+        // failed job doesn't hold up new jobs once it expires
+        AtlasBulkIngestJob newJob = waitForJob(ingestor, ingestor.submit(new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db")), 0));
+
+        assertEquals(newJob.getStatus(), JobStatus.COMPLETED);
+
+        for (AtlasBulkIngestJob job : Arrays.asList(failedJob, completedJob)) {
+            try {
+                ingestor.getJob(job.getJobId());
+
+                fail("expired job should have been removed");
+            } catch (AtlasBaseException excp) {
+                assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.BULK_INGEST_JOB_NOT_FOUND);
+            }
+        }
+    }
+
+    @Test
+    public void testGuidAssignmentsAreReturnedOnlyForFinishedJobs() throws Exception {
+        TestEntityStore    entityStore = new TestEntityStore();
+        EntityBulkIngestor ingestor    = new EntityBulkIngestor(entityStore.store, typeRegistry, 1, 1, 10, JOB_TTL_MS);
+
+        entityStore.blockLatch = new CountDownLatch(1);
+
+        AtlasBulkIngestJob job = ingestor.submit(new AtlasEntitiesWithExtInfo(Arrays.asList(new AtlasEntity("hive_db"), new AtlasEntity("hive_db"))), 0);
+
+        assertNull(ingestor.getJob(job.getJobId()).getGuidAssignments());
+
+        entityStore.blockLatch.countDown();
+
+        job = waitForJob(ingestor, job);
+
+        assertEquals(job.getStatus(), JobStatus.COMPLETED);
+        assertEquals(job.getGuidAssignments().size(), 2);
+    }
+
+    private static AtlasBulkIngestJob waitForJob(EntityBulkIngestor ingestor, AtlasBulkIngestJob job) throws Exception {
+        for (int i = 0; i < 500; i++) {
+            AtlasBulkIngestJob ret = ingestor.getJob(job.getJobId());
+
+            if (ret.getStatus() == JobStatus.COMPLETED || ret.getStatus() == JobStatus.FAILED) {
+                return ret;
+            }
+
+            Thread.sleep(10);
+        }
+
+        throw new AssertionError("bulk ingest job " + job.getJobId() + " didn't complete");
+    }
+
+    private static String getRelationshipGuid(AtlasEntity entity, String attrName) {
+        return ((AtlasObjectId) entity.getRelationshipAttribute(attrName)).getGuid();
+    }
+
+    // assigns guids to entities in each chunk; fails failingCalls calls, starting with call number failAtCall
+    private static class TestEntityStore {
+        final AtlasEntityStore        store           = mock(AtlasEntityStore.class);
+        final List<List<AtlasEntity>> committedChunks = new ArrayList<>();
+        volatile int                  failAtCall;
+        volatile int                  failingCalls;
+        volatile CountDownLatch       blockLatch; // when set, calls wait for the latch
+        private  int                  callCount;
+        private  int                  nextGuid;
+
+        TestEntityStore() throws AtlasBaseException {
+            when(store.createOrUpdate(any(EntityStream.class), anyBoolean())).thenAnswer(invocation -> createOrUpdate((EntityStream) invocation.getArguments()[0]));
+        }
+
+        private synchronized EntityMutationResponse createOrUpdate(EntityStream entityStream) throws AtlasBaseException {
+            callCount++;
+
+            if (blockLatch != null) {
+                try {
+                    blockLatch.await();
+                } catch (InterruptedException excp) {
+                    throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "interrupted");
+                }
+            }
+
+            if (callCount >= failAtCall && failingCalls > 0) {
+                failingCalls--;
+
+                throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "chunk failed");
+            }
+
+            EntityMutationResponse ret             = new EntityMutationResponse();
+            Map<String, String>    guidAssignments = new HashMap<>();
+            List<AtlasEntity>      chunk           = new ArrayList<>();
+
+            for (entityStream.reset(); entityStream.hasNext(); ) {
+                AtlasEntity entity = entityStream.next();
+                String      guid   = "guid-" + (++nextGuid);
+
+                guidAssignments.put(entity.getGuid(), guid);
+                chunk.add(entity);
+
+                ret.addEntity(EntityOperation.CREATE, new AtlasEntityHeader(entity.getTypeName(), guid, null));
+            }
+
+            ret.setGuidAssignments(guidAssignments);
+
+            committedChunks.add(chunk);
+
+            return ret;
+        }
+    }
+}
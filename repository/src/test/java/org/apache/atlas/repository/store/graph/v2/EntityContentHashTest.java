@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.store.graph.EntityGraphDiscoveryContext;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class EntityContentHashTest {
+    private static final String DB_GUID = "9b7e1ca4-7e32-4a6a-9d4e-1b0f3f1c2d01";
+
+    @Test
+    public void testHashIsIndependentOfMapOrder() {
+        Map<String, Object> attributes1 = new LinkedHashMap<>();
+        Map<String, Object> attributes2 = new LinkedHashMap<>();
+
+        attributes1.put("qualifiedName", "db1.tbl1@cl1");
+        attributes1.put("parameters", Collections.singletonMap("owner", "hive"));
+        attributes2.put("parameters", Collections.singletonMap("owner", "hive"));
+        attributes2.put("qualifiedName", "db1.tbl1@cl1");
+
+        assertEquals(EntityContentHash.compute(new AtlasEntity("hive_table", attributes1), null),
+                     EntityContentHash.compute(new AtlasEntity("hive_table", attributes2), null));
+    }
+
+    @Test
+    public void testHashChangesWithContent() {
+        AtlasEntity entity = new AtlasEntity("hive_table", "qualifiedName", "db1.tbl1@cl1");
+        String      hash   = EntityContentHash.compute(entity, null);
+
+        entity.setAttribute("comment", null); // supplying an attribute, even with null value, can reset the current value
+        assertNotEquals(EntityContentHash.compute(entity, null), hash);
+
+        entity.removeAttribute("comment");
+        assertEquals(EntityContentHash.compute(entity, null), hash);
+
+        entity.setAttribute("columns", Arrays.asList("a", "b"));
+        String hashAB = EntityContentHash.compute(entity, null);
+
+        entity.setAttribute("columns", Arrays.asList("ab"));
+        assertNotEquals(EntityContentHash.compute(entity, null), hashAB);
+
+        entity.setRelationshipAttribute("db", new AtlasObjectId(DB_GUID, "hive_db"));
+        assertNotEquals(EntityContentHash.compute(entity, null), hash);
+    }
+
+    @Test
+    public void testReferencesAreHashedByAssignedGuid() {
+        AtlasEntity           entity1 = new AtlasEntity("hive_table", "qualifiedName", "db1.tbl1@cl1");
+        AtlasEntity           entity2 = new AtlasEntity("hive_table", "qualifiedName", "db1.tbl1@cl1");
+        AtlasEntity           db      = new AtlasEntity("hive_db", "qualifiedName", "db1@cl1");
+        EntityMutationContext context = new EntityMutationContext();
+
+        db.setGuid(DB_GUID);
+
+        context.addCreated("-100", db, null, mock(AtlasVertex.class));
+
+        entity1.setRelationshipAttribute("db", new AtlasObjectId("-100", "hive_db"));
+        entity2.setRelationshipAttribute("db", new AtlasObjectId(DB_GUID, "hive_db"));
+
+        assertEquals(EntityContentHash.compute(entity1, context), EntityContentHash.compute(entity2, null));
+    }
+
+    @Test
+    public void testReferencesByUniqueAttributesAreHashedByResolvedGuid() {
+        AtlasObjectId dbId   = new AtlasObjectId("hive_db", "qualifiedName", "db1@cl1");
+        AtlasEntity   entity = new AtlasEntity("hive_table", "qualifiedName", "db1.tbl1@cl1");
+
+        entity.setRelationshipAttribute("db", dbId);
+
+        String hash          = EntityContentHash.compute(entity, createContext(dbId, DB_GUID));
+        String recreatedHash = EntityContentHash.compute(entity, createContext(dbId, "0c5f2a4e-3b5d-4c1e-8e8e-7a2b9f0d3e02")); // after hive_db is deleted and recreated
+
+        assertEquals(EntityContentHash.compute(entity, createContext(dbId, DB_GUID)), hash);
+        assertNotEquals(recreatedHash, hash);
+
+        AtlasEntity entityWithGuidRef = new AtlasEntity("hive_table", "qualifiedName", "db1.tbl1@cl1");
+
+        entityWithGuidRef.setRelationshipAttribute("db", new AtlasObjectId(DB_GUID, "hive_db"));
+
+        assertEquals(EntityContentHash.compute(entityWithGuidRef, null), hash);
+    }
+
+    private static EntityMutationContext createContext(AtlasObjectId objectId, String resolvedGuid) {
+        EntityGraphDiscoveryContext discoveryContext = new EntityGraphDiscoveryContext(mock(AtlasTypeRegistry.class), null);
+        AtlasVertex                 vertex           = mock(AtlasVertex.class);
+
+        when(vertex.getProperty(Constants.GUID_PROPERTY_KEY, String.class)).thenReturn(resolvedGuid);
+
+        discoveryContext.addResolvedIdByUniqAttribs(objectId, vertex);
+
+        return new EntityMutationContext(discoveryContext);
+    }
+
+    @Test
+    public void testStoredHashIsIgnoredAfterModification() {
+        AtlasVertex vertex = mock(AtlasVertex.class);
+        String      hash   = EntityContentHash.compute(new AtlasEntity("hive_db", "qualifiedName", "db1@cl1"), null);
+
+        when(vertex.getProperty(Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY, Long.class)).thenReturn(1000L);
+
+        EntityContentHash.store(vertex, hash);
+        verify(vertex).setProperty(Constants.CONTENT_HASH_PROPERTY_KEY, hash + ":1000");
+
+        when(vertex.getProperty(Constants.CONTENT_HASH_PROPERTY_KEY, String.class)).thenReturn(hash + ":1000");
+        assertTrue(EntityContentHash.isUnchanged(vertex, hash));
+        assertFalse(EntityContentHash.isUnchanged(vertex, "other"));
+
+        when(vertex.getProperty(Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY, Long.class)).thenReturn(2000L);
+        assertFalse(EntityContentHash.isUnchanged(vertex, hash));
+    }
+}
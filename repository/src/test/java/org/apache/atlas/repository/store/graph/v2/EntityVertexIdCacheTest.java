@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2;
+
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class EntityVertexIdCacheTest {
+    private static final String QNAME_PROPERTY = "hive_db.qualifiedName.unique";
+
+    private AtlasGraph      graph;
+    private AtlasVertex     vertex;
+    private AtlasEntityType entityType;
+    private AtlasAttribute  attribute;
+
+    @BeforeMethod
+    public void setup() {
+        graph      = mock(AtlasGraph.class);
+        vertex     = mock(AtlasVertex.class);
+        entityType = mock(AtlasEntityType.class);
+        attribute  = mock(AtlasAttribute.class);
+
+        when(vertex.getIdForDisplay()).thenReturn("4096");
+        when(vertex.getProperty(Constants.GUID_PROPERTY_KEY, String.class)).thenReturn("guid-1");
+        when(vertex.getProperty(Constants.ENTITY_TYPE_PROPERTY_KEY, String.class)).thenReturn("hive_db");
+        when(vertex.getProperty(QNAME_PROPERTY, Object.class)).thenReturn("db1@cl1");
+        when(graph.getVertex("4096")).thenReturn(vertex);
+        when(entityType.getTypeName()).thenReturn("hive_db");
+        when(entityType.getTypeAndAllSubTypes()).thenReturn(new HashSet<>(Arrays.asList("hive_db")));
+        when(entityType.getAllSuperTypes()).thenReturn(new HashSet<>(Arrays.asList("DataSet", "Referenceable")));
+        when(entityType.getUniqAttributes()).thenReturn(Collections.singletonMap("qualifiedName", attribute));
+        when(attribute.getName()).thenReturn("qualifiedName");
+        when(attribute.getVertexUniquePropertyName()).thenReturn(QNAME_PROPERTY);
+    }
+
+    @Test
+    public void testLookupsAreCachedAndCounted() {
+        EntityVertexIdCache cache = new EntityVertexIdCache(100);
+
+        assertNull(cache.getVertexByGuid(graph, "guid-1"));
+        assertNull(cache.getVertexByUniqueAttribute(graph, entityType, attribute, "db1@cl1"));
+
+        cache.addGuid("guid-1", vertex);
+        cache.addUniqueAttribute(entityType, attribute, "db1@cl1", vertex);
+
+        assertSame(cache.getVertexByGuid(graph, "guid-1"), vertex);
+        assertSame(cache.getVertexByUniqueAttribute(graph, entityType, attribute, "db1@cl1"), vertex);
+        assertEquals(cache.getStats().get("hits"), 2L);
+        assertEquals(cache.getStats().get("misses"), 2L);
+    }
+
+    @Test
+    public void testStaleEntriesAreNotReturned() {
+        EntityVertexIdCache cache = new EntityVertexIdCache(100);
+
+        cache.addUniqueAttribute(entityType, attribute, "db1@cl1", vertex);
+
+        when(vertex.getProperty(QNAME_PROPERTY, Object.class)).thenReturn("db2@cl1"); // renamed
+
+        assertNull(cache.getVertexByUniqueAttribute(graph, entityType, attribute, "db1@cl1"));
+
+        cache.addGuid("guid-1", vertex);
+
+        when(graph.getVertex("4096")).thenReturn(null); // deleted
+
+        assertNull(cache.getVertexByGuid(graph, "guid-1"));
+        assertEquals(cache.getStats().get("size"), 0);
+    }
+
+    @Test
+    public void testInvalidation() {
+        EntityVertexIdCache cache = new EntityVertexIdCache(100);
+
+        cache.addGuid("guid-1", vertex);
+        cache.addUniqueAttribute(entityType, attribute, "db1@cl1", vertex);
+        cache.onTransactionComplete(true);
+
+        cache.invalidate(vertex, entityType);
+
+        assertEquals(cache.getStats().get("size"), 0);
+        assertEquals(cache.getStats().get("invalidations"), 2L);
+
+        cache.addGuid("guid-1", vertex);
+        cache.onTransactionComplete(false); // rollback
+
+        assertNull(cache.getVertexByGuid(graph, "guid-1"));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        EntityVertexIdCache cache = new EntityVertexIdCache(10);
+
+        for (int i = 0; i < 100; i++) {
+            cache.addGuid("guid-" + i, vertex);
+        }
+
+        assertTrue((int) cache.getStats().get("size") <= 10);
+        cache.onTransactionComplete(true);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v2.tasks;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.tasks.AtlasTask;
+import org.apache.atlas.repository.store.graph.v2.EntityGraphMapper;
+import org.apache.atlas.tasks.TaskManagement;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.atlas.repository.store.graph.v2.tasks.ClassificationPropagateTaskFactory.CLASSIFICATION_PROPAGATION_ADD;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class ClassificationPropagateTaskFactoryTest {
+    private static final int    ENTITY_COUNT      = 2500;
+    private static final String ENTITY_GUID       = "entity-1";
+    private static final String CLASSIFICATION_ID = "classification-1";
+
+    @Test
+    public void testAddPropagationAppliesAllChunks() throws AtlasBaseException {
+        EntityGraphMapper entityGraphMapper = mock(EntityGraphMapper.class);
+        List<String>      vertexIds         = getVertexIds(ENTITY_COUNT);
+        final Set<String> propagatedTo      = Collections.synchronizedSet(new HashSet<>());
+
+        when(entityGraphMapper.getPropagationTargets(ENTITY_GUID, CLASSIFICATION_ID)).thenReturn(vertexIds);
+        when(entityGraphMapper.propagateClassification(eq(CLASSIFICATION_ID), anyList())).thenAnswer(invocation -> {
+            propagatedTo.addAll((List<String>) invocation.getArguments()[1]);
+
+            return true;
+        });
+
+        AtlasTask task = createAddPropagationTask();
+
+        new ClassificationPropagateTaskFactory(mock(TaskManagement.class), entityGraphMapper).create(task).run();
+
+        assertEquals(propagatedTo, new HashSet<>(vertexIds));
+        assertEquals(task.getTotalCount(), ENTITY_COUNT);
+        assertEquals(task.getDoneCount(), ENTITY_COUNT);
+    }
+
+    @Test
+    public void testAddPropagationFailsOnChunkFailure() throws AtlasBaseException {
+        EntityGraphMapper entityGraphMapper = mock(EntityGraphMapper.class);
+
+        when(entityGraphMapper.getPropagationTargets(ENTITY_GUID, CLASSIFICATION_ID)).thenReturn(getVertexIds(ENTITY_COUNT));
+        when(entityGraphMapper.propagateClassification(eq(CLASSIFICATION_ID), anyList())).thenThrow(new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "chunk failed"));
+
+        try {
+            new ClassificationPropagateTaskFactory(mock(TaskManagement.class), entityGraphMapper).create(createAddPropagationTask()).run();
+
+            fail("expected failure");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.INTERNAL_ERROR);
+        }
+    }
+
+    @Test
+    public void testAddPropagationFailureWaitsForRunningChunks() throws AtlasBaseException {
+        EntityGraphMapper                  entityGraphMapper = mock(EntityGraphMapper.class);
+        final AtomicInteger                startedCount      = new AtomicInteger();
+        final AtomicInteger                completedCount    = new AtomicInteger();
+        ClassificationPropagateTaskFactory factory           = new ClassificationPropagateTaskFactory(mock(TaskManagement.class), entityGraphMapper);
+
+        when(entityGraphMapper.getPropagationTargets(ENTITY_GUID, CLASSIFICATION_ID)).thenReturn(getVertexIds(ENTITY_COUNT));
+        when(entityGraphMapper.propagateClassification(eq(CLASSIFICATION_ID), anyList())).thenAnswer(invocation -> {
+            List<String> chunk = (List<String>) invocation.getArguments()[1];
+
+            startedCount.incrementAndGet();
+
+            if (chunk.contains("vertex-0")) {
+                throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "chunk failed");
+            }
+
+            Thread.sleep(500); // not interrupted by failure of another chunk
+
+            completedCount.incrementAndGet();
+
+            return true;
+        });
+
+        try {
+            factory.create(createAddPropagationTask()).run();
+
+            fail("expected failure");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.INTERNAL_ERROR);
+        } finally {
+            factory.destroy();
+        }
+
+        // chunks started before the failure are done by the time the task fails; other chunks are skipped
+        assertEquals(completedCount.get(), startedCount.get() - 1);
+    }
+
+    private static AtlasTask createAddPropagationTask() {
+        return new AtlasTask("task-1", CLASSIFICATION_PROPAGATION_ADD, "admin", ClassificationPropagateTaskFactory.toParameters(ENTITY_GUID, CLASSIFICATION_ID));
+    }
+
+    private static List<String> getVertexIds(int count) {
+        List<String> ret = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            ret.add("vertex-" + i);
+        }
+
+        return ret;
+    }
+}
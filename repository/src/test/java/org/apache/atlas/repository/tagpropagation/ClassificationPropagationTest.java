@@ -18,6 +18,7 @@
 package org.apache.atlas.repository.tagpropagation;
 
 import com.vividsolutions.jts.util.Assert;
+import org.apache.atlas.ApplicationProperties;
 import org.apache.atlas.RequestContext;
 import org.apache.atlas.TestModules;
 import org.apache.atlas.discovery.AtlasLineageService;
@@ -29,6 +30,7 @@ import org.apache.atlas.model.instance.AtlasRelationship;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.model.lineage.AtlasLineageInfo;
 import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageRelation;
+import org.apache.atlas.model.tasks.AtlasTask;
 import org.apache.atlas.model.typedef.AtlasClassificationDef;
 import org.apache.atlas.model.typedef.AtlasStructDef.AtlasAttributeDef;
 import org.apache.atlas.model.typedef.AtlasTypesDef;
@@ -40,8 +42,10 @@ import org.apache.atlas.repository.store.graph.AtlasEntityStore;
 import org.apache.atlas.repository.store.graph.AtlasRelationshipStore;
 import org.apache.atlas.runner.LocalSolrRunner;
 import org.apache.atlas.store.AtlasTypeDefStore;
+import org.apache.atlas.tasks.TaskManagement;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.configuration.Configuration;
 import org.testng.SkipException;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -69,7 +73,11 @@ import static org.apache.atlas.model.typedef.AtlasRelationshipDef.PropagateTags.
 import static org.apache.atlas.model.typedef.AtlasRelationshipDef.PropagateTags.TWO_TO_ONE;
 import static org.apache.atlas.repository.impexp.ZipFileResourceTestUtils.loadModelFromJson;
 import static org.apache.atlas.repository.impexp.ZipFileResourceTestUtils.runImportWithNoParameters;
+import static org.apache.atlas.repository.store.graph.v2.tasks.ClassificationPropagateTaskFactory.CLASSIFICATION_PROPAGATION_ADD;
+import static org.apache.atlas.repository.store.graph.v2.tasks.ClassificationPropagateTaskFactory.CLASSIFICATION_PROPAGATION_DELETE;
+import static org.apache.atlas.repository.store.graph.v2.tasks.ClassificationPropagateTaskFactory.PARAM_ENTITY_GUID;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
@@ -90,6 +98,7 @@ public class ClassificationPropagationTest {
     public static final String US_ORDERS_TABLE         = "US_ORDERS_TABLE";
     public static final String ORDERS_PROCESS          = "ORDERS_PROCESS";
     public static final String IMPORT_FILE             = "tag-propagation-data.zip";
+    public static final String TASKS_ENABLED_PROPERTY  = "atlas.tasks.enabled";
 
     @Inject
     private AtlasTypeDefStore typeDefStore;
@@ -109,6 +118,9 @@ public class ClassificationPropagationTest {
     @Inject
     private AtlasLineageService lineageService;
 
+    @Inject
+    private TaskManagement taskManagement;
+
     private Map<String, String> entitiesMap;
 
     private AtlasLineageInfo lineageInfo;
@@ -520,6 +532,41 @@ public class ClassificationPropagationTest {
         assertClassificationExistInEntity(US_EMPLOYEES_TABLE, tag1);
     }
 
+    @Test(dependsOnMethods = {"addClassification_removePropagationsFalse_DeleteCase"})
+    public void addDeleteClassification_DeferredPropagation() throws Exception {
+        Configuration       configuration  = ApplicationProperties.get();
+        AtlasEntity         hdfs_employees = getEntity(HDFS_PATH_EMPLOYEES);
+        AtlasClassification tag3           = new AtlasClassification("tag3"); tag3.setPropagate(true); tag3.setEntityGuid(hdfs_employees.getGuid());
+
+        List<String> propagatedToEntities = Arrays.asList(EMPLOYEES1_PROCESS, EMPLOYEES2_PROCESS, EMPLOYEES1_TABLE,
+                                                          EMPLOYEES2_TABLE, EMPLOYEES_UNION_PROCESS, EMPLOYEES_UNION_TABLE);
+
+        configuration.setProperty(TASKS_ENABLED_PROPERTY, true);
+        taskManagement.instanceIsActive(); // starts task workers
+
+        try {
+            addClassification(hdfs_employees, tag3);
+
+            // propagation is done by the task created along with the classification
+            assertEquals(waitForTask(CLASSIFICATION_PROPAGATION_ADD, hdfs_employees.getGuid()).getStatus(), AtlasTask.Status.COMPLETE);
+
+            for (String entityName : propagatedToEntities) {
+                assertTrue(hasClassification(entityName, tag3), entityName + ": propagated classification not found");
+            }
+
+            deleteClassification(hdfs_employees, tag3);
+
+            assertEquals(waitForTask(CLASSIFICATION_PROPAGATION_DELETE, hdfs_employees.getGuid()).getStatus(), AtlasTask.Status.COMPLETE);
+
+            for (String entityName : propagatedToEntities) {
+                assertFalse(hasClassification(entityName, tag3), entityName + ": propagated classification not removed");
+            }
+        } finally {
+            configuration.setProperty(TASKS_ENABLED_PROPERTY, false);
+            taskManagement.instanceIsPassive();
+        }
+    }
+
     private void assertClassificationExistInList(Set<AtlasClassification> classifications, AtlasClassification classification) {
         String  classificationName  = classification.getTypeName();
         String  entityGuid          = classification.getEntityGuid();
@@ -704,6 +751,45 @@ public class ClassificationPropagationTest {
         }
     }
 
+    // waits for the latest task of the given type for the entity to complete or fail
+    private AtlasTask waitForTask(String taskType, String entityGuid) throws InterruptedException {
+        AtlasTask ret = null;
+
+        for (int i = 0; i < 300; i++) {
+            ret = null;
+
+            for (AtlasTask task : taskManagement.getTasks(null, 0, 0)) {
+                if (task.getType().equals(taskType) && entityGuid.equals(task.getParameter(PARAM_ENTITY_GUID))) {
+                    ret = task;
+                }
+            }
+
+            if (ret != null && (ret.getStatus() == AtlasTask.Status.COMPLETE || ret.getStatus() == AtlasTask.Status.FAILED)) {
+                return ret;
+            }
+
+            Thread.sleep(100);
+        }
+
+        fail(taskType + " task for entity " + entityGuid + " didn't complete: " + ret);
+
+        return ret;
+    }
+
+    private boolean hasClassification(String entityName, AtlasClassification classification) throws AtlasBaseException {
+        List<AtlasClassification> classifications = getEntity(entityName).getClassifications();
+
+        if (classifications != null) {
+            for (AtlasClassification c : classifications) {
+                if (c.getTypeName().equals(classification.getTypeName()) && c.getEntityGuid().equals(classification.getEntityGuid())) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     private AtlasRelationship getRelationship(String fromEntityName, String toEntityName) throws AtlasBaseException {
         String               fromEntityId     = entitiesMap.get(fromEntityName);
         String               toEntityId       = entitiesMap.get(toEntityName);
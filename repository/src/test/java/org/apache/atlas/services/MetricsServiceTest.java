@@ -44,6 +44,7 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -57,6 +58,7 @@ import static org.apache.atlas.services.MetricsService.METRIC_ENTITIES_PER_TAG;
 import static org.apache.atlas.services.MetricsService.METRIC_ENTITY_ACTIVE;
 import static org.apache.atlas.services.MetricsService.METRIC_ENTITY_COUNT;
 import static org.apache.atlas.services.MetricsService.METRIC_ENTITY_DELETED;
+import static org.apache.atlas.services.MetricsService.METRIC_SPLIT_MESSAGES;
 import static org.apache.atlas.services.MetricsService.METRIC_TAG_COUNT;
 import static org.apache.atlas.services.MetricsService.METRIC_TYPE_COUNT;
 import static org.apache.atlas.services.MetricsService.METRIC_TYPE_UNUSED_COUNT;
@@ -151,6 +153,10 @@ public class MetricsServiceTest {
 
     @Test
     public void testGetMetrics() {
+        Map<String, Object> splitMessageStats = Collections.singletonMap("heapBytes", (Object) 0L);
+
+        metricsUtil.setSplitMessageStats(() -> splitMessageStats);
+
         AtlasMetrics metrics = metricsService.getMetrics();
 
         assertNotNull(metrics);
@@ -160,6 +166,7 @@ public class MetricsServiceTest {
         assertEquals(metrics.getNumericMetric(GENERAL, METRIC_TAG_COUNT).intValue(), 1);
         assertTrue(metrics.getNumericMetric(GENERAL, METRIC_TYPE_UNUSED_COUNT).intValue() >= 10);
         assertTrue(metrics.getNumericMetric(GENERAL, METRIC_TYPE_COUNT).intValue() >= 44);
+        assertEquals(metrics.getMetric(GENERAL, METRIC_SPLIT_MESSAGES), splitMessageStats);
 
         // tag metrics
         Map tagMetricsActual           = (Map) metrics.getMetric(TAG, METRIC_ENTITIES_PER_TAG);
@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.tasks;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.tasks.AtlasTask;
+import org.apache.atlas.model.tasks.AtlasTask.Status;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TaskManagementTest {
+    private static final String TEST_TASK_TYPE = "TEST_TASK";
+
+    @Test
+    public void testTasksWithSameKeyRunInOrder() throws Exception {
+        TaskRegistry registry = mock(TaskRegistry.class);
+
+        when(registry.getTasks(any(Status.class))).thenAnswer(invocation -> new ArrayList<>());
+
+        final int            taskCount      = 20;
+        final List<String>   runOrder       = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger  running        = new AtomicInteger();
+        final AtomicInteger  maxRunning     = new AtomicInteger();
+        final CountDownLatch completed      = new CountDownLatch(taskCount);
+        final TaskManagement taskManagement = new TaskManagement(null, registry);
+
+        taskManagement.addFactory(new TaskFactory() {
+            @Override
+            public List<String> getSupportedTypes() {
+                return Collections.singletonList(TEST_TASK_TYPE);
+            }
+
+            @Override
+            public AbstractTask create(AtlasTask task) {
+                return new AbstractTask(task) {
+                    @Override
+                    public String getKey() {
+                        return (String) task.getParameter("key");
+                    }
+
+                    @Override
+                    public void run() {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+                        try {
+                            Thread.sleep(5);
+                        } catch (InterruptedException excp) {
+                            Thread.currentThread().interrupt();
+                        }
+
+                        runOrder.add(task.getGuid());
+
+                        running.decrementAndGet();
+
+                        completed.countDown();
+                    }
+                };
+            }
+        });
+
+        taskManagement.startInternal();
+
+        try {
+            List<String> expectedOrder = new ArrayList<>();
+
+            for (int i = 0; i < taskCount; i++) {
+                String guid = "task-" + i;
+
+                expectedOrder.add(guid);
+
+                taskManagement.enqueue(new AtlasTask(guid, TEST_TASK_TYPE, "admin", Collections.singletonMap("key", "classification-1")));
+            }
+
+            assertTrue(completed.await(30, TimeUnit.SECONDS));
+            assertEquals(runOrder, expectedOrder);
+            assertEquals(maxRunning.get(), 1);
+        } finally {
+            taskManagement.stopInternal();
+        }
+    }
+
+    @Test
+    public void testRequestErrorIsNotRetried() throws Exception {
+        TaskRegistry         registry       = mock(TaskRegistry.class);
+        TaskManagement       taskManagement = new TaskManagement(null, registry);
+        AtlasTask            task           = new AtlasTask("task-1", TEST_TASK_TYPE, "admin", null);
+        final CountDownLatch finished       = new CountDownLatch(1);
+
+        when(registry.getTasks(any(Status.class))).thenAnswer(invocation -> new ArrayList<>());
+
+        doAnswer(invocation -> {
+            if (((AtlasTask) invocation.getArguments()[0]).getStatus() == Status.FAILED) {
+                finished.countDown();
+            }
+
+            return null;
+        }).when(registry).update(any(AtlasTask.class));
+
+        taskManagement.addFactory(new TaskFactory() {
+            @Override
+            public List<String> getSupportedTypes() {
+                return Collections.singletonList(TEST_TASK_TYPE);
+            }
+
+            @Override
+            public AbstractTask create(AtlasTask task) {
+                return new AbstractTask(task) {
+                    @Override
+                    public void run() throws AtlasBaseException {
+                        throw new AtlasBaseException(AtlasErrorCode.TAG_PROPAGATION_LIMIT_EXCEEDED, "entity-1", "10");
+                    }
+                };
+            }
+        });
+
+        taskManagement.startInternal();
+
+        try {
+            taskManagement.enqueue(task);
+
+            // fails on the first attempt, without waiting for retries
+            assertTrue(finished.await(30, TimeUnit.SECONDS));
+            assertEquals(task.getAttemptCount(), 1);
+            assertEquals(task.getStatus(), Status.FAILED);
+        } finally {
+            taskManagement.stopInternal();
+        }
+    }
+
+    @Test
+    public void testDeleteCompletedTasks() {
+        TaskRegistry         registry       = mock(TaskRegistry.class);
+        TaskManagement       taskManagement = new TaskManagement(null, registry);
+        ArgumentCaptor<Long> endedBefore    = ArgumentCaptor.forClass(Long.class);
+        long                 retentionMs    = AtlasConfiguration.TASKS_COMPLETED_RETENTION_MS.getLong();
+        long                 startTime      = System.currentTimeMillis();
+
+        when(registry.deleteCompletedTasks(anyLong())).thenReturn(2).thenThrow(new RuntimeException("simulated failure"));
+
+        taskManagement.deleteCompletedTasks();
+        taskManagement.deleteCompletedTasks(); // failure is logged, not thrown to the scheduler
+
+        verify(registry, times(2)).deleteCompletedTasks(endedBefore.capture());
+
+        // tasks that ended before the retention period are deleted
+        assertTrue(endedBefore.getValue() >= startTime - retentionMs);
+        assertTrue(endedBefore.getValue() <= System.currentTimeMillis() - retentionMs);
+    }
+
+    @Test
+    public void testRetry() {
+        TaskRegistry   registry       = mock(TaskRegistry.class);
+        TaskManagement taskManagement = new TaskManagement(null, registry);
+        AtlasTask      completedTask  = new AtlasTask("task-1", TEST_TASK_TYPE, "admin", null);
+
+        completedTask.setStatus(Status.COMPLETE);
+
+        when(registry.getByGuid("task-1")).thenReturn(completedTask);
+
+        try {
+            taskManagement.retry("task-1");
+
+            fail("expected failure");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.TASK_NOT_RETRYABLE);
+        }
+
+        try {
+            taskManagement.retry("task-2");
+
+            fail("expected failure");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.TASK_NOT_FOUND);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.testng.Assert.assertEquals;
@@ -166,6 +167,21 @@ public class ObjectUpdateSynchronizerTest {
         assertArrayEquals(populateExpectedArrayOutput(th.length));
     }
 
+    @Test
+    public void locksAreRemovedAfterRelease() {
+        GraphTransactionInterceptor.ObjectUpdateSynchronizer synchronizer = new GraphTransactionInterceptor.ObjectUpdateSynchronizer();
+        List<String>                                         guids        = new ArrayList<>(Arrays.asList("3", "1", "2", "1"));
+
+        synchronizer.lockObject(guids);
+
+        assertEquals(synchronizer.getStats().get("lockedObjects"), 3);
+        assertEquals(synchronizer.getStats().get("lockCount"), 3L);
+
+        synchronizer.releaseLockedObjects();
+
+        assertEquals(synchronizer.getStats().get("lockedObjects"), 0);
+    }
+
     private void verifyMultipleThreadRun(int limit) throws InterruptedException {
         CounterThread[] th = getCounterThreads(limit);
         startCounterThreads(th);
@@ -24,6 +24,7 @@ import org.apache.atlas.*;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.ha.HAConfiguration;
 import org.apache.atlas.kafka.AtlasKafkaMessage;
+import org.apache.atlas.kafka.PartitionOffsetTracker;
 import org.apache.atlas.listener.ActiveStateChangeHandler;
 import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
@@ -38,11 +39,10 @@ import org.apache.atlas.model.notification.HookNotification.EntityUpdateRequestV
 import org.apache.atlas.model.notification.HookNotification.EntityPartialUpdateRequestV2;
 import org.apache.atlas.notification.NotificationInterface.NotificationType;
 import org.apache.atlas.notification.preprocessor.EntityPreprocessor;
+import org.apache.atlas.notification.preprocessor.HiveTablePatternMatcher;
 import org.apache.atlas.notification.preprocessor.PreprocessorContext;
-import org.apache.atlas.notification.preprocessor.PreprocessorContext.PreprocessAction;
 import org.apache.atlas.util.AtlasMetricsCounter;
 import org.apache.atlas.utils.AtlasJson;
-import org.apache.atlas.utils.LruCache;
 import org.apache.atlas.util.AtlasMetricsUtil;
 import org.apache.atlas.util.AtlasMetricsUtil.NotificationStat;
 import org.apache.atlas.v1.model.instance.Referenceable;
@@ -58,6 +58,7 @@ import org.apache.atlas.service.Service;
 import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
 import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.type.AtlasTypeUtil;
 import org.apache.atlas.utils.AtlasPerfTracer;
 import org.apache.atlas.web.filters.AuditFilter;
 import org.apache.atlas.web.filters.AuditFilter.AuditLog;
@@ -66,6 +67,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.lang.StringUtils;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.DependsOn;
@@ -75,15 +77,20 @@ import org.springframework.stereotype.Component;
 import javax.inject.Inject;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
@@ -126,6 +133,14 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
     public static final String CONSUMER_COMMIT_BATCH_SIZE        = "atlas.notification.consumer.commit.batch.size";
     public static final String CONSUMER_DISABLED                 = "atlas.notification.consumer.disabled";
 
+    public static final String CONSUMER_PARALLEL_PROCESSING_ENABLED     = "atlas.notification.consumer.parallel.processing.enabled";
+    public static final String CONSUMER_PARALLEL_PROCESSING_WORKERS     = "atlas.notification.consumer.parallel.processing.workers";
+    public static final String CONSUMER_PARALLEL_PROCESSING_MAX_PENDING = "atlas.notification.consumer.parallel.processing.max.pending";
+    public static final String CONSUMER_MERGE_MESSAGES_BATCH_SIZE       = "atlas.notification.consumer.merge.messages.batch.size";
+    public static final String CONSUMER_LARGE_MESSAGE_LANE_THRESHOLD    = "atlas.notification.consumer.large.message.lane.entity.threshold";
+    public static final String CONSUMER_LARGE_MESSAGE_LANE_WORKERS      = "atlas.notification.consumer.large.message.lane.workers";
+    public static final String CONSUMER_COALESCE_FULL_UPDATES_ENABLED   = "atlas.notification.consumer.coalesce.full.updates.enabled";
+
 
     public static final String CONSUMER_SKIP_HIVE_COLUMN_LINEAGE_HIVE_20633                  = "atlas.notification.consumer.skip.hive_column_lineage.hive-20633";
     public static final String CONSUMER_SKIP_HIVE_COLUMN_LINEAGE_HIVE_20633_INPUTS_THRESHOLD = "atlas.notification.consumer.skip.hive_column_lineage.hive-20633.inputs.threshold";
@@ -157,12 +172,17 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
     private final int                           skipHiveColumnLineageHive20633InputsThreshold;
     private final int                           largeMessageProcessingTimeThresholdMs;
     private final boolean                       consumerDisabled;
-    private final List<Pattern>                 hiveTablesToIgnore = new ArrayList<>();
-    private final List<Pattern>                 hiveTablesToPrune  = new ArrayList<>();
+    private final boolean                       parallelProcessingEnabled;
+    private final int                           parallelProcessingWorkers;
+    private final int                           parallelProcessingMaxPending;
+    private final int                           mergeMessagesBatchSize;
+    private final int                           largeMessageLaneThreshold;
+    private final int                           largeMessageLaneWorkers;
+    private final boolean                       coalesceFullUpdatesEnabled;
     private final List<String>                  hiveDummyDatabasesToIgnore;
     private final List<String>                  hiveDummyTablesToIgnore;
     private final List<String>                  hiveTablePrefixesToIgnore;
-    private final Map<String, PreprocessAction> hiveTablesCache;
+    private final HiveTablePatternMatcher       hiveTablesMatcher;
     private final boolean                       hiveTypesRemoveOwnedRefAttrs;
     private final boolean                       rdbmsTypesRemoveOwnedRefAttrs;
     private final boolean                       preprocessEnabled;
@@ -190,6 +210,10 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         this.applicationProperties = ApplicationProperties.get();
         this.metricsUtil           = metricsUtil;
 
+        if (metricsUtil != null) {
+            metricsUtil.setSplitMessageStats(() -> NotificationType.HOOK.getDeserializer().getSplitMessageStore().getStats());
+        }
+
         maxRetries            = applicationProperties.getInt(CONSUMER_RETRIES_PROPERTY, 3);
         failedMsgCacheSize    = applicationProperties.getInt(CONSUMER_FAILEDCACHESIZE_PROPERTY, 1);
         consumerRetryInterval = applicationProperties.getInt(CONSUMER_RETRY_INTERVAL, 500);
@@ -202,9 +226,18 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         consumerDisabled                              = applicationProperties.getBoolean(CONSUMER_DISABLED, false);
         largeMessageProcessingTimeThresholdMs         = applicationProperties.getInt("atlas.notification.consumer.large.message.processing.time.threshold.ms", 60 * 1000);  //  60 sec by default
         createShellEntityForNonExistingReference      = AtlasConfiguration.NOTIFICATION_CREATE_SHELL_ENTITY_FOR_NON_EXISTING_REF.getBoolean();
-
-        String[] patternHiveTablesToIgnore = applicationProperties.getStringArray(CONSUMER_PREPROCESS_HIVE_TABLE_IGNORE_PATTERN);
-        String[] patternHiveTablesToPrune  = applicationProperties.getStringArray(CONSUMER_PREPROCESS_HIVE_TABLE_PRUNE_PATTERN);
+        parallelProcessingEnabled                     = applicationProperties.getBoolean(CONSUMER_PARALLEL_PROCESSING_ENABLED, false);
+        parallelProcessingWorkers                     = Math.max(1, applicationProperties.getInt(CONSUMER_PARALLEL_PROCESSING_WORKERS, 8));
+        parallelProcessingMaxPending                  = Math.max(parallelProcessingWorkers, applicationProperties.getInt(CONSUMER_PARALLEL_PROCESSING_MAX_PENDING, 1000));
+        mergeMessagesBatchSize                        = applicationProperties.getInt(CONSUMER_MERGE_MESSAGES_BATCH_SIZE, 1); // 1: don't merge messages
+        largeMessageLaneThreshold                     = parallelProcessingEnabled ? applicationProperties.getInt(CONSUMER_LARGE_MESSAGE_LANE_THRESHOLD, 0) : 0; // 0: no separate lane for large messages
+        largeMessageLaneWorkers                       = Math.max(1, applicationProperties.getInt(CONSUMER_LARGE_MESSAGE_LANE_WORKERS, 1));
+        coalesceFullUpdatesEnabled                    = applicationProperties.getBoolean(CONSUMER_COALESCE_FULL_UPDATES_ENABLED, false);
+
+        List<Pattern> hiveTablesToIgnore        = new ArrayList<>();
+        List<Pattern> hiveTablesToPrune         = new ArrayList<>();
+        String[]      patternHiveTablesToIgnore = applicationProperties.getStringArray(CONSUMER_PREPROCESS_HIVE_TABLE_IGNORE_PATTERN);
+        String[]      patternHiveTablesToPrune  = applicationProperties.getStringArray(CONSUMER_PREPROCESS_HIVE_TABLE_PRUNE_PATTERN);
 
         if (patternHiveTablesToIgnore != null) {
             for (String pattern : patternHiveTablesToIgnore) {
@@ -232,11 +265,7 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
             }
         }
 
-        if (!hiveTablesToIgnore.isEmpty() || !hiveTablesToPrune.isEmpty()) {
-            hiveTablesCache = new LruCache<>(applicationProperties.getInt(CONSUMER_PREPROCESS_HIVE_TABLE_CACHE_SIZE, 10000), 0);
-        } else {
-            hiveTablesCache = Collections.emptyMap();
-        }
+        hiveTablesMatcher = new HiveTablePatternMatcher(hiveTablesToIgnore, hiveTablesToPrune, applicationProperties.getInt(CONSUMER_PREPROCESS_HIVE_TABLE_CACHE_SIZE, 10000));
 
         boolean hiveDbIgnoreDummyEnabled         = applicationProperties.getBoolean(CONSUMER_PREPROCESS_HIVE_DB_IGNORE_DUMMY_ENABLED, true);
         boolean hiveTableIgnoreDummyEnabled      = applicationProperties.getBoolean(CONSUMER_PREPROCESS_HIVE_TABLE_IGNORE_DUMMY_ENABLED, true);
@@ -278,7 +307,7 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
 
         hiveTypesRemoveOwnedRefAttrs  = applicationProperties.getBoolean(CONSUMER_PREPROCESS_HIVE_TYPES_REMOVE_OWNEDREF_ATTRS, true);
         rdbmsTypesRemoveOwnedRefAttrs = applicationProperties.getBoolean(CONSUMER_PREPROCESS_RDBMS_TYPES_REMOVE_OWNEDREF_ATTRS, true);
-        preprocessEnabled             = skipHiveColumnLineageHive20633 || hiveTypesRemoveOwnedRefAttrs || rdbmsTypesRemoveOwnedRefAttrs || !hiveTablesToIgnore.isEmpty() || !hiveTablesToPrune.isEmpty() || !hiveDummyDatabasesToIgnore.isEmpty() || !hiveDummyTablesToIgnore.isEmpty() || !hiveTablePrefixesToIgnore.isEmpty();
+        preprocessEnabled             = skipHiveColumnLineageHive20633 || hiveTypesRemoveOwnedRefAttrs || rdbmsTypesRemoveOwnedRefAttrs || !hiveTablesMatcher.isEmpty() || !hiveDummyDatabasesToIgnore.isEmpty() || !hiveDummyTablesToIgnore.isEmpty() || !hiveTablePrefixesToIgnore.isEmpty();
 
         LOG.info("{}={}", CONSUMER_SKIP_HIVE_COLUMN_LINEAGE_HIVE_20633, skipHiveColumnLineageHive20633);
         LOG.info("{}={}", CONSUMER_SKIP_HIVE_COLUMN_LINEAGE_HIVE_20633_INPUTS_THRESHOLD, skipHiveColumnLineageHive20633InputsThreshold);
@@ -286,6 +315,19 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         LOG.info("{}={}", CONSUMER_PREPROCESS_RDBMS_TYPES_REMOVE_OWNEDREF_ATTRS, rdbmsTypesRemoveOwnedRefAttrs);
         LOG.info("{}={}", CONSUMER_COMMIT_BATCH_SIZE, commitBatchSize);
         LOG.info("{}={}", CONSUMER_DISABLED, consumerDisabled);
+        LOG.info("{}={}", CONSUMER_PARALLEL_PROCESSING_ENABLED, parallelProcessingEnabled);
+        LOG.info("{}={}", CONSUMER_MERGE_MESSAGES_BATCH_SIZE, mergeMessagesBatchSize);
+        LOG.info("{}={}", CONSUMER_COALESCE_FULL_UPDATES_ENABLED, coalesceFullUpdatesEnabled);
+
+        if (parallelProcessingEnabled) {
+            LOG.info("{}={}", CONSUMER_PARALLEL_PROCESSING_WORKERS, parallelProcessingWorkers);
+            LOG.info("{}={}", CONSUMER_PARALLEL_PROCESSING_MAX_PENDING, parallelProcessingMaxPending);
+            LOG.info("{}={}", CONSUMER_LARGE_MESSAGE_LANE_THRESHOLD, largeMessageLaneThreshold);
+
+            if (largeMessageLaneThreshold > 0) {
+                LOG.info("{}={}", CONSUMER_LARGE_MESSAGE_LANE_WORKERS, largeMessageLaneWorkers);
+            }
+        }
     }
 
     @Override
@@ -491,6 +533,14 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         private final AtomicBoolean                          shouldRun      = new AtomicBoolean(false);
         private final List<String>                           failedMessages = new ArrayList<>();
         private final AdaptiveWaiter                         adaptiveWaiter = new AdaptiveWaiter(minWaitDuration, maxWaitDuration, minWaitDuration);
+        private final PartitionOffsetTracker                 offsetTracker;  // null when parallel processing is disabled
+        private final Semaphore                              pendingPermits;
+        private final Map<String, InFlightEntity>            inFlightEntities = new HashMap<>();
+        private       ExecutorService[]                      workers;
+        private       ExecutorService[]                      largeMessageWorkers; // null when large message lane is disabled
+
+        // superseded messages, by the later message that absorbed their entities
+        private final Map<AtlasKafkaMessage<HookNotification>, List<SupersededMessage>> supersededMessages = new IdentityHashMap<>();
 
         @VisibleForTesting
         final FailedCommitOffsetRecorder failedCommitOffsetRecorder;
@@ -500,6 +550,23 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
 
             this.consumer = consumer;
             failedCommitOffsetRecorder = new FailedCommitOffsetRecorder();
+
+            if (parallelProcessingEnabled) {
+                offsetTracker  = new PartitionOffsetTracker();
+                pendingPermits = new Semaphore(parallelProcessingMaxPending);
+
+                if (consumer != null) {
+                    // offsets of messages still in progress for revoked partitions must not be committed after reassignment
+                    consumer.setPartitionsRevokedListener(partitions -> {
+                        commitProcessedOffsets();
+
+                        offsetTracker.removePartitions(partitions);
+                    });
+                }
+            } else {
+                offsetTracker  = null;
+                pendingPermits = null;
+            }
         }
 
         @Override
@@ -512,13 +579,46 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                 return;
             }
 
+            startWorkers();
+
             try {
                 while (shouldRun.get()) {
                     try {
-                        List<AtlasKafkaMessage<HookNotification>> messages = consumer.receive();
+                        List<AtlasKafkaMessage<HookNotification>>                                          messages   = consumer.receive();
+                        Map<AtlasKafkaMessage<HookNotification>, Set<AtlasKafkaMessage<HookNotification>>> superseded = coalesceFullUpdatesEnabled ? getSupersededMessages(messages) : Collections.emptyMap();
+
+                        if (offsetTracker == null) {
+                            synchronized (supersededMessages) { // messages of an earlier batch not processed due to an exception will not be received again
+                                supersededMessages.clear();
+                            }
+
+                            if (!superseded.isEmpty()) { // offsets of superseded messages are committed once the later messages are processed
+                                addSupersededMessages(superseded);
+
+                                messages = new ArrayList<>(messages);
+
+                                messages.removeAll(superseded.keySet());
+                            }
+
+                            if (mergeMessagesBatchSize > 1) {
+                                handleMessages(messages);
+                            } else {
+                                for (AtlasKafkaMessage<HookNotification> msg : messages) {
+                                    handleMessage(msg);
+                                }
+                            }
+                        } else {
+                            addSupersededMessages(superseded);
+
+                            for (AtlasKafkaMessage<HookNotification> msg : messages) {
+                                if (superseded.containsKey(msg)) { // marked as processed once the later messages are processed
+                                    offsetTracker.addPending(msg.getTopicPartition(), msg.getOffset());
+                                } else if (!dispatchMessage(msg)) {
+                                    break;
+                                }
+                            }
 
-                        for (AtlasKafkaMessage<HookNotification> msg : messages) {
-                            handleMessage(msg);
+                            commitProcessedOffsets();
                         }
                     } catch (IllegalStateException ex) {
                         adaptiveWaiter.pause(ex);
@@ -533,6 +633,8 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                     }
                 }
             } finally {
+                stopWorkers();
+
                 if (consumer != null) {
                     LOG.info("closing NotificationConsumer");
 
@@ -543,8 +645,69 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
             }
         }
 
+        /**
+         * Processes consecutive ENTITY_CREATE_V2/ENTITY_FULL_UPDATE_V2 messages from the same user and partition together
+         * in a single createOrUpdate() call, up to mergeMessagesBatchSize messages and commitBatchSize entities; offset of
+         * the last message commits the batch. Other messages are processed individually, in the order received.
+         */
+        @VisibleForTesting
+        void handleMessages(List<AtlasKafkaMessage<HookNotification>> kafkaMsgs) throws AtlasServiceException, AtlasException {
+            List<AtlasKafkaMessage<HookNotification>> batch           = new ArrayList<>();
+            Set<String>                               batchGuids      = new HashSet<>();
+            Set<String>                               batchEntityKeys = new HashSet<>();
+            int                                       batchEntities   = 0;
+
+            for (AtlasKafkaMessage<HookNotification> kafkaMsg : kafkaMsgs) {
+                AtlasEntitiesWithExtInfo entities    = failedCommitOffsetRecorder.isMessageReplayed(kafkaMsg.getOffset()) || isEmptyMessage(kafkaMsg) ? null : getEntitiesToMerge(kafkaMsg);
+                int                      numEntities = entities != null ? getEntityCount(entities) : 0;
+
+                if (!batch.isEmpty()) {
+                    boolean isMergeable = entities != null &&
+                                          batch.get(0).getTopicPartition().equals(kafkaMsg.getTopicPartition()) &&
+                                          StringUtils.equals(batch.get(0).getMessage().getUser(), kafkaMsg.getMessage().getUser()) &&
+                                          (commitBatchSize <= 0 || (batchEntities + numEntities) <= commitBatchSize) &&
+                                          !hasAnyGuid(entities, batchGuids) &&
+                                          !hasAnyEntityKey(entities, batchEntityKeys);
+
+                    if (!isMergeable) {
+                        handleMergedMessages(batch);
+
+                        batch.clear();
+                        batchGuids.clear();
+                        batchEntityKeys.clear();
+                        batchEntities = 0;
+                    }
+                }
+
+                if (entities == null) {
+                    handleMessage(kafkaMsg);
+                } else {
+                    batch.add(kafkaMsg);
+                    collectGuids(entities, batchGuids);
+                    collectEntityKeys(entities, batchEntityKeys);
+
+                    batchEntities += numEntities;
+
+                    if (batch.size() >= mergeMessagesBatchSize) {
+                        handleMergedMessages(batch);
+
+                        batch.clear();
+                        batchGuids.clear();
+                        batchEntityKeys.clear();
+                        batchEntities = 0;
+                    }
+                }
+            }
+
+            handleMergedMessages(batch);
+        }
+
         @VisibleForTesting
         void handleMessage(AtlasKafkaMessage<HookNotification> kafkaMsg) throws AtlasServiceException, AtlasException {
+            handleMessage(kafkaMsg, null);
+        }
+
+        private void handleMessage(AtlasKafkaMessage<HookNotification> kafkaMsg, PreprocessorContext preprocessedContext) throws AtlasServiceException, AtlasException {
             AtlasPerfTracer  perf           = null;
             HookNotification message        = kafkaMsg.getMessage();
             String           messageUser    = message.getUser();
@@ -562,7 +725,7 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                     return;
                 }
 
-                PreprocessorContext context = preProcessNotificationMessage(kafkaMsg);
+                PreprocessorContext context = preprocessedContext != null ? preprocessedContext : preProcessNotificationMessage(kafkaMsg);
 
                 if (isEmptyMessage(kafkaMsg)) {
                     commit(kafkaMsg);
@@ -740,11 +903,8 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
 
                             stats.isFailedMsg = true;
 
-                            failedMessages.add(strMessage);
+                            addFailedMessage(strMessage);
 
-                            if (failedMessages.size() >= failedMsgCacheSize) {
-                                recordFailedMessages();
-                            }
                             return;
                         } else {
                             LOG.warn("Error handling message", e);
@@ -771,10 +931,7 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                 metricsUtil.onNotificationProcessingComplete(kafkaMsg.getTopic(), kafkaMsg.getPartition(), kafkaMsg.getOffset(), stats);
 
                 if (stats.timeTakenMs > largeMessageProcessingTimeThresholdMs) {
-                    String strMessage = AbstractNotification.getMessageJson(message);
-
-                    LOG.warn("msgProcessingTime={}, msgSize={}, topicOffset={}}", stats.timeTakenMs, strMessage.length(), kafkaMsg.getOffset());
-                    LARGE_MESSAGES_LOG.warn("{\"msgProcessingTime\":{},\"msgSize\":{},\"topicOffset\":{},\"data\":{}}", stats.timeTakenMs, strMessage.length(), kafkaMsg.getOffset(), strMessage);
+                    logLargeMessage(kafkaMsg, stats.timeTakenMs);
                 }
 
                 if (auditLog != null) {
@@ -794,6 +951,152 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
             }
         }
 
+        private void handleMergedMessages(List<AtlasKafkaMessage<HookNotification>> kafkaMsgs) throws AtlasServiceException, AtlasException {
+            if (kafkaMsgs.isEmpty()) {
+                return;
+            } else if (kafkaMsgs.size() == 1) {
+                handleMessage(kafkaMsgs.get(0));
+
+                return;
+            }
+
+            AtlasPerfTracer                          perf          = null;
+            long                                     startTime     = System.currentTimeMillis();
+            NotificationStat                         stats         = new NotificationStat();
+            List<PreprocessorContext>                contexts      = new ArrayList<>(kafkaMsgs.size());
+            Set<AtlasKafkaMessage<HookNotification>> emptyMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+            AtlasEntitiesWithExtInfo                 entities      = new AtlasEntitiesWithExtInfo();
+            boolean                                  isProcessed   = false;
+
+            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "handleMergedMessages(count=" + kafkaMsgs.size() + ")");
+            }
+
+            try {
+                for (AtlasKafkaMessage<HookNotification> kafkaMsg : kafkaMsgs) {
+                    contexts.add(preProcessNotificationMessage(kafkaMsg));
+
+                    if (isEmptyMessage(kafkaMsg)) { // all entities in the message were pruned by preprocessing
+                        emptyMessages.add(kafkaMsg);
+
+                        continue;
+                    }
+
+                    AtlasEntitiesWithExtInfo msgEntities = getEntitiesToMerge(kafkaMsg);
+
+                    if (CollectionUtils.isNotEmpty(msgEntities.getEntities())) {
+                        for (AtlasEntity entity : msgEntities.getEntities()) {
+                            entities.addEntity(entity);
+                        }
+                    }
+
+                    if (MapUtils.isNotEmpty(msgEntities.getReferredEntities())) {
+                        for (AtlasEntity entity : msgEntities.getReferredEntities().values()) {
+                            entities.addReferredEntity(entity);
+                        }
+                    }
+                }
+
+                try {
+                    RequestContext requestContext = RequestContext.get();
+
+                    requestContext.setAttemptCount(1);
+                    requestContext.setMaxAttempts(1);
+
+                    requestContext.setUser(kafkaMsgs.get(0).getMessage().getUser(), null);
+                    requestContext.setInNotificationProcessing(true);
+                    requestContext.setCreateShellEntityForNonExistingReference(createShellEntityForNonExistingReference);
+
+                    if (CollectionUtils.isNotEmpty(entities.getEntities())) {
+                        EntityMutationResponse response = atlasEntityStore.createOrUpdate(new AtlasEntityStream(entities), false);
+
+                        stats.updateStats(response);
+
+                        List<AtlasEntity> postUpdateEntities = new ArrayList<>();
+
+                        for (PreprocessorContext context : contexts) {
+                            if (context != null) {
+                                recordProcessedEntities(response, null, context);
+
+                                context.prepareForPostUpdate();
+
+                                if (CollectionUtils.isNotEmpty(context.getPostUpdateEntities())) {
+                                    postUpdateEntities.addAll(context.getPostUpdateEntities());
+                                }
+                            }
+                        }
+
+                        if (!postUpdateEntities.isEmpty()) {
+                            atlasEntityStore.createOrUpdate(new AtlasEntityStream(postUpdateEntities), true);
+                        }
+                    }
+
+                    isProcessed = true;
+                } catch (Throwable t) {
+                    RequestContext.get().resetEntityGuidUpdates();
+
+                    LOG.warn("failed to process {} merged messages (topic-offsets={}-{}, partition={}). Will process them one at a time", kafkaMsgs.size(), kafkaMsgs.get(0).getOffset(), kafkaMsgs.get(kafkaMsgs.size() - 1).getOffset(), kafkaMsgs.get(0).getPartition(), t);
+                } finally {
+                    RequestContext.clear();
+                }
+            } finally {
+                AtlasPerfTracer.log(perf);
+            }
+
+            if (isProcessed) {
+                for (AtlasKafkaMessage<HookNotification> kafkaMsg : kafkaMsgs) { // offsets of all messages in the batch are committed below
+                    onMessageProcessed(kafkaMsg);
+                }
+
+                commit(kafkaMsgs.get(kafkaMsgs.size() - 1));
+
+                long timeTakenMs = System.currentTimeMillis() - startTime;
+
+                if (timeTakenMs > largeMessageProcessingTimeThresholdMs) {
+                    LOG.warn("{} merged messages took {} ms: topic-offsets={}-{}, partition={}", kafkaMsgs.size(), timeTakenMs, kafkaMsgs.get(0).getOffset(), kafkaMsgs.get(kafkaMsgs.size() - 1).getOffset(), kafkaMsgs.get(0).getPartition());
+
+                    for (AtlasKafkaMessage<HookNotification> kafkaMsg : kafkaMsgs) {
+                        if (!emptyMessages.contains(kafkaMsg)) {
+                            logLargeMessage(kafkaMsg, timeTakenMs);
+                        }
+                    }
+                }
+
+                for (AtlasKafkaMessage<HookNotification> kafkaMsg : kafkaMsgs) {
+                    if (emptyMessages.contains(kafkaMsg)) { // as in handleMessage(), empty messages are not recorded in metrics and audit
+                        continue;
+                    }
+
+                    // entity counts are recorded against the last message of the batch; processing time is shared by all messages
+                    NotificationStat msgStats = kafkaMsg == kafkaMsgs.get(kafkaMsgs.size() - 1) ? stats : new NotificationStat();
+
+                    msgStats.timeTakenMs = timeTakenMs / kafkaMsgs.size();
+
+                    metricsUtil.onNotificationProcessingComplete(kafkaMsg.getTopic(), kafkaMsg.getPartition(), kafkaMsg.getOffset(), msgStats);
+
+                    AuditLog auditLog = kafkaMsg.getMessage().getType() == HookNotification.HookNotificationType.ENTITY_CREATE_V2 ?
+                                            new AuditLog(kafkaMsg.getMessage().getUser(), THREADNAME_PREFIX, AtlasClientV2.API_V2.CREATE_ENTITY.getMethod(), AtlasClientV2.API_V2.CREATE_ENTITY.getNormalizedPath()) :
+                                            new AuditLog(kafkaMsg.getMessage().getUser(), THREADNAME_PREFIX, AtlasClientV2.API_V2.UPDATE_ENTITY.getMethod(), AtlasClientV2.API_V2.UPDATE_ENTITY.getNormalizedPath());
+
+                    auditLog.setHttpStatus(SC_OK);
+                    auditLog.setTimeTaken(msgStats.timeTakenMs);
+
+                    AuditFilter.audit(auditLog);
+                }
+            } else {
+                for (int i = 0; i < kafkaMsgs.size(); i++) {
+                    handleMessage(kafkaMsgs.get(i), contexts.size() > i ? contexts.get(i) : null);
+                }
+            }
+        }
+
+        private void logLargeMessage(AtlasKafkaMessage<HookNotification> kafkaMsg, long timeTakenMs) {
+            String strMessage = AbstractNotification.getMessageJson(kafkaMsg.getMessage());
+
+            LOG.warn("msgProcessingTime={}, msgSize={}, topicOffset={}}", timeTakenMs, strMessage.length(), kafkaMsg.getOffset());
+            LARGE_MESSAGES_LOG.warn("{\"msgProcessingTime\":{},\"msgSize\":{},\"topicOffset\":{},\"data\":{}}", timeTakenMs, strMessage.length(), kafkaMsg.getOffset(), strMessage);
+        }
+
         private void createOrUpdate(AtlasEntitiesWithExtInfo entities, boolean isPartialUpdate, NotificationStat stats, PreprocessorContext context) throws AtlasBaseException {
             List<AtlasEntity> entitiesList = entities.getEntities();
             AtlasEntityStream entityStream = new AtlasEntityStream(entities);
@@ -838,25 +1141,305 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
             }
         }
 
-        private void recordFailedMessages() {
-            //logging failed messages
-            for (String message : failedMessages) {
-                FAILED_LOG.error("[DROPPED_NOTIFICATION] {}", message);
+        private void addFailedMessage(String message) {
+            synchronized (failedMessages) {
+                failedMessages.add(message);
+
+                if (failedMessages.size() >= failedMsgCacheSize) {
+                    recordFailedMessages();
+                }
             }
+        }
+
+        private void recordFailedMessages() {
+            synchronized (failedMessages) {
+                //logging failed messages
+                for (String message : failedMessages) {
+                    FAILED_LOG.error("[DROPPED_NOTIFICATION] {}", message);
+                }
 
-            failedMessages.clear();
+                failedMessages.clear();
+            }
         }
 
         private void commit(AtlasKafkaMessage<HookNotification> kafkaMessage) {
+            onMessageProcessed(kafkaMessage);
+
+            if (offsetTracker != null) {
+                // with parallel processing, offsets are committed by the consumer thread once all earlier messages in the partition are processed
+                recordFailedMessages();
+
+                return;
+            }
+
             boolean commitSucceessStatus = false;
             try {
                 recordFailedMessages();
 
-                consumer.commit(kafkaMessage.getTopicPartition(), kafkaMessage.getOffset() + 1);
+                consumer.commit(kafkaMessage.getTopicPartition(), getOffsetToCommit(kafkaMessage));
 
                 commitSucceessStatus = true;
             } finally {
-                failedCommitOffsetRecorder.recordIfFailed(commitSucceessStatus, kafkaMessage.getOffset());
+                failedCommitOffsetRecorder.recordIfFailed(commitSucceessStatus, kafkaMessage.getOffset(), commitSucceessStatus ? null : consumer.getCommittedOffset(kafkaMessage.getTopicPartition()));
+            }
+        }
+
+        /**
+         * Registers messages superseded by later messages in the batch. Offset of a superseded message is considered
+         * processed only after all the messages that absorbed its entities are processed, so that attributes merged
+         * from the superseded message are not lost if the consumer stops before processing the later messages.
+         */
+        @VisibleForTesting
+        void addSupersededMessages(Map<AtlasKafkaMessage<HookNotification>, Set<AtlasKafkaMessage<HookNotification>>> superseded) {
+            synchronized (supersededMessages) {
+                for (Map.Entry<AtlasKafkaMessage<HookNotification>, Set<AtlasKafkaMessage<HookNotification>>> entry : superseded.entrySet()) {
+                    SupersededMessage supersededMessage = new SupersededMessage(entry.getKey(), entry.getValue().size());
+
+                    for (AtlasKafkaMessage<HookNotification> laterMessage : entry.getValue()) {
+                        supersededMessages.computeIfAbsent(laterMessage, k -> new ArrayList<>()).add(supersededMessage);
+                    }
+                }
+            }
+        }
+
+        private void onMessageProcessed(AtlasKafkaMessage<HookNotification> kafkaMsg) {
+            List<SupersededMessage> processed = null;
+
+            synchronized (supersededMessages) {
+                List<SupersededMessage> absorbed = supersededMessages.isEmpty() ? null : supersededMessages.remove(kafkaMsg);
+
+                if (absorbed != null) {
+                    for (SupersededMessage supersededMessage : absorbed) {
+                        if (--supersededMessage.pendingLaterMessages == 0) {
+                            if (processed == null) {
+                                processed = new ArrayList<>();
+                            }
+
+                            processed.add(supersededMessage);
+                        }
+                    }
+                }
+            }
+
+            if (processed != null && offsetTracker != null) {
+                for (SupersededMessage supersededMessage : processed) {
+                    offsetTracker.markProcessed(supersededMessage.kafkaMsg.getTopicPartition(), supersededMessage.kafkaMsg.getOffset());
+                }
+            }
+        }
+
+        // offset past the given message, unless a superseded message in the partition is waiting for later messages to be processed
+        private long getOffsetToCommit(AtlasKafkaMessage<HookNotification> kafkaMessage) {
+            long ret = kafkaMessage.getOffset() + 1;
+
+            synchronized (supersededMessages) {
+                for (List<SupersededMessage> absorbed : supersededMessages.values()) {
+                    for (SupersededMessage supersededMessage : absorbed) {
+                        if (supersededMessage.kafkaMsg.getOffset() < ret && supersededMessage.kafkaMsg.getTopicPartition().equals(kafkaMessage.getTopicPartition())) {
+                            ret = supersededMessage.kafkaMsg.getOffset();
+                        }
+                    }
+                }
+            }
+
+            return ret;
+        }
+
+        private void startWorkers() {
+            if (offsetTracker != null && workers == null) {
+                workers = new ExecutorService[parallelProcessingWorkers];
+
+                for (int i = 0; i < workers.length; i++) {
+                    workers[i] = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(THREADNAME_PREFIX + " " + getName() + " worker-" + i).build());
+                }
+
+                if (largeMessageLaneThreshold > 0) {
+                    largeMessageWorkers = new ExecutorService[largeMessageLaneWorkers];
+
+                    for (int i = 0; i < largeMessageWorkers.length; i++) {
+                        largeMessageWorkers[i] = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(THREADNAME_PREFIX + " " + getName() + " large-message-worker-" + i).build());
+                    }
+                }
+            }
+        }
+
+        private void stopWorkers() {
+            if (workers != null) {
+                LOG.info("==> HookConsumer stopWorkers(): pendingMessages={}", offsetTracker.getPendingCount());
+
+                List<ExecutorService> allWorkers = new ArrayList<>(Arrays.asList(workers));
+
+                if (largeMessageWorkers != null) {
+                    allWorkers.addAll(Arrays.asList(largeMessageWorkers));
+                }
+
+                for (ExecutorService worker : allWorkers) {
+                    worker.shutdown();
+                }
+
+                try {
+                    for (ExecutorService worker : allWorkers) {
+                        while (!worker.awaitTermination(SERVER_READY_WAIT_TIME_MS, TimeUnit.MILLISECONDS)) {
+                            LOG.info("waiting for in-progress messages to complete");
+                        }
+                    }
+                } catch (InterruptedException excp) {
+                    LOG.warn("interrupted while waiting for in-progress messages to complete", excp);
+                }
+
+                workers             = null;
+                largeMessageWorkers = null;
+
+                try {
+                    commitProcessedOffsets();
+                } catch (Exception excp) {
+                    LOG.warn("failed to commit offsets of processed messages", excp);
+                }
+
+                LOG.info("<== HookConsumer stopWorkers()");
+            }
+        }
+
+        /**
+         * Hands over the message to the worker assigned to the entities in the message. While messages for an entity
+         * are in progress, subsequent messages having the entity are sent to the same worker, hence are processed in
+         * the order they were received. A message having entities in progress in different workers waits until
+         * messages in all but one of these workers complete.
+         *
+         * When the large message lane is enabled, messages having more than largeMessageLaneThreshold entities are
+         * handled by a separate set of workers, so that they don't hold up other messages.
+         * @return false if the consumer is shutting down and the message was not dispatched
+         */
+        private boolean dispatchMessage(final AtlasKafkaMessage<HookNotification> kafkaMsg) throws InterruptedException {
+            while (!pendingPermits.tryAcquire(consumerRetryInterval, TimeUnit.MILLISECONDS)) {
+                if (!shouldRun.get()) {
+                    return false;
+                }
+
+                commitProcessedOffsets();
+            }
+
+            final TopicPartition partition  = kafkaMsg.getTopicPartition();
+            final Set<String>    entityKeys = getMessageEntityKeys(kafkaMsg);
+            final InFlightEntity assignment;
+
+            while (true) {
+                synchronized (inFlightEntities) {
+                    InFlightEntity inFlight   = null;
+                    boolean        isConflict = false;
+
+                    for (String entityKey : entityKeys) {
+                        InFlightEntity entity = inFlightEntities.get(entityKey);
+
+                        if (entity != null) {
+                            if (inFlight == null) {
+                                inFlight = entity;
+                            } else if (!inFlight.isSameWorker(entity)) {
+                                isConflict = true;
+
+                                break;
+                            }
+                        }
+                    }
+
+                    if (!isConflict) {
+                        if (inFlight == null) {
+                            boolean           isLarge = largeMessageWorkers != null && getMessageEntityCount(kafkaMsg.getMessage()) > largeMessageLaneThreshold;
+                            ExecutorService[] lane    = isLarge ? largeMessageWorkers : workers;
+
+                            inFlight = new InFlightEntity(isLarge, (entityKeys.iterator().next().hashCode() & Integer.MAX_VALUE) % lane.length);
+                        }
+
+                        for (String entityKey : entityKeys) {
+                            InFlightEntity entity = inFlightEntities.get(entityKey);
+
+                            if (entity == null) {
+                                entity = new InFlightEntity(inFlight.isLarge, inFlight.workerIdx);
+
+                                inFlightEntities.put(entityKey, entity);
+                            }
+
+                            entity.count++;
+                        }
+
+                        assignment = inFlight;
+
+                        break;
+                    }
+
+                    inFlightEntities.wait(consumerRetryInterval);
+                }
+
+                if (!shouldRun.get()) {
+                    pendingPermits.release();
+
+                    return false;
+                }
+
+                commitProcessedOffsets();
+            }
+
+            final ExecutorService[] lane      = assignment.isLarge ? largeMessageWorkers : workers;
+            final int               workerIdx = assignment.workerIdx;
+
+            if (assignment.isLarge) {
+                LOG.info("large message lane: topic-offset={}, partition={}, entityKeys={}, worker={}", kafkaMsg.getOffset(), kafkaMsg.getPartition(), entityKeys.size(), workerIdx);
+            }
+
+            offsetTracker.addPending(partition, kafkaMsg.getOffset());
+
+            lane[workerIdx].submit(new Runnable() {
+                @Override
+                public void run() {
+                    boolean isProcessed = false;
+
+                    try {
+                        // messages not yet processed at shutdown are left uncommitted, to be replayed after restart
+                        if (shouldRun.get()) {
+                            handleMessage(kafkaMsg);
+
+                            isProcessed = true;
+                        }
+                    } catch (Throwable t) {
+                        LOG.warn("Exception in NotificationHookConsumer worker: topic-offset={}, partition={}", kafkaMsg.getOffset(), kafkaMsg.getPartition(), t);
+
+                        isProcessed = true;
+                    } finally {
+                        if (isProcessed) {
+                            onMessageProcessed(kafkaMsg);
+
+                            offsetTracker.markProcessed(partition, kafkaMsg.getOffset());
+                        }
+
+                        synchronized (inFlightEntities) {
+                            for (String entityKey : entityKeys) {
+                                InFlightEntity inFlight = inFlightEntities.get(entityKey);
+
+                                if (inFlight != null && --inFlight.count == 0) {
+                                    inFlightEntities.remove(entityKey);
+                                }
+                            }
+
+                            inFlightEntities.notifyAll();
+                        }
+
+                        pendingPermits.release();
+                    }
+                }
+            });
+
+            return true;
+        }
+
+        private void commitProcessedOffsets() {
+            for (Map.Entry<TopicPartition, Long> entry : offsetTracker.getOffsetsToCommit().entrySet()) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("committing offset: partition={}, offset={}", entry.getKey(), entry.getValue());
+                }
+
+                consumer.commit(entry.getKey(), entry.getValue());
+
+                offsetTracker.markCommitted(entry.getKey(), entry.getValue());
             }
         }
 
@@ -912,7 +1495,7 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         PreprocessorContext context = null;
 
         if (preprocessEnabled) {
-            context = new PreprocessorContext(kafkaMsg, typeRegistry, hiveTablesToIgnore, hiveTablesToPrune, hiveTablesCache, hiveDummyDatabasesToIgnore, hiveDummyTablesToIgnore, hiveTablePrefixesToIgnore, hiveTypesRemoveOwnedRefAttrs, rdbmsTypesRemoveOwnedRefAttrs);
+            context = new PreprocessorContext(kafkaMsg, typeRegistry, hiveTablesMatcher, hiveDummyDatabasesToIgnore, hiveDummyTablesToIgnore, hiveTablePrefixesToIgnore, hiveTypesRemoveOwnedRefAttrs, rdbmsTypesRemoveOwnedRefAttrs);
 
             if (context.isHivePreprocessEnabled()) {
                 preprocessHiveTypes(context);
@@ -1104,6 +1687,517 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         return ret;
     }
 
+    /**
+     * Returns keys of entities the given message creates, updates, deletes or refers to, which determine the worker to
+     * process the message with when parallel processing is enabled - typeName:qualifiedName when available, guid
+     * otherwise. The first key is that of the first entity in the message. Messages without an entity are keyed by
+     * their topic-partition, to retain their order within the partition.
+     */
+    @VisibleForTesting
+    static Set<String> getMessageEntityKeys(AtlasKafkaMessage<HookNotification> kafkaMsg) {
+        final HookNotification message = kafkaMsg.getMessage();
+        final Set<String>      ret     = new LinkedHashSet<>();
+
+        switch (message.getType()) {
+            case ENTITY_CREATE_V2:
+            case ENTITY_FULL_UPDATE_V2: {
+                AtlasEntitiesWithExtInfo entities = message instanceof EntityCreateRequestV2 ? ((EntityCreateRequestV2) message).getEntities() : ((EntityUpdateRequestV2) message).getEntities();
+
+                if (entities != null) {
+                    if (entities.getEntities() != null) {
+                        for (AtlasEntity entity : entities.getEntities()) {
+                            addEntityKeys(entity, ret);
+                        }
+                    }
+
+                    if (entities.getReferredEntities() != null) {
+                        for (AtlasEntity entity : entities.getReferredEntities().values()) {
+                            addEntityKeys(entity, ret);
+                        }
+                    }
+                }
+            }
+            break;
+
+            case ENTITY_PARTIAL_UPDATE_V2: {
+                EntityPartialUpdateRequestV2 request = (EntityPartialUpdateRequestV2) message;
+
+                addEntityKey(getEntityKey(request.getEntityId()), ret);
+
+                if (request.getEntity() != null) {
+                    addEntityKeys(request.getEntity().getEntity(), ret);
+                }
+            }
+            break;
+
+            case ENTITY_DELETE_V2: {
+                List<AtlasObjectId> entities = ((EntityDeleteRequestV2) message).getEntities();
+
+                if (entities != null) {
+                    for (AtlasObjectId entity : entities) {
+                        addEntityKey(getEntityKey(entity), ret);
+                    }
+                }
+            }
+            break;
+
+            case ENTITY_CREATE:
+            case ENTITY_FULL_UPDATE: {
+                List<Referenceable> entities = ((EntityCreateRequest) message).getEntities();
+
+                if (entities != null) {
+                    for (Referenceable entity : entities) {
+                        addEntityKey(getEntityKey(entity.getTypeName(), entity.get(ATTRIBUTE_QUALIFIED_NAME), entity.getId() != null ? entity.getId()._getId() : null), ret);
+                    }
+                }
+            }
+            break;
+
+            case ENTITY_PARTIAL_UPDATE: {
+                EntityPartialUpdateRequest request = (EntityPartialUpdateRequest) message;
+
+                addEntityKey(getEntityKey(request.getTypeName(), request.getAttributeValue(), null), ret);
+            }
+            break;
+
+            case ENTITY_DELETE: {
+                EntityDeleteRequest request = (EntityDeleteRequest) message;
+
+                addEntityKey(getEntityKey(request.getTypeName(), request.getAttributeValue(), null), ret);
+            }
+            break;
+        }
+
+        if (ret.isEmpty()) {
+            ret.add(kafkaMsg.getTopicPartition().toString());
+        }
+
+        return ret;
+    }
+
+    // adds keys of the entity and of entities referred to in its attributes
+    private static void addEntityKeys(AtlasEntity entity, Set<String> keys) {
+        if (entity == null) {
+            return;
+        }
+
+        addEntityKey(getEntityKey(entity.getTypeName(), entity.getAttribute(ATTRIBUTE_QUALIFIED_NAME), entity.getGuid()), keys);
+
+        if (entity.getAttributes() != null) {
+            for (Object attrValue : entity.getAttributes().values()) {
+                addReferenceKeys(attrValue, keys);
+            }
+        }
+
+        if (entity.getRelationshipAttributes() != null) {
+            for (Object attrValue : entity.getRelationshipAttributes().values()) {
+                addReferenceKeys(attrValue, keys);
+            }
+        }
+    }
+
+    private static void addReferenceKeys(Object attrValue, Set<String> keys) {
+        if (attrValue instanceof AtlasObjectId) {
+            addEntityKey(getEntityKey((AtlasObjectId) attrValue), keys);
+        } else if (attrValue instanceof Collection) {
+            for (Object element : (Collection) attrValue) {
+                addReferenceKeys(element, keys);
+            }
+        } else if (attrValue instanceof Map) {
+            Map    map      = (Map) attrValue;
+            Object typeName = map.get(KEY_TYPENAME);
+
+            if (typeName != null && (map.containsKey(KEY_GUID) || map.containsKey(KEY_UNIQUE_ATTRIBUTES))) { // object-id as map
+                Object uniqAttrs     = map.get(KEY_UNIQUE_ATTRIBUTES);
+                Object qualifiedName = uniqAttrs instanceof Map ? ((Map) uniqAttrs).get(ATTRIBUTE_QUALIFIED_NAME) : null;
+                Object guid          = map.get(KEY_GUID);
+
+                addEntityKey(getEntityKey(typeName.toString(), qualifiedName, guid != null ? guid.toString() : null), keys);
+            } else {
+                for (Object value : map.values()) {
+                    addReferenceKeys(value, keys);
+                }
+            }
+        }
+    }
+
+    private static void addEntityKey(String key, Set<String> keys) {
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+
+    private static String getEntityKey(AtlasObjectId objId) {
+        final String ret;
+
+        if (objId == null) {
+            ret = null;
+        } else {
+            Object qualifiedName = objId.getUniqueAttributes() != null ? objId.getUniqueAttributes().get(ATTRIBUTE_QUALIFIED_NAME) : null;
+
+            ret = getEntityKey(objId.getTypeName(), qualifiedName, objId.getGuid());
+        }
+
+        return ret;
+    }
+
+    private static String getEntityKey(String typeName, Object qualifiedName, String guid) {
+        final String ret;
+
+        if (qualifiedName != null) {
+            ret = typeName + ":" + qualifiedName;
+        } else {
+            ret = guid;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns ENTITY_CREATE_V2/ENTITY_FULL_UPDATE_V2 messages whose entities are all present in later create/update
+     * messages from the same user and partition in the given batch - hence will be overwritten by the later messages,
+     * along with the later messages for each. Messages of other types, like deletes and partial updates, are not
+     * reordered: a create/update is not considered superseded by a later message if such a message is present between them.
+     *
+     * A full update writes only the attributes present in the message; hence attributes of an entity in a superseded
+     * message that are not present in the later message are merged into the entity in the later message. A message is
+     * not considered superseded if such attributes refer to entities by guids assigned in the message, as these guids
+     * can't be resolved in the later message.
+     */
+    @VisibleForTesting
+    static Map<AtlasKafkaMessage<HookNotification>, Set<AtlasKafkaMessage<HookNotification>>> getSupersededMessages(List<AtlasKafkaMessage<HookNotification>> kafkaMsgs) {
+        Map<AtlasKafkaMessage<HookNotification>, Set<AtlasKafkaMessage<HookNotification>>> ret = new IdentityHashMap<>();
+
+        if (kafkaMsgs.size() > 1) {
+            Map<TopicPartition, Map<String, LaterEntities>> laterEntities = new HashMap<>(); // partition -> user -> entities in later messages of the user
+
+            for (int i = kafkaMsgs.size() - 1; i >= 0; i--) {
+                AtlasKafkaMessage<HookNotification> kafkaMsg = kafkaMsgs.get(i);
+                HookNotification                    message  = kafkaMsg.getMessage();
+                AtlasEntitiesWithExtInfo            entities = getEntitiesToMerge(kafkaMsg);
+
+                if (entities == null) { // ordering barrier
+                    laterEntities.clear();
+
+                    continue;
+                }
+
+                Map<String, AtlasEntity> entitiesByKey = getEntitiesByKey(entities);
+
+                if (entitiesByKey.isEmpty()) {
+                    continue;
+                }
+
+                LaterEntities userEntities = laterEntities.computeIfAbsent(kafkaMsg.getTopicPartition(), k -> new HashMap<>()).computeIfAbsent(message.getUser(), k -> new LaterEntities());
+
+                if (userEntities.entities.keySet().containsAll(entitiesByKey.keySet()) && canMergeSupersededEntities(entitiesByKey, userEntities.entities)) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("skipping message superseded by a later message in the batch: topic-offset={}, partition={}", kafkaMsg.getOffset(), kafkaMsg.getPartition());
+                    }
+
+                    Set<AtlasKafkaMessage<HookNotification>> absorbingMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+
+                    for (Map.Entry<String, AtlasEntity> entry : entitiesByKey.entrySet()) {
+                        mergeSupersededEntity(entry.getValue(), userEntities.entities.get(entry.getKey()));
+
+                        absorbingMessages.add(userEntities.messages.get(entry.getKey()));
+                    }
+
+                    ret.put(kafkaMsg, absorbingMessages);
+                } else { // entities in this message are written after the entities of earlier messages
+                    for (Map.Entry<String, AtlasEntity> entry : entitiesByKey.entrySet()) {
+                        userEntities.entities.put(entry.getKey(), entry.getValue());
+                        userEntities.messages.put(entry.getKey(), kafkaMsg);
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // entities and referred entities by key; entities without qualifiedName are keyed by guid, which is unique to the message for new entities.
+    // Returns an empty map if any entity can't be keyed
+    private static Map<String, AtlasEntity> getEntitiesByKey(AtlasEntitiesWithExtInfo entities) {
+        Map<String, AtlasEntity> ret         = new HashMap<>();
+        List<AtlasEntity>        allEntities = new ArrayList<>();
+
+        if (entities.getEntities() != null) {
+            allEntities.addAll(entities.getEntities());
+        }
+
+        if (entities.getReferredEntities() != null) {
+            allEntities.addAll(entities.getReferredEntities().values());
+        }
+
+        for (AtlasEntity entity : allEntities) {
+            String entityKey = getEntityKey(entity.getTypeName(), entity.getAttribute(ATTRIBUTE_QUALIFIED_NAME), entity.getGuid());
+
+            if (entityKey == null) {
+                return Collections.emptyMap();
+            }
+
+            ret.put(entityKey, entity);
+        }
+
+        return ret;
+    }
+
+    // attributes to be merged into later entities must not refer to entities by guids assigned in the superseded message
+    private static boolean canMergeSupersededEntities(Map<String, AtlasEntity> supersededEntities, Map<String, AtlasEntity> laterEntities) {
+        for (Map.Entry<String, AtlasEntity> entry : supersededEntities.entrySet()) {
+            AtlasEntity superseded = entry.getValue();
+            AtlasEntity later      = laterEntities.get(entry.getKey());
+
+            if (superseded == later) {
+                continue;
+            }
+
+            if (MapUtils.isNotEmpty(superseded.getAttributes())) {
+                for (Map.Entry<String, Object> attr : superseded.getAttributes().entrySet()) {
+                    if (!later.hasAttribute(attr.getKey()) && !later.hasRelationshipAttribute(attr.getKey()) && hasUnassignedGuidReference(attr.getValue())) {
+                        return false;
+                    }
+                }
+            }
+
+            if (MapUtils.isNotEmpty(superseded.getRelationshipAttributes())) {
+                for (Map.Entry<String, Object> attr : superseded.getRelationshipAttributes().entrySet()) {
+                    if (!later.hasAttribute(attr.getKey()) && !later.hasRelationshipAttribute(attr.getKey()) && hasUnassignedGuidReference(attr.getValue())) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // references by unique attributes or by assigned guids resolve the same in any message
+    private static boolean hasUnassignedGuidReference(Object value) {
+        if (value instanceof AtlasEntity) {
+            return true;
+        } else if (value instanceof AtlasObjectId) {
+            return AtlasTypeUtil.isUnAssignedGuid((AtlasObjectId) value);
+        } else if (value instanceof Map) {
+            Object guid = ((Map<?, ?>) value).get(KEY_GUID);
+
+            if (guid instanceof String && AtlasTypeUtil.isUnAssignedGuid((String) guid)) {
+                return true;
+            }
+
+            for (Object element : ((Map<?, ?>) value).values()) {
+                if (hasUnassignedGuidReference(element)) {
+                    return true;
+                }
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                if (hasUnassignedGuidReference(element)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // copies attributes of the superseded entity that are not present in the later entity, so that these are not lost by skipping the superseded message
+    private static void mergeSupersededEntity(AtlasEntity superseded, AtlasEntity later) {
+        if (superseded == later) {
+            return;
+        }
+
+        if (MapUtils.isNotEmpty(superseded.getAttributes())) {
+            for (Map.Entry<String, Object> entry : superseded.getAttributes().entrySet()) {
+                if (!later.hasAttribute(entry.getKey()) && !later.hasRelationshipAttribute(entry.getKey())) {
+                    later.setAttribute(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        if (MapUtils.isNotEmpty(superseded.getRelationshipAttributes())) {
+            for (Map.Entry<String, Object> entry : superseded.getRelationshipAttributes().entrySet()) {
+                if (!later.hasAttribute(entry.getKey()) && !later.hasRelationshipAttribute(entry.getKey())) {
+                    later.setRelationshipAttribute(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        if (later.getClassifications() == null) {
+            later.setClassifications(superseded.getClassifications());
+        }
+
+        if (later.getCustomAttributes() == null) {
+            later.setCustomAttributes(superseded.getCustomAttributes());
+        }
+
+        if (later.getLabels() == null) {
+            later.setLabels(superseded.getLabels());
+        }
+    }
+
+    /**
+     * Returns the number of entities in the given create/update message, including referred entities; 1 for other messages.
+     */
+    @VisibleForTesting
+    static int getMessageEntityCount(HookNotification message) {
+        final int ret;
+
+        switch (message.getType()) {
+            case ENTITY_CREATE_V2:
+            case ENTITY_FULL_UPDATE_V2: {
+                AtlasEntitiesWithExtInfo entities = message instanceof EntityCreateRequestV2 ? ((EntityCreateRequestV2) message).getEntities() : ((EntityUpdateRequestV2) message).getEntities();
+
+                ret = entities != null ? getEntityCount(entities) : 0;
+            }
+            break;
+
+            case ENTITY_CREATE:
+            case ENTITY_FULL_UPDATE: {
+                List<Referenceable> entities = ((EntityCreateRequest) message).getEntities();
+
+                ret = entities != null ? entities.size() : 0;
+            }
+            break;
+
+            default:
+                ret = 1;
+            break;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns entities in the given message, if the message can be merged with other messages; null otherwise.
+     * Entities that append/remove collection elements are not merged, as the result depends on the current value
+     * of the collections - hence on the order of processing.
+     */
+    private static AtlasEntitiesWithExtInfo getEntitiesToMerge(AtlasKafkaMessage<HookNotification> kafkaMsg) {
+        final HookNotification         message = kafkaMsg.getMessage();
+        final AtlasEntitiesWithExtInfo ret;
+
+        switch (message.getType()) {
+            case ENTITY_CREATE_V2:
+                ret = ((EntityCreateRequestV2) message).getEntities();
+            break;
+
+            case ENTITY_FULL_UPDATE_V2:
+                ret = ((EntityUpdateRequestV2) message).getEntities();
+            break;
+
+            default:
+                ret = null;
+            break;
+        }
+
+        return (ret != null && hasCollectionMutations(ret)) ? null : ret;
+    }
+
+    private static boolean hasCollectionMutations(AtlasEntitiesWithExtInfo entities) {
+        if (entities.getEntities() != null) {
+            for (AtlasEntity entity : entities.getEntities()) {
+                if (entity != null && entity.hasCollectionMutations()) {
+                    return true;
+                }
+            }
+        }
+
+        if (entities.getReferredEntities() != null) {
+            for (AtlasEntity entity : entities.getReferredEntities().values()) {
+                if (entity != null && entity.hasCollectionMutations()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static int getEntityCount(AtlasEntitiesWithExtInfo entities) {
+        return (entities.getEntities() != null ? entities.getEntities().size() : 0) + (entities.getReferredEntities() != null ? entities.getReferredEntities().size() : 0);
+    }
+
+    private void collectGuids(AtlasEntitiesWithExtInfo entities, Set<String> guids) {
+        if (entities.getEntities() != null) {
+            for (AtlasEntity entity : entities.getEntities()) {
+                guids.add(entity.getGuid());
+            }
+        }
+
+        if (entities.getReferredEntities() != null) {
+            guids.addAll(entities.getReferredEntities().keySet());
+        }
+    }
+
+    // guids assigned by hooks are unique only within a message; messages having same guids can't be merged
+    private boolean hasAnyGuid(AtlasEntitiesWithExtInfo entities, Set<String> guids) {
+        if (entities.getEntities() != null) {
+            for (AtlasEntity entity : entities.getEntities()) {
+                if (guids.contains(entity.getGuid())) {
+                    return true;
+                }
+            }
+        }
+
+        if (entities.getReferredEntities() != null) {
+            for (String guid : entities.getReferredEntities().keySet()) {
+                if (guids.contains(guid)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private void collectEntityKeys(AtlasEntitiesWithExtInfo entities, Set<String> entityKeys) {
+        if (entities.getEntities() != null) {
+            for (AtlasEntity entity : entities.getEntities()) {
+                addEntityKey(getUniqueEntityKey(entity), entityKeys);
+            }
+        }
+
+        if (entities.getReferredEntities() != null) {
+            for (AtlasEntity entity : entities.getReferredEntities().values()) {
+                addEntityKey(getUniqueEntityKey(entity), entityKeys);
+            }
+        }
+    }
+
+    // the same entity in different messages has different guids when it is new; messages having the same entity can't be merged
+    private boolean hasAnyEntityKey(AtlasEntitiesWithExtInfo entities, Set<String> entityKeys) {
+        if (entities.getEntities() != null) {
+            for (AtlasEntity entity : entities.getEntities()) {
+                String entityKey = getUniqueEntityKey(entity);
+
+                if (entityKey != null && entityKeys.contains(entityKey)) {
+                    return true;
+                }
+            }
+        }
+
+        if (entities.getReferredEntities() != null) {
+            for (AtlasEntity entity : entities.getReferredEntities().values()) {
+                String entityKey = getUniqueEntityKey(entity);
+
+                if (entityKey != null && entityKeys.contains(entityKey)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // typeName:qualifiedName of the entity; null if the entity doesn't have qualifiedName
+    private static String getUniqueEntityKey(AtlasEntity entity) {
+        Object qualifiedName = entity != null ? entity.getAttribute(ATTRIBUTE_QUALIFIED_NAME) : null;
+
+        return qualifiedName != null ? getEntityKey(entity.getTypeName(), qualifiedName, null) : null;
+    }
+
     private void recordProcessedEntities(EntityMutationResponse mutationResponse, NotificationStat stats, PreprocessorContext context) {
         if (mutationResponse != null) {
             if (stats != null) {
@@ -1225,23 +2319,84 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         }
     }
 
+    private static class LaterEntities {
+        private final Map<String, AtlasEntity>                         entities = new HashMap<>(); // by entity key
+        private final Map<String, AtlasKafkaMessage<HookNotification>> messages = new HashMap<>(); // message having the entity, by entity key
+    }
+
+    private static class SupersededMessage {
+        private final AtlasKafkaMessage<HookNotification> kafkaMsg;
+        private       int                                 pendingLaterMessages;
+
+        SupersededMessage(AtlasKafkaMessage<HookNotification> kafkaMsg, int pendingLaterMessages) {
+            this.kafkaMsg             = kafkaMsg;
+            this.pendingLaterMessages = pendingLaterMessages;
+        }
+    }
+
+    // messages in progress for an entity, and the worker they are processed in
+    private static class InFlightEntity {
+        private final boolean isLarge;
+        private final int     workerIdx;
+        private       int     count;
+
+        InFlightEntity(boolean isLarge, int workerIdx) {
+            this.isLarge   = isLarge;
+            this.workerIdx = workerIdx;
+        }
+
+        boolean isSameWorker(InFlightEntity other) {
+            return isLarge == other.isLarge && workerIdx == other.workerIdx;
+        }
+    }
+
+    /**
+     * Records offsets of messages that were processed, but whose offsets failed to be committed - i.e. messages from
+     * the offset last committed successfully up to the message whose commit failed - so that these messages are not
+     * processed again when replayed.
+     */
     static class FailedCommitOffsetRecorder {
         private Long currentOffset;
+        private Long committedOffset;
 
         public void recordIfFailed(boolean commitStatus, long offset) {
-            if(commitStatus) {
-                currentOffset = null;
+            recordIfFailed(commitStatus, offset, null);
+        }
+
+        /**
+         * @param committedOffset offset last committed successfully - the offset of the first message processed after
+         *                        the last successful commit; null if not known, in which case only the given message is
+         *                        considered processed
+         */
+        public void recordIfFailed(boolean commitStatus, long offset, Long committedOffset) {
+            if (commitStatus) {
+                // replayed messages before the failed one are committed one at a time; retain the record until all are replayed
+                if (currentOffset == null || offset >= currentOffset) {
+                    this.currentOffset   = null;
+                    this.committedOffset = null;
+                }
             } else {
-                currentOffset = offset;
+                this.currentOffset   = offset;
+                this.committedOffset = committedOffset;
             }
         }
 
         public boolean isMessageReplayed(long offset) {
-            return currentOffset != null && currentOffset == offset;
+            if (currentOffset == null) {
+                return false;
+            } else if (committedOffset == null) {
+                return currentOffset == offset;
+            } else {
+                return offset >= committedOffset && offset <= currentOffset;
+            }
         }
 
         public Long getCurrentOffset() {
             return currentOffset;
         }
+
+        public Long getCommittedOffset() {
+            return committedOffset;
+        }
     }
 }
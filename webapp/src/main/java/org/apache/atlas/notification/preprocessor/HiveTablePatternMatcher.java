@@ -0,0 +1,267 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification.preprocessor;
+
+import org.apache.atlas.notification.preprocessor.PreprocessorContext.PreprocessAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches hive table qualifiedNames against the configured ignore/prune patterns.
+ *
+ * Patterns that are a literal name, or a literal prefix followed by ".*", are matched with a prefix trie, in a single
+ * pass over the name independent of the number of such patterns. Remaining patterns are combined into a single
+ * alternation, so that each name is matched with one regex evaluation. Results are cached in a bounded map that is
+ * safe to share across consumer threads.
+ */
+public class HiveTablePatternMatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(HiveTablePatternMatcher.class);
+
+    private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+    private static final String MATCH_ANY_SUFFIX = ".*";
+
+    private final CompiledPatterns              tablesToIgnore;
+    private final CompiledPatterns              tablesToPrune;
+    private final int                           maxCacheSize;
+    private final Map<String, PreprocessAction> cache;
+
+    public HiveTablePatternMatcher(List<Pattern> tablesToIgnore, List<Pattern> tablesToPrune, int maxCacheSize) {
+        this.tablesToIgnore = new CompiledPatterns(tablesToIgnore);
+        this.tablesToPrune  = new CompiledPatterns(tablesToPrune);
+        this.maxCacheSize   = maxCacheSize;
+        this.cache          = (this.tablesToIgnore.isEmpty() && this.tablesToPrune.isEmpty()) ? Collections.emptyMap() : new ConcurrentHashMap<>();
+
+        LOG.info("HiveTablePatternMatcher(ignore: {}, prune: {}, maxCacheSize={})", this.tablesToIgnore, this.tablesToPrune, maxCacheSize);
+    }
+
+    public boolean isEmpty() {
+        return tablesToIgnore.isEmpty() && tablesToPrune.isEmpty();
+    }
+
+    public PreprocessAction getPreprocessAction(String qualifiedName) {
+        if (qualifiedName == null || isEmpty()) {
+            return PreprocessAction.NONE;
+        }
+
+        PreprocessAction ret = cache.get(qualifiedName);
+
+        if (ret == null) {
+            if (tablesToIgnore.matches(qualifiedName)) {
+                ret = PreprocessAction.IGNORE;
+            } else if (tablesToPrune.matches(qualifiedName)) {
+                ret = PreprocessAction.PRUNE;
+            } else {
+                ret = PreprocessAction.NONE;
+            }
+
+            if (cache.size() >= maxCacheSize) { // cheaper than tracking access order; the cache refills with the names seen most
+                cache.clear();
+            }
+
+            cache.put(qualifiedName, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the literal string matched by the given regex, if it has no special characters other than escaped ones.
+     */
+    static String getLiteral(String regex) {
+        StringBuilder sb = new StringBuilder(regex.length());
+
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+
+            if (c == '\\') {
+                if (i + 1 < regex.length() && REGEX_META_CHARS.indexOf(regex.charAt(i + 1)) != -1) {
+                    sb.append(regex.charAt(++i));
+                } else { // escapes like \d, \Q
+                    return null;
+                }
+            } else if (REGEX_META_CHARS.indexOf(c) != -1) {
+                return null;
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static class CompiledPatterns {
+        private final TrieNode      trie            = new TrieNode();
+        private final List<Pattern> patterns        = new ArrayList<>();
+        private       Pattern       combinedPattern = null;
+        private       int           trieEntryCount  = 0;
+
+        CompiledPatterns(List<Pattern> patterns) {
+            List<Pattern> toCombine = new ArrayList<>();
+
+            for (Pattern pattern : patterns) {
+                String regex = pattern.pattern();
+
+                if (pattern.flags() == 0 && addToTrie(regex)) {
+                    trieEntryCount++;
+                } else if (pattern.flags() == 0 && !hasBackReference(regex)) {
+                    toCombine.add(pattern);
+                } else {
+                    this.patterns.add(pattern);
+                }
+            }
+
+            if (toCombine.size() == 1) {
+                this.patterns.add(toCombine.get(0));
+            } else if (toCombine.size() > 1) {
+                StringBuilder sb = new StringBuilder();
+
+                for (Pattern pattern : toCombine) {
+                    if (sb.length() > 0) {
+                        sb.append('|');
+                    }
+
+                    sb.append("(?:").append(pattern.pattern()).append(')');
+                }
+
+                try {
+                    combinedPattern = Pattern.compile(sb.toString());
+                } catch (PatternSyntaxException excp) { // for example, duplicate group names across patterns
+                    LOG.warn("failed to combine patterns; they will be matched individually", excp);
+
+                    this.patterns.addAll(toCombine);
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return trieEntryCount == 0 && combinedPattern == null && patterns.isEmpty();
+        }
+
+        boolean matches(String name) {
+            if (trieEntryCount > 0 && trie.matches(name)) {
+                return true;
+            }
+
+            if (combinedPattern != null && combinedPattern.matcher(name).matches()) {
+                return true;
+            }
+
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(name).matches()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private boolean addToTrie(String regex) {
+            final boolean isPrefix = regex.endsWith(MATCH_ANY_SUFFIX) && !regex.endsWith("\\" + MATCH_ANY_SUFFIX);
+            final String  literal  = getLiteral(isPrefix ? regex.substring(0, regex.length() - MATCH_ANY_SUFFIX.length()) : regex);
+
+            if (literal == null) {
+                return false;
+            }
+
+            trie.add(literal, isPrefix);
+
+            return true;
+        }
+
+        private static boolean hasBackReference(String regex) {
+            for (int i = 0; i < regex.length() - 1; i++) {
+                if (regex.charAt(i) == '\\') {
+                    char next = regex.charAt(i + 1);
+
+                    if (Character.isDigit(next) || next == 'k') {
+                        return true;
+                    }
+
+                    i++;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "trieEntries=" + trieEntryCount + ", combinedPattern=" + (combinedPattern != null) + ", individualPatterns=" + patterns.size();
+        }
+    }
+
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private       boolean                  isExactMatch;
+        private       boolean                  isPrefixMatch;
+
+        void add(String literal, boolean isPrefix) {
+            TrieNode node = this;
+
+            for (int i = 0; i < literal.length(); i++) {
+                node = node.children.computeIfAbsent(literal.charAt(i), c -> new TrieNode());
+            }
+
+            if (isPrefix) {
+                node.isPrefixMatch = true;
+            } else {
+                node.isExactMatch = true;
+            }
+        }
+
+        boolean matches(String name) {
+            TrieNode node = this;
+
+            for (int i = 0; i < name.length(); i++) {
+                if (node.isPrefixMatch && !hasLineTerminator(name, i)) {
+                    return true;
+                }
+
+                node = node.children.get(name.charAt(i));
+
+                if (node == null) {
+                    return false;
+                }
+            }
+
+            return node.isExactMatch || node.isPrefixMatch;
+        }
+
+        // '.*' doesn't match line terminators, unless DOTALL flag is specified
+        private static boolean hasLineTerminator(String name, int fromIndex) {
+            for (int i = fromIndex; i < name.length(); i++) {
+                char c = name.charAt(i);
+
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -38,7 +38,6 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 import static org.apache.atlas.model.instance.AtlasObjectId.KEY_GUID;
 import static org.apache.atlas.notification.preprocessor.EntityPreprocessor.QNAME_SEP_CLUSTER_NAME;
@@ -53,9 +52,7 @@ public class PreprocessorContext {
     private final AtlasKafkaMessage<HookNotification> kafkaMessage;
     private final AtlasTypeRegistry                   typeRegistry;
     private final AtlasEntitiesWithExtInfo            entitiesWithExtInfo;
-    private final List<Pattern>                       hiveTablesToIgnore;
-    private final List<Pattern>                       hiveTablesToPrune;
-    private final Map<String, PreprocessAction>       hiveTablesCache;
+    private final HiveTablePatternMatcher             hiveTablesMatcher;
     private final List<String>                        hiveDummyDatabasesToIgnore;
     private final List<String>                        hiveDummyTablesToIgnore;
     private final List<String>                        hiveTablePrefixesToIgnore;
@@ -70,12 +67,10 @@ public class PreprocessorContext {
     private final Map<String, String>                 guidAssignments        = new HashMap<>();
     private       List<AtlasEntity>                   postUpdateEntities     = null;
 
-    public PreprocessorContext(AtlasKafkaMessage<HookNotification> kafkaMessage, AtlasTypeRegistry typeRegistry, List<Pattern> hiveTablesToIgnore, List<Pattern> hiveTablesToPrune, Map<String, PreprocessAction> hiveTablesCache, List<String> hiveDummyDatabasesToIgnore, List<String> hiveDummyTablesToIgnore, List<String> hiveTablePrefixesToIgnore, boolean hiveTypesRemoveOwnedRefAttrs, boolean rdbmsTypesRemoveOwnedRefAttrs) {
+    public PreprocessorContext(AtlasKafkaMessage<HookNotification> kafkaMessage, AtlasTypeRegistry typeRegistry, HiveTablePatternMatcher hiveTablesMatcher, List<String> hiveDummyDatabasesToIgnore, List<String> hiveDummyTablesToIgnore, List<String> hiveTablePrefixesToIgnore, boolean hiveTypesRemoveOwnedRefAttrs, boolean rdbmsTypesRemoveOwnedRefAttrs) {
         this.kafkaMessage                  = kafkaMessage;
         this.typeRegistry                  = typeRegistry;
-        this.hiveTablesToIgnore            = hiveTablesToIgnore;
-        this.hiveTablesToPrune             = hiveTablesToPrune;
-        this.hiveTablesCache               = hiveTablesCache;
+        this.hiveTablesMatcher             = hiveTablesMatcher;
         this.hiveDummyDatabasesToIgnore    = hiveDummyDatabasesToIgnore;
         this.hiveDummyTablesToIgnore       = hiveDummyTablesToIgnore;
         this.hiveTablePrefixesToIgnore     = hiveTablePrefixesToIgnore;
@@ -98,7 +93,7 @@ public class PreprocessorContext {
             break;
         }
 
-        this.isHivePreProcessEnabled = hiveTypesRemoveOwnedRefAttrs || !hiveTablesToIgnore.isEmpty() || !hiveTablesToPrune.isEmpty() || !hiveDummyDatabasesToIgnore.isEmpty() || !hiveDummyTablesToIgnore.isEmpty() || !hiveTablePrefixesToIgnore.isEmpty();
+        this.isHivePreProcessEnabled = hiveTypesRemoveOwnedRefAttrs || !hiveTablesMatcher.isEmpty() || !hiveDummyDatabasesToIgnore.isEmpty() || !hiveDummyTablesToIgnore.isEmpty() || !hiveTablePrefixesToIgnore.isEmpty();
     }
 
     public AtlasKafkaMessage<HookNotification> getKafkaMessage() {
@@ -173,21 +168,7 @@ public class PreprocessorContext {
         PreprocessAction ret = PreprocessAction.NONE;
 
         if (qualifiedName != null) {
-            if (CollectionUtils.isNotEmpty(hiveTablesToIgnore) || CollectionUtils.isNotEmpty(hiveTablesToPrune)) {
-                ret = hiveTablesCache.get(qualifiedName);
-
-                if (ret == null) {
-                    if (isMatch(qualifiedName, hiveTablesToIgnore)) {
-                        ret = PreprocessAction.IGNORE;
-                    } else if (isMatch(qualifiedName, hiveTablesToPrune)) {
-                        ret = PreprocessAction.PRUNE;
-                    } else {
-                        ret = PreprocessAction.NONE;
-                    }
-
-                    hiveTablesCache.put(qualifiedName, ret);
-                }
-            }
+            ret = hiveTablesMatcher.getPreprocessAction(qualifiedName);
 
             if (ret != PreprocessAction.IGNORE && (CollectionUtils.isNotEmpty(hiveDummyTablesToIgnore) || CollectionUtils.isNotEmpty(hiveTablePrefixesToIgnore))) {
                 String tblName = getHiveTableNameFromQualifiedName(qualifiedName);
@@ -473,20 +454,6 @@ public class PreprocessorContext {
     }
 
 
-    private boolean isMatch(String name, List<Pattern> patterns) {
-        boolean ret = false;
-
-        for (Pattern p : patterns) {
-            if (p.matcher(name).matches()) {
-                ret = true;
-
-                break;
-            }
-        }
-
-        return ret;
-    }
-
     private AtlasRelatedObjectId setRelationshipType(Object attr, String relationshipType) {
         AtlasRelatedObjectId ret = null;
 
@@ -39,6 +39,7 @@ import org.apache.atlas.model.instance.AtlasCheckStateRequest;
 import org.apache.atlas.model.instance.AtlasCheckStateResult;
 import org.apache.atlas.model.metrics.AtlasMetrics;
 import org.apache.atlas.model.patches.AtlasPatch.AtlasPatches;
+import org.apache.atlas.model.tasks.AtlasTask;
 import org.apache.atlas.repository.impexp.AtlasServerService;
 import org.apache.atlas.repository.impexp.ExportImportAuditService;
 import org.apache.atlas.repository.impexp.ExportService;
@@ -48,6 +49,7 @@ import org.apache.atlas.repository.impexp.ZipSink;
 import org.apache.atlas.repository.patches.AtlasPatchManager;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
 import org.apache.atlas.services.MetricsService;
+import org.apache.atlas.tasks.TaskManagement;
 import org.apache.atlas.type.AtlasType;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.util.SearchTracker;
@@ -138,6 +140,7 @@ public class AdminResource {
     private final  AtlasServerService       atlasServerService;
     private final  AtlasEntityStore         entityStore;
     private final  AtlasPatchManager        patchManager;
+    private final  TaskManagement           taskManagement;
 
     static {
         try {
@@ -153,7 +156,7 @@ public class AdminResource {
                          MigrationProgressService migrationProgressService,
                          AtlasServerService serverService,
                          ExportImportAuditService exportImportAuditService, AtlasEntityStore entityStore,
-                         AtlasPatchManager patchManager) {
+                         AtlasPatchManager patchManager, TaskManagement taskManagement) {
         this.serviceState              = serviceState;
         this.metricsService            = metricsService;
         this.exportService             = exportService;
@@ -166,6 +169,7 @@ public class AdminResource {
         this.exportImportAuditService  = exportImportAuditService;
         this.importExportOperationLock = new ReentrantLock();
         this.patchManager              = patchManager;
+        this.taskManagement            = taskManagement;
     }
 
     /**
@@ -574,6 +578,51 @@ public class AdminResource {
         return ret;
     }
 
+    @GET
+    @Path("/tasks")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public List<AtlasTask> getTasks(@QueryParam("status") AtlasTask.Status status,
+                                    @DefaultValue("0") @QueryParam("offset") int offset,
+                                    @DefaultValue("100") @QueryParam("limit") int limit) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> AdminResource.getTasks({}, offset={}, limit={})", status, offset, limit);
+        }
+
+        List<AtlasTask> ret = taskManagement.getTasks(status, offset, Math.max(limit, 1));
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== AdminResource.getTasks({}, offset={}, limit={}): {} tasks", status, offset, limit, ret.size());
+        }
+
+        return ret;
+    }
+
+    @GET
+    @Path("/tasks/{guid}")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public AtlasTask getTask(@PathParam("guid") String guid) throws AtlasBaseException {
+        return taskManagement.getTask(guid);
+    }
+
+    @POST
+    @Path("/tasks/{guid}/retry")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public AtlasTask retryTask(@PathParam("guid") String guid) throws AtlasBaseException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> AdminResource.retryTask({})", guid);
+        }
+
+        AtlasAuthorizationUtils.verifyAccess(new AtlasAdminAccessRequest(AtlasPrivilege.ADMIN_TASKS), "retryTask");
+
+        AtlasTask ret = taskManagement.retry(guid);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== AdminResource.retryTask({})", guid);
+        }
+
+        return ret;
+    }
+
     private String getEditableEntityTypes(Configuration config) {
         String ret = DEFAULT_EDITABLE_ENTITY_TYPES;
 
@@ -22,11 +22,15 @@ import org.apache.atlas.EntityAuditEvent;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.TypeCategory;
 import org.apache.atlas.model.audit.EntityAuditEventV2;
+import org.apache.atlas.model.instance.AtlasBulkIngestJob;
 import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.AtlasEntityHeaders;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.AtlasPropagationImpact;
 import org.apache.atlas.model.instance.ClassificationAssociateRequest;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.model.typedef.AtlasStructDef.AtlasAttributeDef;
@@ -35,10 +39,12 @@ import org.apache.atlas.repository.store.graph.v2.ClassificationAssociator;
 import org.apache.atlas.repository.converters.AtlasInstanceConverter;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
 import org.apache.atlas.repository.store.graph.v2.AtlasEntityStream;
+import org.apache.atlas.repository.store.graph.v2.EntityBulkIngestor;
 import org.apache.atlas.repository.store.graph.v2.EntityStream;
 import org.apache.atlas.type.AtlasClassificationType;
 import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.type.AtlasTypeUtil;
 import org.apache.atlas.utils.AtlasPerfTracer;
 import org.apache.atlas.web.util.Servlets;
 import org.apache.commons.collections.CollectionUtils;
@@ -55,6 +61,7 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -62,6 +69,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -90,14 +98,17 @@ public class EntityREST {
     private final AtlasEntityStore       entitiesStore;
     private final EntityAuditRepository  auditRepository;
     private final AtlasInstanceConverter instanceConverter;
+    private final EntityBulkIngestor     bulkIngestor;
 
     @Inject
     public EntityREST(AtlasTypeRegistry typeRegistry, AtlasEntityStore entitiesStore,
-                      EntityAuditRepository auditRepository, AtlasInstanceConverter instanceConverter) {
+                      EntityAuditRepository auditRepository, AtlasInstanceConverter instanceConverter,
+                      EntityBulkIngestor bulkIngestor) {
         this.typeRegistry      = typeRegistry;
         this.entitiesStore     = entitiesStore;
         this.auditRepository   = auditRepository;
         this.instanceConverter = instanceConverter;
+        this.bulkIngestor      = bulkIngestor;
     }
 
     /**
@@ -213,7 +224,8 @@ public class EntityREST {
     @Path("/uniqueAttribute/type/{typeName}")
     public EntityMutationResponse partialUpdateEntityByUniqueAttrs(@PathParam("typeName") String typeName,
                                                                    @Context HttpServletRequest servletRequest,
-                                                                   AtlasEntityWithExtInfo entityInfo) throws Exception {
+                                                                   AtlasEntityWithExtInfo entityInfo,
+                                                                   @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) throws Exception {
         Servlets.validateQueryParamLength("typeName", typeName);
 
         AtlasPerfTracer perf = null;
@@ -229,7 +241,7 @@ public class EntityREST {
 
             validateUniqueAttribute(entityType, uniqueAttributes);
 
-            return entitiesStore.updateByUniqueAttributes(entityType, uniqueAttributes, entityInfo);
+            return entitiesStore.updateByUniqueAttributes(entityType, uniqueAttributes, entityInfo, getExpectedVersion(ifMatch));
         } finally {
             AtlasPerfTracer.log(perf);
         }
@@ -255,7 +267,8 @@ public class EntityREST {
     @DELETE
     @Path("/uniqueAttribute/type/{typeName}")
     public EntityMutationResponse deleteByUniqueAttribute(@PathParam("typeName") String typeName,
-                                                          @Context HttpServletRequest servletRequest) throws AtlasBaseException {
+                                                          @Context HttpServletRequest servletRequest,
+                                                          @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) throws AtlasBaseException {
         Servlets.validateQueryParamLength("typeName", typeName);
 
         AtlasPerfTracer perf = null;
@@ -269,7 +282,7 @@ public class EntityREST {
 
             AtlasEntityType entityType = ensureEntityType(typeName);
 
-            return entitiesStore.deleteByUniqueAttributes(entityType, attributes);
+            return entitiesStore.deleteByUniqueAttributes(entityType, attributes, getExpectedVersion(ifMatch));
         } finally {
             AtlasPerfTracer.log(perf);
         }
@@ -278,12 +291,15 @@ public class EntityREST {
     /**
      * Create new entity or update existing entity in Atlas.
      * Existing entity is matched using its unique guid if supplied or by its unique attributes eg: qualifiedName
+     *
+     * With If-Match header, the entity is updated only if its version is the given value; the entity must be
+     * identified by its guid.
      * @param entity
      * @return EntityMutationResponse
      * @throws AtlasBaseException
      */
     @POST
-    public EntityMutationResponse createOrUpdate(AtlasEntityWithExtInfo entity) throws AtlasBaseException {
+    public EntityMutationResponse createOrUpdate(AtlasEntityWithExtInfo entity, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) throws AtlasBaseException {
         AtlasPerfTracer perf = null;
 
         try {
@@ -291,6 +307,18 @@ public class EntityREST {
                 perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityREST.createOrUpdate()");
             }
 
+            Long expectedVersion = getExpectedVersion(ifMatch);
+
+            if (expectedVersion != null) {
+                if (entity == null || entity.getEntity() == null || !AtlasTypeUtil.isAssignedGuid(entity.getEntity().getGuid())) {
+                    throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, HttpHeaders.IF_MATCH + " header requires the entity to be identified by guid");
+                }
+
+                AtlasEntity updatedEntity = entity.getEntity();
+
+                return entitiesStore.updateEntity(new AtlasObjectId(updatedEntity.getGuid(), updatedEntity.getTypeName()), entity, false, expectedVersion);
+            }
+
             return entitiesStore.createOrUpdate(new AtlasEntityStream(entity), false);
         } finally {
             AtlasPerfTracer.log(perf);
@@ -307,7 +335,8 @@ public class EntityREST {
     @Path("/guid/{guid}")
     public EntityMutationResponse partialUpdateEntityAttrByGuid(@PathParam("guid") String guid,
                                                                 @QueryParam("name") String attrName,
-                                                                Object attrValue) throws Exception {
+                                                                Object attrValue,
+                                                                @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) throws Exception {
         Servlets.validateQueryParamLength("guid", guid);
         Servlets.validateQueryParamLength("name", attrName);
 
@@ -318,7 +347,7 @@ public class EntityREST {
                 perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityREST.partialUpdateEntityAttrByGuid(" + guid + "," + attrName + ")");
             }
 
-            return entitiesStore.updateEntityAttributeByGuid(guid, attrName, attrValue);
+            return entitiesStore.updateEntityAttributeByGuid(guid, attrName, attrValue, getExpectedVersion(ifMatch));
         } finally {
             AtlasPerfTracer.log(perf);
         }
@@ -327,11 +356,12 @@ public class EntityREST {
     /**
      * Delete an entity identified by its GUID.
      * @param  guid GUID for the entity
+     * @param  ifMatch if specified, the entity is deleted only if its version is the given value
      * @return EntityMutationResponse
      */
     @DELETE
     @Path("/guid/{guid}")
-    public EntityMutationResponse deleteByGuid(@PathParam("guid") final String guid) throws AtlasBaseException {
+    public EntityMutationResponse deleteByGuid(@PathParam("guid") final String guid, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) throws AtlasBaseException {
         Servlets.validateQueryParamLength("guid", guid);
 
         AtlasPerfTracer perf = null;
@@ -341,7 +371,7 @@ public class EntityREST {
                 perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityREST.deleteByGuid(" + guid + ")");
             }
 
-            return entitiesStore.deleteById(guid);
+            return entitiesStore.deleteById(guid, getExpectedVersion(ifMatch));
         } finally {
             AtlasPerfTracer.log(perf);
         }
@@ -459,6 +489,43 @@ public class EntityREST {
         }
     }
 
+    /**
+     * Estimates the entities a classification would propagate to, if added to an existing entity. Nothing is updated.
+     * @param guid globally unique identifier for the entity
+     * @param classificationName name of the classification
+     * @param maxEntities max impacted entities to count; 0 or above the server limit uses the server limit
+     * @param timeoutMs time budget for the estimate; 0 or above the server limit uses the server limit
+     * @param sampleSize number of impacted entities to return; entities the user is not authorized to read are left out
+     * @return number of impacted entities, by type and in total; status indicates whether counting stopped early
+     */
+    @GET
+    @Path("/guid/{guid}/classification/{classificationName}/propagationImpact")
+    public AtlasPropagationImpact getPropagationImpact(@PathParam("guid") String guid, @PathParam("classificationName") final String classificationName,
+                                                      @QueryParam("maxEntities") @DefaultValue("0") int maxEntities,
+                                                      @QueryParam("timeoutMs") @DefaultValue("0") long timeoutMs,
+                                                      @QueryParam("sampleSize") @DefaultValue("0") int sampleSize) throws AtlasBaseException {
+        Servlets.validateQueryParamLength("guid", guid);
+        Servlets.validateQueryParamLength("classificationName", classificationName);
+
+        AtlasPerfTracer perf = null;
+
+        try {
+            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityREST.getPropagationImpact(" + guid + "," + classificationName + ")");
+            }
+
+            if (StringUtils.isEmpty(guid)) {
+                throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, guid);
+            }
+
+            ensureClassificationType(classificationName);
+
+            return entitiesStore.getPropagationImpact(guid, classificationName, maxEntities, timeoutMs, sampleSize);
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
     /**
      * Updates classification on an entity identified by its type and unique attributes.
      * @param  typeName
@@ -686,6 +753,54 @@ public class EntityREST {
         }
     }
 
+    /**
+     * Bulk API to create new entities or update existing entities in Atlas, in chunks that are committed in separate
+     * transactions. Entities are ordered such that referenced entities are committed first. The entities are processed
+     * in the background; progress of the job can be retrieved using the returned jobId.
+     * @param chunkSize number of entities to commit in each transaction; server default is used if not specified
+     * @return the job submitted
+     */
+    @POST
+    @Path("/bulk/ingest")
+    public AtlasBulkIngestJob submitBulkIngest(AtlasEntitiesWithExtInfo entities, @QueryParam("chunkSize") @DefaultValue("0") int chunkSize) throws AtlasBaseException {
+        AtlasPerfTracer perf = null;
+
+        try {
+            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityREST.submitBulkIngest(entityCount=" +
+                                                               (entities == null || CollectionUtils.isEmpty(entities.getEntities()) ? 0 : entities.getEntities().size()) + ", chunkSize=" + chunkSize + ")");
+            }
+
+            return bulkIngestor.submit(entities, chunkSize);
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
+    /**
+     * Get progress of a bulk-ingest job, including results of each chunk. Guids assigned to the entities committed are
+     * included once the job is completed or failed. Completed and failed jobs are available for
+     * atlas.entity.bulk.ingest.job.ttl.ms after they end.
+     */
+    @GET
+    @Path("/bulk/ingest/{jobId}")
+    public AtlasBulkIngestJob getBulkIngestJob(@PathParam("jobId") String jobId) throws AtlasBaseException {
+        Servlets.validateQueryParamLength("jobId", jobId);
+
+        return bulkIngestor.getJob(jobId);
+    }
+
+    /**
+     * Resume a failed bulk-ingest job, from the chunk that failed.
+     */
+    @POST
+    @Path("/bulk/ingest/{jobId}/resume")
+    public AtlasBulkIngestJob resumeBulkIngestJob(@PathParam("jobId") String jobId) throws AtlasBaseException {
+        Servlets.validateQueryParamLength("jobId", jobId);
+
+        return bulkIngestor.resume(jobId);
+    }
+
     /**
      * Bulk API to delete list of entities identified by its GUIDs
      */
@@ -933,4 +1048,25 @@ public class EntityREST {
             }
         }
     }
+
+    /**
+     * Returns the version given in If-Match header - as in AtlasEntity.version, which is incremented on every modification
+     * of the entity. The value can be quoted, as an entity-tag; null if the header is not given or is "*".
+     */
+    private static Long getExpectedVersion(String ifMatch) throws AtlasBaseException {
+        String value = StringUtils.trim(ifMatch);
+
+        if (StringUtils.isEmpty(value) || value.equals("*")) {
+            return null;
+        }
+
+        value = StringUtils.removeStart(value, "W/");
+        value = StringUtils.removeEnd(StringUtils.removeStart(value, "\""), "\"");
+
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException excp) {
+            throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, "invalid " + HttpHeaders.IF_MATCH + " header: " + ifMatch + ". Expected version of the entity");
+        }
+    }
 }
@@ -17,14 +17,21 @@
  */
 package org.apache.atlas.notification;
 
+import org.apache.atlas.ApplicationProperties;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.AtlasServiceException;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.ha.HAConfiguration;
 import org.apache.atlas.kafka.AtlasKafkaMessage;
 import org.apache.atlas.kafka.KafkaNotification;
+import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
 import org.apache.atlas.model.instance.EntityMutationResponse;
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.model.notification.HookNotification.EntityCreateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityDeleteRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityUpdateRequestV2;
 import org.apache.atlas.model.notification.HookNotification.HookNotificationType;
 import org.apache.atlas.notification.NotificationInterface.NotificationType;
 import org.apache.atlas.util.AtlasMetricsUtil;
@@ -35,6 +42,7 @@ import org.apache.atlas.repository.store.graph.AtlasEntityStore;
 import org.apache.atlas.repository.store.graph.v2.EntityStream;
 import org.apache.atlas.type.AtlasType;
 import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.type.AtlasTypeUtil;
 import org.apache.atlas.web.service.ServiceState;
 import org.apache.commons.configuration.Configuration;
 import org.apache.kafka.common.TopicPartition;
@@ -48,11 +56,17 @@ import org.testng.annotations.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 public class NotificationHookConsumerTest {
@@ -320,6 +334,293 @@ public class NotificationHookConsumerTest {
         assertFalse(notificationHookConsumer.consumers.get(0).isAlive());
     }
 
+    @Test
+    public void testEntityKeyIsSameForMessagesOfSameEntity() {
+        AtlasEntity table1 = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+        AtlasEntity table2 = new AtlasEntity("hive_table", "qualifiedName", "db1.table2@cl1");
+
+        HookNotification createTable1 = new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(table1));
+        HookNotification createTable2 = new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(table2));
+        HookNotification deleteTable1 = new EntityDeleteRequestV2("user", Collections.singletonList(new AtlasObjectId("hive_table", "qualifiedName", "db1.table1@cl1")));
+
+        Set<String> createTable1Keys = NotificationHookConsumer.getMessageEntityKeys(new AtlasKafkaMessage(createTable1, 1, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        Set<String> createTable2Keys = NotificationHookConsumer.getMessageEntityKeys(new AtlasKafkaMessage(createTable2, 2, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        Set<String> deleteTable1Keys = NotificationHookConsumer.getMessageEntityKeys(new AtlasKafkaMessage(deleteTable1, 3, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+
+        assertEquals(createTable1Keys, deleteTable1Keys);
+        assertNotEquals(createTable1Keys, createTable2Keys);
+    }
+
+    @Test
+    public void testEntityKeysIncludeAllEntitiesInMessage() {
+        AtlasEntity table   = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+        AtlasEntity column  = new AtlasEntity("hive_column", "qualifiedName", "db1.table1.col1@cl1");
+        AtlasEntity process = new AtlasEntity("hive_process", "qualifiedName", "query1@cl1");
+
+        table.setAttribute("db", new AtlasObjectId("hive_db", "qualifiedName", "db1@cl1"));
+        process.setRelationshipAttribute("inputs", Collections.singletonList(new AtlasObjectId("hive_table", "qualifiedName", "db1.table0@cl1")));
+
+        AtlasEntitiesWithExtInfo entities = new AtlasEntitiesWithExtInfo(Arrays.asList(process, table));
+
+        entities.addReferredEntity(column);
+
+        Set<String> keys = NotificationHookConsumer.getMessageEntityKeys(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", entities), 1, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+
+        assertEquals(keys.iterator().next(), "hive_process:query1@cl1");
+        assertEquals(keys, new HashSet<>(Arrays.asList("hive_process:query1@cl1", "hive_table:db1.table0@cl1", "hive_table:db1.table1@cl1", "hive_db:db1@cl1", "hive_column:db1.table1.col1@cl1")));
+    }
+
+    @Test
+    public void testMessageEntityCount() {
+        AtlasEntity              table    = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+        AtlasEntitiesWithExtInfo entities = new AtlasEntitiesWithExtInfo(table);
+
+        entities.addReferredEntity(new AtlasEntity("hive_db", "qualifiedName", "db1@cl1"));
+        entities.addReferredEntity(new AtlasEntity("hive_column", "qualifiedName", "db1.table1.col1@cl1"));
+
+        assertEquals(NotificationHookConsumer.getMessageEntityCount(new EntityCreateRequestV2("user", entities)), 3);
+        assertEquals(NotificationHookConsumer.getMessageEntityCount(new EntityDeleteRequestV2("user", Collections.singletonList(new AtlasObjectId("hive_table", "qualifiedName", "db1.table1@cl1")))), 1);
+    }
+
+    @Test
+    public void testSupersededFullUpdatesAreSkipped() {
+        AtlasEntity table1 = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+        AtlasEntity table2 = new AtlasEntity("hive_table", "qualifiedName", "db1.table2@cl1");
+
+        List<AtlasKafkaMessage<HookNotification>> messages = new ArrayList<>();
+
+        messages.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(table1)), 1, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(table1)), 2, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityDeleteRequestV2("user", Collections.singletonList(new AtlasObjectId("hive_table", "qualifiedName", "db1.table1@cl1"))), 3, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(table1)), 4, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user2", new AtlasEntitiesWithExtInfo(table1)), 5, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(Arrays.asList(table1, table2))), 6, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+
+        Map<AtlasKafkaMessage<HookNotification>, Set<AtlasKafkaMessage<HookNotification>>> superseded = NotificationHookConsumer.getSupersededMessages(messages);
+
+        // messages before the delete are not superseded by messages after it; message from user2 is not superseded by a message from user
+        assertEquals(superseded.size(), 2);
+        assertEquals(superseded.get(messages.get(0)), Collections.singleton(messages.get(1)));
+        assertEquals(superseded.get(messages.get(3)), Collections.singleton(messages.get(5)));
+    }
+
+    @Test
+    public void testAttributesOfSupersededEntityAreRetained() {
+        AtlasEntity table1       = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+        AtlasEntity table1Update = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+        AtlasEntity table2       = new AtlasEntity("hive_table", "qualifiedName", "db1.table2@cl1");
+
+        table1.setAttribute("owner", "user1");
+        table1.setAttribute("comment", "table 1");
+        table1.setRelationshipAttribute("db", new AtlasObjectId("hive_db", "qualifiedName", "db1@cl1"));
+        table1Update.setAttribute("comment", "updated table 1");
+
+        List<AtlasKafkaMessage<HookNotification>> messages = new ArrayList<>();
+
+        messages.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(table1)), 1, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(Arrays.asList(table1Update, table2))), 2, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+
+        Map<AtlasKafkaMessage<HookNotification>, Set<AtlasKafkaMessage<HookNotification>>> superseded = NotificationHookConsumer.getSupersededMessages(messages);
+
+        // attributes missing in the later message are merged into it; attributes present in the later message are not overwritten
+        assertEquals(superseded.size(), 1);
+        assertTrue(superseded.containsKey(messages.get(0)));
+        assertEquals(table1Update.getAttribute("owner"), "user1");
+        assertEquals(table1Update.getAttribute("comment"), "updated table 1");
+        assertEquals(table1Update.getRelationshipAttribute("db"), new AtlasObjectId("hive_db", "qualifiedName", "db1@cl1"));
+        assertFalse(table2.hasAttribute("owner"));
+    }
+
+    @Test
+    public void testCollectionMutationsAreNotReordered() {
+        AtlasEntity table1       = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+        AtlasEntity table1Append = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+
+        table1Append.setAppendAttribute("columns", Collections.singletonList(new AtlasObjectId("hive_column", "qualifiedName", "db1.table1.col1@cl1")));
+
+        List<AtlasKafkaMessage<HookNotification>> messages = new ArrayList<>();
+
+        messages.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(table1)), 1, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(table1Append)), 2, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(table1)), 3, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+
+        // message with elements to append is neither superseded, nor lets earlier messages be superseded by later ones
+        assertTrue(NotificationHookConsumer.getSupersededMessages(messages).isEmpty());
+    }
+
+    @Test
+    public void testMessagesAreNotSupersededAcrossPartitions() {
+        AtlasEntity table1 = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+
+        List<AtlasKafkaMessage<HookNotification>> messages = new ArrayList<>();
+
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(table1)), 1, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(table1)), 1, KafkaNotification.ATLAS_HOOK_TOPIC, 1));
+
+        assertTrue(NotificationHookConsumer.getSupersededMessages(messages).isEmpty());
+    }
+
+    @Test
+    public void testReferencesToUnassignedGuidsAreNotMerged() {
+        AtlasEntity db1          = new AtlasEntity("hive_db", "qualifiedName", "db1@cl1");
+        AtlasEntity table1       = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+        AtlasEntity table1Update = new AtlasEntity("hive_table", "qualifiedName", "db1.table1@cl1");
+
+        table1.setRelationshipAttribute("db", AtlasTypeUtil.getAtlasObjectId(db1)); // guid assigned by the hook, defined only in the first message
+
+        AtlasEntitiesWithExtInfo createTable = new AtlasEntitiesWithExtInfo(table1);
+
+        createTable.addReferredEntity(db1);
+
+        AtlasEntitiesWithExtInfo updateTable = new AtlasEntitiesWithExtInfo(table1Update);
+
+        updateTable.addReferredEntity(new AtlasEntity("hive_db", "qualifiedName", "db1@cl1"));
+
+        List<AtlasKafkaMessage<HookNotification>> messages = new ArrayList<>();
+
+        messages.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", createTable), 1, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", updateTable), 2, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+
+        assertTrue(NotificationHookConsumer.getSupersededMessages(messages).isEmpty());
+        assertFalse(table1Update.hasRelationshipAttribute("db"));
+    }
+
+    @Test
+    public void testSupersededOffsetIsCommittedAfterLaterMessage() throws Exception {
+        NotificationConsumer                      consumer     = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer     hookConsumer = createMergingHookConsumer(consumer);
+        List<AtlasKafkaMessage<HookNotification>> messages     = getMessagesToMerge();
+
+        hookConsumer.addSupersededMessages(Collections.singletonMap(messages.get(0), Collections.singleton(messages.get(2))));
+
+        // offset of the superseded message is not committed until the message that absorbed its entities is processed
+        hookConsumer.handleMessage(messages.get(1));
+
+        verify(consumer, times(1)).commit(any(TopicPartition.class), eq(1L));
+
+        hookConsumer.handleMessage(messages.get(2));
+
+        verify(consumer, times(1)).commit(any(TopicPartition.class), eq(4L));
+    }
+
+    @Test
+    public void testConsecutiveMessagesAreMerged() throws Exception {
+        NotificationConsumer                  consumer     = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer hookConsumer = createMergingHookConsumer(consumer);
+
+        hookConsumer.handleMessages(getMessagesToMerge());
+
+        verify(atlasEntityStore, times(1)).createOrUpdate(any(EntityStream.class), anyBoolean());
+        verify(consumer, times(1)).commit(any(TopicPartition.class), eq(4L));
+    }
+
+    @Test
+    public void testMergedMessagesAreProcessedIndividuallyOnFailure() throws Exception {
+        NotificationConsumer                  consumer     = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer hookConsumer = createMergingHookConsumer(consumer);
+        EntityMutationResponse                response     = mock(EntityMutationResponse.class);
+
+        when(atlasEntityStore.createOrUpdate(any(EntityStream.class), anyBoolean())).thenThrow(new RuntimeException("Simulating failure of merged messages")).thenReturn(response);
+
+        hookConsumer.handleMessages(getMessagesToMerge());
+
+        verify(atlasEntityStore, times(4)).createOrUpdate(any(EntityStream.class), anyBoolean());
+        verify(consumer, times(3)).commit(any(TopicPartition.class), anyLong());
+    }
+
+    @Test
+    public void testMessagesHavingSameEntityAreNotMerged() throws Exception {
+        NotificationConsumer                      consumer     = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer     hookConsumer = createMergingHookConsumer(consumer);
+        List<AtlasKafkaMessage<HookNotification>> messages     = new ArrayList<>();
+
+        // same new entity in both messages, with different guids assigned by the hook
+        messages.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db", "qualifiedName", "db1@cl1"))), 1, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db", "qualifiedName", "db1@cl1"))), 2, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db", "qualifiedName", "db2@cl1"))), 3, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+
+        hookConsumer.handleMessages(messages);
+
+        verify(atlasEntityStore, times(2)).createOrUpdate(any(EntityStream.class), anyBoolean());
+        verify(consumer, times(1)).commit(any(TopicPartition.class), eq(2L));
+        verify(consumer, times(1)).commit(any(TopicPartition.class), eq(4L));
+    }
+
+    @Test
+    public void testMessagesOfDifferentPartitionsAreNotMerged() throws Exception {
+        NotificationConsumer                      consumer     = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer     hookConsumer = createMergingHookConsumer(consumer);
+        List<AtlasKafkaMessage<HookNotification>> messages     = new ArrayList<>();
+
+        messages.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db", "qualifiedName", "db1@cl1"))), 7, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        messages.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db", "qualifiedName", "db2@cl1"))), 3, KafkaNotification.ATLAS_HOOK_TOPIC, 1));
+
+        hookConsumer.handleMessages(messages);
+
+        // offset of each partition is committed
+        verify(atlasEntityStore, times(2)).createOrUpdate(any(EntityStream.class), anyBoolean());
+        verify(consumer, times(1)).commit(eq(new TopicPartition(KafkaNotification.ATLAS_HOOK_TOPIC, 0)), eq(8L));
+        verify(consumer, times(1)).commit(eq(new TopicPartition(KafkaNotification.ATLAS_HOOK_TOPIC, 1)), eq(4L));
+    }
+
+    @Test
+    public void testEmptyMessageIsNotMerged() throws Exception {
+        NotificationConsumer                      consumer     = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer     hookConsumer = createMergingHookConsumer(consumer);
+        List<AtlasKafkaMessage<HookNotification>> messages     = getMessagesToMerge();
+
+        messages.add(1, new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo()), 5, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+
+        hookConsumer.handleMessages(messages);
+
+        // empty message is committed without processing; messages before and after it are processed separately
+        verify(atlasEntityStore, times(2)).createOrUpdate(any(EntityStream.class), anyBoolean());
+        verify(consumer, times(1)).commit(any(TopicPartition.class), eq(6L));
+    }
+
+    @Test
+    public void testMessagesSinceLastCommitAreReplayedAfterCommitFailure() {
+        NotificationHookConsumer.FailedCommitOffsetRecorder recorder = new NotificationHookConsumer.FailedCommitOffsetRecorder();
+
+        recorder.recordIfFailed(false, 12, 10L); // last successful commit was at offset 10; commits of messages 10-12 failed
+
+        assertFalse(recorder.isMessageReplayed(9));
+        assertTrue(recorder.isMessageReplayed(10));
+        assertTrue(recorder.isMessageReplayed(12));
+        assertFalse(recorder.isMessageReplayed(13));
+
+        recorder.recordIfFailed(true, 10);
+
+        assertTrue(recorder.isMessageReplayed(11));
+
+        recorder.recordIfFailed(true, 12);
+
+        assertFalse(recorder.isMessageReplayed(11));
+        assertNull(recorder.getCurrentOffset());
+    }
+
+    private NotificationHookConsumer.HookConsumer createMergingHookConsumer(NotificationConsumer consumer) throws AtlasException {
+        ApplicationProperties.get().setProperty(NotificationHookConsumer.CONSUMER_MERGE_MESSAGES_BATCH_SIZE, 10);
+
+        try {
+            NotificationHookConsumer notificationHookConsumer = new NotificationHookConsumer(notificationInterface, atlasEntityStore, serviceState, instanceConverter, typeRegistry, metricsUtil);
+
+            return notificationHookConsumer.new HookConsumer(consumer);
+        } finally {
+            ApplicationProperties.get().clearProperty(NotificationHookConsumer.CONSUMER_MERGE_MESSAGES_BATCH_SIZE);
+        }
+    }
+
+    private List<AtlasKafkaMessage<HookNotification>> getMessagesToMerge() {
+        List<AtlasKafkaMessage<HookNotification>> ret = new ArrayList<>();
+
+        ret.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db", "qualifiedName", "db1@cl1"))), 1, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        ret.add(new AtlasKafkaMessage(new EntityCreateRequestV2("user", new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db", "qualifiedName", "db2@cl1"))), 2, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+        ret.add(new AtlasKafkaMessage(new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(new AtlasEntity("hive_db", "qualifiedName", "db3@cl1"))), 3, KafkaNotification.ATLAS_HOOK_TOPIC, 0));
+
+        return ret;
+    }
+
     private NotificationHookConsumer setupNotificationHookConsumer() throws AtlasException {
         List<NotificationConsumer<Object>> consumers                = new ArrayList();
         NotificationConsumer               notificationConsumerMock = mock(NotificationConsumer.class);
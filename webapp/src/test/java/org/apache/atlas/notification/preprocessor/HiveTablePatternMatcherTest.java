@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification.preprocessor;
+
+import org.apache.atlas.notification.preprocessor.PreprocessorContext.PreprocessAction;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class HiveTablePatternMatcherTest {
+    private static final List<String> TABLE_NAMES = Arrays.asList("tmp_db.t1@cl1", "tmp_db2.t1@cl1", "staging.orders@cl1", "sales.orders@cl1",
+                                                                  "sales.orders_tmp_1@cl1", "sales.orders_tmp_x@cl1", "hr.emp@cl1", "hr.emp@cl2",
+                                                                  "hr.emp", "aa@cl1", "tmp_db.t1\n@cl1", "");
+
+    @Test
+    public void testMatchesSameAsRegex() {
+        List<Pattern> toIgnore = compile("tmp_db\\..*", "staging.*", "hr\\.emp@cl2", ".*_tmp_\\d+@.*", "(a)\\1@.*");
+        List<Pattern> toPrune  = compile("sales\\..*", "hr\\..*@cl1");
+
+        HiveTablePatternMatcher matcher = new HiveTablePatternMatcher(toIgnore, toPrune, 100);
+
+        for (int i = 0; i < 2; i++) { // second iteration verifies cached results
+            for (String tableName : TABLE_NAMES) {
+                assertEquals(matcher.getPreprocessAction(tableName), getExpectedAction(tableName, toIgnore, toPrune), tableName);
+            }
+        }
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        HiveTablePatternMatcher matcher = new HiveTablePatternMatcher(compile("tmp_db\\..*"), Collections.emptyList(), 5);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(matcher.getPreprocessAction("tmp_db.t" + i + "@cl1"), PreprocessAction.IGNORE);
+            assertEquals(matcher.getPreprocessAction("db.t" + i + "@cl1"), PreprocessAction.NONE);
+        }
+    }
+
+    @Test
+    public void testEmptyMatcher() {
+        HiveTablePatternMatcher matcher = new HiveTablePatternMatcher(Collections.emptyList(), Collections.emptyList(), 100);
+
+        assertTrue(matcher.isEmpty());
+        assertEquals(matcher.getPreprocessAction("tmp_db.t1@cl1"), PreprocessAction.NONE);
+    }
+
+    @Test
+    public void testGetLiteral() {
+        assertEquals(HiveTablePatternMatcher.getLiteral("db\\.tbl@cl1"), "db.tbl@cl1");
+        assertNull(HiveTablePatternMatcher.getLiteral("db.tbl"));
+        assertNull(HiveTablePatternMatcher.getLiteral("db\\d"));
+    }
+
+    private static List<Pattern> compile(String... regexes) {
+        List<Pattern> ret = new ArrayList<>();
+
+        for (String regex : regexes) {
+            ret.add(Pattern.compile(regex));
+        }
+
+        return ret;
+    }
+
+    private static PreprocessAction getExpectedAction(String name, List<Pattern> toIgnore, List<Pattern> toPrune) {
+        for (Pattern p : toIgnore) {
+            if (p.matcher(name).matches()) {
+                return PreprocessAction.IGNORE;
+            }
+        }
+
+        for (Pattern p : toPrune) {
+            if (p.matcher(name).matches()) {
+                return PreprocessAction.PRUNE;
+            }
+        }
+
+        return PreprocessAction.NONE;
+    }
+}
@@ -110,7 +110,7 @@ public class TestEntityRESTDelete {
 
         createEntities();
 
-        EntityMutationResponse response = entityREST.deleteByGuid(dbEntities.get(0).getGuid());
+        EntityMutationResponse response = entityREST.deleteByGuid(dbEntities.get(0).getGuid(), null);
 
         assertNotNull(response);
         assertNotNull(response.getDeletedEntities());
@@ -122,7 +122,7 @@ public class TestEntityRESTDelete {
         RequestContext.get().setDeleteType(DeleteType.HARD);
 
         createEntities();
-        EntityMutationResponse response = entityREST.deleteByGuid(dbEntities.get(0).getGuid());
+        EntityMutationResponse response = entityREST.deleteByGuid(dbEntities.get(0).getGuid(), null);
 
         assertNotNull(response);
         assertNotNull(response.getDeletedEntities());
@@ -173,7 +173,7 @@ public class TestEntityRESTDelete {
 
         createEntities();
         entityREST.deleteByUniqueAttribute(TestUtilsV2.DATABASE_TYPE, toHttpServletRequest(TestUtilsV2.NAME,
-                (String) dbEntities.get(0).getAttribute(TestUtilsV2.NAME)));
+                (String) dbEntities.get(0).getAttribute(TestUtilsV2.NAME)), null);
 
         assertSoftDelete(dbEntities.get(0).getGuid());
     }
@@ -185,7 +185,7 @@ public class TestEntityRESTDelete {
         createEntities();
 
         entityREST.deleteByUniqueAttribute(TestUtilsV2.DATABASE_TYPE, toHttpServletRequest(TestUtilsV2.NAME,
-                (String) dbEntities.get(0).getAttribute(TestUtilsV2.NAME)));
+                (String) dbEntities.get(0).getAttribute(TestUtilsV2.NAME)), null);
 
         assertHardDelete(dbEntities.get(0).getGuid());
     }